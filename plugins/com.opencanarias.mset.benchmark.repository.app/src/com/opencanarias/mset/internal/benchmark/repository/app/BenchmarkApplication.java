@@ -15,19 +15,28 @@ import org.eclipse.equinox.app.IApplicationContext;
 
 /**
  * An Equinox application that starts benchmarking all registered repositories
- * right away.
+ * right away. If {@link BenchmarkManager#PROPERTY_RESUME} is set, the interrupted
+ * run recorded in that journal is resumed instead.
  * <p>
  * The main loop may be stopped any moment through OSGI console commands
  * thanks to {@link BenchmarkCommandProvider}.
+ * <p>
+ * If {@link BenchmarkPlan#PROPERTY_PLAN} is set, that {@link BenchmarkPlan plan} is
+ * applied first, and with {@link BenchmarkPlan#PROPERTY_DRY_RUN} what it would execute
+ * is printed instead.
+ * <p>
+ * When launched by a {@link ForkedJVM}, only the benchmarks selected by the
+ * parent JVM are executed, and their results are sent back to it.
  *  
  * @author vroldan
+ * @see StandaloneLauncher
  *
  */
 public class BenchmarkApplication implements IApplication {
 
 	@Override
 	public Object start(IApplicationContext context) throws Exception {
-		BenchmarkManager.INSTANCE.benchmarkAll();
+		BenchmarkManager.INSTANCE.launch();
 		return null;
 	}
 
@@ -10,11 +10,16 @@
  */
 package com.opencanarias.mset.internal.benchmark.repository.app;
 
+import java.io.File;
+import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.osgi.framework.console.CommandInterpreter;
 import org.eclipse.osgi.framework.console.CommandProvider;
 
+import com.opencanarias.mset.repository.benchmark.AdaptiveIterationPolicy;
 import com.opencanarias.mset.repository.benchmark.IModelRepository;
 
 /**
@@ -24,6 +29,35 @@ import com.opencanarias.mset.repository.benchmark.IModelRepository;
  * where <code>repository</code> is either an {@link IModelRepository} name, or <code>all</code>
  * in case we would like to benchmark all repositories. We would also provide the argument
  * <code>stop</code> to force the current benchmarking to finalize.
+ * <p>
+ * <code>benchmark fork [none | repository | case] [jvmArgs]</code><p>
+ * sets the {@link ForkMode} and JVM arguments for the next benchmarks, or shows them
+ * if no mode is given.
+ * <p>
+ * <code>benchmark adaptive [off | targetWidth [pairBudgetSeconds [totalBudgetSeconds]]]</code><p>
+ * sets the {@link AdaptiveIterationPolicy} for the next benchmarks, which then ignore the
+ * iteration count, or shows it if no argument is given. Budgets of 0 mean no limit.
+ * <p>
+ * <code>benchmark plan planFile [dryrun]</code><p>
+ * applies a {@link BenchmarkPlan} and runs it, or with <code>dryrun</code> only shows
+ * what it would execute and its estimated duration.
+ * <p>
+ * <code>benchmark compare [options] baseline... candidate</code><p>
+ * compares result files of different runs, see {@link ResultComparator}.
+ * <p>
+ * <code>benchmark complexity [options] results...</code><p>
+ * fits how each case scales with the model size, see {@link ComplexityReporter}.
+ * <p>
+ * <code>benchmark resume journal (repositoryName | all) [iterations]</code><p>
+ * continues the interrupted run recorded in the journal, skipping what it already completed.
+ * <p>
+ * <code>benchmark report journal</code><p>
+ * exports the results of a {@link com.opencanarias.mset.repository.benchmark.ResultJournal journal}
+ * to a CSV file and an HTML report with charts, e.g. after a run that did not finish.
+ * <p>
+ * <code>benchmark heap heapSeriesFile</code><p>
+ * exports a {@link com.opencanarias.mset.repository.benchmark.HeapSeriesUtils heap series file}
+ * to a CSV file, one line per heap snapshot.
  * 
  * @author vroldan
  *
@@ -36,23 +70,150 @@ public class BenchmarkCommandProvider implements CommandProvider {
 	
 	private static final String ARGUMENT_LIST = "list"; //$NON-NLS-0$
 	
+	private static final String ARGUMENT_FORK = "fork"; //$NON-NLS-0$
+	
+	private static final String ARGUMENT_COMPARE = "compare"; //$NON-NLS-0$
+	
+	private static final String ARGUMENT_REPORT = "report"; //$NON-NLS-0$
+	
+	private static final String ARGUMENT_RESUME = "resume"; //$NON-NLS-0$
+	
+	private static final String ARGUMENT_HEAP = "heap"; //$NON-NLS-0$
+	
+	private static final String ARGUMENT_COMPLEXITY = "complexity"; //$NON-NLS-0$
+	
+	private static final String ARGUMENT_ADAPTIVE = "adaptive"; //$NON-NLS-0$
+	
+	private static final String ARGUMENT_OFF = "off"; //$NON-NLS-0$
+	
+	private static final String ARGUMENT_PLAN = "plan"; //$NON-NLS-0$
+	
+	private static final String ARGUMENT_DRY_RUN = "dryrun"; //$NON-NLS-0$
+	
 	private static BenchmarkThread thread = new BenchmarkThread(); 
 	
 	@Override
 	public String getHelp() {
-		return "benchmark (repositoryName [iterations] | all [iterations] | list | stop)";
+		return "benchmark (repositoryName [iterations] | all [iterations] | list | stop | fork [none | repository | case] [jvmArgs] | adaptive [off | targetWidth [pairBudgetSeconds [totalBudgetSeconds]]] | plan planFile [dryrun] | compare [options] baseline... candidate | complexity [options] results... | resume journal (repositoryName | all) [iterations] | report journal | heap heapSeriesFile)";
 	}
 
 	public Object _benchmark(CommandInterpreter interpreter) {
 		String argument1 = interpreter.nextArgument();
 		String argument2 = interpreter.nextArgument();
 		if (argument1 == null) {
-			interpreter.println("Benchmark option must be specified: <repository_name> | all | list | stop");
+			interpreter.println("Benchmark option must be specified: <repository_name> | all | list | stop | fork | adaptive | plan | compare | complexity | resume | report | heap");
 			return null;
 		}
+		File journal = null;
+		if (ARGUMENT_RESUME.equalsIgnoreCase(argument1)) {
+			if (argument2 == null || !new File(argument2).isFile()) {
+				interpreter.println(MessageFormat.format("Journal file \"{0}\" not found", argument2));
+				return null;
+			}
+			journal = new File(argument2).getAbsoluteFile();
+			argument1 = interpreter.nextArgument();
+			argument2 = interpreter.nextArgument();
+			if (argument1 == null) {
+				interpreter.println("Repository to resume must be specified: <repository_name> | all");
+				return null;
+			}
+		}
 		
 		if (ARGUMENT_STOP.equalsIgnoreCase(argument1)) {
 			BenchmarkManager.INSTANCE.stop();
+		} else if (ARGUMENT_FORK.equalsIgnoreCase(argument1)) {
+			if (argument2 != null) {
+				try {
+					BenchmarkManager.INSTANCE.setForkMode(ForkMode.valueOf(argument2.toUpperCase()));
+				} catch (IllegalArgumentException e) {
+					interpreter.println(MessageFormat.format("Unknown fork mode \"{0}\"", argument2));
+					return null;
+				}
+				StringBuilder jvmArgs = new StringBuilder();
+				for (String arg = interpreter.nextArgument(); arg != null; arg = interpreter.nextArgument()) {
+					jvmArgs.append(jvmArgs.length() > 0 ? " " : "").append(arg);
+				}
+				if (jvmArgs.length() > 0) {
+					BenchmarkManager.INSTANCE.setForkJvmArgs(jvmArgs.toString());
+				}
+			}
+			interpreter.println(MessageFormat.format("Fork mode: {0}, JVM arguments: {1}", 
+					BenchmarkManager.INSTANCE.getForkMode().name().toLowerCase(), BenchmarkManager.INSTANCE.getForkJvmArgs()));
+		} else if (ARGUMENT_ADAPTIVE.equalsIgnoreCase(argument1)) {
+			if (ARGUMENT_OFF.equalsIgnoreCase(argument2)) {
+				BenchmarkManager.INSTANCE.setAdaptivePolicy(null);
+			} else if (argument2 != null) {
+				String pairBudget = interpreter.nextArgument();
+				String totalBudget = interpreter.nextArgument();
+				try {
+					BenchmarkManager.INSTANCE.setAdaptivePolicy(new AdaptiveIterationPolicy(Double.parseDouble(argument2),
+							pairBudget != null ? Math.round(Double.parseDouble(pairBudget) * 1000) : 0,
+							totalBudget != null ? Math.round(Double.parseDouble(totalBudget) * 1000) : 0));
+				} catch (IllegalArgumentException e) {
+					interpreter.println(MessageFormat.format("Invalid adaptive iterations: {0}", e.getMessage()));
+					return null;
+				}
+			}
+			AdaptiveIterationPolicy policy = BenchmarkManager.INSTANCE.getAdaptivePolicy();
+			interpreter.println(policy != null ? MessageFormat.format("Adaptive iterations: {0}", policy) : "Adaptive iterations: off");
+		} else if (ARGUMENT_PLAN.equalsIgnoreCase(argument1)) {
+			if (argument2 == null || !new File(argument2).isFile()) {
+				interpreter.println(MessageFormat.format("Plan file \"{0}\" not found", argument2));
+				return null;
+			}
+			BenchmarkPlan plan;
+			try {
+				plan = BenchmarkPlan.load(new File(argument2).getAbsoluteFile());
+			} catch (IOException e) {
+				interpreter.println(MessageFormat.format("Error reading plan file: {0}", e.getMessage()));
+				return null;
+			} catch (IllegalArgumentException e) {
+				interpreter.println(MessageFormat.format("Invalid plan file: {0}", e.getMessage()));
+				return null;
+			}
+			plan.apply();
+			if (ARGUMENT_DRY_RUN.equalsIgnoreCase(interpreter.nextArgument())) {
+				interpreter.println(BenchmarkManager.INSTANCE.dryRun());
+			} else if (!benchmarkAsync(ARGUMENT_ALL, Integer.getInteger(BenchmarkManager.PROPERTY_ITERATIONS, BenchmarkManager.DEFAULT_ITERATION_COUNT), null)) {
+				interpreter.println("A benchmark is running, please wait until it finishes, of stop it using the \"stop\" argument");
+			}
+		} else if (ARGUMENT_COMPARE.equalsIgnoreCase(argument1)) {
+			List<String> arguments = new ArrayList<String>();
+			for (String arg = argument2; arg != null; arg = interpreter.nextArgument()) {
+				arguments.add(arg);
+			}
+			StringBuilder output = new StringBuilder();
+			ResultComparator.compare(arguments, output);
+			interpreter.println(output);
+		} else if (ARGUMENT_COMPLEXITY.equalsIgnoreCase(argument1)) {
+			List<String> arguments = new ArrayList<String>();
+			for (String arg = argument2; arg != null; arg = interpreter.nextArgument()) {
+				arguments.add(arg);
+			}
+			StringBuilder output = new StringBuilder();
+			ComplexityReporter.analyze(arguments, output);
+			interpreter.println(output);
+		} else if (ARGUMENT_REPORT.equalsIgnoreCase(argument1)) {
+			if (argument2 == null || !new File(argument2).isFile()) {
+				interpreter.println(MessageFormat.format("Journal file \"{0}\" not found", argument2));
+				return null;
+			}
+			File journalFile = new File(argument2).getAbsoluteFile();
+			File file = BenchmarkManager.INSTANCE.generateCSV(journalFile);
+			interpreter.println(MessageFormat.format("Results available in file \"{0}\"", file.getAbsolutePath()));
+			file = BenchmarkManager.INSTANCE.generateHTML(journalFile);
+			interpreter.println(MessageFormat.format("Report available in file \"{0}\"", file.getAbsolutePath()));
+		} else if (ARGUMENT_HEAP.equalsIgnoreCase(argument1)) {
+			if (argument2 == null || !new File(argument2).isFile()) {
+				interpreter.println(MessageFormat.format("Heap series file \"{0}\" not found", argument2));
+				return null;
+			}
+			try {
+				File file = BenchmarkManager.INSTANCE.generateHeapCSV(new File(argument2).getAbsoluteFile());
+				interpreter.println(MessageFormat.format("Heap series available in file \"{0}\"", file.getAbsolutePath()));
+			} catch (IOException e) {
+				interpreter.println(MessageFormat.format("Error exporting heap series: {0}", e.getMessage()));
+			}
 		} else if (ARGUMENT_LIST.equalsIgnoreCase(argument1)) {
 			interpreter.println("List of available IModelRepository instances");
 			for (String repoName : BenchmarkManager.INSTANCE.listRepositories()) {
@@ -67,7 +228,7 @@ public class BenchmarkCommandProvider implements CommandProvider {
 				interpreter.println("Iteration must be a positive integer bigger than 1");
 			} else {
 				if (BenchmarkManager.INSTANCE.repositoryExists(argument1) || ARGUMENT_ALL.equalsIgnoreCase(argument1)) {
-					if (!benchmarkAsync(argument1, iterations)) {
+					if (!benchmarkAsync(argument1, iterations, journal)) {
 						interpreter.println("A benchmark is running, please wait until it finishes, of stop it using the \"stop\" argument");
 					};
 				} else {
@@ -79,13 +240,13 @@ public class BenchmarkCommandProvider implements CommandProvider {
 		return null;
 	}
 
-	private boolean benchmarkAsync(final String repository, int iterations) {
+	private boolean benchmarkAsync(final String repository, int iterations, File journal) {
 		synchronized (thread) {
 			if (thread != null && thread.isAlive()) {
 				return false;
 			}
 			thread = new BenchmarkThread();
-			thread.setRepository(repository, iterations);
+			thread.setRepository(repository, iterations, journal);
 			thread.start();
 		}
 		return true;
@@ -95,18 +256,20 @@ public class BenchmarkCommandProvider implements CommandProvider {
 		
 		private String repository;
 		private int iterations;
+		private File journal;
 		
-		public void setRepository(final String repository, int iterations) {
+		public void setRepository(final String repository, int iterations, File journal) {
 			this.repository = repository;
 			this.iterations = iterations;
+			this.journal = journal;
 		}
 		
 		@Override
 		public void run() {
 			if (ARGUMENT_ALL.equalsIgnoreCase(repository)) {
-				BenchmarkManager.INSTANCE.benchmarkAll(iterations);	
+				BenchmarkManager.INSTANCE.benchmarkAll(iterations, journal);	
 			} else {
-				BenchmarkManager.INSTANCE.benchmarkRepository(repository, iterations);		
+				BenchmarkManager.INSTANCE.benchmarkRepository(repository, iterations, journal);		
 			}
 			super.run();
 		}
@@ -13,32 +13,67 @@ package com.opencanarias.mset.internal.benchmark.repository.app;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.text.MessageFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.opencanarias.mset.repository.benchmark.AdaptiveIterationPolicy;
 import com.opencanarias.mset.repository.benchmark.BenchmarkUtils;
 import com.opencanarias.mset.repository.benchmark.CSVUtils;
+import com.opencanarias.mset.repository.benchmark.ComplexityAnalyzer;
+import com.opencanarias.mset.repository.benchmark.HTMLUtils;
+import com.opencanarias.mset.repository.benchmark.HeapSeriesUtils;
 import com.opencanarias.mset.repository.benchmark.IAggregatedResult;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkData;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkGroupRegistry;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.IComplexityFit;
+import com.opencanarias.mset.repository.benchmark.IHeapSeries;
 import com.opencanarias.mset.repository.benchmark.IModelRepository;
 import com.opencanarias.mset.repository.benchmark.IModelRepositoryRegistry;
+import com.opencanarias.mset.repository.benchmark.ParameterSpace;
+import com.opencanarias.mset.repository.benchmark.ResultJournal;
 
 /**
  * Handles a repository benchmarking that gives progress report through logging,
- * and may be interrupted at any time. The results are exported to a CSV file
- * using {@link CSVUtils}.
+ * and may be interrupted at any time. Every result is appended to a {@link ResultJournal}
+ * as soon as it is available, so that a crash or a stop does not lose the results
+ * obtained so far. Once the benchmarking finishes, the results are exported from the
+ * journal to a CSV file using {@link CSVUtils}. The {@link IBenchmarkResult#getHeapSnapshots() heap snapshots}
+ * of every result are appended to a heap series file next to the journal, see {@link HeapSeriesUtils}.
+ * <p>
+ * An interrupted run may be resumed from its journal: the combinations of iteration,
+ * group, case and repository already recorded without failure are skipped, and the
+ * rest of results are appended to the same journal.
+ * <p>
+ * Depending on the {@link ForkMode}, benchmarks are executed in this JVM, or in
+ * child JVMs launched through {@link ForkedJVM}, which send their results back
+ * as they become available.
+ * <p>
+ * With an {@link AdaptiveIterationPolicy}, the iteration count is ignored: each pair of
+ * case and repository is iterated until its results are precise enough or its share of
+ * the time budget runs out, see the <code>PROPERTY_ADAPTIVE_*</code> system properties.
+ * <p>
+ * The state of the run is published by a {@link BenchmarkMonitor}, as an MBean and, if
+ * {@link #PROPERTY_METRICS_PORT} is set, in OpenMetrics format through a {@link MetricsServer}.
  * 
  * @author vroldan
  * @see IModelRepositoryRegistry
@@ -52,15 +87,238 @@ public class BenchmarkManager {
 
 	private static final SimpleDateFormat SDF_FILE_NAME = new SimpleDateFormat("yyyyMMdd_HHmm"); //$NON-NLS-1$
 	
+	private static final String RESULTS_DIRECTORY = "results"; //$NON-NLS-1$
+	
+	/**
+	 * Extension of the {@link ResultJournal} files, one JSON entry per line
+	 */
+	public static final String JOURNAL_EXTENSION = ".ndjson"; //$NON-NLS-1$
+	
+	private static final String CSV_EXTENSION = ".csv"; //$NON-NLS-1$
+	
+	private static final String HTML_EXTENSION = ".html"; //$NON-NLS-1$
+	
+	/**
+	 * Extension of the heap series files, see {@link HeapSeriesUtils}
+	 */
+	public static final String HEAP_SERIES_EXTENSION = ".heap"; //$NON-NLS-1$
+	
 	public static BenchmarkManager INSTANCE = new BenchmarkManager();
 	
 	private boolean shouldStop = false;
 	
 	public static final int DEFAULT_ITERATION_COUNT = 1;
 	
+	/**
+	 * System properties starting with this prefix are handed to every {@link IBenchmarkCase}
+	 * as {@link IBenchmarkData#getOptions() options}, without the prefix. For instance,
+	 * <code>-Dmset.benchmark.warmupIterations=10</code>
+	 */
+	public static final String OPTION_PROPERTY_PREFIX = "mset.benchmark."; //$NON-NLS-1$
+	
+	/**
+	 * If <code>true</code>, values outside the Tukey fences are left out of the
+	 * {@link IAggregatedResult#getStatistics(IAggregatedResult.Metric) aggregated statistics}
+	 */
+	public static final String PROPERTY_REJECT_OUTLIERS = OPTION_PROPERTY_PREFIX + "rejectOutliers"; //$NON-NLS-1$
+	
+	/**
+	 * System properties starting with this prefix configure forked execution, and are
+	 * not handed to {@link IBenchmarkCase benchmark cases}
+	 */
+	public static final String FORK_PROPERTY_PREFIX = OPTION_PROPERTY_PREFIX + "fork."; //$NON-NLS-1$
+	
+	/**
+	 * The {@link ForkMode} name, case insensitive. Defaults to {@link ForkMode#NONE}
+	 */
+	public static final String PROPERTY_FORK_MODE = FORK_PROPERTY_PREFIX + "mode"; //$NON-NLS-1$
+	
+	/**
+	 * Space separated JVM arguments for forked JVMs, for instance <code>-Xmx2g -XX:+UseParallelGC</code>
+	 */
+	public static final String PROPERTY_FORK_JVM_ARGS = FORK_PROPERTY_PREFIX + "jvmArgs"; //$NON-NLS-1$
+	
+	static final String PROPERTY_FORK_REPOSITORY = FORK_PROPERTY_PREFIX + "repository"; //$NON-NLS-1$
+	
+	static final String PROPERTY_FORK_GROUP = FORK_PROPERTY_PREFIX + "group"; //$NON-NLS-1$
+	
+	static final String PROPERTY_FORK_CASE = FORK_PROPERTY_PREFIX + "case"; //$NON-NLS-1$
+	
+	static final String PROPERTY_FORK_ITERATIONS = FORK_PROPERTY_PREFIX + "iterations"; //$NON-NLS-1$
+	
+	/*
+	 * Iteration of the parent JVM run by a single iteration child, which reports it
+	 * instead of its own in the results and heap series
+	 */
+	static final String PROPERTY_FORK_ITERATION = FORK_PROPERTY_PREFIX + "iteration"; //$NON-NLS-1$
+	
+	static final String PROPERTY_FORK_RESUME = FORK_PROPERTY_PREFIX + "resume"; //$NON-NLS-1$
+	
+	static final String PROPERTY_FORK_HEAP_SERIES = FORK_PROPERTY_PREFIX + "heapSeries"; //$NON-NLS-1$
+	
+	/**
+	 * Path of the {@link ResultJournal} of an interrupted run, which the benchmark application
+	 * resumes instead of starting a new run
+	 */
+	public static final String PROPERTY_RESUME = OPTION_PROPERTY_PREFIX + "resume"; //$NON-NLS-1$
+	
+	/**
+	 * Regular expression selecting the repositories to benchmark by name, case insensitive
+	 */
+	public static final String PROPERTY_REPOSITORIES = OPTION_PROPERTY_PREFIX + "repositories"; //$NON-NLS-1$
+	
+	/**
+	 * Regular expression selecting the groups to benchmark by name, case insensitive
+	 */
+	public static final String PROPERTY_GROUPS = OPTION_PROPERTY_PREFIX + "groups"; //$NON-NLS-1$
+	
+	/**
+	 * Regular expression selecting the cases to benchmark by {@link IBenchmarkCase#getName() name},
+	 * case insensitive. Names include the parameters of the case, e.g. <code>ModelSave@.*</code>
+	 */
+	public static final String PROPERTY_CASES = OPTION_PROPERTY_PREFIX + "cases"; //$NON-NLS-1$
+	
+	/**
+	 * Iterations of the runs started without an explicit iteration count, e.g. by {@link BenchmarkApplication}
+	 */
+	public static final String PROPERTY_ITERATIONS = OPTION_PROPERTY_PREFIX + "iterations"; //$NON-NLS-1$
+	
+	/**
+	 * Directory of the journals and reports, <code>results</code> by default
+	 */
+	public static final String PROPERTY_OUTPUT = OPTION_PROPERTY_PREFIX + "output"; //$NON-NLS-1$
+	
+	/**
+	 * Relative width of the confidence interval at which a pair stops iterating, which enables
+	 * the {@link AdaptiveIterationPolicy adaptive iterations}, e.g. <code>0.05</code>
+	 */
+	public static final String PROPERTY_ADAPTIVE_TARGET_WIDTH = OPTION_PROPERTY_PREFIX + "adaptive.targetWidth"; //$NON-NLS-1$
+	
+	/**
+	 * Maximum seconds per pair of case and repository, which enables the adaptive iterations
+	 */
+	public static final String PROPERTY_ADAPTIVE_PAIR_BUDGET = OPTION_PROPERTY_PREFIX + "adaptive.pairBudget"; //$NON-NLS-1$
+	
+	/**
+	 * Maximum seconds of the whole run, which enables the adaptive iterations
+	 */
+	public static final String PROPERTY_ADAPTIVE_BUDGET = OPTION_PROPERTY_PREFIX + "adaptive.budget"; //$NON-NLS-1$
+	
+	/**
+	 * Minimum iterations per pair with adaptive iterations
+	 */
+	public static final String PROPERTY_ADAPTIVE_MIN_ITERATIONS = OPTION_PROPERTY_PREFIX + "adaptive.minIterations"; //$NON-NLS-1$
+	
+	/**
+	 * Maximum iterations per pair with adaptive iterations
+	 */
+	public static final String PROPERTY_ADAPTIVE_MAX_ITERATIONS = OPTION_PROPERTY_PREFIX + "adaptive.maxIterations"; //$NON-NLS-1$
+	
+	/**
+	 * Local port serving the {@link BenchmarkMonitor} metrics while a run is in progress,
+	 * 0 for any free port. No metrics are served if not set.
+	 */
+	public static final String PROPERTY_METRICS_PORT = OPTION_PROPERTY_PREFIX + "metrics.port"; //$NON-NLS-1$
+	
+	private ForkMode forkMode = readForkMode();
+	
+	private AdaptiveIterationPolicy adaptivePolicy = readAdaptivePolicy();
+	
+	private String forkJvmArgs = System.getProperty(PROPERTY_FORK_JVM_ARGS);
+	
+	private ForkedJVM currentFork;
+	
+	private final BenchmarkMonitor monitor = new BenchmarkMonitor();
+	
 	private BenchmarkManager() {}
 	
+	private ForkMode readForkMode() {
+		String mode = System.getProperty(PROPERTY_FORK_MODE, ForkMode.NONE.name());
+		try {
+			return ForkMode.valueOf(mode.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			logger.error("Unknown fork mode \"{}\", benchmarks will not be forked", mode);
+			return ForkMode.NONE;
+		}
+	}
+	
+	private AdaptiveIterationPolicy readAdaptivePolicy() {
+		String targetWidth = System.getProperty(PROPERTY_ADAPTIVE_TARGET_WIDTH);
+		String pairBudget = System.getProperty(PROPERTY_ADAPTIVE_PAIR_BUDGET);
+		String budget = System.getProperty(PROPERTY_ADAPTIVE_BUDGET);
+		if (targetWidth == null && pairBudget == null && budget == null) {
+			return null;
+		}
+		try {
+			AdaptiveIterationPolicy policy = new AdaptiveIterationPolicy(
+					targetWidth != null ? Double.parseDouble(targetWidth) : AdaptiveIterationPolicy.DEFAULT_TARGET_WIDTH,
+					toMillis(pairBudget), toMillis(budget));
+			policy.setIterations(Integer.getInteger(PROPERTY_ADAPTIVE_MIN_ITERATIONS, AdaptiveIterationPolicy.DEFAULT_MIN_ITERATIONS),
+					Integer.getInteger(PROPERTY_ADAPTIVE_MAX_ITERATIONS, AdaptiveIterationPolicy.DEFAULT_MAX_ITERATIONS));
+			return policy;
+		} catch (IllegalArgumentException e) {
+			logger.error("Invalid adaptive iteration properties, iterations will not be adaptive", e);
+			return null;
+		}
+	}
+	
+	private static long toMillis(String seconds) {
+		return seconds != null ? Math.round(Double.parseDouble(seconds) * 1000) : 0;
+	}
+	
+	public ForkMode getForkMode() {
+		return forkMode;
+	}
+	
+	public void setForkMode(ForkMode forkMode) {
+		this.forkMode = forkMode;
+	}
+	
+	public String getForkJvmArgs() {
+		return forkJvmArgs;
+	}
+	
+	public void setForkJvmArgs(String forkJvmArgs) {
+		this.forkJvmArgs = forkJvmArgs;
+	}
+	
+	/**
+	 * Reads again the fork mode, fork JVM arguments and adaptive policy from the system
+	 * properties, e.g. after a {@link BenchmarkPlan} sets them, replacing the ones set
+	 * through the console
+	 */
+	public void reloadProperties() {
+		forkMode = readForkMode();
+		forkJvmArgs = System.getProperty(PROPERTY_FORK_JVM_ARGS);
+		adaptivePolicy = readAdaptivePolicy();
+	}
+	
+	public BenchmarkMonitor getMonitor() {
+		return monitor;
+	}
+	
+	public AdaptiveIterationPolicy getAdaptivePolicy() {
+		return adaptivePolicy;
+	}
+	
+	/**
+	 * Sets the policy deciding the iterations of each pair of case and repository,
+	 * or null to execute the iteration count given to each benchmark
+	 */
+	public void setAdaptivePolicy(AdaptiveIterationPolicy adaptivePolicy) {
+		this.adaptivePolicy = adaptivePolicy;
+	}
+	
 	public void benchmarkRepository(String repositoryName, int iterations) {
+		benchmarkRepository(repositoryName, iterations, null);
+	}
+	
+	/**
+	 * Benchmarks the argument repository, resuming the run recorded in the argument journal
+	 * 
+	 * @param journal the journal of the run to resume, or null to start a new run
+	 */
+	public void benchmarkRepository(String repositoryName, int iterations, File journal) {
 		logger.info("Starting benchmarking for repository {}", repositoryName);		
 		List<IModelRepository> registeredRepositories = IModelRepositoryRegistry.INSTANCE.getModelRepositories();
 
@@ -78,30 +336,67 @@ public class BenchmarkManager {
 		}
 		if (selectedRepository.isAvailable()) {
 			selectedRepository.clean(); // Clean before starting, in case last execution did not finish properly
-			List<IBenchmarkGroup> allGroups = IBenchmarkGroupRegistry.INSTANCE.getAllBenchmarkGroups();
+			List<IBenchmarkGroup> allGroups = getSelectedGroups();
 			logger.debug("Number of benchmark cases available is {}", allGroups.size());
 			for (IBenchmarkGroup group: allGroups) {
 				logger.debug("Group \"{}\" is registered and contains {} cases", group.getName(), group.getCases().size());	
 			}
-			generateCSV(doBenchmark(Collections.singletonList(selectedRepository), allGroups, iterations));
+			File results = doBenchmark(Collections.singletonList(selectedRepository), allGroups, iterations, journal);
+			generateCSV(results);
+			generateHTML(results);
+			logComplexity(results);
 		} else {
 			logger.info("Repository \"{}\" is registered but not available, cannot perform benchmarking", selectedRepository.getName());
 			return;
 		}		
 	}
 
+	/**
+	 * Entry point of the {@link BenchmarkApplication} and the {@link StandaloneLauncher}.
+	 * In a JVM launched by {@link ForkedJVM}, executes the benchmarks selected by the parent.
+	 * Otherwise applies the {@link BenchmarkPlan#PROPERTY_PLAN plan}, if any, and benchmarks
+	 * everything selected, or only prints it with {@link BenchmarkPlan#PROPERTY_DRY_RUN}.
+	 */
+	public void launch() throws IOException {
+		if (ForkedJVM.isChild()) {
+			benchmarkForked();
+			return;
+		}
+		String plan = System.getProperty(BenchmarkPlan.PROPERTY_PLAN);
+		if (plan != null) {
+			BenchmarkPlan.load(new File(plan)).apply();
+		}
+		if (Boolean.getBoolean(BenchmarkPlan.PROPERTY_DRY_RUN)) {
+			System.out.println(dryRun());
+		} else {
+			benchmarkAll();
+		}
+	}
+
 	public void benchmarkAll() {
-		benchmarkAll(DEFAULT_ITERATION_COUNT);
+		String journal = System.getProperty(PROPERTY_RESUME);
+		benchmarkAll(Integer.getInteger(PROPERTY_ITERATIONS, DEFAULT_ITERATION_COUNT), journal != null ? new File(journal).getAbsoluteFile() : null);
 	}
 	
 	public void benchmarkAll(int iterations) {
+		benchmarkAll(iterations, null);
+	}
+	
+	/**
+	 * Benchmarks all available repositories, resuming the run recorded in the argument journal
+	 * 
+	 * @param journal the journal of the run to resume, or null to start a new run
+	 */
+	public void benchmarkAll(int iterations, File journal) {
 		logger.info("Benchmarking all available repositories");		
 		List<IModelRepository> registeredRepositories = IModelRepositoryRegistry.INSTANCE.getModelRepositories();
 
 		logger.debug("Number of Model Repositories registered for benchmarking is {}", registeredRepositories.size());
 		List<IModelRepository> availableRepositories = new ArrayList<IModelRepository>();
 		for (IModelRepository repository : registeredRepositories) {			
-			if (!repository.isAvailable()) {
+			if (!matches(PROPERTY_REPOSITORIES, repository.getName())) {
+				logger.debug("Repository \"{}\" is not selected, will not be benchmarked", repository.getName());
+			} else if (!repository.isAvailable()) {
 				logger.info("Repository \"{}\" is registered but not available, will not be benchmarked", repository.getName());
 			} else {
 				logger.debug("Repository \"{}\" is registered and will be benchmarked", repository.getName());
@@ -110,17 +405,105 @@ public class BenchmarkManager {
 				repository.clean(); // Clean before starting, in case last execution did not finish properly
 			}
 		}
-		List<IBenchmarkGroup> allGroups = IBenchmarkGroupRegistry.INSTANCE.getAllBenchmarkGroups();
+		List<IBenchmarkGroup> allGroups = getSelectedGroups();
 		logger.debug("Number of benchmark cases available is {}", allGroups.size());
 		for (IBenchmarkGroup group: allGroups) {
 			logger.debug("Group \"{}\" is registered and contains {} cases", group.getName(), group.getCases().size());	
 		}
-		generateCSV(doBenchmark(availableRepositories, allGroups, iterations));		
+		File results = doBenchmark(availableRepositories, allGroups, iterations, journal);
+		generateCSV(results);
+		generateHTML(results);
+		logComplexity(results);
+	}
+
+	/**
+	 * Executes the benchmarks selected through the fork system properties, and sends the
+	 * results to the parent JVM. Only meant to be invoked in a JVM launched by {@link ForkedJVM}.
+	 */
+	public void benchmarkForked() {
+		String repositoryName = System.getProperty(PROPERTY_FORK_REPOSITORY);
+		String groupName = System.getProperty(PROPERTY_FORK_GROUP);
+		String caseName = System.getProperty(PROPERTY_FORK_CASE);
+		int iterations = Integer.parseInt(System.getProperty(PROPERTY_FORK_ITERATIONS, String.valueOf(DEFAULT_ITERATION_COUNT)));
+		int port = Integer.parseInt(System.getProperty(ForkedJVM.PROPERTY_PORT));
+		String resume = System.getProperty(PROPERTY_FORK_RESUME);
+		final Set<String> completed = resume != null ? readCompleted(new File(resume)) : Collections.<String>emptySet();
+		String heapSeries = System.getProperty(PROPERTY_FORK_HEAP_SERIES);
+		final File heapSeriesFile = heapSeries != null ? new File(heapSeries) : null;
+		final int parentIteration = Integer.getInteger(PROPERTY_FORK_ITERATION, 0);
+		IModelRepository selectedRepository = null;
+		for (IModelRepository repository : IModelRepositoryRegistry.INSTANCE.getModelRepositories()) {
+			if (repository.getName().equalsIgnoreCase(repositoryName)) {
+				selectedRepository = repository;
+			}
+		}
+		if (selectedRepository == null || !selectedRepository.isAvailable()) {
+			logger.error("Repository \"{}\" is not available in forked JVM", repositoryName);
+			return;
+		}
+		selectedRepository.clean();
+		List<IBenchmarkGroup> selectedGroups = new ArrayList<IBenchmarkGroup>();
+		for (IBenchmarkGroup group : getSelectedGroups()) {
+			if (groupName == null || groupName.equals(group.getName())) {
+				selectedGroups.add(group);
+			}
+		}
+		try {
+			Socket socket = new Socket(InetAddress.getByName(null), port);
+			try {
+				final Writer writer = new OutputStreamWriter(socket.getOutputStream(), "UTF-8"); //$NON-NLS-1$
+				ForkedJVM.IResultCallback sender = new ForkedJVM.IResultCallback() {
+					@Override
+					public void resultReceived(IBenchmarkResult result, String group, int iteration) {
+						int reportedIteration = parentIteration > 0 ? parentIteration : iteration;
+						try {
+							if (heapSeriesFile != null) {
+								// Snapshots are not sent to the parent JVM
+								HeapSeriesUtils.append(heapSeriesFile, result, group, reportedIteration);
+							}
+							writer.write(ResultJournal.toEntry(result, group, reportedIteration));
+							writer.flush();
+						} catch (IOException e) {
+							throw new RuntimeException("Error sending result to parent JVM", e);
+						}
+					}
+				};
+				if (adaptivePolicy != null && caseName == null) {
+					List<ResultJournal.Entry> previous = resume != null ? readEntries(new File(resume)) : Collections.<ResultJournal.Entry>emptyList();
+					doAdaptiveBenchmark(Collections.singletonList(selectedRepository), selectedGroups, previous, null, sender);
+				} else {
+					doBenchmark(Collections.singletonList(selectedRepository), selectedGroups, caseName, iterations, completed, sender);
+				}
+				writer.close();
+			} finally {
+				socket.close();
+			}
+		} catch (IOException e) {
+			logger.error("Error connecting to parent JVM", e);
+			throw new RuntimeException("Error connecting to parent JVM", e);
+		}
+	}
+
+	/**
+	 * Returns what {@link #benchmarkAll()} would execute with the current system properties,
+	 * see {@link BenchmarkPlan#dryRun(List, List, int, AdaptiveIterationPolicy, File)}
+	 */
+	public String dryRun() {
+		return BenchmarkPlan.dryRun(getSelectedRepositories(), getSelectedGroups(),
+				Integer.getInteger(PROPERTY_ITERATIONS, DEFAULT_ITERATION_COUNT), adaptivePolicy, getResultsDirectory());
 	}
 
 	public void stop() {
 		logger.info("Stopping benchmark, please wait for benchmark case under execution to finish");
 		setShouldStop(true);
+		if (forkMode == ForkMode.REPOSITORY) {
+			synchronized (this) {
+				if (currentFork != null) {
+					logger.info("Stopping forked JVM");
+					currentFork.destroy();
+				}
+			}
+		}
 	}
 
 	public List<String> listRepositories() {
@@ -140,7 +523,22 @@ public class BenchmarkManager {
 		return false;
 	}
 
-	private void generateCSV(final  Map<String, IAggregatedResult> mapResults) {
+	/**
+	 * Exports the results of the argument journal to a CSV file with the same name,
+	 * and returns the CSV file
+	 */
+	public File generateCSV(File journal) {
+		List<ResultJournal.Entry> entries;
+		try {
+			entries = ResultJournal.read(journal);
+		} catch (IOException e) {
+			logger.error("Error reading journal file with results", e);
+			throw new RuntimeException("Error reading journal file with results", e);
+		}
+		Map<String, IAggregatedResult> mapResults = new LinkedHashMap<String, IAggregatedResult>();
+		for (ResultJournal.Entry entry : entries) {
+			addResult(mapResults, entry.getResult());
+		}
 		StringBuffer aggregationDetails = new StringBuffer();
 		aggregationDetails.append(CSVUtils.getAggregationHeader());
 		StringBuffer iterationDetails = new StringBuffer();
@@ -160,20 +558,268 @@ public class BenchmarkManager {
 		}
 		aggregationDetails.append(iterationDetails);
 		try {
-			File file = createFile(getFilePath(), aggregationDetails);
+			File file = createFile(getSiblingFile(journal, CSV_EXTENSION).getPath(), aggregationDetails);
 			logger.info("Results available in file \"{}\".", file.getAbsolutePath());
+			return file;
 		} catch (IOException e) {
 			logger.error("Error file creating CSV file with results", e);
 			throw new RuntimeException("Error file creating CSV file with results", e);
 		}
 	}
 
-	private Map<String, IAggregatedResult> doBenchmark(List<IModelRepository> repositories, List<IBenchmarkGroup> groups, int iterations) {
-		Map<String, IAggregatedResult> aggregatedResults = new HashMap<String, IAggregatedResult>();
+	/**
+	 * Renders the results of the argument journal, and the heap series next to it if any,
+	 * as an HTML report with the same name, and returns the report file
+	 */
+	public File generateHTML(File journal) {
+		List<IBenchmarkResult> results;
+		List<IHeapSeries> heapSeries = Collections.emptyList();
+		try {
+			results = ResultJournal.getResults(ResultJournal.read(journal));
+			File heapSeriesFile = getSiblingFile(journal, HEAP_SERIES_EXTENSION);
+			if (heapSeriesFile.isFile()) {
+				heapSeries = HeapSeriesUtils.read(heapSeriesFile);
+			}
+		} catch (IOException e) {
+			logger.error("Error reading results for the HTML report", e);
+			throw new RuntimeException("Error reading results for the HTML report", e);
+		}
+		String title = MessageFormat.format("Benchmark results {0}", getSiblingFile(journal, "").getName()); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			File file = createFile(getSiblingFile(journal, HTML_EXTENSION).getPath(),
+					new StringBuffer(HTMLUtils.toReport(title, results, heapSeries)));
+			logger.info("Report available in file \"{}\".", file.getAbsolutePath());
+			return file;
+		} catch (IOException e) {
+			logger.error("Error creating HTML report", e);
+			throw new RuntimeException("Error creating HTML report", e);
+		}
+	}
+
+	/*
+	 * Flags the cases whose time grows faster than the model, if the journal has
+	 * results at enough sizes, e.g. from a size sweep
+	 */
+	private void logComplexity(File journal) {
+		List<IComplexityFit> fits = new ArrayList<IComplexityFit>();
+		try {
+			for (IComplexityFit fit : new ComplexityAnalyzer().analyze(ResultJournal.getResults(ResultJournal.read(journal)))) {
+				if (fit.getBestFit() != null) {
+					fits.add(fit);
+				}
+			}
+		} catch (IOException e) {
+			logger.error("Error reading journal file to analyze complexity", e);
+			return;
+		}
+		if (fits.isEmpty()) {
+			return;
+		}
+		logger.info("Complexity across model sizes:\n{}", ComplexityAnalyzer.toReport(fits));
+		if (ComplexityAnalyzer.hasSuperlinear(fits)) {
+			logger.warn("Some cases scale superlinearly with the model size, see the complexity report");
+		}
+	}
+
+	/**
+	 * Exports the argument heap series file to a CSV file next to it, and returns the CSV file
+	 */
+	public File generateHeapCSV(File heapSeriesFile) throws IOException {
+		String path = heapSeriesFile.getPath();
+		if (path.endsWith(HEAP_SERIES_EXTENSION)) {
+			path = path.substring(0, path.length() - HEAP_SERIES_EXTENSION.length());
+		}
+		File file = new File(path + "_heap" + CSV_EXTENSION); //$NON-NLS-1$
+		createFile(file, new StringBuffer(HeapSeriesUtils.toCSV(HeapSeriesUtils.read(heapSeriesFile))));
+		return file;
+	}
+
+	/**
+	 * Executes the benchmarks, appending the results to the argument journal, or to a new
+	 * one if null, and returns the journal file
+	 */
+	private File doBenchmark(List<IModelRepository> repositories, List<IBenchmarkGroup> groups, int iterations, File journalFile) {
+		Set<String> completed = Collections.emptySet();
+		if (journalFile != null) {
+			completed = readCompleted(journalFile);
+			logger.info("Resuming run from file \"{}\", {} combinations already completed", journalFile.getAbsolutePath(), completed.size());
+		}
+		final ResultJournal journal;
+		try {
+			journal = new ResultJournal(journalFile != null ? journalFile : createJournalFile());
+		} catch (IOException e) {
+			logger.error("Error creating journal file for results", e);
+			throw new RuntimeException("Error creating journal file for results", e);
+		}
+		logger.info("Results are being appended to file \"{}\".", journal.getFile().getAbsolutePath());
+		final File heapSeriesFile = getSiblingFile(journal.getFile(), HEAP_SERIES_EXTENSION);
+		ForkedJVM.IResultCallback journalWriter = new ForkedJVM.IResultCallback() {
+			@Override
+			public void resultReceived(IBenchmarkResult result, String group, int iteration) {
+				try {
+					HeapSeriesUtils.append(heapSeriesFile, result, group, iteration);
+					journal.append(result, group, iteration);
+					monitor.resultReceived(result, group);
+				} catch (IOException e) {
+					throw new RuntimeException("Error appending result to journal file", e);
+				}
+			}
+		};
+		MetricsServer metricsServer = startMonitor();
+		try {
+			Map<String, String> forkProperties = new HashMap<String, String>();
+			forkProperties.put(PROPERTY_FORK_HEAP_SERIES, heapSeriesFile.getAbsolutePath());
+			// Children of a single case are only forked for combinations not done yet
+			if (journalFile != null && forkMode == ForkMode.REPOSITORY) {
+				forkProperties.put(PROPERTY_FORK_RESUME, journalFile.getAbsolutePath());
+			}
+			if (adaptivePolicy != null && forkMode != ForkMode.REPOSITORY) {
+				List<ResultJournal.Entry> previous = journalFile != null ? readEntries(journalFile) : Collections.<ResultJournal.Entry>emptyList();
+				doAdaptiveBenchmark(repositories, groups, previous, forkMode == ForkMode.CASE ? forkProperties : null, journalWriter);
+			} else if (forkMode == ForkMode.NONE) {
+				doBenchmark(repositories, groups, null, iterations, completed, journalWriter);
+			} else {
+				doForkedBenchmark(repositories, groups, iterations, forkProperties, completed, journalWriter);
+			}
+		} finally {
+			monitor.finish();
+			if (metricsServer != null) {
+				metricsServer.close();
+			}
+			try {
+				journal.close();
+			} catch (IOException e) {
+				logger.error("Error closing journal file", e);
+			}
+		}
+		return journal.getFile();
+	}
+
+	/*
+	 * Starts monitoring a run, and returns the server of its metrics, or null if not enabled
+	 */
+	private MetricsServer startMonitor() {
+		monitor.start(0);
+		try {
+			BenchmarkMonitor.register(monitor);
+		} catch (RuntimeException e) {
+			logger.warn("Benchmark monitor could not be registered as MBean", e);
+		}
+		Integer port = Integer.getInteger(PROPERTY_METRICS_PORT);
+		if (port == null) {
+			return null;
+		}
+		try {
+			MetricsServer metricsServer = new MetricsServer(port, monitor);
+			metricsServer.start();
+			return metricsServer;
+		} catch (IOException e) {
+			logger.error("Metrics server could not be started on port " + port, e);
+			return null;
+		}
+	}
+
+	private void addResult(Map<String, IAggregatedResult> aggregatedResults, IBenchmarkResult result) {
+		String name = result.getBenchmarkCaseName() + "-" + result.getModelRepositoryName();  
+		if (!aggregatedResults.containsKey(name) )
+			aggregatedResults.put(name, BenchmarkUtils.createAggregateResult(Boolean.getBoolean(PROPERTY_REJECT_OUTLIERS)));
+		aggregatedResults.get(name).addResult(result);
+	}
+
+	/*
+	 * Returns the keys of the combinations recorded without failure in the argument journal
+	 */
+	private Set<String> readCompleted(File journal) {
+		Set<String> completed = new HashSet<String>();
+		for (ResultJournal.Entry entry : readEntries(journal)) {
+			if (!entry.getResult().isFailed()) {
+				completed.add(getCombinationKey(entry.getIteration(), entry.getGroup(), 
+						entry.getResult().getBenchmarkCaseName(), entry.getResult().getModelRepositoryName()));
+			}
+		}
+		return completed;
+	}
+
+	private List<ResultJournal.Entry> readEntries(File journal) {
+		try {
+			return ResultJournal.read(journal);
+		} catch (IOException e) {
+			logger.error("Error reading journal file to resume", e);
+			throw new RuntimeException("Error reading journal file to resume", e);
+		}
+	}
+
+	/*
+	 * Returns whether the argument name matches the regular expression of the argument
+	 * property, or true if the property is not set
+	 */
+	static boolean matches(String property, String name) {
+		String regex = System.getProperty(property);
+		return regex == null || Pattern.compile(regex, Pattern.CASE_INSENSITIVE).matcher(name).matches();
+	}
+
+	/*
+	 * A case is selected by its exact name if given, or else by the case selection property
+	 */
+	static boolean isSelected(IBenchmarkCase benchmarkCase, String caseName) {
+		return caseName != null ? caseName.equals(benchmarkCase.getName()) : matches(PROPERTY_CASES, benchmarkCase.getName());
+	}
+
+	/**
+	 * Returns the registered groups selected by {@link #PROPERTY_GROUPS}
+	 */
+	public List<IBenchmarkGroup> getSelectedGroups() {
+		List<IBenchmarkGroup> groups = new ArrayList<IBenchmarkGroup>();
+		for (IBenchmarkGroup group : IBenchmarkGroupRegistry.INSTANCE.getAllBenchmarkGroups()) {
+			if (matches(PROPERTY_GROUPS, group.getName())) {
+				groups.add(group);
+			}
+		}
+		return groups;
+	}
+
+	/**
+	 * Returns the available repositories selected by {@link #PROPERTY_REPOSITORIES}
+	 */
+	public List<IModelRepository> getSelectedRepositories() {
+		List<IModelRepository> repositories = new ArrayList<IModelRepository>();
+		for (IModelRepository repository : IModelRepositoryRegistry.INSTANCE.getModelRepositories()) {
+			if (matches(PROPERTY_REPOSITORIES, repository.getName()) && repository.isAvailable()) {
+				repositories.add(repository);
+			}
+		}
+		return repositories;
+	}
+
+	/**
+	 * Returns the directory of the journals and reports, see {@link #PROPERTY_OUTPUT}
+	 */
+	public static File getResultsDirectory() {
+		return new File(System.getProperty(PROPERTY_OUTPUT, RESULTS_DIRECTORY));
+	}
+
+	private static String getCombinationKey(int iteration, String group, String caseName, String repository) {
+		return iteration + "|" + group + "|" + caseName + "|" + repository; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+	private int getCombinationCount(List<IModelRepository> repositories, List<IBenchmarkGroup> groups, String caseName, int iterations) {
 		int progressCount = 0;
 		for (IBenchmarkGroup group: groups) {
-			progressCount += group.getCases().size() * repositories.size() * iterations;
+			for (IBenchmarkCase benchmarkCase: group.getCases()) {
+				for (Map<String, String> point : ParameterSpace.getPoints(benchmarkCase)) {
+					benchmarkCase.setParameters(point);
+					if (isSelected(benchmarkCase, caseName)) {
+						progressCount += repositories.size() * iterations;
+					}
+				}
+			}
 		}
+		return progressCount;
+	}
+
+	private void doBenchmark(List<IModelRepository> repositories, List<IBenchmarkGroup> groups, String caseName, int iterations, Set<String> completed, ForkedJVM.IResultCallback callback) {
+		int progressCount = getCombinationCount(repositories, groups, caseName, iterations);
+		monitor.setTotalCombinations(progressCount);
 		logger.info("Executing Model Repository Benchmarks");
 		logger.info("Total combinations to test: {}", progressCount);
 		int currentProgressCount = 0;
@@ -181,49 +827,326 @@ public class BenchmarkManager {
 			logger.info("Executing Iteration: " + (iteration) + "/" + iterations);
 			for (IBenchmarkGroup group: groups) {
 				for (IBenchmarkCase benchmarkCase: group.getCases()) {
-					for (IModelRepository repository : repositories) {
-						final boolean supported = repository.supports(benchmarkCase);
-						boolean benchmarkFailed = false;
-						if (supported) {
-							IBenchmarkData data = BenchmarkUtils.getBenchmarkData(repository);
-							try {
-								IBenchmarkResult result = benchmarkCase.executeBenchmark(data);
-								benchmarkFailed = result.isFailed();
-								String name = benchmarkCase.getName() + "-" + repository.getName();  
-								if (!aggregatedResults.containsKey(name) )
-									aggregatedResults.put(name, BenchmarkUtils.createAggregateResult());
-								aggregatedResults.get(name).addResult(result);
-							} catch (Exception e) {
-								logger.error("Test {} with repo {} failed", benchmarkCase.getName(), repository.getName());
-								logger.error("Exception caught while execution benchmark", e);
-								benchmarkFailed = true;
+					for (Map<String, String> point : ParameterSpace.getPoints(benchmarkCase)) {
+						benchmarkCase.setParameters(point);
+						if (!isSelected(benchmarkCase, caseName)) {
+							continue;
+						}
+						for (IModelRepository repository : repositories) {
+							final boolean supported = repository.supports(benchmarkCase);
+							final boolean done = completed.contains(getCombinationKey(iteration, group.getName(), benchmarkCase.getName(), repository.getName()));
+							boolean benchmarkFailed = false;
+							monitor.executing(group.getName(), benchmarkCase.getName(), repository.getName(), iteration);
+							if (supported && !done) {
+								IBenchmarkData data = createBenchmarkData(repository);
+								try {
+									IBenchmarkResult result = benchmarkCase.executeBenchmark(data);
+									benchmarkFailed = result.isFailed();
+									callback.resultReceived(result, group.getName(), iteration);
+								} catch (Exception e) {
+									logger.error("Test {} with repo {} failed", benchmarkCase.getName(), repository.getName());
+									logger.error("Exception caught while execution benchmark", e);
+									benchmarkFailed = true;
+								}
+							}
+							currentProgressCount++;
+							monitor.completed(benchmarkFailed);
+							logger.info("Progress {}% ({}/{}) | [{}]-[{}] {} {}", 
+									((currentProgressCount * 100) / progressCount), 
+									currentProgressCount, progressCount,
+									benchmarkCase.getName(), repository.getName(), 
+									supported ? (done ? "(already done)" : "") : "(skipped)",
+									benchmarkFailed ? "(failed)" : "");
+							if (isShouldStop()) {
+								setShouldStop(false);
+								benchmarkCase.reset();
+								logger.info("Benchmark Stopped");
+								return;
 							}
 						}
-						currentProgressCount++;
-						logger.info("Progress {}% ({}/{}) | [{}]-[{}] {} {}", 
-								((currentProgressCount * 100) / progressCount), 
-								currentProgressCount, progressCount,
-								benchmarkCase.getName(), repository.getName(), 
-								supported ? "" : "(skipped)",
-								benchmarkFailed ? "(failed)" : "");
-						if (isShouldStop()) {
-							setShouldStop(false);
-							benchmarkCase.reset();
-							logger.info("Benchmark Stopped");
-							return aggregatedResults;
+						benchmarkCase.reset();
+					}
+				}
+			}
+		}
+	}
+
+	private void doForkedBenchmark(List<IModelRepository> repositories, List<IBenchmarkGroup> groups, int iterations, Map<String, String> forkProperties, Set<String> completed, ForkedJVM.IResultCallback callback) {
+		int progressCount = getCombinationCount(repositories, groups, null, iterations);
+		logger.info("Executing Model Repository Benchmarks in forked JVMs, one per {}", forkMode.name().toLowerCase());
+		logger.info("Total combinations to test: {}", progressCount);
+		if (progressCount == 0) {
+			// Nothing selected, not even worth forking a JVM per repository
+			monitor.setTotalCombinations(0);
+			return;
+		}
+		monitor.setTotalCombinations(forkMode == ForkMode.REPOSITORY ? repositories.size() : progressCount);
+		if (forkMode == ForkMode.REPOSITORY) {
+			long start = System.currentTimeMillis();
+			int completedRepositories = 0;
+			for (IModelRepository repository : repositories) {
+				Map<String, String> properties = new HashMap<String, String>(forkProperties);
+				properties.put(PROPERTY_FORK_REPOSITORY, repository.getName());
+				properties.put(PROPERTY_FORK_ITERATIONS, String.valueOf(iterations));
+				monitor.executing(null, null, repository.getName(), 0);
+				if (adaptivePolicy != null) {
+					putAdaptiveProperties(properties, repositories.size() - repositories.indexOf(repository), System.currentTimeMillis() - start);
+				}
+				int resultCount = fork(repository.getName(), properties, callback);
+				completedRepositories++;
+				monitor.completed(resultCount == 0);
+				logger.info("Progress {}% ({}/{} repositories) | [{}] {} results", 
+						((completedRepositories * 100) / repositories.size()), 
+						completedRepositories, repositories.size(),
+						repository.getName(), resultCount);
+				if (isShouldStop()) {
+					setShouldStop(false);
+					logger.info("Benchmark Stopped");
+					return;
+				}
+			}
+			return;
+		}
+		int currentProgressCount = 0;
+		for (int iteration = 1; iteration <= iterations; iteration++ ) {
+			logger.info("Executing Iteration: " + (iteration) + "/" + iterations);
+			for (IBenchmarkGroup group: groups) {
+				for (IBenchmarkCase benchmarkCase: group.getCases()) {
+					for (Map<String, String> point : ParameterSpace.getPoints(benchmarkCase)) {
+						benchmarkCase.setParameters(point);
+						if (!isSelected(benchmarkCase, null)) {
+							continue;
+						}
+						for (IModelRepository repository : repositories) {
+							final boolean supported = repository.supports(benchmarkCase);
+							final boolean done = completed.contains(getCombinationKey(iteration, group.getName(), benchmarkCase.getName(), repository.getName()));
+							boolean benchmarkFailed = false;
+							monitor.executing(group.getName(), benchmarkCase.getName(), repository.getName(), iteration);
+							if (supported && !done) {
+								Map<String, String> properties = new HashMap<String, String>(forkProperties);
+								properties.put(PROPERTY_FORK_REPOSITORY, repository.getName());
+								properties.put(PROPERTY_FORK_GROUP, group.getName());
+								properties.put(PROPERTY_FORK_CASE, benchmarkCase.getName());
+								properties.put(PROPERTY_FORK_ITERATIONS, "1"); //$NON-NLS-1$
+								properties.put(PROPERTY_FORK_ITERATION, String.valueOf(iteration));
+								benchmarkFailed = fork(benchmarkCase.getName() + "-" + repository.getName(), properties, callback) == 0; //$NON-NLS-1$
+							}
+							currentProgressCount++;
+							monitor.completed(benchmarkFailed);
+							logger.info("Progress {}% ({}/{}) | [{}]-[{}] {} {}", 
+									((currentProgressCount * 100) / progressCount), 
+									currentProgressCount, progressCount,
+									benchmarkCase.getName(), repository.getName(), 
+									supported ? (done ? "(already done)" : "") : "(skipped)",
+									benchmarkFailed ? "(failed)" : "");
+							if (isShouldStop()) {
+								setShouldStop(false);
+								logger.info("Benchmark Stopped");
+								return;
+							}
 						}
 					}
-					benchmarkCase.reset();
 				}
 			}
 		}
-		return aggregatedResults;
 	}
 
-	private String getFilePath() {
-		return "results/results_"+ SDF_FILE_NAME.format(new Date()) + ".csv"; //$NON-NLS-1$ //$NON-NLS-2$
-	}	
-	
+	/*
+	 * Hands the adaptive policy to a child JVM, with its share of the remaining budget
+	 */
+	private void putAdaptiveProperties(Map<String, String> properties, int remainingForks, long elapsed) {
+		properties.put(PROPERTY_ADAPTIVE_TARGET_WIDTH, String.valueOf(adaptivePolicy.getTargetWidth()));
+		properties.put(PROPERTY_ADAPTIVE_PAIR_BUDGET, String.valueOf(adaptivePolicy.getPairBudget() / 1000.0));
+		long budget = 0;
+		if (adaptivePolicy.getTotalBudget() > 0) {
+			// At least a millisecond, as 0 means no limit
+			budget = Math.max(1, (adaptivePolicy.getTotalBudget() - elapsed) / remainingForks);
+		}
+		properties.put(PROPERTY_ADAPTIVE_BUDGET, String.valueOf(budget / 1000.0));
+		properties.put(PROPERTY_ADAPTIVE_MIN_ITERATIONS, String.valueOf(adaptivePolicy.getMinIterations()));
+		properties.put(PROPERTY_ADAPTIVE_MAX_ITERATIONS, String.valueOf(adaptivePolicy.getMaxIterations()));
+	}
+
+	/*
+	 * Iterates each pair of case and repository until the adaptive policy is satisfied. Results
+	 * of previous runs count towards their pair. Iterations are executed in this JVM, or each
+	 * one in a child JVM if fork properties are given.
+	 */
+	private void doAdaptiveBenchmark(List<IModelRepository> repositories, List<IBenchmarkGroup> groups, List<ResultJournal.Entry> previous, Map<String, String> forkProperties, ForkedJVM.IResultCallback callback) {
+		List<AdaptivePair> pairs = new ArrayList<AdaptivePair>();
+		for (IBenchmarkGroup group: groups) {
+			for (IBenchmarkCase benchmarkCase: group.getCases()) {
+				for (Map<String, String> point : ParameterSpace.getPoints(benchmarkCase)) {
+					benchmarkCase.setParameters(point);
+					for (IModelRepository repository : repositories) {
+						if (isSelected(benchmarkCase, null) && repository.supports(benchmarkCase)) {
+							pairs.add(new AdaptivePair(group, benchmarkCase, point, repository));
+						}
+					}
+				}
+			}
+		}
+		Map<String, List<ResultJournal.Entry>> previousEntries = new HashMap<String, List<ResultJournal.Entry>>();
+		for (ResultJournal.Entry entry : previous) {
+			String key = getCombinationKey(0, entry.getGroup(), entry.getResult().getBenchmarkCaseName(), entry.getResult().getModelRepositoryName());
+			if (!previousEntries.containsKey(key)) {
+				previousEntries.put(key, new ArrayList<ResultJournal.Entry>());
+			}
+			previousEntries.get(key).add(entry);
+		}
+		logger.info("Executing Model Repository Benchmarks with adaptive iterations, {}", adaptivePolicy);
+		logger.info("Total pairs to test: {}", pairs.size());
+		monitor.setTotalCombinations(pairs.size());
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < pairs.size(); i++) {
+			AdaptivePair pair = pairs.get(i);
+			// The model is reused by the following pairs of the same case and parameters
+			if (i == 0 || !pair.sharesModel(pairs.get(i - 1))) {
+				pair.benchmarkCase.setParameters(pair.point);
+			}
+			String groupName = pair.group.getName();
+			IAggregatedResult aggregated = BenchmarkUtils.createAggregateResult(Boolean.getBoolean(PROPERTY_REJECT_OUTLIERS));
+			int iteration = 0;
+			List<ResultJournal.Entry> entries = previousEntries.get(getCombinationKey(0, groupName, pair.benchmarkCase.getName(), pair.repository.getName()));
+			if (entries != null) {
+				for (ResultJournal.Entry entry : entries) {
+					if (!entry.getResult().isFailed()) {
+						aggregated.addResult(entry.getResult());
+					}
+					iteration = Math.max(iteration, entry.getIteration());
+				}
+			}
+			long budget = adaptivePolicy.getPairBudget(pairs.size() - i, System.currentTimeMillis() - start);
+			long pairStart = System.currentTimeMillis();
+			int runIterations = 0;
+			boolean benchmarkFailed = false;
+			while (!benchmarkFailed && !adaptivePolicy.isDone(aggregated, runIterations, System.currentTimeMillis() - pairStart, budget)) {
+				iteration++;
+				runIterations++;
+				monitor.executing(groupName, pair.benchmarkCase.getName(), pair.repository.getName(), iteration);
+				IBenchmarkResult result = executeIteration(pair, iteration, forkProperties);
+				benchmarkFailed = result == null || result.isFailed();
+				if (result != null) {
+					if (!benchmarkFailed) {
+						aggregated.addResult(result);
+					}
+					callback.resultReceived(result, groupName, iteration);
+				}
+				if (isShouldStop()) {
+					setShouldStop(false);
+					pair.benchmarkCase.reset();
+					logger.info("Benchmark Stopped");
+					return;
+				}
+			}
+			monitor.completed(benchmarkFailed);
+			logger.info("Progress {}% ({}/{}) | [{}]-[{}] {} iterations, relative CI width {} {}", 
+					(((i + 1) * 100) / pairs.size()), 
+					i + 1, pairs.size(),
+					pair.benchmarkCase.getName(), pair.repository.getName(),
+					aggregated.getAggregatedResults().size(),
+					AdaptiveIterationPolicy.getRelativeWidth(aggregated.getStatistics(adaptivePolicy.getMetric())),
+					benchmarkFailed ? "(failed)" : "");
+			if (i + 1 == pairs.size() || !pair.sharesModel(pairs.get(i + 1))) {
+				pair.benchmarkCase.reset();
+			}
+		}
+	}
+
+	/*
+	 * Executes a single iteration of the argument pair, and returns its result, or null if there is none
+	 */
+	private IBenchmarkResult executeIteration(AdaptivePair pair, int iteration, Map<String, String> forkProperties) {
+		if (forkProperties == null) {
+			IBenchmarkData data = createBenchmarkData(pair.repository);
+			try {
+				return pair.benchmarkCase.executeBenchmark(data);
+			} catch (Exception e) {
+				logger.error("Test {} with repo {} failed", pair.benchmarkCase.getName(), pair.repository.getName());
+				logger.error("Exception caught while execution benchmark", e);
+				return null;
+			}
+		}
+		Map<String, String> properties = new HashMap<String, String>(forkProperties);
+		properties.put(PROPERTY_FORK_REPOSITORY, pair.repository.getName());
+		properties.put(PROPERTY_FORK_GROUP, pair.group.getName());
+		properties.put(PROPERTY_FORK_CASE, pair.benchmarkCase.getName());
+		properties.put(PROPERTY_FORK_ITERATIONS, "1"); //$NON-NLS-1$
+		properties.put(PROPERTY_FORK_ITERATION, String.valueOf(iteration));
+		final IBenchmarkResult[] received = new IBenchmarkResult[1];
+		fork(pair.benchmarkCase.getName() + "-" + pair.repository.getName(), properties, new ForkedJVM.IResultCallback() { //$NON-NLS-1$
+			@Override
+			public void resultReceived(IBenchmarkResult result, String group, int childIteration) {
+				received[0] = result;
+			}
+		});
+		return received[0];
+	}
+
+	/**
+	 * Executes the benchmarks selected by the argument properties in a child JVM,
+	 * and returns the number of results received
+	 */
+	private int fork(String name, Map<String, String> properties, final ForkedJVM.IResultCallback callback) {
+		final int[] resultCount = new int[1];
+		ForkedJVM fork = new ForkedJVM(name, forkJvmArgs);
+		synchronized (this) {
+			currentFork = fork;
+		}
+		try {
+			int exitValue = fork.run(properties, new ForkedJVM.IResultCallback() {
+				@Override
+				public void resultReceived(IBenchmarkResult result, String group, int iteration) {
+					resultCount[0]++;
+					callback.resultReceived(result, group, iteration);
+				}
+			});
+			if (exitValue != 0) {
+				logger.error("Forked JVM {} finished with exit value {}", name, exitValue);
+			}
+		} catch (IOException e) {
+			logger.error("Error executing forked JVM " + name, e);
+		} finally {
+			synchronized (this) {
+				currentFork = null;
+			}
+		}
+		return resultCount[0];
+	}
+
+	private IBenchmarkData createBenchmarkData(IModelRepository repository) {
+		IBenchmarkData data = BenchmarkUtils.getBenchmarkData(repository);
+		for (String property : System.getProperties().stringPropertyNames()) {
+			if (property.startsWith(OPTION_PROPERTY_PREFIX) && !property.startsWith(FORK_PROPERTY_PREFIX)) {
+				data.getOptions().put(property.substring(OPTION_PROPERTY_PREFIX.length()), System.getProperty(property));
+			}
+		}
+		return data;
+	}
+
+	/**
+	 * Returns the file next to the argument journal with the same name and the argument extension
+	 */
+	public static File getSiblingFile(File journal, String extension) {
+		String path = journal.getPath();
+		if (path.endsWith(JOURNAL_EXTENSION)) {
+			path = path.substring(0, path.length() - JOURNAL_EXTENSION.length());
+		}
+		return new File(path + extension);
+	}
+
+	/*
+	 * Creates the journal file name from the current time, without clashing with the
+	 * files of previous runs in the same minute
+	 */
+	private File createJournalFile() {
+		String name = new File(getResultsDirectory(), "results_" + SDF_FILE_NAME.format(new Date())).getPath(); //$NON-NLS-1$
+		String path = name;
+		for (int i = 2; new File(path + JOURNAL_EXTENSION).exists() || new File(path + CSV_EXTENSION).exists(); i++) {
+			path = name + "_" + i; //$NON-NLS-1$
+		}
+		return new File(path + JOURNAL_EXTENSION);
+	}
 
 	private File createFile(String fullPath, StringBuffer content) throws IOException {
 		File file = new File(fullPath);
@@ -232,14 +1155,13 @@ public class BenchmarkManager {
 	}
 	
 	private void createFile(File file, StringBuffer content) throws IOException {
-		if (!file.exists()) {
-			File fDir = file.getParentFile();
-			if (fDir != null && !fDir.exists())
-				fDir.mkdirs();
-			FileOutputStream fos = new FileOutputStream(file);
-			fos.write(content.toString().getBytes());
-			fos.close();
-		}
+		// Reports are derived from the journal, so they are overwritten when a run is resumed
+		File fDir = file.getParentFile();
+		if (fDir != null && !fDir.exists())
+			fDir.mkdirs();
+		FileOutputStream fos = new FileOutputStream(file);
+		fos.write(content.toString().getBytes());
+		fos.close();
 	}
 
 	private boolean isShouldStop() {
@@ -249,4 +1171,29 @@ public class BenchmarkManager {
 	private void setShouldStop(boolean shouldStop) {
 		this.shouldStop = shouldStop;
 	}
+
+	/*
+	 * A case at a point of its parameter space, to be executed with a repository
+	 */
+	private static class AdaptivePair {
+		
+		private final IBenchmarkGroup group;
+		
+		private final IBenchmarkCase benchmarkCase;
+		
+		private final Map<String, String> point;
+		
+		private final IModelRepository repository;
+		
+		public AdaptivePair(IBenchmarkGroup group, IBenchmarkCase benchmarkCase, Map<String, String> point, IModelRepository repository) {
+			this.group = group;
+			this.benchmarkCase = benchmarkCase;
+			this.point = point;
+			this.repository = repository;
+		}
+
+		boolean sharesModel(AdaptivePair other) {
+			return benchmarkCase == other.benchmarkCase && point.equals(other.point);
+		}
+	}
 }
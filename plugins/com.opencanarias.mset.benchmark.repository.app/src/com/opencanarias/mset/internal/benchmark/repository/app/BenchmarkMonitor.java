@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.reflect.Method;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+
+/**
+ * Live state of the benchmark run in progress: the combination being executed, the
+ * progress and estimated remaining time, the heap, GC and CPU usage of this JVM, and
+ * the last result of each case and repository.
+ * <p>
+ * The state is published as an MBean named {@link #OBJECT_NAME}, and in OpenMetrics
+ * text format through {@link #toOpenMetrics()}, which {@link MetricsServer} serves over HTTP.
+ * With forked JVMs, the heap, GC and CPU metrics are those of this JVM, not the children.
+ *
+ * @author vroldan
+ */
+public class BenchmarkMonitor implements BenchmarkMonitorMBean {
+
+	public static final String OBJECT_NAME = "com.opencanarias.mset.benchmark:type=BenchmarkMonitor"; //$NON-NLS-1$
+
+	private static final String PREFIX = "mset_benchmark_"; //$NON-NLS-1$
+
+	private static final String KEY_SEPARATOR = "|"; //$NON-NLS-1$
+
+	/** Results kept, the oldest are discarded first */
+	private static final int MAX_LAST_RESULTS = 1000;
+
+	private static final Method processCPUTimeMethod = findProcessCPUTime();
+
+	private boolean running = false;
+
+	private String currentGroup;
+
+	private String currentCase;
+
+	private String currentRepository;
+
+	private int currentIteration;
+
+	private int completedCombinations;
+
+	private int totalCombinations;
+
+	private int failures;
+
+	private long startTime;
+
+	private long finishTime;
+
+	private final Map<String, LastResult> lastResults = new LinkedHashMap<String, LastResult>();
+
+	/**
+	 * Registers the argument monitor in the platform MBean server
+	 *
+	 * @throws RuntimeException if it cannot be registered
+	 */
+	public static void register(BenchmarkMonitor monitor) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(monitor, name);
+			}
+		} catch (Exception e) {
+			throw new RuntimeException("Error registering benchmark monitor MBean", e); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Marks the beginning of a run of the argument number of combinations
+	 */
+	public synchronized void start(int totalCombinations) {
+		this.running = true;
+		this.totalCombinations = totalCombinations;
+		this.completedCombinations = 0;
+		this.failures = 0;
+		this.currentGroup = null;
+		this.currentCase = null;
+		this.currentRepository = null;
+		this.currentIteration = 0;
+		this.startTime = System.currentTimeMillis();
+		this.finishTime = 0;
+		lastResults.clear();
+	}
+
+	/**
+	 * Updates the total combinations, when only known once the run has started
+	 */
+	public synchronized void setTotalCombinations(int totalCombinations) {
+		this.totalCombinations = totalCombinations;
+	}
+
+	/**
+	 * Marks the combination being executed. Any argument may be null if unknown.
+	 */
+	public synchronized void executing(String group, String caseName, String repository, int iteration) {
+		this.currentGroup = group;
+		this.currentCase = caseName;
+		this.currentRepository = repository;
+		this.currentIteration = iteration;
+	}
+
+	/**
+	 * Marks the end of the combination being executed, whether it was executed, skipped or failed
+	 */
+	public synchronized void completed(boolean failed) {
+		completedCombinations++;
+		if (failed) {
+			failures++;
+		}
+	}
+
+	public synchronized void resultReceived(IBenchmarkResult result, String group) {
+		String key = group + KEY_SEPARATOR + result.getBenchmarkCaseName() + KEY_SEPARATOR + result.getModelRepositoryName();
+		lastResults.remove(key);
+		lastResults.put(key, new LastResult(group, result));
+		if (lastResults.size() > MAX_LAST_RESULTS) {
+			Iterator<String> oldest = lastResults.keySet().iterator();
+			oldest.next();
+			oldest.remove();
+		}
+	}
+
+	/**
+	 * Marks the end of the run
+	 */
+	public synchronized void finish() {
+		running = false;
+		finishTime = System.currentTimeMillis();
+		currentGroup = null;
+		currentCase = null;
+		currentRepository = null;
+	}
+
+	@Override
+	public synchronized boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public synchronized String getCurrentGroup() {
+		return currentGroup;
+	}
+
+	@Override
+	public synchronized String getCurrentCase() {
+		return currentCase;
+	}
+
+	@Override
+	public synchronized String getCurrentRepository() {
+		return currentRepository;
+	}
+
+	@Override
+	public synchronized int getCurrentIteration() {
+		return currentIteration;
+	}
+
+	@Override
+	public synchronized int getCompletedCombinations() {
+		return completedCombinations;
+	}
+
+	@Override
+	public synchronized int getTotalCombinations() {
+		return totalCombinations;
+	}
+
+	@Override
+	public synchronized int getFailures() {
+		return failures;
+	}
+
+	@Override
+	public synchronized long getElapsedSeconds() {
+		if (startTime == 0) {
+			return 0;
+		}
+		return TimeUnit.MILLISECONDS.toSeconds((running ? System.currentTimeMillis() : finishTime) - startTime);
+	}
+
+	@Override
+	public synchronized long getEstimatedRemainingSeconds() {
+		if (!running) {
+			return 0;
+		}
+		if (completedCombinations == 0) {
+			return -1;
+		}
+		long elapsed = System.currentTimeMillis() - startTime;
+		long remaining = Math.max(0, totalCombinations - completedCombinations);
+		return TimeUnit.MILLISECONDS.toSeconds(elapsed * remaining / completedCombinations);
+	}
+
+	@Override
+	public synchronized String[] getLastResults() {
+		List<String> lines = new ArrayList<String>();
+		for (LastResult last : lastResults.values()) {
+			lines.add(MessageFormat.format("[{0}]-[{1}]-[{2}] real: {3} ms / cpu: {4} ms / gc: {5} ms{6}", //$NON-NLS-1$
+					last.group, last.caseName, last.repository, last.realTimeNanos / 1000000.0,
+					last.cpuTimeNanos / 1000000.0, last.gcTime, last.failed ? " (failed)" : "")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	@Override
+	public void stop() {
+		BenchmarkManager.INSTANCE.stop();
+	}
+
+	/**
+	 * Returns the state of the run and this JVM in OpenMetrics text format
+	 */
+	public synchronized String toOpenMetrics() {
+		StringBuilder metrics = new StringBuilder();
+		family(metrics, "running", "gauge", "Whether a benchmark run is in progress"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "running", null, running ? 1 : 0); //$NON-NLS-1$
+		family(metrics, "current", "info", "Combination being executed"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		if (running) {
+			sample(metrics, "current_info", labels(currentGroup, currentCase, currentRepository), 1); //$NON-NLS-1$
+		}
+		family(metrics, "iteration", "gauge", "Iteration being executed"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "iteration", null, currentIteration); //$NON-NLS-1$
+		family(metrics, "combinations", "gauge", "Combinations of the run"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "combinations", null, totalCombinations); //$NON-NLS-1$
+		family(metrics, "completed_combinations", "gauge", "Combinations executed, skipped or failed so far"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "completed_combinations", null, completedCombinations); //$NON-NLS-1$
+		family(metrics, "failures", "counter", "Combinations failed so far"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "failures_total", null, failures); //$NON-NLS-1$
+		family(metrics, "elapsed_seconds", "gauge", "Time since the run started"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "elapsed_seconds", null, getElapsedSeconds()); //$NON-NLS-1$
+		long remaining = getEstimatedRemainingSeconds();
+		family(metrics, "remaining_seconds", "gauge", "Estimated time until the run finishes"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "remaining_seconds", null, remaining >= 0 ? remaining : Double.NaN); //$NON-NLS-1$
+
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		family(metrics, "heap_used_bytes", "gauge", "Heap in use"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "heap_used_bytes", null, heap.getUsed()); //$NON-NLS-1$
+		family(metrics, "heap_committed_bytes", "gauge", "Heap committed by the JVM"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "heap_committed_bytes", null, heap.getCommitted()); //$NON-NLS-1$
+		family(metrics, "heap_max_bytes", "gauge", "Maximum heap, -1 if undefined"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		sample(metrics, "heap_max_bytes", null, heap.getMax()); //$NON-NLS-1$
+		family(metrics, "gc_collections", "counter", "Collections since the JVM started"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			sample(metrics, "gc_collections_total", "gc=\"" + escape(gc.getName()) + "\"", gc.getCollectionCount()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		family(metrics, "gc_seconds", "counter", "Time spent in collections since the JVM started"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			sample(metrics, "gc_seconds_total", "gc=\"" + escape(gc.getName()) + "\"", gc.getCollectionTime() / 1000.0); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		long cpuTime = getProcessCPUTime();
+		if (cpuTime >= 0) {
+			family(metrics, "cpu_seconds", "counter", "CPU time of the JVM process"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			sample(metrics, "cpu_seconds_total", null, cpuTime / 1e9); //$NON-NLS-1$
+		}
+
+		family(metrics, "last_real_time_seconds", "gauge", "Real time of the last result of each case and repository"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (LastResult last : lastResults.values()) {
+			sample(metrics, "last_real_time_seconds", labels(last.group, last.caseName, last.repository), last.realTimeNanos / 1e9); //$NON-NLS-1$
+		}
+		family(metrics, "last_cpu_time_seconds", "gauge", "CPU time of the last result of each case and repository"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (LastResult last : lastResults.values()) {
+			sample(metrics, "last_cpu_time_seconds", labels(last.group, last.caseName, last.repository), last.cpuTimeNanos / 1e9); //$NON-NLS-1$
+		}
+		family(metrics, "last_gc_seconds", "gauge", "Collection time of the last result of each case and repository"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (LastResult last : lastResults.values()) {
+			sample(metrics, "last_gc_seconds", labels(last.group, last.caseName, last.repository), last.gcTime / 1000.0); //$NON-NLS-1$
+		}
+		family(metrics, "last_allocated_bytes", "gauge", "Allocations of the last result of each case and repository, -1 if unsupported"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (LastResult last : lastResults.values()) {
+			sample(metrics, "last_allocated_bytes", labels(last.group, last.caseName, last.repository), last.allocatedBytes); //$NON-NLS-1$
+		}
+		family(metrics, "last_failed", "gauge", "Whether the last result of each case and repository failed"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (LastResult last : lastResults.values()) {
+			sample(metrics, "last_failed", labels(last.group, last.caseName, last.repository), last.failed ? 1 : 0); //$NON-NLS-1$
+		}
+		metrics.append("# EOF\n"); //$NON-NLS-1$
+		return metrics.toString();
+	}
+
+	/*
+	 * Process time never decreases, unlike the sum of the live threads, which drops
+	 * whenever a thread exits. -1 if the JVM does not provide it.
+	 */
+	private static long getProcessCPUTime() {
+		if (processCPUTimeMethod == null) {
+			return -1;
+		}
+		try {
+			return (Long)processCPUTimeMethod.invoke(ManagementFactory.getOperatingSystemMXBean());
+		} catch (Exception e) {
+			return -1;
+		}
+	}
+
+	/*
+	 * The method is not available in every JVM, and is looked up in the public interface
+	 * rather than in the bean implementation class, which is not accessible
+	 */
+	private static Method findProcessCPUTime() {
+		for (Class<?> type : ManagementFactory.getOperatingSystemMXBean().getClass().getInterfaces()) {
+			try {
+				return type.getMethod("getProcessCpuTime"); //$NON-NLS-1$
+			} catch (NoSuchMethodException e) {
+				continue;
+			}
+		}
+		return null;
+	}
+
+	private static void family(StringBuilder metrics, String name, String type, String help) {
+		metrics.append("# TYPE ").append(PREFIX).append(name).append(' ').append(type).append('\n'); //$NON-NLS-1$
+		metrics.append("# HELP ").append(PREFIX).append(name).append(' ').append(help).append('\n'); //$NON-NLS-1$
+	}
+
+	private static void sample(StringBuilder metrics, String name, String labels, double value) {
+		metrics.append(PREFIX).append(name);
+		if (labels != null) {
+			metrics.append('{').append(labels).append('}');
+		}
+		metrics.append(' ');
+		if (value == Math.rint(value) && !Double.isInfinite(value)) {
+			metrics.append((long)value);
+		} else {
+			metrics.append(value);
+		}
+		metrics.append('\n');
+	}
+
+	private static String labels(String group, String caseName, String repository) {
+		return "group=\"" + escape(group) + "\",case=\"" + escape(caseName) + "\",repository=\"" + escape(repository) + "\""; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+
+	static String escape(String value) {
+		if (value == null) {
+			return ""; //$NON-NLS-1$
+		}
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+	}
+
+	private static class LastResult {
+
+		private final String group;
+
+		private final String caseName;
+
+		private final String repository;
+
+		private final long realTimeNanos;
+
+		private final long cpuTimeNanos;
+
+		private final long gcTime;
+
+		private final long allocatedBytes;
+
+		private final boolean failed;
+
+		public LastResult(String group, IBenchmarkResult result) {
+			this.group = group;
+			this.caseName = result.getBenchmarkCaseName();
+			this.repository = result.getModelRepositoryName();
+			this.realTimeNanos = result.getRealTimeNanos();
+			this.cpuTimeNanos = result.getCPUTimeNanos();
+			this.gcTime = result.getGCTime();
+			this.allocatedBytes = result.getAllocatedBytes();
+			this.failed = result.isFailed();
+		}
+	}
+}
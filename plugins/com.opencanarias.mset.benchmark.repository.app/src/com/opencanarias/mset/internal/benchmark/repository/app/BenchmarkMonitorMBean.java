@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+/**
+ * JMX view of the run in progress, see {@link BenchmarkMonitor}
+ *
+ * @author vroldan
+ */
+public interface BenchmarkMonitorMBean {
+
+	public boolean isRunning();
+
+	public String getCurrentGroup();
+
+	public String getCurrentCase();
+
+	public String getCurrentRepository();
+
+	public int getCurrentIteration();
+
+	public int getCompletedCombinations();
+
+	public int getTotalCombinations();
+
+	public int getFailures();
+
+	public long getElapsedSeconds();
+
+	/**
+	 * Returns the estimated seconds until the run finishes, -1 if unknown
+	 */
+	public long getEstimatedRemainingSeconds();
+
+	/**
+	 * Returns the last result of each case and repository, one per line
+	 */
+	public String[] getLastResults();
+
+	/**
+	 * Stops the run after the combination in progress
+	 */
+	public void stop();
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opencanarias.mset.repository.benchmark.AdaptiveIterationPolicy;
+import com.opencanarias.mset.repository.benchmark.CSVUtils;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
+import com.opencanarias.mset.repository.benchmark.IModelRepository;
+import com.opencanarias.mset.repository.benchmark.ParameterSpace;
+import com.opencanarias.mset.repository.benchmark.ResultJournal;
+
+/**
+ * A benchmark run declared in a properties file. Each entry is set as a system property,
+ * prefixed with {@link BenchmarkManager#OPTION_PROPERTY_PREFIX} unless it already is, so a
+ * plan may hold anything that may be given with <code>-D</code>. For instance:
+ * <pre>
+ * repositories=CDO.*|Mongo.*
+ * groups=Performance|Scaling
+ * cases=ModelSave.*
+ * iterations=5
+ * axis.count=1k,10k,100k
+ * pollingInterval=20
+ * fork.mode=case
+ * fork.jvmArgs=-Xmx2g
+ * output=results/nightly
+ * </pre>
+ * See the <code>PROPERTY_*</code> constants of {@link BenchmarkManager} for the selection,
+ * iteration, fork and output properties, {@link ParameterSpace} for the axes, and the
+ * <code>OPTION_*</code> constants of {@link com.opencanarias.mset.repository.benchmark.AbstractBenchmarkCase}
+ * for the warm-up and meter options.
+ * <p>
+ * A {@link #dryRun(List, List, int, AdaptiveIterationPolicy, File) dry run} lists what a plan
+ * would execute, with the duration estimated from the journals of previous runs.
+ *
+ * @author vroldan
+ */
+public class BenchmarkPlan {
+
+	/**
+	 * Path of the plan file the benchmark application runs
+	 */
+	public static final String PROPERTY_PLAN = BenchmarkManager.OPTION_PROPERTY_PREFIX + "plan"; //$NON-NLS-1$
+
+	/**
+	 * If <code>true</code>, the benchmark application only prints what it would execute
+	 */
+	public static final String PROPERTY_DRY_RUN = BenchmarkManager.OPTION_PROPERTY_PREFIX + "dryRun"; //$NON-NLS-1$
+
+	private static final Logger logger = LoggerFactory.getLogger(BenchmarkPlan.class);
+
+	private static final String[] REGEX_PROPERTIES = {BenchmarkManager.PROPERTY_REPOSITORIES,
+		BenchmarkManager.PROPERTY_GROUPS, BenchmarkManager.PROPERTY_CASES};
+
+	private static final String KEY_SEPARATOR = "|"; //$NON-NLS-1$
+
+	private final File file;
+
+	private final Map<String, String> properties;
+
+	private BenchmarkPlan(File file, Map<String, String> properties) {
+		this.file = file;
+		this.properties = Collections.unmodifiableMap(properties);
+	}
+
+	/**
+	 * Reads and validates the argument plan file
+	 *
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if a selection is not a valid regular expression,
+	 *         or the iterations are not a positive number
+	 */
+	public static BenchmarkPlan load(File file) throws IOException {
+		Properties loaded = new Properties();
+		InputStream input = new FileInputStream(file);
+		try {
+			loaded.load(input);
+		} finally {
+			input.close();
+		}
+		Map<String, String> properties = new LinkedHashMap<String, String>();
+		for (String key : loaded.stringPropertyNames()) {
+			String name = key.trim();
+			if (!name.startsWith(BenchmarkManager.OPTION_PROPERTY_PREFIX)) {
+				name = BenchmarkManager.OPTION_PROPERTY_PREFIX + name;
+			}
+			properties.put(name, loaded.getProperty(key).trim());
+		}
+		for (String property : REGEX_PROPERTIES) {
+			if (properties.containsKey(property)) {
+				Pattern.compile(properties.get(property));
+			}
+		}
+		String iterations = properties.get(BenchmarkManager.PROPERTY_ITERATIONS);
+		if (iterations != null && Integer.parseInt(iterations) < 1) {
+			throw new IllegalArgumentException(MessageFormat.format("Iterations must be positive: {0}", iterations)); //$NON-NLS-1$
+		}
+		return new BenchmarkPlan(file, properties);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the system properties set by this plan
+	 */
+	public Map<String, String> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * Sets the properties of this plan as system properties, so that they are inherited
+	 * by forked JVMs as well, and makes the {@link BenchmarkManager} read them
+	 */
+	public void apply() {
+		for (Map.Entry<String, String> property : properties.entrySet()) {
+			logger.debug("Plan sets {}={}", property.getKey(), property.getValue());
+			System.setProperty(property.getKey(), property.getValue());
+		}
+		BenchmarkManager.INSTANCE.reloadProperties();
+	}
+
+	/**
+	 * Returns one line per combination of group, case and repository that would be executed,
+	 * followed by the total number of executions and the estimated duration. Durations are
+	 * the median time between consecutive results of each case and repository in the
+	 * journals of the results directory, so they include set up, warm-up and tear down.
+	 *
+	 * @param policy the adaptive policy, whose minimum iterations replace the iteration count, or null
+	 */
+	public static String dryRun(List<IModelRepository> repositories, List<IBenchmarkGroup> groups, int iterations,
+			AdaptiveIterationPolicy policy, File resultsDirectory) {
+		Map<String, Long> durations = estimateDurations(resultsDirectory);
+		int iterationsPerPair = policy != null ? policy.getMinIterations() : iterations;
+		StringBuilder output = new StringBuilder();
+		int executions = 0;
+		int unknown = 0;
+		long total = 0;
+		for (IBenchmarkGroup group : groups) {
+			for (IBenchmarkCase benchmarkCase : group.getCases()) {
+				for (Map<String, String> point : ParameterSpace.getPoints(benchmarkCase)) {
+					benchmarkCase.setParameters(point);
+					if (!BenchmarkManager.isSelected(benchmarkCase, null)) {
+						continue;
+					}
+					for (IModelRepository repository : repositories) {
+						boolean supported = repository.supports(benchmarkCase);
+						Long duration = durations.get(benchmarkCase.getName() + KEY_SEPARATOR + repository.getName());
+						if (supported) {
+							executions += iterationsPerPair;
+							if (duration != null) {
+								total += duration * iterationsPerPair;
+							} else {
+								unknown++;
+							}
+						}
+						output.append(MessageFormat.format("[{0}]-[{1}]-[{2}] {3}", //$NON-NLS-1$
+								group.getName(), benchmarkCase.getName(), repository.getName(),
+								!supported ? "(skipped)" : duration != null ? formatDuration(duration) + " x " + iterationsPerPair : "(no previous results)")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+						output.append(CSVUtils.getLineSeparator());
+					}
+				}
+				benchmarkCase.setParameters(Collections.<String, String>emptyMap());
+			}
+		}
+		output.append(MessageFormat.format("Executions: {0} ({1} per pair{2}), estimated duration: {3}", //$NON-NLS-1$
+				executions, iterationsPerPair, policy != null ? " at least, adaptive" : "", formatDuration(total))); //$NON-NLS-1$ //$NON-NLS-2$
+		if (unknown > 0) {
+			output.append(MessageFormat.format(", plus {0} pairs without previous results", unknown)); //$NON-NLS-1$
+		}
+		return output.toString();
+	}
+
+	/*
+	 * Returns the median milliseconds per result of each case and repository in the journals of the directory
+	 */
+	static Map<String, Long> estimateDurations(File directory) {
+		Map<String, List<Long>> samples = new HashMap<String, List<Long>>();
+		File[] journals = directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.endsWith(BenchmarkManager.JOURNAL_EXTENSION);
+			}
+		});
+		if (journals != null) {
+			for (File journal : journals) {
+				try {
+					long previous = 0;
+					for (ResultJournal.Entry entry : ResultJournal.read(journal)) {
+						if (previous > 0 && entry.getTimestamp() > previous) {
+							String key = entry.getResult().getBenchmarkCaseName() + KEY_SEPARATOR + entry.getResult().getModelRepositoryName();
+							if (!samples.containsKey(key)) {
+								samples.put(key, new ArrayList<Long>());
+							}
+							samples.get(key).add(entry.getTimestamp() - previous);
+						}
+						previous = entry.getTimestamp();
+					}
+				} catch (IOException e) {
+					logger.warn("Journal \"{}\" could not be read for estimations", journal.getAbsolutePath());
+				}
+			}
+		}
+		Map<String, Long> durations = new HashMap<String, Long>();
+		for (Map.Entry<String, List<Long>> entry : samples.entrySet()) {
+			List<Long> values = entry.getValue();
+			Collections.sort(values);
+			durations.put(entry.getKey(), values.get(values.size() / 2));
+		}
+		return durations;
+	}
+
+	private static String formatDuration(long millis) {
+		long seconds = millis / 1000;
+		return MessageFormat.format("{0}h {1}m {2}s", seconds / 3600, (seconds / 60) % 60, seconds % 60); //$NON-NLS-1$
+	}
+}
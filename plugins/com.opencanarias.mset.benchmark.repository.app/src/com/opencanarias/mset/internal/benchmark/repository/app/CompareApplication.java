@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.equinox.app.IApplication;
+import org.eclipse.equinox.app.IApplicationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An Equinox application that compares the result files of benchmark runs,
+ * see {@link ResultComparator} for the arguments. The exit code is non-zero if
+ * a regression is found, so that it may be used to fail a build.
+ *
+ * @author vroldan
+ */
+public class CompareApplication implements IApplication {
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	@Override
+	public Object start(IApplicationContext context) throws Exception {
+		Object arguments = context.getArguments().get(IApplicationContext.APPLICATION_ARGS);
+		List<String> argumentList = arguments instanceof String[] ? Arrays.asList((String[])arguments) : Collections.<String>emptyList();
+		StringBuilder output = new StringBuilder();
+		int exitCode = ResultComparator.compare(argumentList, output);
+		if (exitCode == ResultComparator.EXIT_ERROR) {
+			logger.error(output.toString());
+		} else {
+			logger.info("Comparison of benchmark results:\n{}", output);
+		}
+		return Integer.valueOf(exitCode);
+	}
+
+	@Override
+	public void stop() {
+
+	}
+}
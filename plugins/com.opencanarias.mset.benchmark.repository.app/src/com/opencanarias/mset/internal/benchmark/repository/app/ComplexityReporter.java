@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.opencanarias.mset.repository.benchmark.ComplexityAnalyzer;
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.IComplexityFit;
+
+/**
+ * Fits how each case scales with the model size in each repository with a
+ * {@link ComplexityAnalyzer}. Arguments are:
+ * <p>
+ * <code>[-metric name] [-threshold exponent] [-minSize elements] results...</code>
+ * <p>
+ * Results of all the files are pooled, so runs at different sizes may be analyzed
+ * together. Files are read as in {@link ResultComparator#readResults(File)}.
+ *
+ * @author vroldan
+ */
+public class ComplexityReporter {
+
+	/** Exit code when no superlinear fit is found */
+	public static final int EXIT_OK = 0;
+
+	/** Exit code when at least one fit is superlinear */
+	public static final int EXIT_SUPERLINEAR = 1;
+
+	/** Exit code when the arguments or files are not valid */
+	public static final int EXIT_ERROR = 2;
+
+	public static final String USAGE = "[-metric name] [-threshold exponent] [-minSize elements] results..."; //$NON-NLS-1$
+
+	private static final String OPTION_METRIC = "-metric"; //$NON-NLS-1$
+
+	private static final String OPTION_THRESHOLD = "-threshold"; //$NON-NLS-1$
+
+	private static final String OPTION_MIN_SIZE = "-minSize"; //$NON-NLS-1$
+
+	/**
+	 * Analyzes the files given in the arguments, appending the report or the reason
+	 * of the failure to the output
+	 *
+	 * @return {@link #EXIT_OK}, {@link #EXIT_SUPERLINEAR} or {@link #EXIT_ERROR}
+	 */
+	public static int analyze(List<String> arguments, StringBuilder output) {
+		ComplexityAnalyzer analyzer = new ComplexityAnalyzer();
+		List<File> files = new ArrayList<File>();
+		try {
+			for (int i = 0; i < arguments.size(); i++) {
+				String argument = arguments.get(i);
+				if (OPTION_METRIC.equals(argument) && i + 1 < arguments.size()) {
+					analyzer.setMetric(Metric.valueOf(arguments.get(++i).toUpperCase()));
+				} else if (OPTION_THRESHOLD.equals(argument) && i + 1 < arguments.size()) {
+					analyzer.setThreshold(Double.parseDouble(arguments.get(++i)));
+				} else if (OPTION_MIN_SIZE.equals(argument) && i + 1 < arguments.size()) {
+					analyzer.setMinimumSize(Integer.parseInt(arguments.get(++i)));
+				} else {
+					files.add(new File(argument).getAbsoluteFile());
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			output.append(MessageFormat.format("Invalid option: {0}", e.getMessage())); //$NON-NLS-1$
+			return EXIT_ERROR;
+		}
+		if (files.isEmpty()) {
+			output.append(MessageFormat.format("At least one result file is needed: {0}", USAGE)); //$NON-NLS-1$
+			return EXIT_ERROR;
+		}
+		List<IBenchmarkResult> results = new ArrayList<IBenchmarkResult>();
+		try {
+			for (File file : files) {
+				results.addAll(ResultComparator.readResults(file));
+			}
+		} catch (IOException e) {
+			output.append(MessageFormat.format("Cannot read result file: {0}", e.getMessage())); //$NON-NLS-1$
+			return EXIT_ERROR;
+		} catch (IllegalArgumentException e) {
+			output.append(MessageFormat.format("Invalid result file: {0}", e.getMessage())); //$NON-NLS-1$
+			return EXIT_ERROR;
+		}
+		List<IComplexityFit> fits = analyzer.analyze(results);
+		output.append(ComplexityAnalyzer.toReport(fits));
+		return ComplexityAnalyzer.hasSuperlinear(fits) ? EXIT_SUPERLINEAR : EXIT_OK;
+	}
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
+import com.opencanarias.mset.repository.benchmark.IModelRepository;
+
+/**
+ * Determines whether {@link BenchmarkManager} executes benchmarks in its own JVM,
+ * or in freshly launched child JVMs, so that JIT profiles, loaded classes, static
+ * caches and heap fragmentation of a run do not leak into the next one.
+ *
+ * @author vroldan
+ * @see ForkedJVM
+ */
+public enum ForkMode {
+	/**
+	 * Every benchmark is executed in the JVM of the {@link BenchmarkManager}
+	 */
+	NONE,
+	/**
+	 * Every {@link IModelRepository} is benchmarked, for all iterations and cases, in its own JVM
+	 */
+	REPOSITORY,
+	/**
+	 * Every combination of iteration, {@link IBenchmarkCase} and {@link IModelRepository}
+	 * is executed in its own JVM
+	 */
+	CASE
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.ResultJournal;
+
+/**
+ * Launches the benchmark application in a child JVM, and receives the
+ * {@link IBenchmarkResult results} it produces through a local socket,
+ * as they become available, one {@link ResultJournal journal entry} per line.
+ * <p>
+ * The child JVM reuses the class path, main class and program arguments of the
+ * current JVM, replacing the application to run by the benchmark application.
+ * It uses a private Equinox configuration area that cascades to the current one,
+ * so that both frameworks do not lock each other. JVM arguments are not inherited,
+ * but explicitly configured, so that every child gets the same heap and GC settings.
+ * The output of the child JVM is forwarded to the log of the current one.
+ * <p>
+ * If the current JVM was started by the {@link StandaloneLauncher}, the child JVM
+ * runs that launcher with the same class path instead, without Equinox.
+ *
+ * @author vroldan
+ * @see ForkMode
+ */
+public class ForkedJVM {
+
+	/**
+	 * Callback notified upon every result received from the child JVM
+	 */
+	public interface IResultCallback {
+		/**
+		 * @param group the name of the group of the case, null if unknown
+		 * @param iteration the iteration the result belongs to, starting at 1
+		 */
+		public void resultReceived(IBenchmarkResult result, String group, int iteration);
+	}
+
+	/**
+	 * Port the child JVM must connect to, in order to send back the results
+	 */
+	public static final String PROPERTY_PORT = BenchmarkManager.FORK_PROPERTY_PREFIX + "port"; //$NON-NLS-1$
+
+	private static final String APPLICATION_ID = "com.opencanarias.mset.benchmark.repository.app.benchmarkApplication"; //$NON-NLS-1$
+
+	private static final String DEFAULT_MAIN_CLASS = "org.eclipse.core.runtime.adaptor.EclipseStarter"; //$NON-NLS-1$
+
+	private static final List<String> EXCLUDED_COMMANDS = Arrays.asList("-console", "-noExit", "-application"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+	private static final int ACCEPT_TIMEOUT = 1000;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final String name;
+
+	private final String jvmArgs;
+
+	private Process process;
+
+	/**
+	 * @param name identifies the child JVM in the log
+	 * @param jvmArgs space separated JVM arguments for the child JVM, may be null
+	 */
+	public ForkedJVM(String name, String jvmArgs) {
+		this.name = name;
+		this.jvmArgs = jvmArgs;
+	}
+
+	/**
+	 * Returns true if the current JVM has been launched by a {@link ForkedJVM}
+	 */
+	public static boolean isChild() {
+		return System.getProperty(PROPERTY_PORT) != null;
+	}
+
+	/**
+	 * Launches the child JVM with the argument system properties, and blocks until it finishes.
+	 *
+	 * @return the exit value of the child JVM
+	 */
+	public int run(Map<String, String> properties, IResultCallback callback) throws IOException {
+		ServerSocket server = new ServerSocket(0, 1, InetAddress.getByName(null));
+		File configuration = createConfigurationArea();
+		try {
+			server.setSoTimeout(ACCEPT_TIMEOUT);
+			List<String> command = buildCommand(properties, server.getLocalPort(), configuration);
+			logger.debug("[{}] Launching {}", name, command);
+			ProcessBuilder builder = new ProcessBuilder(command);
+			builder.redirectErrorStream(true);
+			synchronized (this) {
+				process = builder.start();
+			}
+			process.getOutputStream().close();
+			forwardOutput(process.getInputStream());
+			Socket socket = accept(server);
+			if (socket != null) {
+				try {
+					readResults(socket.getInputStream(), callback);
+				} finally {
+					socket.close();
+				}
+			}
+			return process.waitFor();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			destroy();
+			throw new RuntimeException("Interrupted while waiting for forked JVM", e); //$NON-NLS-1$
+		} finally {
+			server.close();
+			delete(configuration);
+		}
+	}
+
+	/**
+	 * Kills the child JVM, if running
+	 */
+	public synchronized void destroy() {
+		if (process != null) {
+			process.destroy();
+		}
+	}
+
+	private Socket accept(ServerSocket server) throws IOException {
+		while (true) {
+			try {
+				return server.accept();
+			} catch (SocketTimeoutException e) {
+				if (hasFinished()) {
+					logger.error("[{}] Forked JVM finished before connecting", name);
+					return null;
+				}
+			}
+		}
+	}
+
+	private void readResults(InputStream input, IResultCallback callback) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(input, "UTF-8")); //$NON-NLS-1$
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.trim().length() > 0) {
+				ResultJournal.Entry entry = ResultJournal.parseEntry(line);
+				callback.resultReceived(entry.getResult(), entry.getGroup(), entry.getIteration());
+			}
+		}
+	}
+
+	private boolean hasFinished() {
+		try {
+			process.exitValue();
+			return true;
+		} catch (IllegalThreadStateException e) {
+			return false;
+		}
+	}
+
+	private void forwardOutput(final InputStream output) {
+		Thread thread = new Thread("Forked JVM output " + name) { //$NON-NLS-1$
+			@Override
+			public void run() {
+				try {
+					BufferedReader reader = new BufferedReader(new InputStreamReader(output));
+					String line;
+					while ((line = reader.readLine()) != null) {
+						logger.info("[{}] {}", name, line);
+					}
+				} catch (IOException e) {
+					logger.debug("Output of forked JVM {} closed", name, e);
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private List<String> buildCommand(Map<String, String> properties, int port, File configuration) {
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		if (jvmArgs != null) {
+			for (String arg : jvmArgs.trim().split("\\s+")) { //$NON-NLS-1$
+				if (arg.length() > 0) {
+					command.add(arg);
+				}
+			}
+		}
+		// Benchmark options are inherited, fork options are not
+		for (String property : System.getProperties().stringPropertyNames()) {
+			if (property.startsWith(BenchmarkManager.OPTION_PROPERTY_PREFIX)
+					&& !property.startsWith(BenchmarkManager.FORK_PROPERTY_PREFIX)) {
+				command.add("-D" + property + "=" + System.getProperty(property)); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		for (Map.Entry<String, String> property : properties.entrySet()) {
+			command.add("-D" + property.getKey() + "=" + property.getValue()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		command.add("-D" + PROPERTY_PORT + "=" + port); //$NON-NLS-1$ //$NON-NLS-2$
+		if (StandaloneLauncher.isRunning()) {
+			command.add("-cp"); //$NON-NLS-1$
+			command.add(System.getProperty("java.class.path")); //$NON-NLS-1$
+			command.add(StandaloneLauncher.class.getName());
+			return command;
+		}
+		String parentConfiguration = System.getProperty("osgi.configuration.area"); //$NON-NLS-1$
+		command.add("-Dosgi.configuration.area=" + configuration.toURI()); //$NON-NLS-1$
+		if (parentConfiguration != null) {
+			command.add("-Dosgi.sharedConfiguration.area=" + parentConfiguration); //$NON-NLS-1$
+			command.add("-Dosgi.configuration.cascaded=true"); //$NON-NLS-1$
+		}
+		command.add("-Declipse.ignoreApp=false"); //$NON-NLS-1$
+		command.add("-Dosgi.noShutdown=false"); //$NON-NLS-1$
+		addMainClass(command);
+		addProgramArguments(command);
+		command.add("-application"); //$NON-NLS-1$
+		command.add(APPLICATION_ID);
+		return command;
+	}
+
+	/*
+	 * The main class or jar is taken from the command that launched this JVM, if known
+	 */
+	private void addMainClass(List<String> command) {
+		String javaCommand = System.getProperty("sun.java.command"); //$NON-NLS-1$
+		String main = javaCommand != null && javaCommand.trim().length() > 0
+				? javaCommand.trim().split("\\s+")[0] : DEFAULT_MAIN_CLASS; //$NON-NLS-1$
+		if (main.endsWith(".jar")) { //$NON-NLS-1$
+			command.add("-jar"); //$NON-NLS-1$
+			command.add(main);
+		} else {
+			command.add("-cp"); //$NON-NLS-1$
+			command.add(System.getProperty("java.class.path")); //$NON-NLS-1$
+			command.add(main);
+		}
+	}
+
+	/*
+	 * Program arguments are taken from Equinox, skipping the console,
+	 * which would read from the child standard input, and the application
+	 */
+	private void addProgramArguments(List<String> command) {
+		String commands = System.getProperty("eclipse.commands"); //$NON-NLS-1$
+		if (commands == null) {
+			return;
+		}
+		String[] args = commands.split("\\r?\\n"); //$NON-NLS-1$
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i].trim();
+			if (arg.length() == 0) {
+				continue;
+			}
+			if (EXCLUDED_COMMANDS.contains(arg)) {
+				boolean hasValue = i + 1 < args.length && !args[i + 1].startsWith("-"); //$NON-NLS-1$
+				if (hasValue && !"-noExit".equals(arg)) { //$NON-NLS-1$
+					i++;
+				}
+				continue;
+			}
+			command.add(arg);
+		}
+	}
+
+	private File createConfigurationArea() throws IOException {
+		File directory = File.createTempFile("mset-fork", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		if (!directory.delete() || !directory.mkdirs()) {
+			throw new IOException("Could not create configuration area for forked JVM at " + directory); //$NON-NLS-1$
+		}
+		return directory;
+	}
+
+	private void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		if (!file.delete()) {
+			logger.debug("Could not delete {}", file);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Minimal HTTP server bound to the loopback interface, which answers
+ * <code>GET /metrics</code> with the {@link BenchmarkMonitor#toOpenMetrics() OpenMetrics}
+ * of a {@link BenchmarkMonitor}, so that a run may be scraped while in progress.
+ * Requests are served one at a time by a daemon thread.
+ *
+ * @author vroldan
+ */
+public class MetricsServer {
+
+	public static final String PATH = "/metrics"; //$NON-NLS-1$
+
+	private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8"; //$NON-NLS-1$
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	private static final int READ_TIMEOUT = 5000;
+
+	private final Logger logger = LoggerFactory.getLogger(getClass());
+
+	private final BenchmarkMonitor monitor;
+
+	private final ServerSocket server;
+
+	/**
+	 * Binds the server to the argument port of the loopback interface, 0 for any free port
+	 */
+	public MetricsServer(int port, BenchmarkMonitor monitor) throws IOException {
+		this.monitor = monitor;
+		this.server = new ServerSocket(port, 10, InetAddress.getByName(null));
+	}
+
+	public int getPort() {
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Starts serving requests in a daemon thread
+	 */
+	public void start() {
+		Thread thread = new Thread("mset-metrics-server") { //$NON-NLS-1$
+			@Override
+			public void run() {
+				while (!server.isClosed()) {
+					try {
+						Socket socket = server.accept();
+						try {
+							socket.setSoTimeout(READ_TIMEOUT);
+							serve(socket);
+						} finally {
+							socket.close();
+						}
+					} catch (SocketException e) {
+						// Closed
+					} catch (IOException e) {
+						logger.warn("Error serving metrics request", e);
+					}
+				}
+			}
+		};
+		thread.setDaemon(true);
+		thread.start();
+		logger.info("Metrics available at http://localhost:{}{}", getPort(), PATH);
+	}
+
+	public void close() {
+		try {
+			server.close();
+		} catch (IOException e) {
+			logger.warn("Error closing metrics server", e);
+		}
+	}
+
+	private void serve(Socket socket) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), ENCODING));
+		String requestLine = reader.readLine();
+		if (requestLine == null) {
+			return;
+		}
+		// Headers are not used, but must be read before answering
+		for (String header = reader.readLine(); header != null && header.length() > 0; header = reader.readLine()) {
+			continue;
+		}
+		String[] request = requestLine.split(" "); //$NON-NLS-1$
+		OutputStream output = socket.getOutputStream();
+		if (request.length < 2 || !"GET".equals(request[0])) { //$NON-NLS-1$
+			respond(output, "405 Method Not Allowed", "text/plain; charset=utf-8", "Only GET is supported\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		} else if (!PATH.equals(request[1]) && !"/".equals(request[1])) { //$NON-NLS-1$
+			respond(output, "404 Not Found", "text/plain; charset=utf-8", "Metrics are at " + PATH + "\n"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		} else {
+			respond(output, "200 OK", CONTENT_TYPE, monitor.toOpenMetrics()); //$NON-NLS-1$
+		}
+	}
+
+	private static void respond(OutputStream output, String status, String contentType, String body) throws IOException {
+		byte[] content = body.getBytes(ENCODING);
+		String headers = "HTTP/1.1 " + status + "\r\n" //$NON-NLS-1$ //$NON-NLS-2$
+				+ "Content-Type: " + contentType + "\r\n" //$NON-NLS-1$ //$NON-NLS-2$
+				+ "Content-Length: " + content.length + "\r\n" //$NON-NLS-1$ //$NON-NLS-2$
+				+ "Connection: close\r\n\r\n"; //$NON-NLS-1$
+		output.write(headers.getBytes(ENCODING));
+		output.write(content);
+		output.flush();
+	}
+}
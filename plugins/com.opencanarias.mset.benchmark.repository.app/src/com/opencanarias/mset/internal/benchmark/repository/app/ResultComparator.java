@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.opencanarias.mset.repository.benchmark.CSVUtils;
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.IComparison;
+import com.opencanarias.mset.repository.benchmark.JSONUtils;
+import com.opencanarias.mset.repository.benchmark.RegressionDetector;
+import com.opencanarias.mset.repository.benchmark.ResultJournal;
+
+/**
+ * Compares result files of different benchmark runs with a {@link RegressionDetector}.
+ * Arguments are:
+ * <p>
+ * <code>[-metric name] [-alpha significance] [-threshold relativeChange] baseline... candidate</code>
+ * <p>
+ * The last file is the candidate run, and all the previous ones are pooled as the baseline.
+ * Files may be CSV files or {@link ResultJournal journals} written by {@link BenchmarkManager},
+ * or any file with one {@link JSONUtils} entry per line.
+ *
+ * @author vroldan
+ */
+public class ResultComparator {
+
+	/** Exit code when no regression is found */
+	public static final int EXIT_OK = 0;
+
+	/** Exit code when at least one regression is found */
+	public static final int EXIT_REGRESSION = 1;
+
+	/** Exit code when the arguments or files are not valid */
+	public static final int EXIT_ERROR = 2;
+
+	public static final String USAGE = "[-metric name] [-alpha significance] [-threshold relativeChange] baseline... candidate"; //$NON-NLS-1$
+
+	private static final String OPTION_METRIC = "-metric"; //$NON-NLS-1$
+
+	private static final String OPTION_ALPHA = "-alpha"; //$NON-NLS-1$
+
+	private static final String OPTION_THRESHOLD = "-threshold"; //$NON-NLS-1$
+
+	/**
+	 * Compares the files given in the arguments, appending the report or the reason
+	 * of the failure to the output
+	 *
+	 * @return {@link #EXIT_OK}, {@link #EXIT_REGRESSION} or {@link #EXIT_ERROR}
+	 */
+	public static int compare(List<String> arguments, StringBuilder output) {
+		RegressionDetector detector = new RegressionDetector();
+		List<File> files = new ArrayList<File>();
+		try {
+			for (int i = 0; i < arguments.size(); i++) {
+				String argument = arguments.get(i);
+				if (OPTION_METRIC.equals(argument) && i + 1 < arguments.size()) {
+					detector.setMetric(Metric.valueOf(arguments.get(++i).toUpperCase()));
+				} else if (OPTION_ALPHA.equals(argument) && i + 1 < arguments.size()) {
+					detector.setSignificance(Double.parseDouble(arguments.get(++i)));
+				} else if (OPTION_THRESHOLD.equals(argument) && i + 1 < arguments.size()) {
+					detector.setThreshold(Double.parseDouble(arguments.get(++i)));
+				} else {
+					files.add(new File(argument).getAbsoluteFile());
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			output.append(MessageFormat.format("Invalid option: {0}", e.getMessage())); //$NON-NLS-1$
+			return EXIT_ERROR;
+		}
+		if (files.size() < 2) {
+			output.append(MessageFormat.format("At least two result files are needed: {0}", USAGE)); //$NON-NLS-1$
+			return EXIT_ERROR;
+		}
+		List<IBenchmarkResult> baseline = new ArrayList<IBenchmarkResult>();
+		List<IBenchmarkResult> candidate;
+		try {
+			for (File file : files.subList(0, files.size() - 1)) {
+				baseline.addAll(readResults(file));
+			}
+			candidate = readResults(files.get(files.size() - 1));
+		} catch (IOException e) {
+			output.append(MessageFormat.format("Cannot read result file: {0}", e.getMessage())); //$NON-NLS-1$
+			return EXIT_ERROR;
+		} catch (IllegalArgumentException e) {
+			output.append(MessageFormat.format("Invalid result file: {0}", e.getMessage())); //$NON-NLS-1$
+			return EXIT_ERROR;
+		}
+		List<IComparison> comparisons = detector.compare(baseline, candidate);
+		output.append(RegressionDetector.toReport(comparisons));
+		return RegressionDetector.hasRegressions(comparisons) ? EXIT_REGRESSION : EXIT_OK;
+	}
+
+	/**
+	 * Reads the results in the argument file, either a CSV file or a {@link ResultJournal}
+	 */
+	public static List<IBenchmarkResult> readResults(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
+		StringBuilder content = new StringBuilder();
+		try {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				content.append(line).append(CSVUtils.getLineSeparator());
+			}
+		} finally {
+			reader.close();
+		}
+		if (content.toString().trim().startsWith("{")) { //$NON-NLS-1$
+			return ResultJournal.getResults(ResultJournal.read(file));
+		}
+		return CSVUtils.parseResults(content.toString());
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.app;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.jar.Manifest;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opencanarias.mset.internal.repository.benchmark.ServiceLoaderRegistration;
+
+/**
+ * Runs the {@link BenchmarkApplication benchmark application} in a plain JVM, without
+ * starting Equinox, for a faster startup in forked JVMs and continuous integration.
+ * All bundles and their libraries must be in a flat class path:
+ * <pre>
+ * java -cp "plugins/*:lib/*" -Dmset.benchmark.groups=Performance com.opencanarias.mset.internal.benchmark.repository.app.StandaloneLauncher [planFile]
+ * </pre>
+ * Model repositories and benchmark groups are found through {@link java.util.ServiceLoader}
+ * instead of OSGi services, see {@link ServiceLoaderRegistration}, and
+ * <code>platform:/plugin</code> URIs are mapped to the class path entry of their bundle.
+ * The plan file argument, if any, is the same as {@link BenchmarkPlan#PROPERTY_PLAN}.
+ * <p>
+ * Forked JVMs launched from this launcher run this launcher as well.
+ *
+ * @author vroldan
+ */
+public class StandaloneLauncher {
+
+	private static final String MANIFEST = "META-INF/MANIFEST.MF"; //$NON-NLS-1$
+
+	private static final String BUNDLE_SYMBOLIC_NAME = "Bundle-SymbolicName"; //$NON-NLS-1$
+
+	private static Logger logger = LoggerFactory.getLogger(StandaloneLauncher.class);
+
+	private static volatile boolean running;
+
+	/**
+	 * Returns true if the current JVM was started by this launcher
+	 */
+	public static boolean isRunning() {
+		return running;
+	}
+
+	public static void main(String[] args) {
+		long start = System.nanoTime();
+		running = true;
+		if (args.length > 0) {
+			System.setProperty(BenchmarkPlan.PROPERTY_PLAN, args[0]);
+		}
+		int exitValue = 0;
+		try {
+			ClassLoader classLoader = StandaloneLauncher.class.getClassLoader();
+			mapBundles(classLoader);
+			int services = ServiceLoaderRegistration.registerAll(classLoader);
+			logger.info("Registered {} services in {} ms", services, (System.nanoTime() - start) / 1000000);
+			BenchmarkManager.INSTANCE.launch();
+		} catch (Exception e) {
+			logger.error("Benchmark failed", e);
+			exitValue = 1;
+		}
+		System.exit(exitValue);
+	}
+
+	/*
+	 * Maps platform:/plugin/<symbolic name>/ to the class path entry of every bundle,
+	 * so that resources such as sample models are resolved without Equinox
+	 */
+	private static void mapBundles(ClassLoader classLoader) throws IOException {
+		Enumeration<URL> manifests = classLoader.getResources(MANIFEST);
+		while (manifests.hasMoreElements()) {
+			URL manifestURL = manifests.nextElement();
+			String symbolicName = readSymbolicName(manifestURL);
+			if (symbolicName == null) {
+				continue;
+			}
+			String root = manifestURL.toString().substring(0, manifestURL.toString().length() - MANIFEST.length());
+			URI platformURI = URI.createPlatformPluginURI("/" + symbolicName + "/", false); //$NON-NLS-1$ //$NON-NLS-2$
+			if (!URIConverter.URI_MAP.containsKey(platformURI)) {
+				URIConverter.URI_MAP.put(platformURI, URI.createURI(root));
+			}
+		}
+	}
+
+	private static String readSymbolicName(URL manifestURL) throws IOException {
+		InputStream input = manifestURL.openStream();
+		try {
+			String symbolicName = new Manifest(input).getMainAttributes().getValue(BUNDLE_SYMBOLIC_NAME);
+			return symbolicName != null ? symbolicName.split(";")[0].trim() : null; //$NON-NLS-1$
+		} finally {
+			input.close();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.jmh;
+
+import java.net.URL;
+
+import org.eclipse.emf.common.EMFPlugin;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.URIConverter;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.opencanarias.mset.internal.benchmark.repository.performance.PerformanceBenchmarkGroup;
+import com.opencanarias.mset.repository.benchmark.AbstractBenchmarkCase;
+import com.opencanarias.mset.repository.benchmark.BenchmarkCaseRunner;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
+import com.opencanarias.mset.repository.benchmark.IModelRepository;
+
+/**
+ * Base for JMH {@link org.openjdk.jmh.annotations.State states} holding an
+ * {@link AbstractBenchmarkCase} running against the {@link IModelRepository}
+ * named by the {@link #repository} parameter.
+ * <p>
+ * Benchmarks using this state must run in {@link org.openjdk.jmh.annotations.Mode#SingleShotTime}
+ * mode, since most cases consume their model, or leave the repository dirty, and therefore
+ * need {@link AbstractBenchmarkCase#setUpCase} and {@link AbstractBenchmarkCase#tearDownCase}
+ * around every execution. In that mode there is one invocation per iteration, so they
+ * are mapped to {@link Level#Iteration}, avoiding the timing overhead of {@link Level#Invocation}.
+ * The model and the repository are prepared once per {@link Level#Trial}, that is, once per fork.
+ *
+ * @author vroldan
+ */
+public abstract class BenchmarkCaseState {
+
+	private static final String PERFORMANCE_BUNDLE = "com.opencanarias.mset.benchmark.repository.performance"; //$NON-NLS-1$
+
+	private static final String SAMPLES_FOLDER = "samples/"; //$NON-NLS-1$
+
+	/**
+	 * Name of the {@link IModelRepository} to benchmark
+	 */
+	@Param("CDO-MEM-JVM")
+	public String repository;
+
+	private BenchmarkCaseRunner runner;
+
+	@Setup(Level.Trial)
+	public void setUpTrial() {
+		registerSampleModels();
+		runner = new BenchmarkCaseRunner(createCase(new PerformanceBenchmarkGroup()),
+				ModelRepositoryLocator.getModelRepository(repository));
+		runner.setUpTrial();
+	}
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		runner.setUp();
+	}
+
+	/**
+	 * Executes the measurable logic of the case
+	 *
+	 * @return the model used by the case, to be consumed by JMH
+	 */
+	public EObject execute() {
+		return runner.execute();
+	}
+
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		boolean failed = runner.isFailed();
+		runner.tearDown();
+		if (failed) {
+			throw new IllegalStateException("Repository " + repository + " failed during " + runner.getBenchmarkCase().getName()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDownTrial() {
+		runner.tearDownTrial();
+	}
+
+	/**
+	 * Creates the {@link AbstractBenchmarkCase} to run
+	 */
+	protected abstract AbstractBenchmarkCase createCase(IBenchmarkGroup group);
+
+	/*
+	 * Sample models are referenced through platform:/plugin URIs, which only
+	 * resolve within Eclipse. Otherwise, they are mapped to the class path entry
+	 * containing the samples of the performance bundle.
+	 */
+	private static void registerSampleModels() {
+		if (EMFPlugin.IS_ECLIPSE_RUNNING) {
+			return;
+		}
+		URL samples = PerformanceBenchmarkGroup.class.getResource("/" + SAMPLES_FOLDER); //$NON-NLS-1$
+		if (samples != null) {
+			String root = samples.toString().substring(0, samples.toString().length() - SAMPLES_FOLDER.length());
+			URIConverter.URI_MAP.put(URI.createPlatformPluginURI("/" + PERFORMANCE_BUNDLE + "/", false), URI.createURI(root)); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+}
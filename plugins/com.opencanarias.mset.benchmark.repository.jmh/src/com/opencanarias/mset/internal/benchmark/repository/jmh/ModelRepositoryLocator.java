@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.jmh;
+
+import java.text.MessageFormat;
+import java.util.List;
+
+import com.opencanarias.mset.internal.repository.benchmark.ServiceLoaderRegistration;
+import com.opencanarias.mset.repository.benchmark.IModelRepository;
+import com.opencanarias.mset.repository.benchmark.IModelRepositoryRegistry;
+
+/**
+ * Finds {@link IModelRepository} instances by name. Within OSGi, repositories are taken
+ * from the {@link IModelRepositoryRegistry}. Since JMH runs benchmarks in plain JVMs,
+ * the registry is otherwise filled from the <code>META-INF/services</code> files of the
+ * repository bundles in the class path, see {@link ServiceLoaderRegistration}.
+ *
+ * @author vroldan
+ */
+public class ModelRepositoryLocator {
+
+	/**
+	 * Returns the {@link IModelRepository} with the argument name, case insensitive
+	 *
+	 * @throws IllegalArgumentException if no repository is found with that name
+	 */
+	public static IModelRepository getModelRepository(String name) {
+		for (IModelRepository repository : getModelRepositories()) {
+			if (repository.getName().equalsIgnoreCase(name)) {
+				return repository;
+			}
+		}
+		throw new IllegalArgumentException(MessageFormat.format("Could not find a model repository with name \"{0}\"", name)); //$NON-NLS-1$
+	}
+
+	/**
+	 * Returns all the {@link IModelRepository} instances available
+	 */
+	public static synchronized List<IModelRepository> getModelRepositories() {
+		if (IModelRepositoryRegistry.INSTANCE.getModelRepositories().isEmpty()) {
+			ServiceLoaderRegistration.registerAll(ModelRepositoryLocator.class.getClassLoader());
+		}
+		return IModelRepositoryRegistry.INSTANCE.getModelRepositories();
+	}
+}
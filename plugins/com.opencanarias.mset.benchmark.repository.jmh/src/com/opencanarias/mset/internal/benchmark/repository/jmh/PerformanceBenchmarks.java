@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.jmh;
+
+import java.text.MessageFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opencanarias.mset.internal.benchmark.repository.performance.ModelSaveCase;
+import com.opencanarias.mset.internal.benchmark.repository.performance.ModelTraversalCachingCase;
+import com.opencanarias.mset.internal.benchmark.repository.performance.ModelTraversalNoCachingCase;
+import com.opencanarias.mset.internal.benchmark.repository.performance.RepositorySetupCase;
+import com.opencanarias.mset.internal.benchmark.repository.performance.ResourceCreationCase;
+import com.opencanarias.mset.internal.benchmark.repository.performance.ResourceLoadCase;
+import com.opencanarias.mset.internal.benchmark.repository.performance.SampleModelPool;
+import com.opencanarias.mset.repository.benchmark.AbstractBenchmarkCase;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
+
+/**
+ * JMH benchmarks for the cases of the performance group. Every case is a
+ * {@link Benchmark}, parameterized by repository name and, for cases working
+ * on a sample model, by model size. For instance, to benchmark model saving on two
+ * repositories, with the GC profiler and JSON output:
+ * <p>
+ * <code>java -cp &lt;bundles&gt; org.openjdk.jmh.Main PerformanceBenchmarks.modelSave
+ * -p repository=CDO-MEM-JVM,CDO-H2-JVM -p size=1k,10k -prof gc -rf json</code>
+ * <p>
+ * Repository bundles must be in the class path, see {@link ModelRepositoryLocator}.
+ *
+ * @author vroldan
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(1)
+public class PerformanceBenchmarks {
+
+	@Benchmark
+	public EObject repositorySetup(RepositorySetupState state) {
+		return state.execute();
+	}
+
+	@Benchmark
+	public EObject resourceCreation(ResourceCreationState state) {
+		return state.execute();
+	}
+
+	@Benchmark
+	public EObject resourceLoad(ResourceLoadState state) {
+		return state.execute();
+	}
+
+	@Benchmark
+	public EObject modelSave(ModelSaveState state) {
+		return state.execute();
+	}
+
+	@Benchmark
+	public EObject modelTraversalNoCaching(ModelTraversalNoCachingState state) {
+		return state.execute();
+	}
+
+	@Benchmark
+	public EObject modelTraversalCaching(ModelTraversalCachingState state) {
+		return state.execute();
+	}
+
+	/**
+	 * State for cases working on a sample model, whose size is the {@link #size} parameter
+	 */
+	public static abstract class SampleModelState extends BenchmarkCaseState {
+
+		/**
+		 * Size of the sample model, as named in the samples folder of the performance bundle
+		 */
+		@Param({"100", "1k", "10k"})
+		public String size;
+
+		protected URI getSampleModelURI() {
+			if ("1".equals(size)) { //$NON-NLS-1$
+				return SampleModelPool.get1ModelURI();
+			} else if ("10".equals(size)) { //$NON-NLS-1$
+				return SampleModelPool.get10ModelURI();
+			} else if ("100".equals(size)) { //$NON-NLS-1$
+				return SampleModelPool.get100ModelURI();
+			} else if ("1k".equalsIgnoreCase(size)) { //$NON-NLS-1$
+				return SampleModelPool.get1KModelURI();
+			} else if ("10k".equalsIgnoreCase(size)) { //$NON-NLS-1$
+				return SampleModelPool.get10KModelURI();
+			} else if ("100k".equalsIgnoreCase(size)) { //$NON-NLS-1$
+				return SampleModelPool.get100KModelURI();
+			}
+			throw new IllegalArgumentException(MessageFormat.format("Unknown sample model size \"{0}\"", size)); //$NON-NLS-1$
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class RepositorySetupState extends BenchmarkCaseState {
+		@Override
+		protected AbstractBenchmarkCase createCase(IBenchmarkGroup group) {
+			return new RepositorySetupCase(group);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ResourceCreationState extends BenchmarkCaseState {
+		@Override
+		protected AbstractBenchmarkCase createCase(IBenchmarkGroup group) {
+			return new ResourceCreationCase(group);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ResourceLoadState extends BenchmarkCaseState {
+		@Override
+		protected AbstractBenchmarkCase createCase(IBenchmarkGroup group) {
+			return new ResourceLoadCase(group);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ModelSaveState extends SampleModelState {
+		@Override
+		protected AbstractBenchmarkCase createCase(IBenchmarkGroup group) {
+			return new ModelSaveCase(group, getSampleModelURI());
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ModelTraversalNoCachingState extends SampleModelState {
+		@Override
+		protected AbstractBenchmarkCase createCase(IBenchmarkGroup group) {
+			return new ModelTraversalNoCachingCase(group, getSampleModelURI());
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ModelTraversalCachingState extends SampleModelState {
+		@Override
+		protected AbstractBenchmarkCase createCase(IBenchmarkGroup group) {
+			return new ModelTraversalCachingCase(group, getSampleModelURI());
+		}
+	}
+}
@@ -19,6 +19,7 @@ import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
 import com.opencanarias.mset.repository.benchmark.IModelProperties;
 import com.opencanarias.mset.repository.benchmark.IModelRepository;
+import com.opencanarias.mset.repository.benchmark.ParameterAxis;
 
 public class ModelSaveCase extends AbstractBenchmarkCase implements IBenchmarkCase {
 
@@ -35,6 +36,17 @@ public class ModelSaveCase extends AbstractBenchmarkCase implements IBenchmarkCa
 		this.eObjectCountUpper = eObjectCountUpper;
 	}
 
+	/**
+	 * Use this constructor to run the case over a parameter space, which must
+	 * include {@link ParameterAxis#COUNT} for the model to be generated
+	 */
+	public ModelSaveCase(IBenchmarkGroup group, ParameterAxis... axes) {
+		super(group);
+		for (ParameterAxis axis : axes) {
+			addParameterAxis(axis);
+		}
+	}
+
 	/**
 	 * Use this constructor in case we want to use a predefined model
 	 */
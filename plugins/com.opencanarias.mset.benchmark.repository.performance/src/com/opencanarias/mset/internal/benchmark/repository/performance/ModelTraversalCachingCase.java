@@ -10,8 +10,11 @@
  */
 package com.opencanarias.mset.internal.benchmark.repository.performance;
 
+import org.eclipse.emf.common.util.URI;
+
 import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
+import com.opencanarias.mset.repository.benchmark.ParameterAxis;
 
 
 /**
@@ -26,8 +29,12 @@ public class ModelTraversalCachingCase extends ModelTraversalNoCachingCase imple
 		super(group);
 	}
 
+	public ModelTraversalCachingCase(IBenchmarkGroup group, URI uri) {
+		super(group, uri);
+	}
+
 	@Override
 	protected boolean isCaching() {
-		return true;
+		return Boolean.parseBoolean(getParameter(ParameterAxis.CACHING, Boolean.TRUE.toString()));
 	}
 }
@@ -19,6 +19,7 @@ import com.opencanarias.mset.repository.benchmark.AbstractBenchmarkCase;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
 import com.opencanarias.mset.repository.benchmark.IModelRepository;
+import com.opencanarias.mset.repository.benchmark.ParameterAxis;
 
 
 /**
@@ -40,6 +41,17 @@ public class ModelTraversalNoCachingCase extends AbstractBenchmarkCase implement
 	public ModelTraversalNoCachingCase(IBenchmarkGroup group) {
 		super(group, SampleModelPool.get1KModelURI());
 	}
+
+	/**
+	 * Use this constructor to run the case over a parameter space, i.e. 
+	 * {@link ParameterAxis#COUNT} and {@link ParameterAxis#CACHING}
+	 */
+	public ModelTraversalNoCachingCase(IBenchmarkGroup group, ParameterAxis... axes) {
+		this(group);
+		for (ParameterAxis axis : axes) {
+			addParameterAxis(axis);
+		}
+	}
 	
 	@Override
 	protected void setUpCase(IModelRepository repository, EObject model) {
@@ -64,10 +76,11 @@ public class ModelTraversalNoCachingCase extends AbstractBenchmarkCase implement
 	 * If set to true, the repository is allowed to use caching mechanisms
 	 * to enhance performance.
 	 * 
-	 * @return true if repository caching is should be enabled during the benchmark, false otherwise. 
+	 * @return true if repository caching is should be enabled during the benchmark, false otherwise,
+	 *         unless given by the {@link ParameterAxis#CACHING} parameter. 
 	 */
 	protected boolean isCaching() {
-		return false;
+		return Boolean.parseBoolean(getParameter(ParameterAxis.CACHING, Boolean.FALSE.toString()));
 	}
 
 	@Override
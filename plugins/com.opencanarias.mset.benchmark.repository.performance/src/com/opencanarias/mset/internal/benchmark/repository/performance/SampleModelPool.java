@@ -1,9 +1,17 @@
 package com.opencanarias.mset.internal.benchmark.repository.performance;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.eclipse.emf.common.util.URI;
 
 public class SampleModelPool {
 
+	/**
+	 * Labels of the sizes of the sample models, ascending
+	 */
+	public static final List<String> SIZES = Arrays.asList("1", "10", "100", "1k", "10k", "100k"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+
 	private static final String BUNDLE_PATH = "/com.opencanarias.mset.benchmark.repository.performance";
 
 	private static URI getPlatformURI(String path) {
@@ -34,4 +42,14 @@ public class SampleModelPool {
 		return getPlatformURI("/samples/size-100k/model_100k_elements_0.emfbin");
 	}
 
+	/**
+	 * Returns the sample model of the argument size, one of {@link #SIZES}
+	 */
+	public static URI getModelURI(String size) {
+		if (!SIZES.contains(size)) {
+			throw new IllegalArgumentException("No sample model of size " + size); //$NON-NLS-1$
+		}
+		return getPlatformURI("/samples/size-" + size + "/model_" + size + "_elements_0.emfbin"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
 }
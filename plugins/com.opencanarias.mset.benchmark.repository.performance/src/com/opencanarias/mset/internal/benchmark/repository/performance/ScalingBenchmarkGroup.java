@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.opencanarias.mset.repository.benchmark.ComplexityAnalyzer;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
+import com.opencanarias.mset.repository.benchmark.ParameterAxis;
+
+/**
+ * Runs the save and traversal cases over a geometric sweep of model sizes, for
+ * {@link ComplexityAnalyzer} to fit how each repository scales. Models are
+ * generated with the {@link ParameterAxis#COUNT count} of each step, and the
+ * {@link StreamedModelTraversalCase streamed traversal} never holds them in memory.
+ * <p>
+ * The sweep is opt-in, as the biggest models take long: this group has no cases
+ * unless the system property {@link #PROPERTY_SWEEP} lists the sizes to run,
+ * e.g. <code>-Dmset.benchmark.sweep=1k,10k,100k,1m</code>, or <code>all</code>
+ * for the sizes of the {@link SampleModelPool sample models}.
+ *
+ * @author vroldan
+ */
+public class ScalingBenchmarkGroup implements IBenchmarkGroup {
+
+	public static final String GROUP_ID = "Scaling"; //$NON-NLS-1$
+
+	/**
+	 * Comma separated model sizes of the sweep
+	 */
+	public static final String PROPERTY_SWEEP = "mset.benchmark.sweep"; //$NON-NLS-1$
+
+	private static final String ALL_SIZES = "all"; //$NON-NLS-1$
+
+	@Override
+	public List<IBenchmarkCase> getCases() {
+		List<IBenchmarkCase> cases = new ArrayList<IBenchmarkCase>();
+		List<String> sizes = getSizes();
+		if (!sizes.isEmpty()) {
+			ParameterAxis count = new ParameterAxis(ParameterAxis.COUNT, sizes);
+			cases.add(new ModelSaveCase(this, count));
+			cases.add(new ModelTraversalNoCachingCase(this, count));
+			cases.add(new StreamedModelTraversalCase(this, count));
+		}
+		return cases;
+	}
+
+	private static List<String> getSizes() {
+		String property = System.getProperty(PROPERTY_SWEEP);
+		List<String> sizes = new ArrayList<String>();
+		if (property == null || property.trim().length() == 0) {
+			return sizes;
+		}
+		if (ALL_SIZES.equalsIgnoreCase(property.trim())) {
+			return SampleModelPool.SIZES;
+		}
+		for (String size : property.split(",")) { //$NON-NLS-1$
+			ParameterAxis.parseCount(size); // Fail early on invalid sizes
+			sizes.add(size.trim());
+		}
+		return sizes;
+	}
+
+	@Override
+	public String getName() {
+		return GROUP_ID;
+	}
+
+}
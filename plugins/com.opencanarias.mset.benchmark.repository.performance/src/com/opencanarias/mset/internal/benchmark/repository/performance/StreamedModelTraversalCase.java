@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.benchmark.repository.performance;
+
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+
+import com.opencanarias.mset.repository.benchmark.AbstractBenchmarkCase;
+import com.opencanarias.mset.repository.benchmark.BenchmarkModelGenerator;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkModel;
+import com.opencanarias.mset.repository.benchmark.IModelRepository;
+import com.opencanarias.mset.repository.benchmark.ParameterAxis;
+
+/**
+ * Same as {@link ModelTraversalNoCachingCase}, but the model is
+ * {@link BenchmarkModelGenerator#generateInto(IModelRepository, Resource, com.opencanarias.mset.repository.benchmark.IModelProperties, int) streamed}
+ * into the repository instead of generated in memory first, so that its size is bounded
+ * by the repository rather than by the heap. The model of the case is therefore empty.
+ * <p>
+ * Elements are saved in chunks of {@link BenchmarkModelGenerator#PROPERTY_CHUNK_SIZE}.
+ *
+ * @author vroldan
+ */
+public class StreamedModelTraversalCase extends AbstractBenchmarkCase implements IBenchmarkCase {
+
+	private String uriFragment;
+
+	private Resource res;
+
+	/**
+	 * The model size is given by {@link ParameterAxis#COUNT}, and optionally
+	 * {@link ParameterAxis#SHAPE} and {@link ParameterAxis#VALUE_LENGTH}
+	 */
+	public StreamedModelTraversalCase(IBenchmarkGroup group, ParameterAxis... axes) {
+		super(group);
+		for (ParameterAxis axis : axes) {
+			addParameterAxis(axis);
+		}
+	}
+
+	@Override
+	protected IBenchmarkModel initModel() {
+		return BenchmarkModelGenerator.VOID_MODEL;
+	}
+
+	@Override
+	protected void setUpCase(IModelRepository repository, EObject model) {
+		super.setUpCase(repository, model);
+		Resource resourceToIterate = repository.createResource();
+		int chunkSize = Integer.getInteger(BenchmarkModelGenerator.PROPERTY_CHUNK_SIZE, BenchmarkModelGenerator.DEFAULT_CHUNK_SIZE);
+		EObject root = getGenerator().generateInto(repository, resourceToIterate, getProperties(), chunkSize);
+		URI resourceURI = resourceToIterate.getURI();
+		uriFragment = resourceToIterate.getURIFragment(root);
+
+		// Unload everything, so that the traversal loads the model from the store
+		repository.restart();
+		res = repository.loadResource(resourceURI);
+	}
+
+	@Override
+	protected void executeMeasurable(IModelRepository repository, EObject model) {
+		TreeIterator<EObject> iter = res.getEObject(uriFragment).eAllContents();
+		while (iter.hasNext()) {
+			EObject eObjet = iter.next();
+			eObjet.eContainer();
+		}
+	}
+
+	@Override
+	protected void tearDownCase(IModelRepository repository, EObject model) {
+		res.unload();
+		res = null;
+		uriFragment = null;
+		super.tearDownCase(repository, model);
+	}
+
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.benchmark.repository.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.opencanarias.mset.repository.benchmark.AdaptiveIterationPolicy;
+import com.opencanarias.mset.repository.benchmark.BenchmarkUtils;
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.JSONUtils;
+
+public class AdaptiveIterationPolicyTest {
+
+	/**
+	 * Stable pairs must stop at the minimum iterations, noisy ones must go on
+	 */
+	@Test
+	public void testTargetWidth() {
+		AdaptiveIterationPolicy policy = new AdaptiveIterationPolicy(0.05, 0, 0);
+		IAggregatedResult stable = BenchmarkUtils.createAggregateResult();
+		IAggregatedResult noisy = BenchmarkUtils.createAggregateResult();
+		for (int i = 0; i < AdaptiveIterationPolicy.DEFAULT_MIN_ITERATIONS; i++) {
+			assertFalse(policy.isDone(stable, 0, 0, Long.MAX_VALUE));
+			stable.addResult(result(1000 + i % 2));
+			noisy.addResult(result(i % 2 == 0 ? 100 : 1000));
+		}
+		assertTrue(policy.isDone(stable, 0, 0, Long.MAX_VALUE));
+		assertFalse(policy.isDone(noisy, 0, 0, Long.MAX_VALUE));
+		policy.setIterations(1, AdaptiveIterationPolicy.DEFAULT_MIN_ITERATIONS);
+		assertTrue(policy.isDone(noisy, 0, 0, Long.MAX_VALUE));
+	}
+
+	/**
+	 * A pair must stop when another iteration would exceed its budget, and the
+	 * global budget must be shared among the remaining pairs
+	 */
+	@Test
+	public void testBudget() {
+		AdaptiveIterationPolicy policy = new AdaptiveIterationPolicy(0.05, 5000, 60000);
+		assertEquals(5000, policy.getPairBudget(2, 0));
+		assertEquals(1000, policy.getPairBudget(10, 50000));
+		assertEquals(0, policy.getPairBudget(10, 70000));
+		IAggregatedResult noisy = BenchmarkUtils.createAggregateResult();
+		assertTrue(policy.isDone(noisy, 0, 0, 0));
+		noisy.addResult(result(100));
+		noisy.addResult(result(1000));
+		assertFalse(policy.isDone(noisy, 2, 600, 1000));
+		assertTrue(policy.isDone(noisy, 2, 800, 1000));
+	}
+
+	/**
+	 * Results of previous runs count towards the interval, but not towards the
+	 * time estimate of the next iteration
+	 */
+	@Test
+	public void testResumedBudget() {
+		AdaptiveIterationPolicy policy = new AdaptiveIterationPolicy(0.05, 1000, 0);
+		IAggregatedResult resumed = BenchmarkUtils.createAggregateResult();
+		for (int i = 0; i < 10; i++) {
+			resumed.addResult(result(i % 2 == 0 ? 100 : 1000));
+		}
+		assertFalse(policy.isDone(resumed, 0, 0, 1000));
+		assertTrue(policy.isDone(resumed, 1, 600, 1000));
+	}
+
+	private static IBenchmarkResult result(long realTime) {
+		return JSONUtils.parseEntry("{\"case\":\"ModelSave\",\"repository\":\"Repo\",\"realTimeNs\":" + realTime + "}"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.benchmark.repository.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.opencanarias.mset.repository.benchmark.BenchmarkUtils;
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult;
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+import com.opencanarias.mset.repository.benchmark.IStatistics;
+import com.opencanarias.mset.repository.benchmark.JSONUtils;
+
+public class AggregatedResultTest {
+
+	private static final long[] REAL_TIMES = {10, 12, 11, 13, 9, 11, 10, 12, 1000};
+
+	@Test
+	public void testStatistics() {
+		IStatistics statistics = aggregate(false).getStatistics(Metric.REAL_TIME);
+		assertEquals(REAL_TIMES.length, statistics.getCount());
+		assertEquals(1088d / 9, statistics.getMean(), 1e-9);
+		assertEquals(9, statistics.getMin(), 0);
+		assertEquals(1000, statistics.getMax(), 0);
+		assertEquals(11, statistics.getMedian(), 0);
+		assertEquals(1, statistics.getMedianAbsoluteDeviation(), 0);
+		assertEquals(10, statistics.getPercentile(25), 0);
+		assertEquals(0, statistics.getOutlierCount());
+		assertTrue(statistics.getConfidenceIntervalLow() <= statistics.getMean());
+		assertTrue(statistics.getConfidenceIntervalHigh() >= statistics.getMean());
+		// The bootstrap is seeded, so the interval must be reproducible
+		IStatistics other = aggregate(false).getStatistics(Metric.REAL_TIME);
+		assertEquals(statistics.getConfidenceIntervalLow(), other.getConfidenceIntervalLow(), 0);
+		assertEquals(statistics.getConfidenceIntervalHigh(), other.getConfidenceIntervalHigh(), 0);
+	}
+
+	@Test
+	public void testOutlierRejection() {
+		IStatistics statistics = aggregate(true).getStatistics(Metric.REAL_TIME);
+		assertEquals(1, statistics.getOutlierCount());
+		assertEquals(REAL_TIMES.length - 1, statistics.getCount());
+		assertEquals(11, statistics.getMean(), 1e-9);
+		assertEquals(13, statistics.getMax(), 0);
+		assertEquals(Math.sqrt(12d / 7), statistics.getStandardDeviation(), 1e-9);
+	}
+
+	private IAggregatedResult aggregate(boolean outlierRejection) {
+		IAggregatedResult result = BenchmarkUtils.createAggregateResult(outlierRejection);
+		for (long realTime : REAL_TIMES) {
+			result.addResult(JSONUtils.parseEntry("{\"case\":\"Case\",\"repository\":\"Repo\",\"realTimeNs\":" + realTime + "}")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return result;
+	}
+}
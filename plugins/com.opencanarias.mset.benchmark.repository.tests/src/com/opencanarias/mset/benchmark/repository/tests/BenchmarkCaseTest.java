@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.benchmark.repository.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EFactory;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.junit.Test;
+
+import com.opencanarias.mset.repository.benchmark.AbstractBenchmarkCase;
+import com.opencanarias.mset.repository.benchmark.BenchmarkUtils;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkData;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkModel;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.ILatencyHistogram;
+import com.opencanarias.mset.repository.benchmark.IModelOperation.OperationType;
+import com.opencanarias.mset.repository.benchmark.IModelRepository;
+import com.opencanarias.mset.repository.benchmark.JSONUtils;
+import com.opencanarias.mset.repository.benchmark.ParameterAxis;
+import com.opencanarias.mset.repository.benchmark.ParameterSpace;
+import com.opencanarias.mset.repository.benchmark.StubModelRepository;
+
+public class BenchmarkCaseTest {
+
+	private static final int CALLS = 100;
+
+	/**
+	 * Only the operations called while measuring must be recorded
+	 */
+	@Test
+	public void testOperationLatencies() {
+		IBenchmarkResult result = new ResourceCreationCase().executeBenchmark(
+				BenchmarkUtils.getBenchmarkData(new InMemoryModelRepository()));
+		assertFalse(result.getOperationLatencies().containsKey(OperationType.SAVE));
+		ILatencyHistogram latencies = result.getOperationLatencies().get(OperationType.CREATE_RESOURCE);
+		assertEquals(CALLS, latencies.getCount());
+		assertTrue(latencies.getMin() <= latencies.getP50());
+		assertTrue(latencies.getP50() <= latencies.getP90());
+		assertTrue(latencies.getP90() <= latencies.getP99());
+		assertTrue(latencies.getP99() <= latencies.getP999());
+		assertTrue(latencies.getP999() <= latencies.getMax());
+	}
+
+	/**
+	 * Warm-up iterations must not be measured, and must be reported
+	 */
+	@Test
+	public void testWarmupIterations() {
+		IBenchmarkData data = BenchmarkUtils.getBenchmarkData(new InMemoryModelRepository());
+		data.getOptions().put(AbstractBenchmarkCase.OPTION_WARMUP_ITERATIONS, 3);
+		IBenchmarkResult result = new ResourceCreationCase().executeBenchmark(data);
+		assertEquals(3, result.getWarmupIterations());
+		assertFalse(result.isSteadyStateReached());
+		assertEquals(CALLS, result.getOperationLatencies().get(OperationType.CREATE_RESOURCE).getCount());
+	}
+
+	/**
+	 * Warm-up must finish as soon as the steady state window is full if every time is accepted
+	 */
+	@Test
+	public void testSteadyStateDetection() {
+		IBenchmarkData data = BenchmarkUtils.getBenchmarkData(new InMemoryModelRepository());
+		data.getOptions().put(AbstractBenchmarkCase.OPTION_STEADY_STATE_WINDOW, "3"); //$NON-NLS-1$
+		data.getOptions().put(AbstractBenchmarkCase.OPTION_STEADY_STATE_THRESHOLD, Double.MAX_VALUE);
+		IBenchmarkResult result = new ResourceCreationCase().executeBenchmark(data);
+		assertEquals(3, result.getWarmupIterations());
+		assertTrue(result.isSteadyStateReached());
+	}
+
+	/**
+	 * Results sent from a forked JVM must keep names, times and latencies
+	 */
+	@Test
+	public void testJSONRoundTrip() {
+		IBenchmarkResult result = new ResourceCreationCase().executeBenchmark(
+				BenchmarkUtils.getBenchmarkData(new InMemoryModelRepository()));
+		String entry = JSONUtils.toEntry(result);
+		assertTrue(entry.endsWith(JSONUtils.getLineSeparator()));
+		assertEquals(1, entry.split(JSONUtils.getLineSeparator()).length);
+		IBenchmarkResult parsed = JSONUtils.parseEntry(entry);
+		assertEquals(result.getBenchmarkCaseName(), parsed.getBenchmarkCaseName());
+		assertEquals(result.getModelRepositoryName(), parsed.getModelRepositoryName());
+		assertEquals(result.getRealTimeNanos(), parsed.getRealTimeNanos());
+		assertEquals(result.getCPUTimeNanos(), parsed.getCPUTimeNanos());
+		assertEquals(result.getAllocatedBytes(), parsed.getAllocatedBytes());
+		assertEquals(result.getGCCount(), parsed.getGCCount());
+		ILatencyHistogram latencies = result.getOperationLatencies().get(OperationType.CREATE_RESOURCE);
+		ILatencyHistogram parsedLatencies = parsed.getOperationLatencies().get(OperationType.CREATE_RESOURCE);
+		assertEquals(latencies.getCount(), parsedLatencies.getCount());
+		assertEquals(latencies.getP99(), parsedLatencies.getP99());
+		assertEquals(latencies.getMean(), parsedLatencies.getMean(), 0);
+	}
+
+	/**
+	 * Each point of the parameter space must give the case a distinct name, keeping
+	 * the count as the size suffix
+	 */
+	@Test
+	public void testParameterAxes() {
+		ResourceCreationCase benchmarkCase = new ResourceCreationCase();
+		benchmarkCase.addParameterAxis(new ParameterAxis(ParameterAxis.COUNT, "1k", "10k")); //$NON-NLS-1$ //$NON-NLS-2$
+		benchmarkCase.addParameterAxis(new ParameterAxis(ParameterAxis.CACHING, "true", "false")); //$NON-NLS-1$ //$NON-NLS-2$
+		List<Map<String, String>> points = ParameterSpace.getPoints(benchmarkCase);
+		assertEquals(4, points.size());
+		assertEquals("false", points.get(1).get(ParameterAxis.CACHING)); //$NON-NLS-1$
+		assertEquals("10k", points.get(2).get(ParameterAxis.COUNT)); //$NON-NLS-1$
+		benchmarkCase.setParameters(points.get(1));
+		assertEquals("ResourceCreation[caching=false]@1k", benchmarkCase.getName()); //$NON-NLS-1$
+		benchmarkCase.setParameters(Collections.<String, String>emptyMap());
+		assertEquals("ResourceCreation", benchmarkCase.getName()); //$NON-NLS-1$
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUndeclaredParameter() {
+		new ResourceCreationCase().setParameters(Collections.singletonMap(ParameterAxis.SHAPE, "8x10")); //$NON-NLS-1$
+	}
+
+	/**
+	 * Consecutive executions over the same point, such as the adaptive pairs of a case
+	 * on several repositories, must share the model, and a new point must drop it
+	 */
+	@Test
+	public void testModelSharedByPoint() {
+		ResourceCreationCase benchmarkCase = new ResourceCreationCase();
+		benchmarkCase.addParameterAxis(new ParameterAxis(ParameterAxis.COUNT, "100", "200")); //$NON-NLS-1$ //$NON-NLS-2$
+		List<Map<String, String>> points = ParameterSpace.getPoints(benchmarkCase);
+		benchmarkCase.setParameters(points.get(0));
+		IBenchmarkModel model = benchmarkCase.getBenchmarkModel();
+		benchmarkCase.setParameters(new HashMap<String, String>(points.get(0)));
+		assertSame(model, benchmarkCase.getBenchmarkModel());
+		benchmarkCase.setParameters(points.get(1));
+		assertNotSame(model, benchmarkCase.getBenchmarkModel());
+		assertEquals(200, BenchmarkUtils.getModelSize(benchmarkCase.getBenchmarkModel().getRoot()));
+	}
+
+	private static class ResourceCreationCase extends AbstractBenchmarkCase {
+
+		public ResourceCreationCase() {
+			super(null);
+		}
+
+		@Override
+		protected void executeMeasurable(IModelRepository repository, EObject model) {
+			for (int i = 0; i < CALLS; i++) {
+				repository.createResource();
+			}
+		}
+	}
+
+	private static class InMemoryModelRepository extends StubModelRepository {
+
+		@Override
+		public Resource createResource() {
+			Resource res = new ResourceImpl(URI.createURI("mem:/" + System.nanoTime())); //$NON-NLS-1$
+			new ResourceSetImpl().getResources().add(res);
+			return res;
+		}
+
+		@Override
+		public void save(Resource res) { }
+
+		@Override
+		public Resource loadResource(URI uri) {
+			return new ResourceSetImpl().getResource(uri, false);
+		}
+
+		@Override
+		public EObject loadEObject(URI resourceURI, String fragment) {
+			return null;
+		}
+
+		@Override
+		public EObject adaptModel(EObject model) {
+			return model;
+		}
+
+		@Override
+		protected EFactory getEFactory() {
+			return null;
+		}
+
+		@Override
+		protected EPackage getEPackage() {
+			return null;
+		}
+	}
+}
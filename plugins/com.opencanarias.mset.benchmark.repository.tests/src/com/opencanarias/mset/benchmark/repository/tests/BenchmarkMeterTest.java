@@ -10,12 +10,26 @@
  */
 package com.opencanarias.mset.benchmark.repository.tests;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.opencanarias.mset.repository.benchmark.BenchmarkUtils;
+import com.opencanarias.mset.repository.benchmark.HeapSeriesUtils;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkMeter;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.IHeapSeries;
+import com.opencanarias.mset.repository.benchmark.IHeapSnapshot;
+import com.opencanarias.mset.repository.benchmark.IMemoryPoolUsage;
 
 public class BenchmarkMeterTest {
 	
@@ -32,4 +46,135 @@ public class BenchmarkMeterTest {
 		
 		// TODO: do some assertions here
 	}
+	
+	/**
+	 * A polling interval of 0 must take no heap snapshots, and still measure times
+	 */
+	@Test
+	public void testMeterWithoutHeapSampling() throws Throwable {
+		IBenchmarkMeter meter = BenchmarkUtils.getBenchmarkMeter(0);
+		meter.startMeasuring();
+		Thread.sleep(50);
+		meter.stopMeasuring();
+		IBenchmarkResult result = meter.getResult();
+		assertTrue(result.getHeapSnapshots().isEmpty());
+		assertTrue(result.getRealTimeNanos() > 0);
+	}
+	
+	/**
+	 * Sub-millisecond executions must be measured, and the CPU time
+	 * consumed by the measuring thread must be reported on its own group.
+	 */
+	@Test
+	public void testMeterThreadTimes() throws Throwable {
+		IBenchmarkMeter meter = BenchmarkUtils.getBenchmarkMeter(100);
+		meter.startMeasuring();
+		long accumulator = 0;
+		for (int i = 0; i < 1000000; i++) {
+			accumulator += i ^ accumulator;
+		}
+		meter.stopMeasuring();
+		IBenchmarkResult result = meter.getResult();
+		logger.debug("{} ({})", result, accumulator);
+		assertTrue(result.getRealTimeNanos() > 0);
+		// user time is sampled at clock tick granularity, so it cannot be compared with CPU time
+		assertTrue(result.getCPUTimeNanos() >= 0);
+		assertTrue(result.getUserTimeNanos() >= 0);
+		assertTrue(result.getThreadCPUTimes().containsKey(IBenchmarkResult.CALLER_THREAD_GROUP));
+	}
+	
+	/**
+	 * Collections explicitly requested within the window must be accounted,
+	 * and every heap pool must be reported.
+	 */
+	@Test
+	public void testMeterGarbageCollections() throws Throwable {
+		IBenchmarkMeter meter = BenchmarkUtils.getBenchmarkMeter(100);
+		meter.startMeasuring();
+		System.gc();
+		meter.stopMeasuring();
+		IBenchmarkResult result = meter.getResult();
+		logger.debug("{} {}", result.getGCCounts(), result.getMemoryPoolUsages());
+		assertTrue(result.getGCCount() > 0);
+		assertFalse(result.getMemoryPoolUsages().isEmpty());
+		for (IMemoryPoolUsage pool : result.getMemoryPoolUsages().values()) {
+			assertTrue(pool.getPeakUsed() >= 0);
+		}
+	}
+	
+	/**
+	 * Allocations of the measuring thread must be accounted, if supported by the JVM.
+	 */
+	@Test
+	public void testMeterAllocations() throws Throwable {
+		IBenchmarkMeter meter = BenchmarkUtils.getBenchmarkMeter(100);
+		meter.startMeasuring();
+		List<long[]> garbage = new ArrayList<long[]>();
+		for (int i = 0; i < 100; i++) {
+			garbage.add(new long[1024]);
+		}
+		meter.stopMeasuring();
+		IBenchmarkResult result = meter.getResult();
+		logger.debug("{} ({})", result.getThreadAllocatedBytes(), garbage.size());
+		if (result.getAllocatedBytes() != -1) {
+			assertTrue(result.getAllocatedBytes() >= 100 * 1024 * 8);
+			assertTrue(result.getAllocationRate() > 0);
+		}
+	}
+	
+	/**
+	 * Heap must be sampled at high frequency, and all samples must be
+	 * accounted in the averages even if the oldest are no longer kept.
+	 */
+	@Test
+	public void testMeterHeapSampling() throws Throwable {
+		IBenchmarkMeter meter = BenchmarkUtils.getBenchmarkMeter(1);
+		meter.startMeasuring();
+		Thread.sleep(200);
+		meter.stopMeasuring();
+		IBenchmarkResult result = meter.getResult();
+		List<IHeapSnapshot> snapshots = result.getHeapSnapshots();
+		assertTrue(snapshots.size() > 10);
+		for (int i = 1; i < snapshots.size(); i++) {
+			assertTrue(snapshots.get(i).getTimestamp() >= snapshots.get(i - 1).getTimestamp());
+		}
+		assertTrue(result.getAverageUsedMemory() >= 0);
+		assertTrue(result.getAverageTotalAvailableMemory() <= result.getMaxAvailableMemory());
+	}
+	
+	/**
+	 * The full sampled series must survive the columnar file, and an
+	 * incomplete last block must not prevent reading the previous ones.
+	 */
+	@Test
+	public void testHeapSeriesRoundTrip() throws Throwable {
+		IBenchmarkMeter meter = BenchmarkUtils.getBenchmarkMeter(1);
+		meter.startMeasuring();
+		Thread.sleep(50);
+		meter.stopMeasuring();
+		IBenchmarkResult result = meter.getResult();
+		File file = File.createTempFile("series", ".heap");
+		try {
+			HeapSeriesUtils.append(file, result, "Group", 1);
+			HeapSeriesUtils.append(file, result, "Group", 2);
+			FileOutputStream output = new FileOutputStream(file, true);
+			output.write(new byte[] {0x4D, 0x53, 0x48});
+			output.close();
+			List<IHeapSeries> series = HeapSeriesUtils.read(file);
+			assertEquals(2, series.size());
+			assertEquals(2, series.get(1).getIteration());
+			assertEquals("Group", series.get(1).getGroup());
+			List<IHeapSnapshot> expected = result.getHeapSnapshots();
+			List<IHeapSnapshot> actual = series.get(0).getSnapshots();
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp());
+				assertEquals(expected.get(i).getUsedBytes(), actual.get(i).getUsedBytes());
+				assertEquals(expected.get(i).getCommittedBytes(), actual.get(i).getCommittedBytes());
+				assertEquals(expected.get(i).getPoolUsedBytes(), actual.get(i).getPoolUsedBytes());
+			}
+		} finally {
+			file.delete();
+		}
+	}
 }
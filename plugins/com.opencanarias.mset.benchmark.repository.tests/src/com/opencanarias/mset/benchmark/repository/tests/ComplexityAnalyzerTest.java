@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.benchmark.repository.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.opencanarias.mset.repository.benchmark.ComplexityAnalyzer;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.IComplexityFit;
+import com.opencanarias.mset.repository.benchmark.IComplexityFit.ComplexityClass;
+import com.opencanarias.mset.repository.benchmark.JSONUtils;
+
+public class ComplexityAnalyzerTest {
+
+	private static final int[] SIZES = {10, 100, 1000, 10000};
+
+	@Test
+	public void testFit() {
+		List<IBenchmarkResult> results = new ArrayList<IBenchmarkResult>();
+		for (int size : SIZES) {
+			String caseName = ComplexityAnalyzer.getSweepCaseName("ModelSave", String.valueOf(size)); //$NON-NLS-1$
+			for (int i = 0; i < 3; i++) {
+				results.add(result(caseName, "Linear", size, 5000 + 100L * size + i)); //$NON-NLS-1$
+				results.add(result(caseName, "Quadratic", size, 50 + (long)size * size + i)); //$NON-NLS-1$
+				results.add(result(caseName, "Linearithmic", size, Math.round(1000 * size * Math.log(size)) + i)); //$NON-NLS-1$
+			}
+		}
+		List<IComplexityFit> fits = new ComplexityAnalyzer().analyze(results);
+		assertEquals(3, fits.size());
+		IComplexityFit linear = fits.get(0);
+		assertEquals("ModelSave", linear.getCaseName()); //$NON-NLS-1$
+		assertEquals(SIZES.length, linear.getSizes().length);
+		assertEquals(ComplexityClass.LINEAR, linear.getBestFit());
+		assertTrue(linear.getRSquared() > 0.99);
+		assertFalse(linear.isSuperlinear());
+		IComplexityFit quadratic = fits.get(1);
+		assertEquals(ComplexityClass.QUADRATIC, quadratic.getBestFit());
+		assertTrue(quadratic.getExponent() > 1.8);
+		assertTrue(quadratic.isSuperlinear());
+		IComplexityFit linearithmic = fits.get(2);
+		assertEquals(ComplexityClass.LINEARITHMIC, linearithmic.getBestFit());
+		assertEquals(1.1, linearithmic.getExponent(), 0.1);
+		assertFalse(linearithmic.isSuperlinear());
+		assertTrue(ComplexityAnalyzer.hasSuperlinear(fits));
+	}
+
+	@Test
+	public void testInsufficientSizes() {
+		List<IBenchmarkResult> results = new ArrayList<IBenchmarkResult>();
+		results.add(result("ModelSave", "Repo", 10, 100)); //$NON-NLS-1$ //$NON-NLS-2$
+		results.add(result("ModelSave", "Repo", 100, 1000)); //$NON-NLS-1$ //$NON-NLS-2$
+		List<IComplexityFit> fits = new ComplexityAnalyzer().analyze(results);
+		assertEquals(1, fits.size());
+		assertNull(fits.get(0).getBestFit());
+		assertTrue(Double.isNaN(fits.get(0).getExponent()));
+		assertFalse(ComplexityAnalyzer.hasSuperlinear(fits));
+	}
+
+	private IBenchmarkResult result(String caseName, String repositoryName, int count, long realTime) {
+		return JSONUtils.parseEntry("{\"case\":\"" + caseName + "\",\"repository\":\"" + repositoryName //$NON-NLS-1$ //$NON-NLS-2$
+				+ "\",\"model\":{\"count\":" + count + ",\"depth\":2,\"width\":3,\"memUsage\":-1},\"realTimeNs\":" + realTime + "}"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.benchmark.repository.tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.opencanarias.mset.repository.benchmark.HTMLUtils;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.JSONUtils;
+
+public class HTMLReportTest {
+
+	@Test
+	public void testReport() {
+		List<IBenchmarkResult> results = new ArrayList<IBenchmarkResult>();
+		for (int count : new int[] {10, 100, 1000}) {
+			for (int i = 0; i < 3; i++) {
+				results.add(result("Save<Case>", "CDO-H2-JVM", count, count * 1000000L + i)); //$NON-NLS-1$ //$NON-NLS-2$
+				results.add(result("Save<Case>", "CDO-H2-TCP", count, count * 1500000L + i)); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		String html = HTMLUtils.toReport("Report", results); //$NON-NLS-1$
+		assertTrue(html.startsWith("<!DOCTYPE html>")); //$NON-NLS-1$
+		assertTrue(html.contains("<svg")); //$NON-NLS-1$
+		assertTrue(html.contains("Save&lt;Case&gt;")); //$NON-NLS-1$
+		assertFalse(html.contains("Save<Case>")); //$NON-NLS-1$
+		assertTrue(html.contains("Scaling with model size")); //$NON-NLS-1$
+		assertTrue(html.contains("<td>CDO-H2</td><td>100</td><td>100</td><td>150</td><td>50.0</td>")); //$NON-NLS-1$
+		assertFalse(html.contains("Heap timelines")); //$NON-NLS-1$
+		assertFalse(html.contains("NaN")); //$NON-NLS-1$
+	}
+
+	private IBenchmarkResult result(String caseName, String repositoryName, int count, long realTime) {
+		return JSONUtils.parseEntry("{\"case\":\"" + caseName + "\",\"repository\":\"" + repositoryName //$NON-NLS-1$ //$NON-NLS-2$
+				+ "\",\"model\":{\"count\":" + count + ",\"depth\":2,\"width\":3,\"memUsage\":-1},\"realTimeNs\":" + realTime + "}"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
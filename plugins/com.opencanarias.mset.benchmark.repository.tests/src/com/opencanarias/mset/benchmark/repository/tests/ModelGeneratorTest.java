@@ -10,26 +10,40 @@
  */
 package com.opencanarias.mset.benchmark.repository.tests;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EFactory;
 import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.opencanarias.mset.benchmark.repository.model.node.NodeFactory;
+import com.opencanarias.mset.benchmark.repository.model.node.NodePackage;
 import com.opencanarias.mset.repository.benchmark.BenchmarkModelGenerator;
 import com.opencanarias.mset.repository.benchmark.BenchmarkUtils;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkModel;
 import com.opencanarias.mset.repository.benchmark.IModelProperties;
+import com.opencanarias.mset.repository.benchmark.ModelCache;
+import com.opencanarias.mset.repository.benchmark.StubModelRepository;
 
 public class ModelGeneratorTest {
 
@@ -89,10 +103,7 @@ public class ModelGeneratorTest {
 	
 	/**
 	 * An object tree with a maximum of 10 child per node, and a maximum depth of 3 levels allows
-	 * a maximum of 111 elements. The current algorithm's difficulty to find where to add a new child during
-	 * generation loop is directly proportional to how close the max count value is to the max allowed count
-	 * according to the width and depth. The parent lookup process is random, and thats why its increasingly
-	 * difficult to find a place to add the new EObject child.
+	 * a maximum of 111 elements. The generator must reach that count exactly, filling the whole tree.
 	 */
 	@Test
 	public void testModelShaping() {
@@ -105,8 +116,143 @@ public class ModelGeneratorTest {
 		props.setDepth(depth);
 		IBenchmarkModel generatedModel = generator.generateModel(props);
 		logSpecs(generatedModel.getRoot());
+		assertShape(generatedModel.getRoot(), count, width, depth);
 	}
 	
+	/**
+	 * Big models must be generated in linear time, honoring the shape constraints
+	 */
+	@Test
+	public void testBigModelShaping() {
+		IModelProperties props = BenchmarkModelGenerator.createProperties();
+		final int count = 200000;
+		final int width = 4;
+		final int depth = 12;
+		props.setCount(count);
+		props.setWidth(width);
+		props.setDepth(depth);
+		IBenchmarkModel generatedModel = generator.generateModel(props);
+		assertShape(generatedModel.getRoot(), count, width, depth);
+	}
+	
+	/**
+	 * Models generated in parallel must honor the same shape constraints, even when
+	 * the count is the maximum the width and depth allow
+	 */
+	@Test
+	public void testParallelModelShaping() {
+		IModelProperties props = BenchmarkModelGenerator.createProperties();
+		final int count = 111111;
+		final int width = 10;
+		final int depth = 6;
+		props.setCount(count);
+		props.setWidth(width);
+		props.setDepth(depth);
+		IBenchmarkModel generatedModel = generator.generateModel(NodeFactory.eINSTANCE, NodePackage.eINSTANCE, props, 4);
+		assertShape(generatedModel.getRoot(), count, width, depth);
+	}
+	
+	/**
+	 * The same properties and seed must produce byte-identical models, whatever the number of threads,
+	 * and unseeded properties must get the seed used
+	 */
+	@Test
+	public void testSeededGeneration() throws IOException {
+		IModelProperties props = BenchmarkModelGenerator.createProperties();
+		props.setCount(20000);
+		props.setWidth(10);
+		props.setDepth(6);
+		props.setSeed(42);
+		byte[] sequential = serialize(generator.generateModel(NodeFactory.eINSTANCE, NodePackage.eINSTANCE, props, 1));
+		byte[] parallel = serialize(generator.generateModel(NodeFactory.eINSTANCE, NodePackage.eINSTANCE, props, 4));
+		assertArrayEquals(sequential, parallel);
+		
+		IModelProperties unseeded = generator.generateRandomProperties(10, 20);
+		unseeded.setSeed(IModelProperties.UNSEEDED);
+		byte[] first = serialize(generator.generateModel(unseeded));
+		assertTrue(unseeded.getSeed() != IModelProperties.UNSEEDED);
+		assertArrayEquals(first, serialize(generator.generateModel(unseeded)));
+	}
+
+	/**
+	 * Streamed models must honor the shape constraints, be saved once per chunk, and be reproducible
+	 */
+	@Test
+	public void testStreamedGeneration() {
+		final int count = 25000;
+		final int width = 6;
+		final int depth = 7;
+		IModelProperties props = BenchmarkModelGenerator.createProperties();
+		props.setCount(count);
+		props.setWidth(width);
+		props.setDepth(depth);
+		props.setSeed(11);
+		CountingModelRepository repository = new CountingModelRepository();
+		EObject root = generator.generateInto(repository, repository.createResource(), props, 10000);
+		assertEquals(3, repository.saves);
+		assertShape(root, count, width, depth);
+		EObject again = generator.generateInto(repository, repository.createResource(), props, 10000);
+		assertTrue(EcoreUtil.equals(root, again));
+	}
+	
+	/**
+	 * Seeded models must be stored once and loaded afterwards, identical to the generated ones
+	 */
+	@Test
+	public void testModelCache() throws IOException {
+		File directory = File.createTempFile("models", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		directory.delete();
+		try {
+			ModelCache cache = new ModelCache(directory);
+			IModelProperties props = generator.generateRandomProperties(10, 20, 7);
+			byte[] generated = serialize(cache.getModel(generator, props));
+			assertEquals(1, directory.listFiles().length);
+			assertArrayEquals(generated, serialize(cache.getModel(generator, props)));
+			assertEquals(1, directory.listFiles().length);
+			
+			props.setSeed(8);
+			cache.getModel(generator, props);
+			assertEquals(2, directory.listFiles().length);
+		} finally {
+			for (File file : directory.listFiles()) {
+				file.delete();
+			}
+			directory.delete();
+		}
+	}
+
+	/**
+	 * Models of seeds drawn at random are never cached, even once the seed is set on the properties
+	 */
+	@Test
+	public void testModelCacheSkipsRandomSeeds() throws IOException {
+		File directory = File.createTempFile("models", ""); //$NON-NLS-1$ //$NON-NLS-2$
+		directory.delete();
+		String seedProperty = System.clearProperty(BenchmarkModelGenerator.PROPERTY_SEED);
+		try {
+			ModelCache cache = new ModelCache(directory);
+			IModelProperties props = BenchmarkModelGenerator.createProperties();
+			props.setCount(100);
+			props.setDepth(4);
+			props.setWidth(10);
+			cache.getModel(generator, props);
+			assertTrue(props.getSeed() != IModelProperties.UNSEEDED);
+			cache.getModel(generator, props);
+			cache.getModel(generator, generator.generateRandomProperties(10, 20));
+			assertTrue(!directory.exists() || directory.listFiles().length == 0);
+		} finally {
+			if (seedProperty != null) {
+				System.setProperty(BenchmarkModelGenerator.PROPERTY_SEED, seedProperty);
+			}
+			if (directory.exists()) {
+				for (File file : directory.listFiles()) {
+					file.delete();
+				}
+				directory.delete();
+			}
+		}
+	}
+
 	/**
 	 * An object tree with a maximum of 10 child per node, and a maximum depth of 3 levels allows
 	 * a maximum of 111 elements. If count is set bigger than that, the generator should fail
@@ -216,6 +362,20 @@ public class ModelGeneratorTest {
 		}
 	}
 
+	private byte[] serialize(IBenchmarkModel model) throws IOException {
+		Resource res = BenchmarkUtils.createBinaryResource(URI.createURI("model." + BenchmarkUtils.getBinaryResourceExtension())); //$NON-NLS-1$
+		res.getContents().add(model.getRoot());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		res.save(output, null);
+		return output.toByteArray();
+	}
+
+	private void assertShape(EObject root, int count, int width, int depth) {
+		assertEquals(count, BenchmarkUtils.getModelSize(root));
+		assertTrue(BenchmarkUtils.getModelWidth(root) <= width);
+		assertTrue(BenchmarkUtils.getModelDepth(root) <= depth);
+	}
+	
 	/**
 	 * Emits a log a shape analysis of the argument model: it logs count, depth and width.
 	 */
@@ -225,5 +385,50 @@ public class ModelGeneratorTest {
 			BenchmarkUtils.getModelWidth(generatedModel), 
 			BenchmarkUtils.getModelDepth(generatedModel));
 	}
+
+	/*
+	 * Keeps resources in memory, counting the saves
+	 */
+	private static class CountingModelRepository extends StubModelRepository {
+
+		private int saves;
+
+		@Override
+		public Resource createResource() {
+			Resource res = new ResourceImpl(URI.createURI("mem:/" + System.nanoTime())); //$NON-NLS-1$
+			new ResourceSetImpl().getResources().add(res);
+			return res;
+		}
+
+		@Override
+		public void save(Resource res) {
+			saves++;
+		}
+
+		@Override
+		public Resource loadResource(URI uri) {
+			return null;
+		}
+
+		@Override
+		public EObject loadEObject(URI resourceURI, String fragment) {
+			return null;
+		}
+
+		@Override
+		public EObject adaptModel(EObject model) {
+			return model;
+		}
+
+		@Override
+		protected EFactory getEFactory() {
+			return NodeFactory.eINSTANCE;
+		}
+
+		@Override
+		protected EPackage getEPackage() {
+			return NodePackage.eINSTANCE;
+		}
+	}
 	
 }
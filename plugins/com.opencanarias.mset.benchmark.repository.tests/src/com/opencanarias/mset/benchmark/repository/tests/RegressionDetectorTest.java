@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.benchmark.repository.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.opencanarias.mset.repository.benchmark.CSVUtils;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.IComparison;
+import com.opencanarias.mset.repository.benchmark.IComparison.Verdict;
+import com.opencanarias.mset.repository.benchmark.JSONUtils;
+import com.opencanarias.mset.repository.benchmark.RegressionDetector;
+
+public class RegressionDetectorTest {
+
+	private static final long[] BASELINE = {100, 102, 98, 101, 99};
+
+	private static final long[] SLOWER = {120, 123, 119, 121, 122};
+
+	@Test
+	public void testRegression() {
+		List<IComparison> comparisons = new RegressionDetector().compare(results("Case", BASELINE), results("Case", SLOWER));
+		assertEquals(1, comparisons.size());
+		IComparison comparison = comparisons.get(0);
+		assertEquals(Verdict.REGRESSION, comparison.getVerdict());
+		assertEquals(0.21, comparison.getRelativeChange(), 1e-9);
+		assertEquals(1, comparison.getEffectSize(), 0);
+		assertTrue(comparison.getPValue() < 0.05);
+		assertTrue(RegressionDetector.hasRegressions(comparisons));
+		comparisons = new RegressionDetector().compare(results("Case", SLOWER), results("Case", BASELINE));
+		assertEquals(Verdict.IMPROVEMENT, comparisons.get(0).getVerdict());
+	}
+
+	@Test
+	public void testUnchanged() {
+		List<IComparison> comparisons = new RegressionDetector().compare(results("Case", BASELINE), results("Case", BASELINE));
+		assertEquals(Verdict.UNCHANGED, comparisons.get(0).getVerdict());
+		comparisons = new RegressionDetector().compare(results("Case", BASELINE), results("Other", BASELINE));
+		assertEquals(2, comparisons.size());
+		assertEquals(Verdict.INSUFFICIENT_DATA, comparisons.get(0).getVerdict());
+		assertEquals(Verdict.INSUFFICIENT_DATA, comparisons.get(1).getVerdict());
+	}
+
+	@Test
+	public void testCSVRoundTrip() {
+		StringBuilder content = new StringBuilder("Iteration Details").append(CSVUtils.getLineSeparator());
+		content.append(CSVUtils.getResultHeader());
+		for (IBenchmarkResult result : results("Case", BASELINE)) {
+			content.append(CSVUtils.toEntry(result));
+		}
+		List<IBenchmarkResult> parsed = CSVUtils.parseResults(content.toString());
+		assertEquals(BASELINE.length, parsed.size());
+		assertEquals("Case", parsed.get(0).getBenchmarkCaseName()); //$NON-NLS-1$
+		assertEquals(BASELINE[0], parsed.get(0).getRealTimeNanos());
+	}
+
+	private List<IBenchmarkResult> results(String caseName, long[] realTimes) {
+		List<IBenchmarkResult> results = new ArrayList<IBenchmarkResult>();
+		for (long realTime : realTimes) {
+			results.add(JSONUtils.parseEntry("{\"case\":\"" + caseName + "\",\"repository\":\"Repo\",\"model\":{\"count\":10,\"depth\":2,\"width\":3,\"memUsage\":-1},\"realTimeNs\":" + realTime + "}")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return results;
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.benchmark.repository.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.opencanarias.mset.repository.benchmark.JSONUtils;
+import com.opencanarias.mset.repository.benchmark.ResultJournal;
+
+public class ResultJournalTest {
+
+	@Test
+	public void testAppendAndRead() throws IOException {
+		File file = File.createTempFile("journal", ".ndjson"); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			ResultJournal journal = new ResultJournal(file);
+			for (int iteration = 1; iteration <= 3; iteration++) {
+				journal.append(JSONUtils.parseEntry("{\"case\":\"Case\",\"repository\":\"Repo\",\"realTimeNs\":" + iteration + "}"), //$NON-NLS-1$ //$NON-NLS-2$
+						"Group", iteration); //$NON-NLS-1$
+			}
+			journal.close();
+			// A process killed while appending leaves an incomplete last line
+			FileOutputStream output = new FileOutputStream(file, true);
+			output.write("{\"case\":\"Ca".getBytes("UTF-8")); //$NON-NLS-1$ //$NON-NLS-2$
+			output.close();
+			List<ResultJournal.Entry> entries = ResultJournal.read(file);
+			assertEquals(3, entries.size());
+			assertEquals("Group", entries.get(2).getGroup()); //$NON-NLS-1$
+			assertEquals(3, entries.get(2).getIteration());
+			assertEquals(3, entries.get(2).getResult().getRealTimeNanos());
+			assertEquals("Case", JSONUtils.parseEntry(ResultJournal.toEntry(entries.get(0).getResult(), "Group", 1)).getBenchmarkCaseName()); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			file.delete();
+		}
+	}
+}
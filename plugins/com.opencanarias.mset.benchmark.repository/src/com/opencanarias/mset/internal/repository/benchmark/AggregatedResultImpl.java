@@ -7,136 +7,128 @@
  *
  * Contributors:
  *  David Lutzardo Barroso - initial API and implementation
- *  
+ *
  */
 package com.opencanarias.mset.internal.repository.benchmark;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
-import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
 import com.opencanarias.mset.repository.benchmark.IAggregatedResult;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.ILatencyHistogram;
+import com.opencanarias.mset.repository.benchmark.IModelOperation.OperationType;
+import com.opencanarias.mset.repository.benchmark.IStatistics;
 
 /**
+ * Statistics are updated as results are added, see {@link StatisticsImpl}.
+ *
  * @author dlutzardo
  */
 public class AggregatedResultImpl implements IAggregatedResult {
 
-	private List<IBenchmarkResult> aggregateResults = new ArrayList<IBenchmarkResult>();;
-	
-	private long avgRealTime = 0;
-
-	private long minRealTime = Long.MAX_VALUE;
-	
-	private long maxRealTime = Long.MIN_VALUE;
-	
-	private long realTimeDeviation = 0;
-	
-	private boolean requiresRecalulation = false;
-	
+	private static final double NANOS_PER_MILLI = 1000000d;
+
+	private List<IBenchmarkResult> aggregateResults = new ArrayList<IBenchmarkResult>();
+
+	private final boolean outlierRejection;
+
+	private final Map<Metric, StatisticsImpl> statistics = new EnumMap<Metric, StatisticsImpl>(Metric.class);
+
+	private final Map<OperationType, StatisticsImpl> latencyStatistics = new EnumMap<OperationType, StatisticsImpl>(OperationType.class);
+
+	public AggregatedResultImpl() {
+		this(false);
+	}
+
+	public AggregatedResultImpl(boolean outlierRejection) {
+		this.outlierRejection = outlierRejection;
+		for (Metric metric : Metric.values()) {
+			statistics.put(metric, new StatisticsImpl(outlierRejection));
+		}
+		for (OperationType operation : OperationType.values()) {
+			latencyStatistics.put(operation, new StatisticsImpl(outlierRejection));
+		}
+	}
+
 	@Override
-	public List<IBenchmarkResult> getAggregatedResults() {		
+	public List<IBenchmarkResult> getAggregatedResults() {
 		return Collections.unmodifiableList(aggregateResults);
 	}
-	
+
 	@Override
 	public void addResult(IBenchmarkResult result) {
 		aggregateResults.add(result);
-		requiresRecalulation = true;
+		for (Metric metric : Metric.values()) {
+			double value = MetricValues.get(result, metric);
+			if (!Double.isNaN(value)) {
+				statistics.get(metric).add(value);
+			}
+		}
+		for (Map.Entry<OperationType, ILatencyHistogram> entry : result.getOperationLatencies().entrySet()) {
+			if (entry.getValue().getCount() > 0) {
+				latencyStatistics.get(entry.getKey()).add(entry.getValue().getMean());
+			}
+		}
 	}
-		
+
 	@Override
-	public long getAvgRealTime() {		
-		if (requiresRecalulation) {
-			recalculateAggregation();
-		}
-		return avgRealTime;
+	public long getAvgRealTime() {
+		return toMillis(getStatistics(Metric.REAL_TIME).getMean());
 	}
-	
+
 	@Override
 	public String getName() {
 		if (getAggregatedResults().size() == 0 )
 			return "NoAggregatedResults"; //$NON-NLS-1$
-		return getAggregatedResults().get(0).getBenchmarkCase().getName() + " | " + getAggregatedResults().get(0).getModelRepository().getName(); //$NON-NLS-1$
+		return getAggregatedResults().get(0).getBenchmarkCaseName() + " | " + getAggregatedResults().get(0).getModelRepositoryName(); //$NON-NLS-1$
 	}
 
 	@Override
 	public long getMinRealTime() {
-		if (requiresRecalulation) {
-			recalculateAggregation();
-		}
-		return minRealTime;
+		return toMillis(getStatistics(Metric.REAL_TIME).getMin());
 	}
 
 	@Override
 	public long getMaxRealTime() {
-		if (requiresRecalulation) {
-			recalculateAggregation();
-		}
-		return maxRealTime;
+		return toMillis(getStatistics(Metric.REAL_TIME).getMax());
 	}
 
 	@Override
 	public long getRealTimeDeviation() {
-		if (requiresRecalulation) {
-			recalculateAggregation();
-		}
-		return realTimeDeviation;
+		return toMillis(getStatistics(Metric.REAL_TIME).getStandardDeviation());
 	}
 
 	@Override
-	public String toString() {
-		return MessageFormat.format("[{0}]: iterations: {1} / avgRealTime: {2} / realTimeDev: {3} / minRealTime: {4} / maxRealTime: {5}",  //$NON-NLS-1$
-				getName(), getAggregatedResults().size(), getAvgRealTime(), getRealTimeDeviation(), getMinRealTime(), getMaxRealTime());
+	public IStatistics getStatistics(Metric metric) {
+		return statistics.get(metric);
 	}
 
-	private void recalculateAggregation() {
-		avgRealTime = calculateAvgRealTime();
-		minRealTime = calculateMinRealTime();
-		maxRealTime = calculateMaxRealTime();
-		realTimeDeviation = calculateRealTimeDeviation(avgRealTime);		
-		requiresRecalulation = false;		
+	@Override
+	public IStatistics getLatencyStatistics(OperationType operation) {
+		return latencyStatistics.get(operation);
 	}
 
-	private long calculateRealTimeDeviation(long averageRealTime) {
-		int count = getAggregatedResults().size();
-		if (count < 2)
-			return 0;
-		double sum = 0;
-		for(IBenchmarkResult result : getAggregatedResults()) {
-			long value = result.getRealTime();
-			sum += (value - averageRealTime) * (value - averageRealTime);
-		}
-		return (long) Math.sqrt(sum / (count - 1));
+	@Override
+	public boolean isOutlierRejection() {
+		return outlierRejection;
 	}
 
-	private long calculateAvgRealTime() {
-		long summatory = 0;
-		for (final IBenchmarkResult result : aggregateResults) {
-			summatory += result.getRealTime();
-		}
-		return summatory / aggregateResults.size();
-	}
-	
-	private long calculateMinRealTime() {
-		long minimalValue = Long.MAX_VALUE;
-		for (final IBenchmarkResult result : aggregateResults) {
-			if (result.getRealTime() < minimalValue) {
-				minimalValue = result.getRealTime(); 
-			}
-		}
-		return minimalValue;
+	@Override
+	public String toString() {
+		IStatistics realTime = getStatistics(Metric.REAL_TIME);
+		return MessageFormat.format("[{0}]: iterations: {1} / avgRealTime: {2} / realTimeDev: {3} / minRealTime: {4} / maxRealTime: {5}" //$NON-NLS-1$
+				+ " / medianRealTime: {6} / realTimeCI95: [{7}, {8}] / outliers: {9}",  //$NON-NLS-1$
+				getName(), getAggregatedResults().size(), getAvgRealTime(), getRealTimeDeviation(), getMinRealTime(), getMaxRealTime(),
+				toMillis(realTime.getMedian()), toMillis(realTime.getConfidenceIntervalLow()),
+				toMillis(realTime.getConfidenceIntervalHigh()), realTime.getOutlierCount());
 	}
-	
-	private long calculateMaxRealTime() {
-		long maximumValue = Long.MIN_VALUE;
-		for (final IBenchmarkResult result : aggregateResults) {
-			if (result.getRealTime() > maximumValue) {
-				maximumValue = result.getRealTime(); 
-			}
-		}
-		return maximumValue;
+
+	private static long toMillis(double nanos) {
+		return Math.round(nanos / NANOS_PER_MILLI);
 	}
 }
@@ -10,38 +10,37 @@
  */
 package com.opencanarias.mset.internal.repository.benchmark;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.Map;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import com.opencanarias.mset.internal.repository.benchmark.BenchmarkMeterImpl.HeapSnapshot.ParameterType;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkMeter;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
 import com.opencanarias.mset.repository.benchmark.IHeapSnapshot;
+import com.opencanarias.mset.repository.benchmark.IMemoryPoolUsage;
 
 public class BenchmarkMeterImpl implements IBenchmarkMeter {
 
 	private static final int UNDEFINED = -1;
 
-	private Logger logger = LoggerFactory.getLogger(getClass());
-
-	private List<HeapSnapshot> memSnapshots = new ArrayList<HeapSnapshot>();
-
-	private long startCPUTime = UNDEFINED;
+	private ThreadTimeSnapshot startThreadTimes = null;
+	
+	private ThreadTimeSnapshot stopThreadTimes = null;
 	
-	private long stopCPUTime = UNDEFINED;
+	private GarbageCollectionSnapshot startGCs = null;
+	
+	private GarbageCollectionSnapshot stopGCs = null;
+	
+	private Map<String, IMemoryPoolUsage> memoryPoolUsages = Collections.emptyMap();
 	
 	private long startRealTime = UNDEFINED;
 
 	private long stopRealTime = UNDEFINED;
 
-	private PollingThread pollingThread;
+	private HeapSampler heapSampler;
 
 	private final long pollingInterval;
 	
-	private final static int DEFAULT_POLLING_INTERVAL = 1000;
+	private final static int DEFAULT_POLLING_INTERVAL = 10;
 
 	public BenchmarkMeterImpl(long pollingInterval) {
 		this.pollingInterval = pollingInterval; 
@@ -57,23 +56,41 @@ public class BenchmarkMeterImpl implements IBenchmarkMeter {
 	}
 
 	public void startMeasuring() {
-		startMeasuringTime();
 		startMeasuringMem();
+		startMeasuringTime();
 	}
 
 	public void stopMeasuring() {
 		stopMeasuringTime();
-		pollingThread.endPolling();
+		stopMeasuringMem();
 	}
 
 	public IBenchmarkResult getResult() {
 		BenchmarkResultImpl result = new BenchmarkResultImpl();
-		result.setRealTime(calculateElapsedRealTime());
-		result.setCPUTime(calculateElapsedCPUTime() / 1000000);
-		result.setAverageFreeMemory(calculateAverageValue(ParameterType.FREE));
-		result.setAverageUsedMemory(calculateAverageValue(ParameterType.USED));
-		result.setAverageTotalAvailableMemory(calculateAverageValue(ParameterType.TOTAL));
-		result.setMaxAvailableMemory(HeapSnapshot.calculateMaxAvailableMemory());
+		result.setRealTimeNanos(calculateElapsedRealTime());
+		Map<String, Long> threadCPUTimes = calculateThreadCPUTimes();
+		Map<String, Long> threadUserTimes = calculateThreadUserTimes();
+		result.setThreadCPUTimes(threadCPUTimes);
+		result.setThreadUserTimes(threadUserTimes);
+		result.setCPUTimeNanos(ThreadTimeSnapshot.sum(threadCPUTimes));
+		result.setUserTimeNanos(ThreadTimeSnapshot.sum(threadUserTimes));
+		if (ThreadTimeSnapshot.isAllocatedBytesSupported()) {
+			result.setThreadAllocatedBytes(calculateThreadAllocatedBytes());
+		}
+		if (startGCs != null && stopGCs != null) {
+			result.setGCCounts(stopGCs.getCountsSince(startGCs));
+			result.setGCTimes(stopGCs.getTimesSince(startGCs));
+		}
+		result.setMemoryPoolUsages(memoryPoolUsages);
+		if (heapSampler != null) {
+			result.setAverageFreeMemory(heapSampler.getAverageFreeMemory());
+			result.setAverageUsedMemory(heapSampler.getAverageUsedMemory());
+			result.setAverageTotalAvailableMemory(heapSampler.getAverageTotalAvailableMemory());
+			result.setHeapSnapshots(heapSampler.getSnapshots());
+		} else {
+			result.setHeapSnapshots(Collections.<IHeapSnapshot>emptyList());
+		}
+		result.setMaxAvailableMemory(HeapSampler.getMaxAvailableMemory());
 		return result;
 	}
 
@@ -81,182 +98,88 @@ public class BenchmarkMeterImpl implements IBenchmarkMeter {
 		return stopRealTime - startRealTime;
 	}
 	
-	private long calculateElapsedCPUTime() {
-		return stopCPUTime - startCPUTime;
+	private Map<String, Long> calculateThreadCPUTimes() {
+		if (startThreadTimes == null || stopThreadTimes == null) {
+			return Collections.emptyMap();
+		}
+		return stopThreadTimes.getCPUTimeSince(startThreadTimes);
+	}
+
+	private Map<String, Long> calculateThreadUserTimes() {
+		if (startThreadTimes == null || stopThreadTimes == null) {
+			return Collections.emptyMap();
+		}
+		return stopThreadTimes.getUserTimeSince(startThreadTimes);
+	}
+
+	private Map<String, Long> calculateThreadAllocatedBytes() {
+		if (startThreadTimes == null || stopThreadTimes == null) {
+			return Collections.emptyMap();
+		}
+		return stopThreadTimes.getAllocatedBytesSince(startThreadTimes);
 	}
 
 	private long getCurrentTime() {
-		return System.currentTimeMillis();
+		return System.nanoTime();
 	}
 
+	/*
+	 * Thread times, collections and pools are captured outside the real
+	 * time window, so that the snapshot itself is not accounted as real time
+	 */
 	private void startMeasuringTime() {
+		stopRealTime = UNDEFINED;
+		stopThreadTimes = null;
+		stopGCs = null;
+		memoryPoolUsages = Collections.emptyMap();
+		MemoryPoolUsageImpl.resetPeakUsages();
+		startGCs = GarbageCollectionSnapshot.take();
+		startThreadTimes = ThreadTimeSnapshot.take();
 		startRealTime = getCurrentTime();
 	}
 
 	private void stopMeasuringTime() {
-		stopRealTime = getCurrentTime();		
+		stopRealTime = getCurrentTime();
+		stopThreadTimes = ThreadTimeSnapshot.take();
+		stopGCs = GarbageCollectionSnapshot.take();
+		memoryPoolUsages = MemoryPoolUsageImpl.getCurrentUsages();
 	}
 
+	/*
+	 * Buffers are allocated and the sampling thread started
+	 * before the measurement window opens
+	 */
 	private void startMeasuringMem() {
-		memSnapshots.clear();
-		pollingThread = new PollingThread(pollingInterval);
-		pollingThread.start();
-	}
-
-	private long calculateAverageValue(ParameterType type) {
-		long average = 0;
-		HeapSnapshot[] currentSnapshots = null;
-		synchronized (memSnapshots) {
-			if (memSnapshots.size() == 0) {
-				return 0;
-			}
-			currentSnapshots = memSnapshots.toArray(new HeapSnapshot[memSnapshots.size()]);
+		if (pollingInterval > 0) {
+			heapSampler = new HeapSampler(pollingInterval);
+			heapSampler.start();
+		} else {
+			heapSampler = null;
 		}
-		
-		for (HeapSnapshot snapshot : currentSnapshots) {
-			switch (type) {
-			case USED:
-				average += snapshot.getUsedMemory();
-				break;
-			case FREE:
-				average += snapshot.getFreeMemory();
-				break;
-			case TOTAL:
-				average += snapshot.getTotalAvailableMemory();
-				break;
-			default:
-				throw new RuntimeException("Unexpected memory parameter type");
-			}
+	}
 
+	private void stopMeasuringMem() {
+		if (heapSampler != null) {
+			heapSampler.stop();
 		}
-		return average / currentSnapshots.length;
 	}
 
 	@Override
 	public String toString() {
 		if (stopRealTime == UNDEFINED) {
-			return "BenchmarkMeter is running: elapsed so far "
-					+ (System.currentTimeMillis() - startRealTime);
-		}
-		return "elapsed: " + calculateElapsedRealTime() 
-				+ " / average (used: " + calculateAverageValue(ParameterType.USED)
-				+ " / free: " + calculateAverageValue(ParameterType.FREE)
-				+ " / total: " + calculateAverageValue(ParameterType.TOTAL)
-				+ " / max: " + HeapSnapshot.calculateMaxAvailableMemory()
+			return "BenchmarkMeter is running: elapsed so far (ns) "
+					+ (getCurrentTime() - startRealTime);
+		}
+		if (heapSampler == null) {
+			return "elapsed (ns): " + calculateElapsedRealTime() 
+					+ " / cpu (ns): " + ThreadTimeSnapshot.sum(calculateThreadCPUTimes());
+		}
+		return "elapsed (ns): " + calculateElapsedRealTime() 
+				+ " / cpu (ns): " + ThreadTimeSnapshot.sum(calculateThreadCPUTimes())
+				+ " / average (used: " + heapSampler.getAverageUsedMemory()
+				+ " / free: " + heapSampler.getAverageFreeMemory()
+				+ " / total: " + heapSampler.getAverageTotalAvailableMemory()
+				+ " / max: " + HeapSampler.getMaxAvailableMemory()
 				+ ")";
 	}
-
-	public class PollingThread extends Thread {
-
-		private final long pollingInterval;
-
-		private boolean shouldPoll = true;
-
-		public PollingThread() {
-			this(DEFAULT_POLLING_INTERVAL);
-		}
-
-		public PollingThread(final long pollingInterval) {
-			this.pollingInterval = pollingInterval;
-			// IBenchmarkResult may be requested before the Thread gets started
-			// This guarantees there is at least one snapshot
-			memSnapshots.add(new HeapSnapshot());
-		}
-
-		public void endPolling() {
-			shouldPoll = false;
-		}
-
-		@Override
-		public void run() {
-			try {
-				logger.trace("started polling memory");
-				while (shouldPoll) {
-					HeapSnapshot snapshot = new HeapSnapshot();
-					memSnapshots.add(snapshot);
-					sleep(pollingInterval);
-				}
-				logger.trace("finished polling memory");
-			} catch (InterruptedException e) {
-				logger.error("Polling Thread abnormally finalized", e);
-				throw new RuntimeException(e);
-			}
-		}
-	}
-
-	public static class HeapSnapshot implements IHeapSnapshot {
-
-		enum ParameterType {
-			USED, FREE, TOTAL
-		}
-
-		private final static int MEGA_BYTE_FACTOR = 1024 * 1024;
-
-		private static Runtime runtime = Runtime.getRuntime();
-
-		private final long usedMemory;
-
-		private final long freeMemory;
-
-		private final long totalAvailableMemory;
-		
-		private final long timestamp;
-
-		public HeapSnapshot() {
-			usedMemory = calculateUsedMemory();
-			freeMemory = calculateFreeMemory();
-			totalAvailableMemory = calculateTotalAvailableMemory();
-			timestamp = System.currentTimeMillis();
-		}
-
-		public static long calculateUsedMemory() {
-			return (runtime.totalMemory() - runtime.freeMemory())
-					/ MEGA_BYTE_FACTOR;
-		}
-
-		public static long calculateFreeMemory() {
-			return runtime.freeMemory() / MEGA_BYTE_FACTOR;
-		}
-
-		public static long calculateTotalAvailableMemory() {
-			return runtime.totalMemory() / MEGA_BYTE_FACTOR;
-		}
-
-		public static long calculateMaxAvailableMemory() {
-			return runtime.maxMemory() / MEGA_BYTE_FACTOR;
-		}
-
-		public static HeapSnapshot getSnapshot() {
-			return new HeapSnapshot();
-		}
-
-		@Override
-		public long getTimestamp() {
-			return timestamp;
-		}
-
-		public long getUsedMemory() {
-			return usedMemory;
-		}
-
-		public long getFreeMemory() {
-			return freeMemory;
-		}
-
-		public long getTotalAvailableMemory() {
-			return totalAvailableMemory;
-		}
-
-		@Override
-		public long getMaxAvailableMemory() {
-			return calculateMaxAvailableMemory();
-		}
-
-		@Override
-		public String toString() {
-			return "used: " + usedMemory + " / free: " + freeMemory
-					+ " / totalAvailable: " + totalAvailableMemory
-					+ " / maxAvailable: " + getMaxAvailableMemory();
-		}
-	}
 }
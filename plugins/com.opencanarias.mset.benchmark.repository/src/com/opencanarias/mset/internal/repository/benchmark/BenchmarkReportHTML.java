@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.opencanarias.mset.repository.benchmark.BenchmarkUtils;
+import com.opencanarias.mset.repository.benchmark.ComplexityAnalyzer;
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult;
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.IComplexityFit;
+import com.opencanarias.mset.repository.benchmark.IHeapSeries;
+import com.opencanarias.mset.repository.benchmark.IHeapSnapshot;
+import com.opencanarias.mset.repository.benchmark.IStatistics;
+
+/**
+ * Builds a self contained HTML report of benchmark results, with inline
+ * {@link SVGChart SVG charts}:
+ * <ul>
+ * <li>real time per repository for each case and model size, with the confidence interval of the mean</li>
+ * <li>median real time against model size for each case, in log-log scale, with the
+ * {@link ComplexityAnalyzer complexity} of each repository</li>
+ * <li>overhead of the TCP transport over the JVM one, for repositories named alike</li>
+ * <li>used heap over time for each case and repository</li>
+ * </ul>
+ * Failed results are left out of the charts.
+ *
+ * @author vroldan
+ */
+public class BenchmarkReportHTML {
+
+	private static final String JVM_SUFFIX = "-JVM"; //$NON-NLS-1$
+
+	private static final String TCP_SUFFIX = "-TCP"; //$NON-NLS-1$
+
+	private static final double NANOS_PER_MILLI = 1e6;
+
+	private static final double BYTES_PER_MEGA = 1024 * 1024;
+
+	private static final int MAX_TIMELINE_POINTS = 500;
+
+	private static final String STYLE = "body{font-family:sans-serif;margin:2em;color:#222}" //$NON-NLS-1$
+			+ "table{border-collapse:collapse;margin-bottom:1em}" //$NON-NLS-1$
+			+ "th,td{border:1px solid #ccc;padding:2px 8px;text-align:right}" //$NON-NLS-1$
+			+ "th:first-child,td:first-child,th:nth-child(2),td:nth-child(2){text-align:left}" //$NON-NLS-1$
+			+ "figure{display:inline-block;margin:0 1em 1em 0}figcaption{font-weight:bold}"; //$NON-NLS-1$
+
+	/**
+	 * Returns the report of the argument results and heap series
+	 *
+	 * @param heapSeries the heap series of the results, may be empty
+	 */
+	public static String toHTML(String title, List<IBenchmarkResult> results, List<IHeapSeries> heapSeries) {
+		Map<String, Map<Integer, Map<String, IAggregatedResult>>> aggregates = aggregate(results);
+		StringBuilder html = new StringBuilder();
+		html.append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>") //$NON-NLS-1$
+			.append(SVGChart.escape(title)).append("</title><style>").append(STYLE).append("</style></head><body>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		html.append("<h1>").append(SVGChart.escape(title)).append("</h1>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+		html.append("<p>").append(SVGChart.escape(MessageFormat.format("{0} results, {1} failed. Generated {2}.", //$NON-NLS-1$ //$NON-NLS-2$
+				results.size(), countFailed(results), new Date()))).append("</p>\n"); //$NON-NLS-1$
+		appendSummary(html, aggregates);
+		appendBarCharts(html, aggregates);
+		appendScaling(html, aggregates, results);
+		appendTransport(html, aggregates);
+		appendHeapTimelines(html, heapSeries);
+		return html.append("</body></html>\n").toString(); //$NON-NLS-1$
+	}
+
+	/*
+	 * case -> model size -> repository -> aggregate, in order of appearance except
+	 * for sizes, which are sorted
+	 */
+	private static Map<String, Map<Integer, Map<String, IAggregatedResult>>> aggregate(List<IBenchmarkResult> results) {
+		Map<String, Map<Integer, Map<String, IAggregatedResult>>> aggregates = new LinkedHashMap<String, Map<Integer, Map<String, IAggregatedResult>>>();
+		for (IBenchmarkResult result : results) {
+			if (result.isFailed()) {
+				continue;
+			}
+			// The steps of a size sweep are charted as a single case
+			String caseName = ComplexityAnalyzer.getBaseCaseName(result.getBenchmarkCaseName());
+			Map<Integer, Map<String, IAggregatedResult>> sizes = aggregates.get(caseName);
+			if (sizes == null) {
+				sizes = new TreeMap<Integer, Map<String, IAggregatedResult>>();
+				aggregates.put(caseName, sizes);
+			}
+			int size = result.getModelProperties() != null ? result.getModelProperties().getCount() : 0;
+			Map<String, IAggregatedResult> repositories = sizes.get(size);
+			if (repositories == null) {
+				repositories = new LinkedHashMap<String, IAggregatedResult>();
+				sizes.put(size, repositories);
+			}
+			IAggregatedResult aggregated = repositories.get(result.getModelRepositoryName());
+			if (aggregated == null) {
+				aggregated = BenchmarkUtils.createAggregateResult();
+				repositories.put(result.getModelRepositoryName(), aggregated);
+			}
+			aggregated.addResult(result);
+		}
+		return aggregates;
+	}
+
+	private static void appendSummary(StringBuilder html, Map<String, Map<Integer, Map<String, IAggregatedResult>>> aggregates) {
+		html.append("<h2>Summary</h2>\n<table><tr><th>Case</th><th>Repository</th><th>Size</th><th>n</th>" //$NON-NLS-1$
+				+ "<th>Median (ms)</th><th>Mean (ms)</th><th>95% CI (ms)</th><th>Outliers</th></tr>\n"); //$NON-NLS-1$
+		for (Map.Entry<String, Map<Integer, Map<String, IAggregatedResult>>> caseEntry : aggregates.entrySet()) {
+			for (Map.Entry<Integer, Map<String, IAggregatedResult>> sizeEntry : caseEntry.getValue().entrySet()) {
+				for (Map.Entry<String, IAggregatedResult> repositoryEntry : sizeEntry.getValue().entrySet()) {
+					IStatistics statistics = repositoryEntry.getValue().getStatistics(Metric.REAL_TIME);
+					html.append("<tr><td>").append(SVGChart.escape(caseEntry.getKey())) //$NON-NLS-1$
+						.append("</td><td>").append(SVGChart.escape(repositoryEntry.getKey())) //$NON-NLS-1$
+						.append("</td><td>").append(sizeEntry.getKey()) //$NON-NLS-1$
+						.append("</td><td>").append(statistics.getCount()) //$NON-NLS-1$
+						.append("</td><td>").append(SVGChart.format(toMillis(statistics.getMedian()))) //$NON-NLS-1$
+						.append("</td><td>").append(SVGChart.format(toMillis(statistics.getMean()))) //$NON-NLS-1$
+						.append("</td><td>").append(SVGChart.format(toMillis(statistics.getConfidenceIntervalLow()))) //$NON-NLS-1$
+						.append(" &ndash; ").append(SVGChart.format(toMillis(statistics.getConfidenceIntervalHigh()))) //$NON-NLS-1$
+						.append("</td><td>").append(statistics.getOutlierCount()) //$NON-NLS-1$
+						.append("</td></tr>\n"); //$NON-NLS-1$
+				}
+			}
+		}
+		html.append("</table>\n"); //$NON-NLS-1$
+	}
+
+	private static void appendBarCharts(StringBuilder html, Map<String, Map<Integer, Map<String, IAggregatedResult>>> aggregates) {
+		html.append("<h2>Real time by repository</h2>\n"); //$NON-NLS-1$
+		for (Map.Entry<String, Map<Integer, Map<String, IAggregatedResult>>> caseEntry : aggregates.entrySet()) {
+			for (Map.Entry<Integer, Map<String, IAggregatedResult>> sizeEntry : caseEntry.getValue().entrySet()) {
+				Map<String, IAggregatedResult> repositories = sizeEntry.getValue();
+				List<String> labels = new ArrayList<String>(repositories.keySet());
+				double[] values = new double[labels.size()];
+				double[] low = new double[labels.size()];
+				double[] high = new double[labels.size()];
+				for (int i = 0; i < labels.size(); i++) {
+					IStatistics statistics = repositories.get(labels.get(i)).getStatistics(Metric.REAL_TIME);
+					values[i] = toMillis(statistics.getMean());
+					low[i] = toMillis(statistics.getConfidenceIntervalLow());
+					high[i] = toMillis(statistics.getConfidenceIntervalHigh());
+				}
+				appendFigure(html, MessageFormat.format("{0}, {1} elements", caseEntry.getKey(), sizeEntry.getKey()), //$NON-NLS-1$
+						SVGChart.barChart(labels, values, low, high, "mean real time (ms), 95% CI")); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private static void appendScaling(StringBuilder html, Map<String, Map<Integer, Map<String, IAggregatedResult>>> aggregates,
+			List<IBenchmarkResult> results) {
+		boolean header = false;
+		for (Map.Entry<String, Map<Integer, Map<String, IAggregatedResult>>> caseEntry : aggregates.entrySet()) {
+			Map<Integer, Map<String, IAggregatedResult>> sizes = caseEntry.getValue();
+			if (sizes.size() < 2) {
+				continue;
+			}
+			Map<String, List<double[]>> points = new LinkedHashMap<String, List<double[]>>();
+			for (Map.Entry<Integer, Map<String, IAggregatedResult>> sizeEntry : sizes.entrySet()) {
+				for (Map.Entry<String, IAggregatedResult> repositoryEntry : sizeEntry.getValue().entrySet()) {
+					List<double[]> repositoryPoints = points.get(repositoryEntry.getKey());
+					if (repositoryPoints == null) {
+						repositoryPoints = new ArrayList<double[]>();
+						points.put(repositoryEntry.getKey(), repositoryPoints);
+					}
+					repositoryPoints.add(new double[] {sizeEntry.getKey(),
+							toMillis(repositoryEntry.getValue().getStatistics(Metric.REAL_TIME).getMedian())});
+				}
+			}
+			if (!header) {
+				html.append("<h2>Scaling with model size</h2>\n"); //$NON-NLS-1$
+				header = true;
+			}
+			appendFigure(html, caseEntry.getKey(), SVGChart.lineChart(toArrays(points), true, true,
+					"model elements", "median real time (ms)")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		if (!header) {
+			return;
+		}
+		html.append("<table><tr><th>Case</th><th>Repository</th><th>Sizes</th><th>Exponent</th>" //$NON-NLS-1$
+				+ "<th>Best fit</th><th>R&sup2;</th><th>Superlinear</th></tr>\n"); //$NON-NLS-1$
+		for (IComplexityFit fit : new ComplexityAnalyzer().analyze(results)) {
+			if (fit.getBestFit() == null) {
+				continue;
+			}
+			html.append("<tr><td>").append(SVGChart.escape(fit.getCaseName())) //$NON-NLS-1$
+				.append("</td><td>").append(SVGChart.escape(fit.getRepositoryName())) //$NON-NLS-1$
+				.append("</td><td>").append(fit.getSizes().length) //$NON-NLS-1$
+				.append("</td><td>").append(SVGChart.format(fit.getExponent())) //$NON-NLS-1$
+				.append("</td><td>").append(fit.getBestFit()) //$NON-NLS-1$
+				.append("</td><td>").append(SVGChart.format(fit.getRSquared())) //$NON-NLS-1$
+				.append("</td><td>").append(fit.isSuperlinear() ? "<b>yes</b>" : "no") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				.append("</td></tr>\n"); //$NON-NLS-1$
+		}
+		html.append("</table>\n"); //$NON-NLS-1$
+	}
+
+	/*
+	 * Pairs "X-JVM" and "X-TCP" repositories, and shows how much slower the TCP
+	 * variant is, on medians
+	 */
+	private static void appendTransport(StringBuilder html, Map<String, Map<Integer, Map<String, IAggregatedResult>>> aggregates) {
+		StringBuilder rows = new StringBuilder();
+		List<String> labels = new ArrayList<String>();
+		List<Double> overheads = new ArrayList<Double>();
+		for (Map.Entry<String, Map<Integer, Map<String, IAggregatedResult>>> caseEntry : aggregates.entrySet()) {
+			for (Map.Entry<Integer, Map<String, IAggregatedResult>> sizeEntry : caseEntry.getValue().entrySet()) {
+				Map<String, IAggregatedResult> repositories = sizeEntry.getValue();
+				for (String repository : repositories.keySet()) {
+					if (!repository.toUpperCase().endsWith(JVM_SUFFIX)) {
+						continue;
+					}
+					String backend = repository.substring(0, repository.length() - JVM_SUFFIX.length());
+					IAggregatedResult tcp = null;
+					for (String candidate : repositories.keySet()) {
+						if (candidate.equalsIgnoreCase(backend + TCP_SUFFIX)) {
+							tcp = repositories.get(candidate);
+						}
+					}
+					if (tcp == null) {
+						continue;
+					}
+					double jvmMedian = toMillis(repositories.get(repository).getStatistics(Metric.REAL_TIME).getMedian());
+					double tcpMedian = toMillis(tcp.getStatistics(Metric.REAL_TIME).getMedian());
+					if (jvmMedian <= 0 || Double.isNaN(tcpMedian)) {
+						continue;
+					}
+					double overhead = (tcpMedian - jvmMedian) / jvmMedian * 100;
+					labels.add(MessageFormat.format("{0} {1} ({2})", backend, caseEntry.getKey(), sizeEntry.getKey())); //$NON-NLS-1$
+					overheads.add(overhead);
+					rows.append("<tr><td>").append(SVGChart.escape(caseEntry.getKey())) //$NON-NLS-1$
+						.append("</td><td>").append(SVGChart.escape(backend)) //$NON-NLS-1$
+						.append("</td><td>").append(sizeEntry.getKey()) //$NON-NLS-1$
+						.append("</td><td>").append(SVGChart.format(jvmMedian)) //$NON-NLS-1$
+						.append("</td><td>").append(SVGChart.format(tcpMedian)) //$NON-NLS-1$
+						.append("</td><td>").append(SVGChart.format(overhead)) //$NON-NLS-1$
+						.append("</td></tr>\n"); //$NON-NLS-1$
+				}
+			}
+		}
+		if (labels.isEmpty()) {
+			return;
+		}
+		double[] values = new double[overheads.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = overheads.get(i);
+		}
+		html.append("<h2>Transport overhead (TCP over JVM)</h2>\n"); //$NON-NLS-1$
+		appendFigure(html, "Median real time overhead", SVGChart.barChart(labels, values, null, null, "overhead (%)")); //$NON-NLS-1$ //$NON-NLS-2$
+		html.append("<table><tr><th>Case</th><th>Backend</th><th>Size</th><th>JVM median (ms)</th>" //$NON-NLS-1$
+				+ "<th>TCP median (ms)</th><th>Overhead (%)</th></tr>\n").append(rows).append("</table>\n"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/*
+	 * One chart per case, one line per repository, showing its first series only
+	 * so that lines stay readable
+	 */
+	private static void appendHeapTimelines(StringBuilder html, List<IHeapSeries> heapSeries) {
+		Map<String, Map<String, IHeapSeries>> cases = new LinkedHashMap<String, Map<String, IHeapSeries>>();
+		for (IHeapSeries series : heapSeries) {
+			if (series.getSnapshots().isEmpty()) {
+				continue;
+			}
+			Map<String, IHeapSeries> repositories = cases.get(series.getCaseName());
+			if (repositories == null) {
+				repositories = new LinkedHashMap<String, IHeapSeries>();
+				cases.put(series.getCaseName(), repositories);
+			}
+			IHeapSeries current = repositories.get(series.getRepositoryName());
+			if (current == null || series.getIteration() < current.getIteration()) {
+				repositories.put(series.getRepositoryName(), series);
+			}
+		}
+		if (cases.isEmpty()) {
+			return;
+		}
+		html.append("<h2>Heap timelines</h2>\n"); //$NON-NLS-1$
+		for (Map.Entry<String, Map<String, IHeapSeries>> caseEntry : cases.entrySet()) {
+			Map<String, List<double[]>> points = new LinkedHashMap<String, List<double[]>>();
+			for (Map.Entry<String, IHeapSeries> repositoryEntry : caseEntry.getValue().entrySet()) {
+				points.put(repositoryEntry.getKey(), toTimeline(repositoryEntry.getValue().getSnapshots()));
+			}
+			appendFigure(html, caseEntry.getKey(), SVGChart.lineChart(toArrays(points), false, false,
+					"time (ms)", "used heap (MB)")); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/*
+	 * Used megabytes against milliseconds since the first snapshot. Long series
+	 * are reduced to the maximum of each bucket, to keep peaks visible
+	 */
+	private static List<double[]> toTimeline(List<IHeapSnapshot> snapshots) {
+		int size = snapshots.size();
+		int bucket = (size + MAX_TIMELINE_POINTS - 1) / MAX_TIMELINE_POINTS;
+		long start = snapshots.get(0).getTimestamp();
+		List<double[]> points = new ArrayList<double[]>();
+		for (int i = 0; i < size; i += bucket) {
+			long max = 0;
+			long timestamp = snapshots.get(i).getTimestamp();
+			for (int j = i; j < Math.min(size, i + bucket); j++) {
+				max = Math.max(max, snapshots.get(j).getUsedBytes());
+			}
+			points.add(new double[] {timestamp - start, max / BYTES_PER_MEGA});
+		}
+		return points;
+	}
+
+	private static Map<String, double[][]> toArrays(Map<String, List<double[]>> points) {
+		Map<String, double[][]> result = new LinkedHashMap<String, double[][]>();
+		for (Map.Entry<String, List<double[]>> entry : points.entrySet()) {
+			result.put(entry.getKey(), entry.getValue().toArray(new double[entry.getValue().size()][]));
+		}
+		return result;
+	}
+
+	private static void appendFigure(StringBuilder html, String caption, String svg) {
+		html.append("<figure><figcaption>").append(SVGChart.escape(caption)).append("</figcaption>\n") //$NON-NLS-1$ //$NON-NLS-2$
+			.append(svg).append("\n</figure>\n"); //$NON-NLS-1$
+	}
+
+	private static int countFailed(List<IBenchmarkResult> results) {
+		int failed = 0;
+		for (IBenchmarkResult result : results) {
+			if (result.isFailed()) {
+				failed++;
+			}
+		}
+		return failed;
+	}
+
+	private static double toMillis(double nanos) {
+		return nanos / NANOS_PER_MILLI;
+	}
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opencanarias.mset.repository.benchmark.CSVUtils;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.IModelProperties;
+
+/**
+ * Reads the iteration details of CSV files written with {@link CSVUtils}. Columns are
+ * looked up by name, so files written by older versions, with less columns, are
+ * read as well. Only scalar columns are read: per thread, per pool and per operation
+ * details are left empty.
+ *
+ * @author vroldan
+ */
+public class BenchmarkResultCSV {
+
+	private static final String CASE = "Case"; //$NON-NLS-1$
+
+	private static final String REPOSITORY = "Repository"; //$NON-NLS-1$
+
+	private static final String FAILED = "failed"; //$NON-NLS-1$
+
+	private static final String TOTAL_KEY = "total"; //$NON-NLS-1$
+
+	private static final long NANOS_PER_MILLI = 1000000;
+
+	/**
+	 * Returns the results listed in the argument CSV content
+	 *
+	 * @throws IllegalArgumentException if the content has no iteration details
+	 */
+	public static List<IBenchmarkResult> fromCSV(String content) {
+		String[] lines = content.split("\\r?\\n"); //$NON-NLS-1$
+		String separator = CSVUtils.getFieldSeparator();
+		String headerStart = CASE + separator + REPOSITORY + separator;
+		int headerLine = 0;
+		while (headerLine < lines.length && !lines[headerLine].startsWith(headerStart)) {
+			headerLine++;
+		}
+		if (headerLine == lines.length) {
+			throw new IllegalArgumentException("No iteration details found"); //$NON-NLS-1$
+		}
+		String[] header = lines[headerLine].split(separator);
+		Map<String, Integer> columns = new HashMap<String, Integer>();
+		for (int i = 0; i < header.length; i++) {
+			columns.put(header[i].trim(), i);
+		}
+		List<IBenchmarkResult> results = new ArrayList<IBenchmarkResult>();
+		for (int i = headerLine + 1; i < lines.length; i++) {
+			if (lines[i].trim().length() == 0) {
+				continue;
+			}
+			String[] fields = lines[i].split(separator, -1);
+			try {
+				results.add(fromFields(fields, columns, header.length));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(MessageFormat.format("Invalid iteration detail at line {0}", i + 1), e); //$NON-NLS-1$
+			}
+		}
+		return results;
+	}
+
+	private static BenchmarkResultImpl fromFields(String[] fields, Map<String, Integer> columns, int columnCount) {
+		BenchmarkResultImpl result = new BenchmarkResultImpl();
+		result.setBenchmarkCaseName(getString(fields, columns, CASE));
+		result.setModelRepositoryName(getString(fields, columns, REPOSITORY));
+		IModelProperties properties = new ModelPropertiesImpl();
+		properties.setCount((int)getLong(fields, columns, "size", 0)); //$NON-NLS-1$
+		properties.setDepth((int)getLong(fields, columns, "depth", 0)); //$NON-NLS-1$
+		properties.setWidth((int)getLong(fields, columns, "width", 0)); //$NON-NLS-1$
+		properties.setSeed(getLong(fields, columns, "seed", IModelProperties.UNSEEDED)); //$NON-NLS-1$
+		result.setModelProperties(properties);
+		long realTime = getLong(fields, columns, "realTimeNs", -1); //$NON-NLS-1$
+		result.setRealTimeNanos(realTime >= 0 ? realTime : getLong(fields, columns, "realTime", 0) * NANOS_PER_MILLI); //$NON-NLS-1$
+		result.setCPUTimeNanos(getLong(fields, columns, "cpuTime", 0) * NANOS_PER_MILLI); //$NON-NLS-1$
+		result.setUserTimeNanos(getLong(fields, columns, "userTime", 0) * NANOS_PER_MILLI); //$NON-NLS-1$
+		result.setAverageUsedMemory(getLong(fields, columns, "avgUsed", 0)); //$NON-NLS-1$
+		result.setAverageFreeMemory(getLong(fields, columns, "avgFree", 0)); //$NON-NLS-1$
+		result.setAverageTotalAvailableMemory(getLong(fields, columns, "avgTotalAvailable", 0)); //$NON-NLS-1$
+		result.setMaxAvailableMemory(getLong(fields, columns, "avgMaxAvailable", 0)); //$NON-NLS-1$
+		long allocatedBytes = getLong(fields, columns, "allocatedBytes", -1); //$NON-NLS-1$
+		if (allocatedBytes >= 0) {
+			result.setThreadAllocatedBytes(Collections.singletonMap(TOTAL_KEY, allocatedBytes));
+		}
+		long gcCount = getLong(fields, columns, "gcCount", -1); //$NON-NLS-1$
+		if (gcCount >= 0) {
+			result.setGCCounts(Collections.singletonMap(TOTAL_KEY, gcCount));
+			result.setGCTimes(Collections.singletonMap(TOTAL_KEY, getLong(fields, columns, "gcTime", 0))); //$NON-NLS-1$
+		}
+		result.setWarmupIterations((int)getLong(fields, columns, "warmupIterations", 0)); //$NON-NLS-1$
+		result.setWarmupTimeNanos(getLong(fields, columns, "warmupTimeNs", 0)); //$NON-NLS-1$
+		result.setSteadyStateReached(Boolean.parseBoolean(getString(fields, columns, "steadyState"))); //$NON-NLS-1$
+		result.setBenchmarkFailed(fields.length > columnCount && FAILED.equals(fields[columnCount].trim()));
+		return result;
+	}
+
+	private static String getString(String[] fields, Map<String, Integer> columns, String column) {
+		Integer index = columns.get(column);
+		return index != null && index < fields.length ? fields[index].trim() : null;
+	}
+
+	private static long getLong(String[] fields, Map<String, Integer> columns, String column, long defaultValue) {
+		String value = getString(fields, columns, column);
+		return value != null && value.length() > 0 ? Long.parseLong(value) : defaultValue;
+	}
+}
@@ -13,19 +13,47 @@ package com.opencanarias.mset.internal.repository.benchmark;
 import java.text.MessageFormat;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import com.opencanarias.mset.repository.benchmark.IBenchmarkCase;
 import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
 import com.opencanarias.mset.repository.benchmark.IHeapSnapshot;
+import com.opencanarias.mset.repository.benchmark.ILatencyHistogram;
+import com.opencanarias.mset.repository.benchmark.IMemoryPoolUsage;
+import com.opencanarias.mset.repository.benchmark.IModelOperation.OperationType;
 import com.opencanarias.mset.repository.benchmark.IModelProperties;
 import com.opencanarias.mset.repository.benchmark.IModelRepository;
 
 public class BenchmarkResultImpl implements IBenchmarkResult {
 
+	private static final long NANOS_PER_MILLI = 1000000;
+	
+	private static final long NANOS_PER_SECOND = 1000000000;
+	
+	private static final long BYTES_PER_MEGABYTE = 1024 * 1024;
+	
+	private static final long UNDEFINED = -1;
+
 	private long cpuTime;
 	
+	private long userTime;
+	
 	private long realTime;
 	
+	private Map<String, Long> threadCPUTimes = Collections.emptyMap();
+	
+	private Map<String, Long> threadUserTimes = Collections.emptyMap();
+	
+	private Map<String, Long> threadAllocatedBytes = null;
+	
+	private Map<String, Long> gcCounts = Collections.emptyMap();
+	
+	private Map<String, Long> gcTimes = Collections.emptyMap();
+	
+	private Map<String, IMemoryPoolUsage> memoryPoolUsages = Collections.emptyMap();
+	
+	private Map<OperationType, ILatencyHistogram> operationLatencies = Collections.emptyMap();
+	
 	private long averageUsedMemory;
 	
 	private long averageFreeMemory;
@@ -38,12 +66,22 @@ public class BenchmarkResultImpl implements IBenchmarkResult {
 	
 	private IModelRepository repository;
 	
+	private String benchmarkCaseName;
+	
+	private String repositoryName;
+	
 	private IModelProperties modelProperties;
 	
-	private List<IHeapSnapshot> heapSnapshots;
+	private List<IHeapSnapshot> heapSnapshots = Collections.emptyList();
 	
 	private boolean failed;
 	
+	private int warmupIterations;
+	
+	private long warmupTime;
+	
+	private boolean steadyStateReached;
+	
 	@Override
 	public List<IHeapSnapshot> getHeapSnapshots() {
 		return heapSnapshots;
@@ -55,22 +93,173 @@ public class BenchmarkResultImpl implements IBenchmarkResult {
 
 	@Override
 	public long getCPUTime() {
+		return cpuTime / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public long getCPUTimeNanos() {
 		return cpuTime;
 	}
 
-	public void setCPUTime(long cpuTime) {
+	public void setCPUTimeNanos(long cpuTime) {
 		this.cpuTime = cpuTime;
 	}
 
+	@Override
+	public long getUserTime() {
+		return userTime / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public long getUserTimeNanos() {
+		return userTime;
+	}
+
+	public void setUserTimeNanos(long userTime) {
+		this.userTime = userTime;
+	}
+
+	@Override
+	public Map<String, Long> getThreadCPUTimes() {
+		return threadCPUTimes;
+	}
+
+	public void setThreadCPUTimes(Map<String, Long> threadCPUTimes) {
+		this.threadCPUTimes = Collections.unmodifiableMap(threadCPUTimes);
+	}
+
+	@Override
+	public Map<String, Long> getThreadUserTimes() {
+		return threadUserTimes;
+	}
+
+	public void setThreadUserTimes(Map<String, Long> threadUserTimes) {
+		this.threadUserTimes = Collections.unmodifiableMap(threadUserTimes);
+	}
+
 	@Override
 	public long getRealTime() {
+		return realTime / NANOS_PER_MILLI;
+	}
+
+	@Override
+	public long getRealTimeNanos() {
 		return realTime;
 	}
 
-	public void setRealTime(long realTime) {
+	public void setRealTimeNanos(long realTime) {
 		this.realTime = realTime;
 	}
 
+	@Override
+	public long getAllocatedBytes() {
+		return threadAllocatedBytes != null ? ThreadTimeSnapshot.sum(threadAllocatedBytes) : UNDEFINED;
+	}
+
+	@Override
+	public Map<String, Long> getThreadAllocatedBytes() {
+		return threadAllocatedBytes != null ? threadAllocatedBytes : Collections.<String, Long>emptyMap();
+	}
+
+	/**
+	 * Sets the allocations per thread group. Allocations remain unknown
+	 * unless this method is invoked.
+	 */
+	public void setThreadAllocatedBytes(Map<String, Long> threadAllocatedBytes) {
+		this.threadAllocatedBytes = Collections.unmodifiableMap(threadAllocatedBytes);
+	}
+
+	@Override
+	public double getAllocatedBytesPerElement() {
+		long allocatedBytes = getAllocatedBytes();
+		if (allocatedBytes == UNDEFINED || modelProperties == null || modelProperties.getCount() <= 0) {
+			return UNDEFINED;
+		}
+		return (double)allocatedBytes / modelProperties.getCount();
+	}
+
+	@Override
+	public double getAllocationRate() {
+		long allocatedBytes = getAllocatedBytes();
+		if (allocatedBytes == UNDEFINED || realTime <= 0) {
+			return UNDEFINED;
+		}
+		return ((double)allocatedBytes / BYTES_PER_MEGABYTE) / ((double)realTime / NANOS_PER_SECOND);
+	}
+
+	@Override
+	public Map<OperationType, ILatencyHistogram> getOperationLatencies() {
+		return operationLatencies;
+	}
+
+	public void setOperationLatencies(Map<OperationType, ILatencyHistogram> operationLatencies) {
+		this.operationLatencies = Collections.unmodifiableMap(operationLatencies);
+	}
+
+	@Override
+	public int getWarmupIterations() {
+		return warmupIterations;
+	}
+
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+	}
+
+	@Override
+	public long getWarmupTimeNanos() {
+		return warmupTime;
+	}
+
+	public void setWarmupTimeNanos(long warmupTime) {
+		this.warmupTime = warmupTime;
+	}
+
+	@Override
+	public boolean isSteadyStateReached() {
+		return steadyStateReached;
+	}
+
+	public void setSteadyStateReached(boolean steadyStateReached) {
+		this.steadyStateReached = steadyStateReached;
+	}
+
+	@Override
+	public Map<String, Long> getGCCounts() {
+		return gcCounts;
+	}
+
+	public void setGCCounts(Map<String, Long> gcCounts) {
+		this.gcCounts = Collections.unmodifiableMap(gcCounts);
+	}
+
+	@Override
+	public Map<String, Long> getGCTimes() {
+		return gcTimes;
+	}
+
+	public void setGCTimes(Map<String, Long> gcTimes) {
+		this.gcTimes = Collections.unmodifiableMap(gcTimes);
+	}
+
+	@Override
+	public long getGCCount() {
+		return ThreadTimeSnapshot.sum(gcCounts);
+	}
+
+	@Override
+	public long getGCTime() {
+		return ThreadTimeSnapshot.sum(gcTimes);
+	}
+
+	@Override
+	public Map<String, IMemoryPoolUsage> getMemoryPoolUsages() {
+		return memoryPoolUsages;
+	}
+
+	public void setMemoryPoolUsages(Map<String, IMemoryPoolUsage> memoryPoolUsages) {
+		this.memoryPoolUsages = Collections.unmodifiableMap(memoryPoolUsages);
+	}
+
 	@Override
 	public long getAverageUsedMemory() {
 		return averageUsedMemory;
@@ -113,6 +302,7 @@ public class BenchmarkResultImpl implements IBenchmarkResult {
 
 	public void setModelRepository(IModelRepository repository) {
 		this.repository = repository;
+		this.repositoryName = repository != null ? repository.getName() : null;
 	}
 
 	public IBenchmarkCase getBenchmarkCase() {
@@ -121,6 +311,25 @@ public class BenchmarkResultImpl implements IBenchmarkResult {
 
 	public void setBenchmarkCase(IBenchmarkCase benchmarkCase) {
 		this.benchmarkCase = benchmarkCase;
+		this.benchmarkCaseName = benchmarkCase != null ? benchmarkCase.getName() : null;
+	}
+
+	@Override
+	public String getBenchmarkCaseName() {
+		return benchmarkCaseName;
+	}
+
+	public void setBenchmarkCaseName(String benchmarkCaseName) {
+		this.benchmarkCaseName = benchmarkCaseName;
+	}
+
+	@Override
+	public String getModelRepositoryName() {
+		return repositoryName;
+	}
+
+	public void setModelRepositoryName(String repositoryName) {
+		this.repositoryName = repositoryName;
 	}
 
 	@Override
@@ -134,12 +343,13 @@ public class BenchmarkResultImpl implements IBenchmarkResult {
 	
 	@Override
 	public String toString() {
-		return MessageFormat.format("[{0}-{1}] modelSize: {8} / realTime: {3} / avgUsed: {4} / avgFree: {5} / avgTotalAvailable: {6} / avgMaxAvailable: {7}", 
-				getBenchmarkCase() != null ? getBenchmarkCase().getName() : "NoCase", 
-				getModelRepository() != null ? getModelRepository().getName() : "NoRepository", 
+		return MessageFormat.format("[{0}-{1}] modelSize: {8} / realTime: {3} / cpuTime: {2} / gcCount: {9} / gcTime: {10} / allocated: {11} / avgUsed: {4} / avgFree: {5} / avgTotalAvailable: {6} / avgMaxAvailable: {7}", 
+				getBenchmarkCaseName() != null ? getBenchmarkCaseName() : "NoCase", 
+				getModelRepositoryName() != null ? getModelRepositoryName() : "NoRepository", 
 				getCPUTime(), getRealTime(), getAverageUsedMemory(), 
 				getAverageFreeMemory(), getAverageTotalAvailableMemory(), getMaxAvailableMemory(),
-				getModelProperties() != null ? getModelProperties().getCount() : "NoModel");
+				getModelProperties() != null ? getModelProperties().getCount() : "NoModel",
+				getGCCount(), getGCTime(), getAllocatedBytes());
 	}
 
 	public boolean isFailed() {
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.ILatencyHistogram;
+import com.opencanarias.mset.repository.benchmark.IMemoryPoolUsage;
+import com.opencanarias.mset.repository.benchmark.IModelOperation.OperationType;
+import com.opencanarias.mset.repository.benchmark.IModelProperties;
+
+/**
+ * Converts {@link IBenchmarkResult} from and to a single line JSON object, so
+ * that results can be exchanged between JVMs and stored. The benchmark case
+ * and model repository are written by name, and heap snapshots are not written.
+ *
+ * @author vroldan
+ */
+public class BenchmarkResultJSON {
+
+	private static final String CASE = "case"; //$NON-NLS-1$
+	private static final String REPOSITORY = "repository"; //$NON-NLS-1$
+	private static final String FAILED = "failed"; //$NON-NLS-1$
+	private static final String MODEL = "model"; //$NON-NLS-1$
+	private static final String COUNT = "count"; //$NON-NLS-1$
+	private static final String DEPTH = "depth"; //$NON-NLS-1$
+	private static final String WIDTH = "width"; //$NON-NLS-1$
+	private static final String VALUE_LENGTH = "valueLength"; //$NON-NLS-1$
+	private static final String MEM_USAGE = "memUsage"; //$NON-NLS-1$
+	private static final String SEED = "seed"; //$NON-NLS-1$
+	private static final String REAL_TIME = "realTimeNs"; //$NON-NLS-1$
+	private static final String CPU_TIME = "cpuTimeNs"; //$NON-NLS-1$
+	private static final String USER_TIME = "userTimeNs"; //$NON-NLS-1$
+	private static final String THREAD_CPU_TIMES = "threadCPUTimesNs"; //$NON-NLS-1$
+	private static final String THREAD_USER_TIMES = "threadUserTimesNs"; //$NON-NLS-1$
+	private static final String THREAD_ALLOCATED_BYTES = "threadAllocatedBytes"; //$NON-NLS-1$
+	private static final String GC_COUNTS = "gcCounts"; //$NON-NLS-1$
+	private static final String GC_TIMES = "gcTimes"; //$NON-NLS-1$
+	private static final String MEMORY_POOLS = "memoryPools"; //$NON-NLS-1$
+	private static final String HEAP = "heap"; //$NON-NLS-1$
+	private static final String USED = "used"; //$NON-NLS-1$
+	private static final String COMMITTED = "committed"; //$NON-NLS-1$
+	private static final String PEAK = "peak"; //$NON-NLS-1$
+	private static final String AVG_USED = "avgUsed"; //$NON-NLS-1$
+	private static final String AVG_FREE = "avgFree"; //$NON-NLS-1$
+	private static final String AVG_TOTAL = "avgTotalAvailable"; //$NON-NLS-1$
+	private static final String MAX_AVAILABLE = "maxAvailable"; //$NON-NLS-1$
+	private static final String WARMUP_ITERATIONS = "warmupIterations"; //$NON-NLS-1$
+	private static final String WARMUP_TIME = "warmupTimeNs"; //$NON-NLS-1$
+	private static final String STEADY_STATE = "steadyState"; //$NON-NLS-1$
+	private static final String LATENCIES = "latenciesNs"; //$NON-NLS-1$
+	private static final String MIN = "min"; //$NON-NLS-1$
+	private static final String MAX = "max"; //$NON-NLS-1$
+	private static final String SUM = "sum"; //$NON-NLS-1$
+	private static final String BUCKETS = "buckets"; //$NON-NLS-1$
+	private static final String BUCKET_COUNTS = "bucketCounts"; //$NON-NLS-1$
+
+	/**
+	 * Returns the argument result as a single line JSON object
+	 */
+	public static String toJSON(IBenchmarkResult result) {
+		return toJSON(result, Collections.<String, Object>emptyMap());
+	}
+
+	/**
+	 * Returns the argument result as a single line JSON object, followed by the
+	 * argument attributes. Numbers and booleans are written as such, any other
+	 * value is written as a string. {@link #fromJSON(String)} ignores the attributes.
+	 */
+	public static String toJSON(IBenchmarkResult result, Map<String, ? extends Object> attributes) {
+		StringBuilder builder = new StringBuilder(1024);
+		builder.append('{');
+		appendField(builder, CASE, JSONParser.quote(result.getBenchmarkCaseName()));
+		appendField(builder, REPOSITORY, JSONParser.quote(result.getModelRepositoryName()));
+		appendField(builder, FAILED, result.isFailed());
+		appendField(builder, MODEL, toJSON(result.getModelProperties()));
+		appendField(builder, REAL_TIME, result.getRealTimeNanos());
+		appendField(builder, CPU_TIME, result.getCPUTimeNanos());
+		appendField(builder, USER_TIME, result.getUserTimeNanos());
+		appendField(builder, THREAD_CPU_TIMES, toJSON(result.getThreadCPUTimes()));
+		appendField(builder, THREAD_USER_TIMES, toJSON(result.getThreadUserTimes()));
+		appendField(builder, THREAD_ALLOCATED_BYTES, result.getAllocatedBytes() >= 0 ? toJSON(result.getThreadAllocatedBytes()) : null);
+		appendField(builder, GC_COUNTS, toJSON(result.getGCCounts()));
+		appendField(builder, GC_TIMES, toJSON(result.getGCTimes()));
+		appendField(builder, MEMORY_POOLS, toPoolsJSON(result.getMemoryPoolUsages()));
+		appendField(builder, AVG_USED, result.getAverageUsedMemory());
+		appendField(builder, AVG_FREE, result.getAverageFreeMemory());
+		appendField(builder, AVG_TOTAL, result.getAverageTotalAvailableMemory());
+		appendField(builder, MAX_AVAILABLE, result.getMaxAvailableMemory());
+		appendField(builder, WARMUP_ITERATIONS, result.getWarmupIterations());
+		appendField(builder, WARMUP_TIME, result.getWarmupTimeNanos());
+		appendField(builder, STEADY_STATE, result.isSteadyStateReached());
+		appendField(builder, LATENCIES, toLatenciesJSON(result.getOperationLatencies()));
+		for (Map.Entry<String, ? extends Object> attribute : attributes.entrySet()) {
+			Object value = attribute.getValue();
+			appendField(builder, attribute.getKey(), value instanceof Number || value instanceof Boolean
+					? value : JSONParser.quote(value != null ? value.toString() : null));
+		}
+		builder.setCharAt(builder.length() - 1, '}');
+		return builder.toString();
+	}
+
+	/**
+	 * Creates a result from a JSON object produced by {@link #toJSON(IBenchmarkResult)}
+	 *
+	 * @throws IllegalArgumentException if the argument is not a valid result
+	 */
+	public static BenchmarkResultImpl fromJSON(String json) {
+		Object parsed = JSONParser.parse(json);
+		if (!(parsed instanceof Map)) {
+			throw new IllegalArgumentException("A JSON object was expected"); //$NON-NLS-1$
+		}
+		return fromJSON(asMap(parsed));
+	}
+
+	/**
+	 * Creates a result from an already parsed JSON object
+	 */
+	public static BenchmarkResultImpl fromJSON(Map<String, Object> json) {
+		BenchmarkResultImpl result = new BenchmarkResultImpl();
+		result.setBenchmarkCaseName((String)json.get(CASE));
+		result.setModelRepositoryName((String)json.get(REPOSITORY));
+		result.setBenchmarkFailed(Boolean.TRUE.equals(json.get(FAILED)));
+		if (json.get(MODEL) != null) {
+			Map<String, Object> model = asMap(json.get(MODEL));
+			IModelProperties properties = new ModelPropertiesImpl();
+			properties.setCount((int)getLong(model, COUNT));
+			properties.setDepth((int)getLong(model, DEPTH));
+			properties.setWidth((int)getLong(model, WIDTH));
+			properties.setValueLength((int)getLong(model, VALUE_LENGTH));
+			properties.setMemUsage((int)getLong(model, MEM_USAGE));
+			properties.setSeed(getLong(model, SEED));
+			result.setModelProperties(properties);
+		}
+		result.setRealTimeNanos(getLong(json, REAL_TIME));
+		result.setCPUTimeNanos(getLong(json, CPU_TIME));
+		result.setUserTimeNanos(getLong(json, USER_TIME));
+		result.setThreadCPUTimes(toLongMap(json.get(THREAD_CPU_TIMES)));
+		result.setThreadUserTimes(toLongMap(json.get(THREAD_USER_TIMES)));
+		if (json.get(THREAD_ALLOCATED_BYTES) != null) {
+			result.setThreadAllocatedBytes(toLongMap(json.get(THREAD_ALLOCATED_BYTES)));
+		}
+		result.setGCCounts(toLongMap(json.get(GC_COUNTS)));
+		result.setGCTimes(toLongMap(json.get(GC_TIMES)));
+		Map<String, IMemoryPoolUsage> pools = new TreeMap<String, IMemoryPoolUsage>();
+		if (json.get(MEMORY_POOLS) != null) {
+			for (Map.Entry<String, Object> entry : asMap(json.get(MEMORY_POOLS)).entrySet()) {
+				Map<String, Object> pool = asMap(entry.getValue());
+				pools.put(entry.getKey(), new MemoryPoolUsageImpl(entry.getKey(), Boolean.TRUE.equals(pool.get(HEAP)),
+						getLong(pool, USED), getLong(pool, COMMITTED), getLong(pool, PEAK)));
+			}
+		}
+		result.setMemoryPoolUsages(pools);
+		result.setAverageUsedMemory(getLong(json, AVG_USED));
+		result.setAverageFreeMemory(getLong(json, AVG_FREE));
+		result.setAverageTotalAvailableMemory(getLong(json, AVG_TOTAL));
+		result.setMaxAvailableMemory(getLong(json, MAX_AVAILABLE));
+		result.setWarmupIterations((int)getLong(json, WARMUP_ITERATIONS));
+		result.setWarmupTimeNanos(getLong(json, WARMUP_TIME));
+		result.setSteadyStateReached(Boolean.TRUE.equals(json.get(STEADY_STATE)));
+		Map<OperationType, ILatencyHistogram> latencies = new EnumMap<OperationType, ILatencyHistogram>(OperationType.class);
+		if (json.get(LATENCIES) != null) {
+			for (Map.Entry<String, Object> entry : asMap(json.get(LATENCIES)).entrySet()) {
+				latencies.put(OperationType.valueOf(entry.getKey()), toHistogram(asMap(entry.getValue())));
+			}
+		}
+		result.setOperationLatencies(latencies);
+		return result;
+	}
+
+	private static String toJSON(IModelProperties properties) {
+		if (properties == null) {
+			return null;
+		}
+		StringBuilder builder = new StringBuilder();
+		builder.append('{');
+		appendField(builder, COUNT, properties.getCount());
+		appendField(builder, DEPTH, properties.getDepth());
+		appendField(builder, WIDTH, properties.getWidth());
+		appendField(builder, VALUE_LENGTH, properties.getValueLength());
+		appendField(builder, MEM_USAGE, properties.getMemUsage());
+		appendField(builder, SEED, properties.getSeed());
+		builder.setCharAt(builder.length() - 1, '}');
+		return builder.toString();
+	}
+
+	private static String toJSON(Map<String, Long> values) {
+		StringBuilder builder = new StringBuilder();
+		builder.append('{');
+		for (Map.Entry<String, Long> entry : values.entrySet()) {
+			appendField(builder, entry.getKey(), entry.getValue());
+		}
+		return closeObject(builder);
+	}
+
+	private static String toPoolsJSON(Map<String, IMemoryPoolUsage> pools) {
+		StringBuilder builder = new StringBuilder();
+		builder.append('{');
+		for (IMemoryPoolUsage pool : pools.values()) {
+			StringBuilder poolBuilder = new StringBuilder();
+			poolBuilder.append('{');
+			appendField(poolBuilder, HEAP, pool.isHeap());
+			appendField(poolBuilder, USED, pool.getUsed());
+			appendField(poolBuilder, COMMITTED, pool.getCommitted());
+			appendField(poolBuilder, PEAK, pool.getPeakUsed());
+			appendField(builder, pool.getName(), closeObject(poolBuilder));
+		}
+		return closeObject(builder);
+	}
+
+	private static String toLatenciesJSON(Map<OperationType, ILatencyHistogram> latencies) {
+		StringBuilder builder = new StringBuilder();
+		builder.append('{');
+		for (Map.Entry<OperationType, ILatencyHistogram> entry : latencies.entrySet()) {
+			LatencyHistogramImpl histogram = (LatencyHistogramImpl)entry.getValue();
+			StringBuilder histogramBuilder = new StringBuilder();
+			histogramBuilder.append('{');
+			appendField(histogramBuilder, COUNT, histogram.getCount());
+			appendField(histogramBuilder, MIN, histogram.getMin());
+			appendField(histogramBuilder, MAX, histogram.getMax());
+			appendField(histogramBuilder, SUM, histogram.getSum());
+			StringBuilder buckets = new StringBuilder("["); //$NON-NLS-1$
+			StringBuilder counts = new StringBuilder("["); //$NON-NLS-1$
+			for (int i = 0; i < histogram.getBuckets().length; i++) {
+				buckets.append(i > 0 ? "," : "").append(histogram.getBuckets()[i]); //$NON-NLS-1$ //$NON-NLS-2$
+				counts.append(i > 0 ? "," : "").append(histogram.getBucketCounts()[i]); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			appendField(histogramBuilder, BUCKETS, buckets.append(']'));
+			appendField(histogramBuilder, BUCKET_COUNTS, counts.append(']'));
+			appendField(builder, entry.getKey().name(), closeObject(histogramBuilder));
+		}
+		return closeObject(builder);
+	}
+
+	private static ILatencyHistogram toHistogram(Map<String, Object> json) {
+		List<?> bucketList = (List<?>)json.get(BUCKETS);
+		List<?> countList = (List<?>)json.get(BUCKET_COUNTS);
+		int[] buckets = new int[bucketList.size()];
+		long[] counts = new long[countList.size()];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = ((Number)bucketList.get(i)).intValue();
+			counts[i] = ((Number)countList.get(i)).longValue();
+		}
+		return new LatencyHistogramImpl(buckets, counts, getLong(json, COUNT),
+				getLong(json, MIN), getLong(json, MAX), getLong(json, SUM));
+	}
+
+	private static void appendField(StringBuilder builder, String name, Object value) {
+		builder.append(JSONParser.quote(name)).append(':').append(value).append(',');
+	}
+
+	private static String closeObject(StringBuilder builder) {
+		if (builder.charAt(builder.length() - 1) == ',') {
+			builder.setCharAt(builder.length() - 1, '}');
+		} else {
+			builder.append('}');
+		}
+		return builder.toString();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> asMap(Object value) {
+		return (Map<String, Object>)value;
+	}
+
+	private static long getLong(Map<String, Object> json, String key) {
+		Object value = json.get(key);
+		return value instanceof Number ? ((Number)value).longValue() : 0;
+	}
+
+	private static Map<String, Long> toLongMap(Object json) {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		if (json != null) {
+			for (Map.Entry<String, Object> entry : asMap(json).entrySet()) {
+				result.put(entry.getKey(), ((Number)entry.getValue()).longValue());
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+import com.opencanarias.mset.repository.benchmark.IComparison;
+import com.opencanarias.mset.repository.benchmark.IModelProperties;
+
+/**
+ * @author vroldan
+ */
+public class ComparisonImpl implements IComparison {
+
+	private final String caseName;
+
+	private final String repositoryName;
+
+	private final IModelProperties modelProperties;
+
+	private final Metric metric;
+
+	private int baselineCount;
+
+	private int candidateCount;
+
+	private double baselineMedian;
+
+	private double candidateMedian;
+
+	private double pValue = 1;
+
+	private double effectSize;
+
+	private Verdict verdict = Verdict.INSUFFICIENT_DATA;
+
+	public ComparisonImpl(String caseName, String repositoryName, IModelProperties modelProperties, Metric metric) {
+		this.caseName = caseName;
+		this.repositoryName = repositoryName;
+		this.modelProperties = modelProperties;
+		this.metric = metric;
+	}
+
+	@Override
+	public String getCaseName() {
+		return caseName;
+	}
+
+	@Override
+	public String getRepositoryName() {
+		return repositoryName;
+	}
+
+	@Override
+	public IModelProperties getModelProperties() {
+		return modelProperties;
+	}
+
+	@Override
+	public Metric getMetric() {
+		return metric;
+	}
+
+	@Override
+	public int getBaselineCount() {
+		return baselineCount;
+	}
+
+	public void setBaselineCount(int baselineCount) {
+		this.baselineCount = baselineCount;
+	}
+
+	@Override
+	public int getCandidateCount() {
+		return candidateCount;
+	}
+
+	public void setCandidateCount(int candidateCount) {
+		this.candidateCount = candidateCount;
+	}
+
+	@Override
+	public double getBaselineMedian() {
+		return baselineMedian;
+	}
+
+	public void setBaselineMedian(double baselineMedian) {
+		this.baselineMedian = baselineMedian;
+	}
+
+	@Override
+	public double getCandidateMedian() {
+		return candidateMedian;
+	}
+
+	public void setCandidateMedian(double candidateMedian) {
+		this.candidateMedian = candidateMedian;
+	}
+
+	@Override
+	public double getRelativeChange() {
+		if (baselineMedian == 0) {
+			return candidateMedian == 0 ? 0 : Double.POSITIVE_INFINITY;
+		}
+		return (candidateMedian - baselineMedian) / baselineMedian;
+	}
+
+	@Override
+	public double getPValue() {
+		return pValue;
+	}
+
+	public void setPValue(double pValue) {
+		this.pValue = pValue;
+	}
+
+	@Override
+	public double getEffectSize() {
+		return effectSize;
+	}
+
+	public void setEffectSize(double effectSize) {
+		this.effectSize = effectSize;
+	}
+
+	@Override
+	public Verdict getVerdict() {
+		return verdict;
+	}
+
+	public void setVerdict(Verdict verdict) {
+		this.verdict = verdict;
+	}
+}
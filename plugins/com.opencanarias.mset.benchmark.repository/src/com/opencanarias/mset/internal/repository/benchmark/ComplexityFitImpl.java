@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+import com.opencanarias.mset.repository.benchmark.IComplexityFit;
+
+/**
+ * Fits the medians of a metric at each model size with least squares, both as a
+ * power law in log-log scale and as <code>a + b * f(n)</code> for every
+ * {@link ComplexityClass}.
+ *
+ * @author vroldan
+ */
+public class ComplexityFitImpl implements IComplexityFit {
+
+	/**
+	 * Minimum number of distinct sizes for a fit
+	 */
+	public static final int MIN_SIZES = 3;
+
+	private final String caseName;
+
+	private final String repositoryName;
+
+	private final Metric metric;
+
+	private final int[] sizes;
+
+	private final double[] medians;
+
+	private final double threshold;
+
+	private double exponent = Double.NaN;
+
+	private ComplexityClass bestFit;
+
+	private double rSquared;
+
+	/**
+	 * @param sizes distinct model sizes, ascending
+	 * @param medians median of the metric at each size
+	 * @param threshold exponent above which the fit is superlinear
+	 */
+	public ComplexityFitImpl(String caseName, String repositoryName, Metric metric, int[] sizes, double[] medians, double threshold) {
+		this.caseName = caseName;
+		this.repositoryName = repositoryName;
+		this.metric = metric;
+		this.sizes = sizes;
+		this.medians = medians;
+		this.threshold = threshold;
+		if (sizes.length >= MIN_SIZES) {
+			fit();
+		}
+	}
+
+	private void fit() {
+		int count = 0;
+		for (int i = 0; i < sizes.length; i++) {
+			if (sizes[i] > 0 && medians[i] > 0) {
+				count++;
+			}
+		}
+		if (count >= 2) {
+			double[] logSizes = new double[count];
+			double[] logMedians = new double[count];
+			for (int i = 0, j = 0; i < sizes.length; i++) {
+				if (sizes[i] > 0 && medians[i] > 0) {
+					logSizes[j] = Math.log(sizes[i]);
+					logMedians[j++] = Math.log(medians[i]);
+				}
+			}
+			exponent = slope(logSizes, logMedians);
+		}
+		double totalSquares = 0;
+		double mean = mean(medians);
+		for (double median : medians) {
+			totalSquares += (median - mean) * (median - mean);
+		}
+		double bestResidual = Double.POSITIVE_INFINITY;
+		for (ComplexityClass complexity : ComplexityClass.values()) {
+			double[] model = new double[sizes.length];
+			for (int i = 0; i < sizes.length; i++) {
+				model[i] = evaluate(complexity, sizes[i]);
+			}
+			double b = slope(model, medians);
+			double a = mean - b * mean(model);
+			double residual = 0;
+			for (int i = 0; i < sizes.length; i++) {
+				double error = medians[i] - a - b * model[i];
+				residual += error * error;
+			}
+			if (residual < bestResidual) {
+				bestResidual = residual;
+				bestFit = complexity;
+			}
+		}
+		rSquared = totalSquares > 0 ? Math.max(0, 1 - bestResidual / totalSquares) : 1;
+	}
+
+	private static double evaluate(ComplexityClass complexity, double n) {
+		switch (complexity) {
+		case LINEARITHMIC:
+			return n > 0 ? n * Math.log(n) : 0;
+		case QUADRATIC:
+			return n * n;
+		default:
+			return n;
+		}
+	}
+
+	private static double slope(double[] x, double[] y) {
+		double meanX = mean(x);
+		double meanY = mean(y);
+		double covariance = 0;
+		double variance = 0;
+		for (int i = 0; i < x.length; i++) {
+			covariance += (x[i] - meanX) * (y[i] - meanY);
+			variance += (x[i] - meanX) * (x[i] - meanX);
+		}
+		return variance > 0 ? covariance / variance : 0;
+	}
+
+	private static double mean(double[] values) {
+		double sum = 0;
+		for (double value : values) {
+			sum += value;
+		}
+		return values.length > 0 ? sum / values.length : 0;
+	}
+
+	@Override
+	public String getCaseName() {
+		return caseName;
+	}
+
+	@Override
+	public String getRepositoryName() {
+		return repositoryName;
+	}
+
+	@Override
+	public Metric getMetric() {
+		return metric;
+	}
+
+	@Override
+	public int[] getSizes() {
+		return sizes.clone();
+	}
+
+	@Override
+	public double[] getMedians() {
+		return medians.clone();
+	}
+
+	@Override
+	public double getExponent() {
+		return exponent;
+	}
+
+	@Override
+	public ComplexityClass getBestFit() {
+		return bestFit;
+	}
+
+	@Override
+	public double getRSquared() {
+		return rSquared;
+	}
+
+	@Override
+	public boolean isSuperlinear() {
+		return exponent > threshold;
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Captures the accumulated number of collections and the accumulated
+ * collection time (in milliseconds) of every garbage collector in the JVM.
+ * Two snapshots taken at the beginning and at the end of a measurement
+ * are combined to obtain the collections that happened in between.
+ *
+ * @author vroldan
+ */
+public class GarbageCollectionSnapshot {
+
+	private final Map<String, Long> counts = new HashMap<String, Long>();
+
+	private final Map<String, Long> times = new HashMap<String, Long>();
+
+	private GarbageCollectionSnapshot() {
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			// Undefined values are reported as -1
+			counts.put(collector.getName(), Math.max(0, collector.getCollectionCount()));
+			times.put(collector.getName(), Math.max(0, collector.getCollectionTime()));
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the garbage collectors activity so far
+	 */
+	public static GarbageCollectionSnapshot take() {
+		return new GarbageCollectionSnapshot();
+	}
+
+	/**
+	 * Returns the number of collections per collector since the argument snapshot was taken
+	 */
+	public Map<String, Long> getCountsSince(GarbageCollectionSnapshot start) {
+		return deltas(counts, start.counts);
+	}
+
+	/**
+	 * Returns the collection time (in milliseconds) per collector since the argument snapshot was taken
+	 */
+	public Map<String, Long> getTimesSince(GarbageCollectionSnapshot start) {
+		return deltas(times, start.times);
+	}
+
+	private Map<String, Long> deltas(Map<String, Long> end, Map<String, Long> start) {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, Long> entry : end.entrySet()) {
+			Long startValue = start.get(entry.getKey());
+			result.put(entry.getKey(), entry.getValue() - (startValue != null ? startValue : 0));
+		}
+		return result;
+	}
+}
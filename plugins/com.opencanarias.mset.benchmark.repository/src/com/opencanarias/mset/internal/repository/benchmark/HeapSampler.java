@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.opencanarias.mset.repository.benchmark.IHeapSnapshot;
+
+/**
+ * Samples the heap at a fixed rate from a daemon thread, writing into
+ * primitive ring buffers which are allocated before sampling starts, so
+ * that sampling the heap totals does not allocate on the heap it is measuring.
+ * <p>
+ * The sampling thread is the single writer: it fills a slot and then
+ * publishes it by incrementing the volatile sample count. Readers first
+ * read the count and then only the slots below it. Once the buffers are
+ * full, the oldest samples get overwritten, but averages and peak are
+ * kept as running values, so they account for every sample taken.
+ * <p>
+ * Besides the heap totals, the usage of every heap {@link MemoryPoolMXBean memory pool}
+ * is sampled into its own buffer. The pool beans return a new {@link MemoryUsage} on
+ * every query, the only allocation made while sampling, so pools are sampled at most
+ * every {@link #POOL_INTERVAL_MILLIS} milliseconds, and in the first and last samples.
+ * Snapshots of the samples in between have no pool usages.
+ * <p>
+ * An instance samples a single measurement: {@link #start()} and {@link #stop()}
+ * can only be invoked once. {@link #getSnapshots()} and the averages are meant to
+ * be read after {@link #stop()}, which waits for the sampling thread to finish.
+ *
+ * @author vroldan
+ */
+public class HeapSampler implements Runnable {
+
+	/**
+	 * Default number of samples kept, a little more than one minute at 1 ms rate
+	 */
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+
+	private static final String THREAD_NAME = "mset-heap-sampler"; //$NON-NLS-1$
+
+	private static final long MEGA_BYTE_FACTOR = 1024 * 1024;
+
+	/**
+	 * Minimum interval between two samples of the memory pools
+	 */
+	public static final long POOL_INTERVAL_MILLIS = 10;
+
+	private static final long UNDEFINED = -1;
+
+	private static final Runtime runtime = Runtime.getRuntime();
+
+	private final long intervalNanos;
+
+	private final long[] timestamps;
+
+	private final long[] freeMemory;
+
+	private final long[] totalMemory;
+
+	private final MemoryPoolMXBean[] pools;
+
+	private final long[][] poolUsed;
+
+	private final int capacity;
+
+	// Pools are sampled once every this number of samples
+	private final long poolSampleRate;
+
+	private final Thread thread;
+
+	/*
+	 * Only written by the sampling thread, or by the caller thread
+	 * when the sampling thread has not started yet or has finished
+	 */
+	private long usedSum;
+
+	private long freeSum;
+
+	private long totalSum;
+
+	private long peakUsed;
+
+	private volatile long count;
+
+	private volatile boolean sampling = true;
+
+	/**
+	 * Creates a sampler taking a sample every <code>intervalMillis</code>,
+	 * keeping the last <code>capacity</code> samples
+	 */
+	public HeapSampler(long intervalMillis, int capacity) {
+		if (intervalMillis < 1 || capacity < 1) {
+			throw new IllegalArgumentException("Sampling interval and capacity must be positive"); //$NON-NLS-1$
+		}
+		this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+		this.capacity = capacity;
+		this.poolSampleRate = (POOL_INTERVAL_MILLIS + intervalMillis - 1) / intervalMillis;
+		this.timestamps = new long[capacity];
+		this.freeMemory = new long[capacity];
+		this.totalMemory = new long[capacity];
+		List<MemoryPoolMXBean> heapPools = new ArrayList<MemoryPoolMXBean>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.isValid() && pool.getType() == MemoryType.HEAP) {
+				heapPools.add(pool);
+			}
+		}
+		this.pools = heapPools.toArray(new MemoryPoolMXBean[heapPools.size()]);
+		this.poolUsed = new long[pools.length][capacity];
+		thread = new Thread(this, THREAD_NAME);
+		thread.setDaemon(true);
+	}
+
+	public HeapSampler(long intervalMillis) {
+		this(intervalMillis, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Takes a first sample and starts the sampling thread. The first sample
+	 * guarantees that results are available even for very short measurements.
+	 */
+	public void start() {
+		sample(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the sampling thread, waits for it to finish and takes a last sample.
+	 */
+	public void stop() {
+		sampling = false;
+		LockSupport.unpark(thread);
+		try {
+			thread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for heap sampler", e); //$NON-NLS-1$
+		}
+		sample(true);
+	}
+
+	@Override
+	public void run() {
+		long next = System.nanoTime() + intervalNanos;
+		while (sampling) {
+			long delay = next - System.nanoTime();
+			if (delay > 0) {
+				LockSupport.parkNanos(this, delay);
+				continue; // spurious wake-ups and stop requests are checked again
+			}
+			sample(false);
+			next += intervalNanos;
+			if (next - System.nanoTime() < 0) {
+				next = System.nanoTime() + intervalNanos; // missed samples are not recovered
+			}
+		}
+	}
+
+	private void sample(boolean forcePools) {
+		long total = runtime.totalMemory();
+		long free = runtime.freeMemory();
+		long used = total - free;
+		long current = count;
+		int slot = (int)(current % capacity);
+		timestamps[slot] = System.currentTimeMillis();
+		freeMemory[slot] = free;
+		totalMemory[slot] = total;
+		boolean samplePools = forcePools || current % poolSampleRate == 0;
+		for (int i = 0; i < pools.length; i++) {
+			MemoryUsage usage = samplePools ? pools[i].getUsage() : null;
+			poolUsed[i][slot] = usage != null ? usage.getUsed() : UNDEFINED;
+		}
+		usedSum += used;
+		freeSum += free;
+		totalSum += total;
+		if (used > peakUsed) {
+			peakUsed = used;
+		}
+		count = current + 1; // publishes the slot
+	}
+
+	/**
+	 * Returns the number of samples taken so far, including the overwritten ones
+	 */
+	public long getSampleCount() {
+		return count;
+	}
+
+	/**
+	 * Returns the average heap usage of all the samples taken, in megabytes
+	 */
+	public long getAverageUsedMemory() {
+		long samples = count;
+		return samples > 0 ? usedSum / samples / MEGA_BYTE_FACTOR : 0;
+	}
+
+	/**
+	 * Returns the average free heap of all the samples taken, in megabytes
+	 */
+	public long getAverageFreeMemory() {
+		long samples = count;
+		return samples > 0 ? freeSum / samples / MEGA_BYTE_FACTOR : 0;
+	}
+
+	/**
+	 * Returns the average heap size of all the samples taken, in megabytes
+	 */
+	public long getAverageTotalAvailableMemory() {
+		long samples = count;
+		return samples > 0 ? totalSum / samples / MEGA_BYTE_FACTOR : 0;
+	}
+
+	/**
+	 * Returns the peak heap usage of all the samples taken, in megabytes
+	 */
+	public long getPeakUsedMemory() {
+		return peakUsed / MEGA_BYTE_FACTOR;
+	}
+
+	/**
+	 * Returns the maximum allocatable heap size in megabytes
+	 */
+	public static long getMaxAvailableMemory() {
+		return runtime.maxMemory() / MEGA_BYTE_FACTOR;
+	}
+
+	/**
+	 * Returns the names of the sampled heap memory pools
+	 */
+	public List<String> getPoolNames() {
+		List<String> names = new ArrayList<String>(pools.length);
+		for (MemoryPoolMXBean pool : pools) {
+			names.add(pool.getName());
+		}
+		return Collections.unmodifiableList(names);
+	}
+
+	/**
+	 * Returns the samples still held in the buffers, oldest first. The samples published
+	 * when invoked are copied into arrays of their exact size, so that results do not keep
+	 * the whole buffers alive, and {@link IHeapSnapshot snapshots} are only created when accessed.
+	 */
+	public List<IHeapSnapshot> getSnapshots() {
+		long published = count;
+		long first = Math.max(0, published - capacity);
+		int size = (int)(published - first);
+		int start = (int)(first % capacity);
+		long[][] poolCopies = new long[pools.length][];
+		for (int i = 0; i < pools.length; i++) {
+			poolCopies[i] = copy(poolUsed[i], start, size);
+		}
+		return new SnapshotList(copy(timestamps, start, size), copy(freeMemory, start, size),
+				copy(totalMemory, start, size), getPoolNames().toArray(new String[pools.length]), poolCopies);
+	}
+
+	private long[] copy(long[] buffer, int start, int size) {
+		long[] result = new long[size];
+		int head = Math.min(size, capacity - start);
+		System.arraycopy(buffer, start, result, 0, head);
+		System.arraycopy(buffer, 0, result, head, size - head);
+		return result;
+	}
+
+	private static class SnapshotList extends AbstractList<IHeapSnapshot> {
+
+		private final long[] timestamps;
+
+		private final long[] freeMemory;
+
+		private final long[] totalMemory;
+
+		private final String[] poolNames;
+
+		private final long[][] poolUsed;
+
+		SnapshotList(long[] timestamps, long[] freeMemory, long[] totalMemory, String[] poolNames, long[][] poolUsed) {
+			this.timestamps = timestamps;
+			this.freeMemory = freeMemory;
+			this.totalMemory = totalMemory;
+			this.poolNames = poolNames;
+			this.poolUsed = poolUsed;
+		}
+
+		@Override
+		public IHeapSnapshot get(int index) {
+			if (index < 0 || index >= size()) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size()); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+			return new SampledHeapSnapshot(this, index);
+		}
+
+		@Override
+		public int size() {
+			return timestamps.length;
+		}
+	}
+
+	private static class SampledHeapSnapshot implements IHeapSnapshot {
+
+		private final SnapshotList samples;
+
+		private final int index;
+
+		SampledHeapSnapshot(SnapshotList samples, int index) {
+			this.samples = samples;
+			this.index = index;
+		}
+
+		@Override
+		public long getTimestamp() {
+			return samples.timestamps[index];
+		}
+
+		@Override
+		public long getUsedMemory() {
+			return getUsedBytes() / MEGA_BYTE_FACTOR;
+		}
+
+		@Override
+		public long getFreeMemory() {
+			return samples.freeMemory[index] / MEGA_BYTE_FACTOR;
+		}
+
+		@Override
+		public long getTotalAvailableMemory() {
+			return samples.totalMemory[index] / MEGA_BYTE_FACTOR;
+		}
+
+		@Override
+		public long getMaxAvailableMemory() {
+			return HeapSampler.getMaxAvailableMemory();
+		}
+
+		@Override
+		public long getUsedBytes() {
+			return samples.totalMemory[index] - samples.freeMemory[index];
+		}
+
+		@Override
+		public long getCommittedBytes() {
+			return samples.totalMemory[index];
+		}
+
+		@Override
+		public Map<String, Long> getPoolUsedBytes() {
+			Map<String, Long> result = new LinkedHashMap<String, Long>();
+			for (int i = 0; i < samples.poolNames.length; i++) {
+				if (samples.poolUsed[i][index] != UNDEFINED) {
+					result.put(samples.poolNames[i], samples.poolUsed[i][index]);
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return "used: " + getUsedMemory() + " / free: " + getFreeMemory() //$NON-NLS-1$ //$NON-NLS-2$
+					+ " / totalAvailable: " + getTotalAvailableMemory() //$NON-NLS-1$
+					+ " / maxAvailable: " + getMaxAvailableMemory(); //$NON-NLS-1$
+		}
+	}
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+import com.opencanarias.mset.repository.benchmark.IHeapSeries;
+import com.opencanarias.mset.repository.benchmark.IHeapSnapshot;
+
+/**
+ * Binary columnar format for the {@link IHeapSnapshot heap snapshots} of results.
+ * A file is a sequence of blocks, one per result, so that blocks can be appended
+ * as results become available. A block is:
+ * <pre>
+ * int magic, byte version
+ * UTF case, UTF repository, UTF group ("" if unknown), int iteration
+ * long maxAvailableMemory (MB), int sampleCount
+ * short poolCount, UTF poolName * poolCount
+ * column timestamps (ms), column used (bytes), column committed (bytes),
+ * column poolUsed (bytes, -1 if not sampled) * poolCount
+ * </pre>
+ * Each column holds sampleCount values, written as the difference with the
+ * previous value of the column, zig-zag and variable length encoded. Samples
+ * are close in time and value, so most values take one or two bytes.
+ *
+ * @author vroldan
+ */
+public class HeapSeriesBinary {
+
+	private static final int MAGIC = 0x4D534853; // "MSHS"
+
+	private static final int VERSION = 1;
+
+	/**
+	 * Returns the block for the snapshots of the argument result
+	 */
+	public static byte[] toBinary(IBenchmarkResult result, String group, int iteration) {
+		List<IHeapSnapshot> snapshots = result.getHeapSnapshots();
+		int size = snapshots.size();
+		List<String> poolNames = new ArrayList<String>();
+		for (IHeapSnapshot snapshot : snapshots) {
+			for (String pool : snapshot.getPoolUsedBytes().keySet()) {
+				if (!poolNames.contains(pool)) {
+					poolNames.add(pool);
+				}
+			}
+		}
+		long[] timestamps = new long[size];
+		long[] used = new long[size];
+		long[] committed = new long[size];
+		long[][] poolUsed = new long[poolNames.size()][size];
+		for (int i = 0; i < size; i++) {
+			IHeapSnapshot snapshot = snapshots.get(i);
+			timestamps[i] = snapshot.getTimestamp();
+			used[i] = snapshot.getUsedBytes();
+			committed[i] = snapshot.getCommittedBytes();
+			Map<String, Long> pools = snapshot.getPoolUsedBytes();
+			for (int j = 0; j < poolNames.size(); j++) {
+				Long value = pools.get(poolNames.get(j));
+				poolUsed[j][i] = value != null ? value : HeapSeriesImpl.UNDEFINED;
+			}
+		}
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + size * (3 + poolNames.size()) * 2);
+		DataOutputStream output = new DataOutputStream(bytes);
+		try {
+			output.writeInt(MAGIC);
+			output.writeByte(VERSION);
+			output.writeUTF(toString(result.getBenchmarkCaseName()));
+			output.writeUTF(toString(result.getModelRepositoryName()));
+			output.writeUTF(toString(group));
+			output.writeInt(iteration);
+			output.writeLong(result.getMaxAvailableMemory());
+			output.writeInt(size);
+			output.writeShort(poolNames.size());
+			for (String pool : poolNames) {
+				output.writeUTF(pool);
+			}
+			writeColumn(output, timestamps);
+			writeColumn(output, used);
+			writeColumn(output, committed);
+			for (long[] column : poolUsed) {
+				writeColumn(output, column);
+			}
+			output.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Error encoding heap series", e); //$NON-NLS-1$
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads all the blocks of the argument stream. An incomplete last block, as
+	 * written by a process killed while appending, is skipped.
+	 *
+	 * @throws IllegalArgumentException if the stream is not in this format
+	 */
+	public static List<IHeapSeries> fromBinary(InputStream stream) throws IOException {
+		DataInputStream input = new DataInputStream(stream);
+		List<IHeapSeries> result = new ArrayList<IHeapSeries>();
+		int first;
+		while ((first = input.read()) != -1) {
+			try {
+				int magic = (first << 24) | (input.readUnsignedByte() << 16) | (input.readUnsignedShort());
+				if (magic != MAGIC) {
+					throw new IllegalArgumentException("Not a heap series block"); //$NON-NLS-1$
+				}
+				int version = input.readUnsignedByte();
+				if (version != VERSION) {
+					throw new IllegalArgumentException("Unsupported heap series version " + version); //$NON-NLS-1$
+				}
+				result.add(readBlock(input));
+			} catch (EOFException e) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private static IHeapSeries readBlock(DataInputStream input) throws IOException {
+		String caseName = toNullable(input.readUTF());
+		String repositoryName = toNullable(input.readUTF());
+		String group = toNullable(input.readUTF());
+		int iteration = input.readInt();
+		long maxAvailableMemory = input.readLong();
+		int size = input.readInt();
+		int poolCount = input.readUnsignedShort();
+		List<String> poolNames = new ArrayList<String>(poolCount);
+		for (int i = 0; i < poolCount; i++) {
+			poolNames.add(input.readUTF());
+		}
+		long[] timestamps = readColumn(input, size);
+		long[] used = readColumn(input, size);
+		long[] committed = readColumn(input, size);
+		long[][] poolUsed = new long[poolCount][];
+		for (int i = 0; i < poolCount; i++) {
+			poolUsed[i] = readColumn(input, size);
+		}
+		return new HeapSeriesImpl(caseName, repositoryName, group, iteration, maxAvailableMemory,
+				poolNames, timestamps, used, committed, poolUsed);
+	}
+
+	private static void writeColumn(DataOutputStream output, long[] values) throws IOException {
+		long previous = 0;
+		for (long value : values) {
+			long delta = value - previous;
+			long zigZag = (delta << 1) ^ (delta >> 63);
+			while ((zigZag & ~0x7FL) != 0) {
+				output.writeByte((int)((zigZag & 0x7F) | 0x80));
+				zigZag >>>= 7;
+			}
+			output.writeByte((int)zigZag);
+			previous = value;
+		}
+	}
+
+	private static long[] readColumn(DataInputStream input, int size) throws IOException {
+		long[] values = new long[size];
+		long previous = 0;
+		for (int i = 0; i < size; i++) {
+			long zigZag = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = input.readUnsignedByte();
+				zigZag |= (long)(b & 0x7F) << shift;
+				shift += 7;
+			} while ((b & 0x80) != 0);
+			previous += (zigZag >>> 1) ^ -(zigZag & 1);
+			values[i] = previous;
+		}
+		return values;
+	}
+
+	private static String toString(String value) {
+		return value != null ? value : ""; //$NON-NLS-1$
+	}
+
+	private static String toNullable(String value) {
+		return value.length() > 0 ? value : null;
+	}
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opencanarias.mset.repository.benchmark.IHeapSeries;
+import com.opencanarias.mset.repository.benchmark.IHeapSnapshot;
+
+/**
+ * {@link IHeapSeries} kept in columns, one array per sampled value, as read from
+ * a heap series file. Snapshots are views created on access.
+ *
+ * @author vroldan
+ */
+public class HeapSeriesImpl implements IHeapSeries {
+
+	private static final long MEGA_BYTE_FACTOR = 1024 * 1024;
+
+	/**
+	 * Pool usage of pools that could not be sampled
+	 */
+	static final long UNDEFINED = -1;
+
+	private final String caseName;
+
+	private final String repositoryName;
+
+	private final String group;
+
+	private final int iteration;
+
+	private final long maxAvailableMemory;
+
+	private final List<String> poolNames;
+
+	private final long[] timestamps;
+
+	private final long[] used;
+
+	private final long[] committed;
+
+	private final long[][] poolUsed;
+
+	public HeapSeriesImpl(String caseName, String repositoryName, String group, int iteration, long maxAvailableMemory,
+			List<String> poolNames, long[] timestamps, long[] used, long[] committed, long[][] poolUsed) {
+		this.caseName = caseName;
+		this.repositoryName = repositoryName;
+		this.group = group;
+		this.iteration = iteration;
+		this.maxAvailableMemory = maxAvailableMemory;
+		this.poolNames = Collections.unmodifiableList(poolNames);
+		this.timestamps = timestamps;
+		this.used = used;
+		this.committed = committed;
+		this.poolUsed = poolUsed;
+	}
+
+	@Override
+	public String getCaseName() {
+		return caseName;
+	}
+
+	@Override
+	public String getRepositoryName() {
+		return repositoryName;
+	}
+
+	@Override
+	public String getGroup() {
+		return group;
+	}
+
+	@Override
+	public int getIteration() {
+		return iteration;
+	}
+
+	@Override
+	public List<String> getPoolNames() {
+		return poolNames;
+	}
+
+	@Override
+	public List<IHeapSnapshot> getSnapshots() {
+		return new AbstractList<IHeapSnapshot>() {
+			@Override
+			public IHeapSnapshot get(int index) {
+				if (index < 0 || index >= timestamps.length) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + timestamps.length); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				return new ColumnSnapshot(index);
+			}
+
+			@Override
+			public int size() {
+				return timestamps.length;
+			}
+		};
+	}
+
+	private class ColumnSnapshot implements IHeapSnapshot {
+
+		private final int index;
+
+		ColumnSnapshot(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public long getTimestamp() {
+			return timestamps[index];
+		}
+
+		@Override
+		public long getUsedMemory() {
+			return used[index] / MEGA_BYTE_FACTOR;
+		}
+
+		@Override
+		public long getFreeMemory() {
+			return (committed[index] - used[index]) / MEGA_BYTE_FACTOR;
+		}
+
+		@Override
+		public long getTotalAvailableMemory() {
+			return committed[index] / MEGA_BYTE_FACTOR;
+		}
+
+		@Override
+		public long getMaxAvailableMemory() {
+			return maxAvailableMemory;
+		}
+
+		@Override
+		public long getUsedBytes() {
+			return used[index];
+		}
+
+		@Override
+		public long getCommittedBytes() {
+			return committed[index];
+		}
+
+		@Override
+		public Map<String, Long> getPoolUsedBytes() {
+			Map<String, Long> result = new LinkedHashMap<String, Long>();
+			for (int i = 0; i < poolNames.size(); i++) {
+				if (poolUsed[i][index] != UNDEFINED) {
+					result.put(poolNames.get(i), poolUsed[i][index]);
+				}
+			}
+			return result;
+		}
+	}
+}
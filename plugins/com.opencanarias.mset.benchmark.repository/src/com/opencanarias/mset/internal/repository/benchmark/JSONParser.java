@@ -0,0 +1,256 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON parser and string escaping, enough to exchange benchmark
+ * results without depending on third party libraries. Objects are parsed
+ * into {@link Map}, arrays into {@link List}, integral numbers into {@link Long},
+ * other numbers into {@link Double}, and <code>true</code>, <code>false</code>
+ * and <code>null</code> into {@link Boolean} and null.
+ *
+ * @author vroldan
+ */
+public class JSONParser {
+
+	private final String text;
+
+	private int position = 0;
+
+	private JSONParser(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * Parses the argument JSON text
+	 *
+	 * @throws IllegalArgumentException if the text is not valid JSON
+	 */
+	public static Object parse(String text) {
+		JSONParser parser = new JSONParser(text);
+		Object value = parser.parseValue();
+		parser.skipWhitespace();
+		if (parser.position < text.length()) {
+			throw parser.error("Unexpected trailing content"); //$NON-NLS-1$
+		}
+		return value;
+	}
+
+	/**
+	 * Returns the argument String as a quoted JSON string
+	 */
+	public static String quote(String value) {
+		if (value == null) {
+			return "null"; //$NON-NLS-1$
+		}
+		StringBuilder builder = new StringBuilder(value.length() + 2);
+		builder.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				builder.append("\\\""); //$NON-NLS-1$
+				break;
+			case '\\':
+				builder.append("\\\\"); //$NON-NLS-1$
+				break;
+			case '\n':
+				builder.append("\\n"); //$NON-NLS-1$
+				break;
+			case '\r':
+				builder.append("\\r"); //$NON-NLS-1$
+				break;
+			case '\t':
+				builder.append("\\t"); //$NON-NLS-1$
+				break;
+			default:
+				if (c < 0x20) {
+					builder.append(String.format("\\u%04x", (int)c)); //$NON-NLS-1$
+				} else {
+					builder.append(c);
+				}
+			}
+		}
+		builder.append('"');
+		return builder.toString();
+	}
+
+	private Object parseValue() {
+		skipWhitespace();
+		if (position >= text.length()) {
+			throw error("Unexpected end of input"); //$NON-NLS-1$
+		}
+		char c = text.charAt(position);
+		switch (c) {
+		case '{':
+			return parseObject();
+		case '[':
+			return parseArray();
+		case '"':
+			return parseString();
+		case 't':
+			expect("true"); //$NON-NLS-1$
+			return Boolean.TRUE;
+		case 'f':
+			expect("false"); //$NON-NLS-1$
+			return Boolean.FALSE;
+		case 'n':
+			expect("null"); //$NON-NLS-1$
+			return null;
+		default:
+			return parseNumber();
+		}
+	}
+
+	private Map<String, Object> parseObject() {
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		position++; // {
+		skipWhitespace();
+		if (peek() == '}') {
+			position++;
+			return result;
+		}
+		while (true) {
+			skipWhitespace();
+			if (peek() != '"') {
+				throw error("Expected object key"); //$NON-NLS-1$
+			}
+			String key = parseString();
+			skipWhitespace();
+			if (next() != ':') {
+				throw error("Expected ':'"); //$NON-NLS-1$
+			}
+			result.put(key, parseValue());
+			skipWhitespace();
+			char c = next();
+			if (c == '}') {
+				return result;
+			} else if (c != ',') {
+				throw error("Expected ',' or '}'"); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private List<Object> parseArray() {
+		List<Object> result = new ArrayList<Object>();
+		position++; // [
+		skipWhitespace();
+		if (peek() == ']') {
+			position++;
+			return result;
+		}
+		while (true) {
+			result.add(parseValue());
+			skipWhitespace();
+			char c = next();
+			if (c == ']') {
+				return result;
+			} else if (c != ',') {
+				throw error("Expected ',' or ']'"); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private String parseString() {
+		position++; // "
+		StringBuilder builder = new StringBuilder();
+		while (true) {
+			char c = next();
+			if (c == '"') {
+				return builder.toString();
+			} else if (c == '\\') {
+				char escaped = next();
+				switch (escaped) {
+				case 'n':
+					builder.append('\n');
+					break;
+				case 'r':
+					builder.append('\r');
+					break;
+				case 't':
+					builder.append('\t');
+					break;
+				case 'b':
+					builder.append('\b');
+					break;
+				case 'f':
+					builder.append('\f');
+					break;
+				case 'u':
+					if (position + 4 > text.length()) {
+						throw error("Invalid unicode escape"); //$NON-NLS-1$
+					}
+					builder.append((char)Integer.parseInt(text.substring(position, position + 4), 16));
+					position += 4;
+					break;
+				default:
+					builder.append(escaped);
+				}
+			} else {
+				builder.append(c);
+			}
+		}
+	}
+
+	private Number parseNumber() {
+		int start = position;
+		boolean integral = true;
+		while (position < text.length()) {
+			char c = text.charAt(position);
+			if (c == '.' || c == 'e' || c == 'E') {
+				integral = false;
+			} else if (!(c == '-' || c == '+' || Character.isDigit(c))) {
+				break;
+			}
+			position++;
+		}
+		String number = text.substring(start, position);
+		try {
+			return integral ? (Number)Long.valueOf(number) : (Number)Double.valueOf(number);
+		} catch (NumberFormatException e) {
+			throw error("Invalid number \"" + number + "\""); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private void expect(String literal) {
+		if (!text.startsWith(literal, position)) {
+			throw error("Expected \"" + literal + "\""); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		position += literal.length();
+	}
+
+	private char peek() {
+		return position < text.length() ? text.charAt(position) : 0;
+	}
+
+	private char next() {
+		if (position >= text.length()) {
+			throw error("Unexpected end of input"); //$NON-NLS-1$
+		}
+		return text.charAt(position++);
+	}
+
+	private void skipWhitespace() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position++;
+		}
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(MessageFormat.format("{0} at position {1}", message, position)); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import com.opencanarias.mset.repository.benchmark.ILatencyHistogram;
+
+/**
+ * Immutable {@link ILatencyHistogram} that only keeps the non-empty buckets
+ * of a {@link LatencyRecorder}, so that results remain small in memory.
+ * <p>
+ * Buckets are log-linear, as in HdrHistogram: values below {@link #SUB_BUCKET_COUNT}
+ * are counted exactly, and above that, every power of two range is split in
+ * {@link #SUB_BUCKET_COUNT}/2 linear buckets. This keeps the relative error
+ * below 1% for any value up to {@link Long#MAX_VALUE}.
+ *
+ * @author vroldan
+ */
+public class LatencyHistogramImpl implements ILatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 8;
+
+	static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+	static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKET_HALF_COUNT;
+
+	public static final ILatencyHistogram EMPTY = new LatencyHistogramImpl(new int[0], new long[0], 0, 0, 0, 0);
+
+	private final int[] buckets;
+
+	private final long[] counts;
+
+	private final long totalCount;
+
+	private final long min;
+
+	private final long max;
+
+	private final long sum;
+
+	LatencyHistogramImpl(int[] buckets, long[] counts, long totalCount, long min, long max, long sum) {
+		this.buckets = buckets;
+		this.counts = counts;
+		this.totalCount = totalCount;
+		this.min = min;
+		this.max = max;
+		this.sum = sum;
+	}
+
+	/**
+	 * Returns the bucket a value is counted in
+	 */
+	static int getBucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return value < 0 ? 0 : (int)value;
+		}
+		int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+		int mantissa = (int)(value >>> shift);
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (mantissa - SUB_BUCKET_HALF_COUNT);
+	}
+
+	/**
+	 * Returns the highest value that is counted in the argument bucket
+	 */
+	static long getHighestValueInBucket(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int offset = index - SUB_BUCKET_COUNT;
+		int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+		long mantissa = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+		return (mantissa << shift) + (1L << shift) - 1;
+	}
+
+	int[] getBuckets() {
+		return buckets;
+	}
+
+	long[] getBucketCounts() {
+		return counts;
+	}
+
+	long getSum() {
+		return sum;
+	}
+
+	@Override
+	public long getCount() {
+		return totalCount;
+	}
+
+	@Override
+	public long getMin() {
+		return min;
+	}
+
+	@Override
+	public long getMax() {
+		return max;
+	}
+
+	@Override
+	public double getMean() {
+		return totalCount > 0 ? (double)sum / totalCount : 0;
+	}
+
+	@Override
+	public long getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile); //$NON-NLS-1$
+		}
+		if (totalCount == 0) {
+			return 0;
+		}
+		long target = Math.max(1, (long)Math.ceil(percentile / 100 * totalCount));
+		long accumulated = 0;
+		for (int i = 0; i < buckets.length; i++) {
+			accumulated += counts[i];
+			if (accumulated >= target) {
+				return Math.max(min, Math.min(max, getHighestValueInBucket(buckets[i])));
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public long getP50() {
+		return getValueAtPercentile(50);
+	}
+
+	@Override
+	public long getP90() {
+		return getValueAtPercentile(90);
+	}
+
+	@Override
+	public long getP99() {
+		return getValueAtPercentile(99);
+	}
+
+	@Override
+	public long getP999() {
+		return getValueAtPercentile(99.9);
+	}
+
+	@Override
+	public String toString() {
+		return "count: " + totalCount + " / p50: " + getP50() + " / p90: " + getP90() //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ " / p99: " + getP99() + " / p99.9: " + getP999() + " / max: " + max; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
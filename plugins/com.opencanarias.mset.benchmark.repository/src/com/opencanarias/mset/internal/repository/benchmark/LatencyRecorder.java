@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import com.opencanarias.mset.repository.benchmark.ILatencyHistogram;
+
+/**
+ * Records latencies into a preallocated array of log-linear buckets, so that
+ * recording is constant time and does not allocate. Recorded values are
+ * published as an {@link ILatencyHistogram} through {@link #getHistogram()}.
+ * <p>
+ * This class is not thread safe: it is meant to be written by the thread
+ * executing the benchmark case.
+ *
+ * @author vroldan
+ * @see LatencyHistogramImpl
+ */
+public class LatencyRecorder {
+
+	private final long[] counts = new long[LatencyHistogramImpl.BUCKET_COUNT];
+
+	private long totalCount;
+
+	private long min = Long.MAX_VALUE;
+
+	private long max;
+
+	private long sum;
+
+	/**
+	 * Records a latency, in nanoseconds
+	 */
+	public void record(long latency) {
+		counts[LatencyHistogramImpl.getBucketIndex(latency)]++;
+		totalCount++;
+		sum += latency;
+		if (latency < min) {
+			min = latency;
+		}
+		if (latency > max) {
+			max = latency;
+		}
+	}
+
+	/**
+	 * Returns the number of latencies recorded so far
+	 */
+	public long getCount() {
+		return totalCount;
+	}
+
+	/**
+	 * Returns an immutable histogram with the latencies recorded so far
+	 */
+	public ILatencyHistogram getHistogram() {
+		if (totalCount == 0) {
+			return LatencyHistogramImpl.EMPTY;
+		}
+		int used = 0;
+		for (long count : counts) {
+			if (count > 0) {
+				used++;
+			}
+		}
+		int[] buckets = new int[used];
+		long[] bucketCounts = new long[used];
+		int next = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] > 0) {
+				buckets[next] = i;
+				bucketCounts[next] = counts[i];
+				next++;
+			}
+		}
+		return new LatencyHistogramImpl(buckets, bucketCounts, totalCount, min, max, sum);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Two-sided Mann-Whitney U test between two independent samples. It does not
+ * assume normality, which benchmark timings rarely show. The p-value uses the
+ * normal approximation, with tie and continuity corrections, so it needs about
+ * five values per sample to reach the usual significance levels.
+ * <p>
+ * The effect size is Cliff's delta: the probability that a value of the second
+ * sample is greater than one of the first, minus the opposite probability.
+ *
+ * @author vroldan
+ */
+public class MannWhitneyTest {
+
+	private final double u;
+
+	private final double pValue;
+
+	private final double effectSize;
+
+	public MannWhitneyTest(double[] first, double[] second) {
+		int n1 = first.length;
+		int n2 = second.length;
+		if (n1 == 0 || n2 == 0) {
+			throw new IllegalArgumentException("Both samples must contain values"); //$NON-NLS-1$
+		}
+		int n = n1 + n2;
+		double[] pooled = new double[n];
+		System.arraycopy(first, 0, pooled, 0, n1);
+		System.arraycopy(second, 0, pooled, n1, n2);
+		Arrays.sort(pooled);
+		// Sum of the ranks of the second sample, ties get the average rank
+		double rankSum = 0;
+		for (double value : second) {
+			rankSum += getRank(pooled, value);
+		}
+		double tieCorrection = 0;
+		for (int i = 0; i < n; ) {
+			int j = i;
+			while (j < n && pooled[j] == pooled[i]) {
+				j++;
+			}
+			double ties = j - i;
+			tieCorrection += ties * ties * ties - ties;
+			i = j;
+		}
+		u = rankSum - n2 * (n2 + 1) / 2d;
+		double mean = n1 * (double)n2 / 2;
+		double variance = n1 * (double)n2 / 12 * ((n + 1) - tieCorrection / (n * (double)(n - 1)));
+		if (variance <= 0) {
+			pValue = 1;
+		} else {
+			double z = Math.max(0, Math.abs(u - mean) - 0.5) / Math.sqrt(variance);
+			pValue = Math.min(1, 2 * (1 - normalCDF(z)));
+		}
+		effectSize = 2 * u / (n1 * (double)n2) - 1;
+	}
+
+	/**
+	 * Returns the U statistic of the second sample, that is, the number of pairs
+	 * where its value is greater, counting ties as one half
+	 */
+	public double getU() {
+		return u;
+	}
+
+	/**
+	 * Returns the probability of observing such a difference if both samples
+	 * came from the same distribution
+	 */
+	public double getPValue() {
+		return pValue;
+	}
+
+	/**
+	 * Returns Cliff's delta, between -1 and 1, positive if the second sample tends
+	 * to be greater than the first one
+	 */
+	public double getEffectSize() {
+		return effectSize;
+	}
+
+	private static double getRank(double[] sorted, double value) {
+		int first = 0;
+		while (sorted[first] < value) {
+			first++;
+		}
+		int last = first;
+		while (last + 1 < sorted.length && sorted[last + 1] == value) {
+			last++;
+		}
+		return (first + last) / 2d + 1;
+	}
+
+	/*
+	 * Abramowitz and Stegun 7.1.26 approximation of the error function,
+	 * with an absolute error below 1.5e-7
+	 */
+	static double normalCDF(double z) {
+		double x = Math.abs(z) / Math.sqrt(2);
+		double t = 1 / (1 + 0.3275911 * x);
+		double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))))
+				* Math.exp(-x * x);
+		return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.opencanarias.mset.repository.benchmark.IMemoryPoolUsage;
+
+/**
+ * Immutable {@link IMemoryPoolUsage} obtained from the JVM {@link MemoryPoolMXBean memory pools}
+ *
+ * @author vroldan
+ */
+public class MemoryPoolUsageImpl implements IMemoryPoolUsage {
+
+	private final String name;
+
+	private final boolean heap;
+
+	private final long used;
+
+	private final long committed;
+
+	private final long peakUsed;
+
+	public MemoryPoolUsageImpl(String name, boolean heap, long used, long committed, long peakUsed) {
+		this.name = name;
+		this.heap = heap;
+		this.used = used;
+		this.committed = committed;
+		this.peakUsed = peakUsed;
+	}
+
+	/**
+	 * Resets the peak usage of every memory pool, so that the peak
+	 * reported by {@link #getCurrentUsages()} is relative to this moment
+	 */
+	public static void resetPeakUsages() {
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.isValid()) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	/**
+	 * Returns the current usage of every valid memory pool, indexed by name
+	 */
+	public static Map<String, IMemoryPoolUsage> getCurrentUsages() {
+		Map<String, IMemoryPoolUsage> result = new TreeMap<String, IMemoryPoolUsage>();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (!pool.isValid()) {
+				continue;
+			}
+			MemoryUsage usage = pool.getUsage();
+			MemoryUsage peak = pool.getPeakUsage();
+			result.put(pool.getName(), new MemoryPoolUsageImpl(pool.getName(),
+					pool.getType() == MemoryType.HEAP, usage.getUsed(),
+					usage.getCommitted(), peak.getUsed()));
+		}
+		return result;
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public boolean isHeap() {
+		return heap;
+	}
+
+	@Override
+	public long getUsed() {
+		return used;
+	}
+
+	@Override
+	public long getCommitted() {
+		return committed;
+	}
+
+	@Override
+	public long getPeakUsed() {
+		return peakUsed;
+	}
+
+	@Override
+	public String toString() {
+		return name + " used: " + used + " / committed: " + committed + " / peak: " + peakUsed;
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+
+/**
+ * Reads the value of a {@link Metric} from an {@link IBenchmarkResult}
+ *
+ * @author vroldan
+ */
+public class MetricValues {
+
+	/**
+	 * Returns the value of the metric in the result, or {@link Double#NaN} if
+	 * the result does not support the metric
+	 */
+	public static double get(IBenchmarkResult result, Metric metric) {
+		switch (metric) {
+		case REAL_TIME:
+			return result.getRealTimeNanos();
+		case CPU_TIME:
+			return result.getCPUTimeNanos();
+		case USER_TIME:
+			return result.getUserTimeNanos();
+		case ALLOCATED_BYTES:
+			return result.getAllocatedBytes() >= 0 ? result.getAllocatedBytes() : Double.NaN;
+		case ALLOCATION_RATE:
+			return result.getAllocationRate() >= 0 ? result.getAllocationRate() : Double.NaN;
+		case GC_COUNT:
+			return result.getGCCount();
+		case GC_TIME:
+			return result.getGCTime();
+		case AVERAGE_USED_MEMORY:
+			return result.getAverageUsedMemory();
+		default:
+			throw new IllegalArgumentException("Unknown metric " + metric); //$NON-NLS-1$
+		}
+	}
+}
@@ -26,6 +26,8 @@ public class ModelPropertiesImpl implements IModelProperties {
 
 	private int memUsage = NOT_MEMORY_SENSITIVE;
 	
+	private long seed = UNSEEDED;
+	
 	public int getCount() {
 		return count;
 	}
@@ -87,10 +89,18 @@ public class ModelPropertiesImpl implements IModelProperties {
 		this.memUsage = memPercentageUsage;
 	}
 
+	public long getSeed() {
+		return seed;
+	}
+
+	public void setSeed(final long seed) {
+		this.seed = seed;
+	}
+
 	@Override
 	public String toString() {
-		return MessageFormat.format("ModelProps: count:{0} depth:{1} width:{2} valueSize:{3} mem%:{4}",
+		return MessageFormat.format("ModelProps: count:{0} depth:{1} width:{2} valueSize:{3} mem%:{4} seed:{5}",
 						getCount(), getDepth(), getWidth(), getValueLength(),
-						getMemUsage());
+						getMemUsage(), String.valueOf(getSeed()));
 	}
 }
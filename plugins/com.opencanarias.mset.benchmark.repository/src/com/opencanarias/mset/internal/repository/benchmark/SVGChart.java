@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal inline SVG charts, so that reports can be opened offline without
+ * any script or third party library.
+ *
+ * @author vroldan
+ */
+public class SVGChart {
+
+	private static final String[] PALETTE = {"#4e79a7", "#f28e2b", "#e15759", "#76b7b2", "#59a14f", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+		"#edc948", "#b07aa1", "#ff9da7", "#9c755f", "#bab0ac"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+
+	private static final int WIDTH = 720;
+
+	private static final int HEIGHT = 340;
+
+	private static final int LEFT = 80;
+
+	private static final int RIGHT = 20;
+
+	private static final int TOP = 20;
+
+	private static final int BOTTOM = 90;
+
+	private static final int TICKS = 5;
+
+	/**
+	 * Returns a bar chart with one bar per label. Error bars are drawn between the
+	 * low and high values, if given.
+	 *
+	 * @param low lower end of the error bars, or null
+	 * @param high higher end of the error bars, or null
+	 */
+	public static String barChart(List<String> labels, double[] values, double[] low, double[] high, String yLabel) {
+		double min = 0;
+		double max = 0;
+		for (int i = 0; i < values.length; i++) {
+			min = Math.min(min, Math.min(values[i], low != null ? low[i] : values[i]));
+			max = Math.max(max, Math.max(values[i], high != null ? high[i] : values[i]));
+		}
+		if (max == min) {
+			max = min + 1;
+		}
+		Axis axis = new Axis(min, max, false);
+		StringBuilder svg = open(yLabel);
+		appendYAxis(svg, axis);
+		int plotWidth = WIDTH - LEFT - RIGHT;
+		double slot = plotWidth / (double)Math.max(1, values.length);
+		double barWidth = Math.min(60, slot * 0.7);
+		double zero = y(axis, 0);
+		for (int i = 0; i < values.length; i++) {
+			double center = LEFT + slot * (i + 0.5);
+			double top = y(axis, values[i]);
+			svg.append(String.format(Locale.ENGLISH, "<rect x=\"%.1f\" y=\"%.1f\" width=\"%.1f\" height=\"%.1f\" fill=\"%s\"><title>%s: %s</title></rect>%n", //$NON-NLS-1$
+					center - barWidth / 2, Math.min(top, zero), barWidth, Math.abs(zero - top), color(i),
+					escape(labels.get(i)), format(values[i])));
+			if (low != null && high != null) {
+				double yLow = y(axis, low[i]);
+				double yHigh = y(axis, high[i]);
+				svg.append(String.format(Locale.ENGLISH, "<path d=\"M%.1f %.1fV%.1fM%.1f %.1fH%.1fM%.1f %.1fH%.1f\" stroke=\"#333\" fill=\"none\"/>%n", //$NON-NLS-1$
+						center, yLow, yHigh, center - 6, yLow, center + 6, center - 6, yHigh, center + 6));
+			}
+			svg.append(String.format(Locale.ENGLISH, "<text x=\"%.1f\" y=\"%d\" font-size=\"11\" text-anchor=\"end\" transform=\"rotate(-30 %.1f %d)\">%s</text>%n", //$NON-NLS-1$
+					center, HEIGHT - BOTTOM + 14, center, HEIGHT - BOTTOM + 14, escape(labels.get(i))));
+		}
+		return close(svg);
+	}
+
+	/**
+	 * Returns a line chart with one line per series. Each series is an array of
+	 * points, each point being an array with the x and y values. On logarithmic
+	 * axes, non positive values are left out.
+	 */
+	public static String lineChart(Map<String, double[][]> series, boolean logX, boolean logY, String xLabel, String yLabel) {
+		double minX = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double minY = logY ? Double.POSITIVE_INFINITY : 0;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (double[][] points : series.values()) {
+			for (double[] point : points) {
+				if ((logX && point[0] <= 0) || (logY && point[1] <= 0)) {
+					continue;
+				}
+				minX = Math.min(minX, point[0]);
+				maxX = Math.max(maxX, point[0]);
+				minY = Math.min(minY, point[1]);
+				maxY = Math.max(maxY, point[1]);
+			}
+		}
+		if (minX > maxX) {
+			minX = logX ? 1 : 0;
+			maxX = minX + 1;
+		}
+		if (minY > maxY || Double.isInfinite(maxY)) {
+			minY = logY ? 1 : 0;
+			maxY = minY + 1;
+		}
+		Axis xAxis = new Axis(minX, maxX, logX);
+		Axis yAxis = new Axis(minY, maxY, logY);
+		StringBuilder svg = open(yLabel);
+		appendYAxis(svg, yAxis);
+		for (double tick : xAxis.getTicks()) {
+			double x = x(xAxis, tick);
+			svg.append(String.format(Locale.ENGLISH, "<path d=\"M%.1f %dV%d\" stroke=\"#eee\"/>%n", x, TOP, HEIGHT - BOTTOM)); //$NON-NLS-1$
+			svg.append(String.format(Locale.ENGLISH, "<text x=\"%.1f\" y=\"%d\" font-size=\"11\" text-anchor=\"middle\">%s</text>%n", //$NON-NLS-1$
+					x, HEIGHT - BOTTOM + 16, format(tick)));
+		}
+		svg.append(String.format(Locale.ENGLISH, "<text x=\"%d\" y=\"%d\" font-size=\"12\" text-anchor=\"middle\">%s</text>%n", //$NON-NLS-1$
+				LEFT + (WIDTH - LEFT - RIGHT) / 2, HEIGHT - BOTTOM + 36, escape(xLabel)));
+		int index = 0;
+		for (Map.Entry<String, double[][]> entry : series.entrySet()) {
+			StringBuilder path = new StringBuilder();
+			List<double[]> points = new ArrayList<double[]>();
+			for (double[] point : entry.getValue()) {
+				if ((logX && point[0] <= 0) || (logY && point[1] <= 0)) {
+					continue;
+				}
+				points.add(point);
+				path.append(path.length() == 0 ? 'M' : 'L').append(String.format(Locale.ENGLISH, "%.1f %.1f", //$NON-NLS-1$
+						x(xAxis, point[0]), y(yAxis, point[1])));
+			}
+			String color = color(index);
+			if (path.length() > 0) {
+				svg.append(String.format("<path d=\"%s\" stroke=\"%s\" stroke-width=\"2\" fill=\"none\"><title>%s</title></path>%n", //$NON-NLS-1$
+						path, color, escape(entry.getKey())));
+			}
+			if (points.size() <= 50) {
+				for (double[] point : points) {
+					svg.append(String.format(Locale.ENGLISH, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"3\" fill=\"%s\"><title>%s: %s, %s</title></circle>%n", //$NON-NLS-1$
+							x(xAxis, point[0]), y(yAxis, point[1]), color, escape(entry.getKey()), format(point[0]), format(point[1])));
+				}
+			}
+			int legendY = HEIGHT - BOTTOM + 52 + (index / 4) * 14;
+			int legendX = LEFT + (index % 4) * 160;
+			svg.append(String.format(Locale.ENGLISH, "<rect x=\"%d\" y=\"%d\" width=\"10\" height=\"10\" fill=\"%s\"/><text x=\"%d\" y=\"%d\" font-size=\"11\">%s</text>%n", //$NON-NLS-1$
+					legendX, legendY - 9, color, legendX + 14, legendY, escape(entry.getKey())));
+			index++;
+		}
+		return close(svg);
+	}
+
+	/**
+	 * Returns a compact representation of the argument number, with at most
+	 * three significant digits for small values
+	 */
+	public static String format(double value) {
+		if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+			return String.valueOf((long)value);
+		}
+		if (Math.abs(value) >= 100) {
+			return String.format(Locale.ENGLISH, "%.0f", value); //$NON-NLS-1$
+		}
+		return String.format(Locale.ENGLISH, "%.3g", value); //$NON-NLS-1$
+	}
+
+	/**
+	 * Escapes the XML special characters of the argument text
+	 */
+	public static String escape(String text) {
+		if (text == null) {
+			return ""; //$NON-NLS-1$
+		}
+		return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$
+	}
+
+	/**
+	 * Returns the color used for the series or bar at the argument index
+	 */
+	public static String color(int index) {
+		return PALETTE[index % PALETTE.length];
+	}
+
+	private static StringBuilder open(String yLabel) {
+		StringBuilder svg = new StringBuilder();
+		svg.append(String.format("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\" viewBox=\"0 0 %d %d\" font-family=\"sans-serif\">%n", //$NON-NLS-1$
+				WIDTH, HEIGHT, WIDTH, HEIGHT));
+		svg.append(String.format("<text x=\"14\" y=\"%d\" font-size=\"12\" text-anchor=\"middle\" transform=\"rotate(-90 14 %d)\">%s</text>%n", //$NON-NLS-1$
+				TOP + (HEIGHT - TOP - BOTTOM) / 2, TOP + (HEIGHT - TOP - BOTTOM) / 2, escape(yLabel)));
+		return svg;
+	}
+
+	private static String close(StringBuilder svg) {
+		svg.append(String.format("<path d=\"M%d %dV%dH%d\" stroke=\"#333\" fill=\"none\"/>%n", LEFT, TOP, HEIGHT - BOTTOM, WIDTH - RIGHT)); //$NON-NLS-1$
+		return svg.append("</svg>").toString(); //$NON-NLS-1$
+	}
+
+	private static void appendYAxis(StringBuilder svg, Axis axis) {
+		for (double tick : axis.getTicks()) {
+			double y = y(axis, tick);
+			svg.append(String.format(Locale.ENGLISH, "<path d=\"M%d %.1fH%d\" stroke=\"#eee\"/>%n", LEFT, y, WIDTH - RIGHT)); //$NON-NLS-1$
+			svg.append(String.format(Locale.ENGLISH, "<text x=\"%d\" y=\"%.1f\" font-size=\"11\" text-anchor=\"end\">%s</text>%n", //$NON-NLS-1$
+					LEFT - 6, y + 4, format(tick)));
+		}
+	}
+
+	private static double x(Axis axis, double value) {
+		return LEFT + axis.scale(value) * (WIDTH - LEFT - RIGHT);
+	}
+
+	private static double y(Axis axis, double value) {
+		return HEIGHT - BOTTOM - axis.scale(value) * (HEIGHT - TOP - BOTTOM);
+	}
+
+	/*
+	 * Linear axes are extended to round ticks, logarithmic ones to powers of ten
+	 */
+	private static class Axis {
+
+		private final boolean log;
+
+		private final double min;
+
+		private final double max;
+
+		private final double step;
+
+		Axis(double min, double max, boolean log) {
+			this.log = log;
+			if (log) {
+				this.min = Math.floor(Math.log10(min));
+				this.max = Math.max(this.min + 1, Math.ceil(Math.log10(max)));
+				this.step = 1;
+			} else {
+				double rawStep = (max - min) / TICKS;
+				double magnitude = Math.pow(10, Math.floor(Math.log10(rawStep)));
+				double normalized = rawStep / magnitude;
+				this.step = (normalized <= 1 ? 1 : normalized <= 2 ? 2 : normalized <= 5 ? 5 : 10) * magnitude;
+				this.min = Math.floor(min / step) * step;
+				this.max = Math.max(this.min + step, Math.ceil(max / step) * step);
+			}
+		}
+
+		double scale(double value) {
+			double v = log ? Math.log10(value) : value;
+			return (v - min) / (max - min);
+		}
+
+		List<Double> getTicks() {
+			List<Double> ticks = new ArrayList<Double>();
+			for (double v = min; v <= max + step / 2; v += step) {
+				ticks.add(log ? Math.pow(10, v) : v);
+			}
+			return ticks;
+		}
+	}
+}
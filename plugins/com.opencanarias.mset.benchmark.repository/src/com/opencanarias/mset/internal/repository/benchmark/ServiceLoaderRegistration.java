@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opencanarias.mset.repository.benchmark.IBenchmarkGroup;
+import com.opencanarias.mset.repository.benchmark.IBenchmarkGroupRegistry;
+import com.opencanarias.mset.repository.benchmark.IModelRepository;
+import com.opencanarias.mset.repository.benchmark.IModelRepositoryRegistry;
+
+/**
+ * Outside OSGi, injects the {@link IModelRepository} and {@link IBenchmarkGroup} instances
+ * declared in the <code>META-INF/services</code> files of the class path into the
+ * {@link IModelRepositoryRegistry} and the {@link IBenchmarkGroupRegistry}, the same
+ * way {@link ModelRepositoryRegistration} and {@link BenchmarkGroupRegistration} do
+ * for OSGi services.
+ * <p>
+ * Implementations that cannot be instantiated, usually because the libraries of their
+ * store are not in the class path, are skipped.
+ *
+ * @author vroldan
+ *
+ */
+public class ServiceLoaderRegistration {
+
+	private static Logger logger = LoggerFactory.getLogger(ServiceLoaderRegistration.class);
+
+	/**
+	 * Registers the services found by the argument class loader
+	 *
+	 * @return the number of services registered
+	 */
+	public static int registerAll(ClassLoader classLoader) {
+		int count = 0;
+		for (IModelRepository repository : load(IModelRepository.class, classLoader)) {
+			IModelRepositoryRegistry.INSTANCE.addModelRepository(repository);
+			count++;
+		}
+		for (IBenchmarkGroup group : load(IBenchmarkGroup.class, classLoader)) {
+			IBenchmarkGroupRegistry.INSTANCE.addBenchmarkGroup(group);
+			count++;
+		}
+		return count;
+	}
+
+	private static <T> List<T> load(Class<T> service, ClassLoader classLoader) {
+		List<T> result = new ArrayList<T>();
+		Iterator<T> iterator = ServiceLoader.load(service, classLoader).iterator();
+		while (true) {
+			try {
+				if (!iterator.hasNext()) {
+					break;
+				}
+				T instance = iterator.next();
+				logger.debug("Registering {} {}", service.getSimpleName(), instance.getClass().getName());
+				result.add(instance);
+			} catch (ServiceConfigurationError e) {
+				logger.warn("Skipping {}: {}", service.getSimpleName(), e.getMessage());
+			} catch (LinkageError e) {
+				logger.warn("Skipping {}: {}", service.getSimpleName(), e.toString());
+			}
+		}
+		return result;
+	}
+}
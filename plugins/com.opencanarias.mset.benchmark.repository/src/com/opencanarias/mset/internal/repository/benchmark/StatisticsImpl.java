@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.opencanarias.mset.repository.benchmark.IStatistics;
+
+/**
+ * {@link IStatistics} updated as values are added. Mean, deviation, minimum and maximum
+ * are kept by a {@link WelfordAccumulator}. Order statistics, outlier rejection and the
+ * bootstrap confidence interval need every value, so these are kept too, and the derived
+ * statistics are lazily calculated once after every change.
+ * <p>
+ * The bootstrap uses a fixed seed, so that the same values always yield the same interval.
+ *
+ * @author vroldan
+ */
+public class StatisticsImpl implements IStatistics {
+
+	static final int BOOTSTRAP_RESAMPLES = 1000;
+
+	private static final long BOOTSTRAP_SEED = 42;
+
+	private static final double CONFIDENCE_LEVEL = 0.95;
+
+	private static final double TUKEY_FENCE = 1.5;
+
+	private final boolean outlierRejection;
+
+	private final WelfordAccumulator accumulator = new WelfordAccumulator();
+
+	private double[] values = new double[16];
+
+	private int count = 0;
+
+	// Lazily calculated, null whenever a value is added
+	private double[] sorted;
+
+	private WelfordAccumulator retainedAccumulator;
+
+	private double[] confidenceInterval;
+
+	public StatisticsImpl(boolean outlierRejection) {
+		this.outlierRejection = outlierRejection;
+	}
+
+	public void add(double value) {
+		if (count == values.length) {
+			values = Arrays.copyOf(values, count * 2);
+		}
+		values[count++] = value;
+		accumulator.add(value);
+		sorted = null;
+		retainedAccumulator = null;
+		confidenceInterval = null;
+	}
+
+	@Override
+	public int getCount() {
+		return getAccumulator().getCount();
+	}
+
+	@Override
+	public double getMean() {
+		return getAccumulator().getMean();
+	}
+
+	@Override
+	public double getStandardDeviation() {
+		return getAccumulator().getStandardDeviation();
+	}
+
+	@Override
+	public double getMin() {
+		return getAccumulator().getMin();
+	}
+
+	@Override
+	public double getMax() {
+		return getAccumulator().getMax();
+	}
+
+	@Override
+	public double getMedian() {
+		return getPercentile(50);
+	}
+
+	@Override
+	public double getMedianAbsoluteDeviation() {
+		double[] data = getSorted();
+		if (data.length == 0) {
+			return 0;
+		}
+		double median = percentile(data, 50);
+		double[] deviations = new double[data.length];
+		for (int i = 0; i < data.length; i++) {
+			deviations[i] = Math.abs(data[i] - median);
+		}
+		Arrays.sort(deviations);
+		return percentile(deviations, 50);
+	}
+
+	@Override
+	public double getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile); //$NON-NLS-1$
+		}
+		return percentile(getSorted(), percentile);
+	}
+
+	@Override
+	public double getConfidenceIntervalLow() {
+		return getConfidenceInterval()[0];
+	}
+
+	@Override
+	public double getConfidenceIntervalHigh() {
+		return getConfidenceInterval()[1];
+	}
+
+	@Override
+	public int getOutlierCount() {
+		return count - getCount();
+	}
+
+	@Override
+	public String toString() {
+		return MessageFormat.format("n: {0} / mean: {1} / sd: {2} / median: {3} / mad: {4} / ci95: [{5}, {6}] / min: {7} / max: {8}", //$NON-NLS-1$
+				getCount(), getMean(), getStandardDeviation(), getMedian(), getMedianAbsoluteDeviation(),
+				getConfidenceIntervalLow(), getConfidenceIntervalHigh(), getMin(), getMax());
+	}
+
+	private WelfordAccumulator getAccumulator() {
+		if (!outlierRejection) {
+			return accumulator;
+		}
+		if (retainedAccumulator == null) {
+			retainedAccumulator = new WelfordAccumulator();
+			for (double value : getSorted()) {
+				retainedAccumulator.add(value);
+			}
+		}
+		return retainedAccumulator;
+	}
+
+	/*
+	 * Sorted values, without outliers if rejection is enabled
+	 */
+	private double[] getSorted() {
+		if (sorted == null) {
+			double[] all = Arrays.copyOf(values, count);
+			Arrays.sort(all);
+			sorted = outlierRejection ? rejectOutliers(all) : all;
+		}
+		return sorted;
+	}
+
+	private static double[] rejectOutliers(double[] all) {
+		if (all.length < 4) {
+			return all;
+		}
+		double q1 = percentile(all, 25);
+		double q3 = percentile(all, 75);
+		double low = q1 - TUKEY_FENCE * (q3 - q1);
+		double high = q3 + TUKEY_FENCE * (q3 - q1);
+		int from = 0;
+		while (all[from] < low) {
+			from++;
+		}
+		int to = all.length;
+		while (all[to - 1] > high) {
+			to--;
+		}
+		return from == 0 && to == all.length ? all : Arrays.copyOfRange(all, from, to);
+	}
+
+	/*
+	 * Percentile bootstrap of the mean
+	 */
+	private double[] getConfidenceInterval() {
+		if (confidenceInterval == null) {
+			double[] data = getSorted();
+			if (data.length < 2) {
+				double mean = getMean();
+				confidenceInterval = new double[] {mean, mean};
+			} else {
+				Random random = new Random(BOOTSTRAP_SEED);
+				double[] means = new double[BOOTSTRAP_RESAMPLES];
+				for (int i = 0; i < BOOTSTRAP_RESAMPLES; i++) {
+					double sum = 0;
+					for (int j = 0; j < data.length; j++) {
+						sum += data[random.nextInt(data.length)];
+					}
+					means[i] = sum / data.length;
+				}
+				Arrays.sort(means);
+				double tail = (1 - CONFIDENCE_LEVEL) / 2 * 100;
+				confidenceInterval = new double[] {percentile(means, tail), percentile(means, 100 - tail)};
+			}
+		}
+		return confidenceInterval;
+	}
+
+	private static double percentile(double[] sortedData, double percentile) {
+		if (sortedData.length == 0) {
+			return 0;
+		}
+		double rank = percentile / 100 * (sortedData.length - 1);
+		int lower = (int)Math.floor(rank);
+		int upper = (int)Math.ceil(rank);
+		return sortedData[lower] + (rank - lower) * (sortedData[upper] - sortedData[lower]);
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+/**
+ * Determines whether a series of execution times has become stable, this is,
+ * whether the coefficient of variation (standard deviation divided by mean)
+ * of the last <code>window</code> times falls below a given threshold.
+ *
+ * @author vroldan
+ */
+public class SteadyStateDetector {
+
+	private final long[] window;
+
+	private final double threshold;
+
+	private int count = 0;
+
+	/**
+	 * @param windowSize number of consecutive times considered, at least 2
+	 * @param threshold the maximum coefficient of variation, i.e., 0.02 for 2%
+	 */
+	public SteadyStateDetector(int windowSize, double threshold) {
+		if (windowSize < 2) {
+			throw new IllegalArgumentException("Steady state window must contain at least 2 values"); //$NON-NLS-1$
+		}
+		this.window = new long[windowSize];
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Adds a new time to the series
+	 *
+	 * @return true if the series is stable after adding the value
+	 */
+	public boolean add(long time) {
+		window[count % window.length] = time;
+		count++;
+		return isSteady();
+	}
+
+	/**
+	 * Returns true if the window is full and its coefficient of variation is below the threshold
+	 */
+	public boolean isSteady() {
+		return count >= window.length && getCoefficientOfVariation() <= threshold;
+	}
+
+	/**
+	 * Returns the coefficient of variation of the values in the window
+	 */
+	public double getCoefficientOfVariation() {
+		int size = Math.min(count, window.length);
+		if (size < 2) {
+			return Double.POSITIVE_INFINITY;
+		}
+		double mean = 0;
+		for (int i = 0; i < size; i++) {
+			mean += window[i];
+		}
+		mean /= size;
+		if (mean == 0) {
+			return 0;
+		}
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += (window[i] - mean) * (window[i] - mean);
+		}
+		return Math.sqrt(sum / (size - 1)) / mean;
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import com.opencanarias.mset.repository.benchmark.IBenchmarkResult;
+
+/**
+ * Captures the CPU and user time consumed so far, and the bytes allocated so far,
+ * by every live thread of the JVM. Two snapshots taken at the beginning and at the
+ * end of a measurement are combined with {@link #getCPUTimeSince(ThreadTimeSnapshot)},
+ * {@link #getUserTimeSince(ThreadTimeSnapshot)} and {@link #getAllocatedBytesSince(ThreadTimeSnapshot)}
+ * to obtain the time each thread group consumed, and the memory it allocated, in between.
+ * <p>
+ * Allocated bytes are obtained from <code>com.sun.management.ThreadMXBean</code>, which
+ * is looked up reflectively, since it is neither available in every JVM nor visible
+ * to OSGi bundles by default.
+ * <p>
+ * Threads are grouped by name, replacing any number that follows a separator
+ * by <code>#</code>, so for instance <code>pool-1-thread-3</code> and
+ * <code>pool-1-thread-4</code> are accounted under <code>pool-#-thread-#</code>.
+ * The thread that took the snapshot is accounted under
+ * {@link IBenchmarkResult#CALLER_THREAD_GROUP}.
+ * <p>
+ * Threads that are both started and finished between two snapshots are
+ * not visible to any of them, so their CPU time and allocations are not accounted.
+ *
+ * @author vroldan
+ */
+public class ThreadTimeSnapshot {
+
+	private static final long UNDEFINED = -1;
+
+	private static final Pattern THREAD_NUMBER = Pattern.compile("(?<=[-_#:\\s])\\d+"); //$NON-NLS-1$
+
+	private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+	private static final boolean cpuTimeSupported = enableThreadCPUTime();
+	
+	private static final Method allocatedBytesMethod = enableThreadAllocatedMemory();
+
+	private final long callerThreadId;
+
+	private final Map<Long, String> names = new HashMap<Long, String>();
+
+	private final Map<Long, Long> cpuTimes = new HashMap<Long, Long>();
+
+	private final Map<Long, Long> userTimes = new HashMap<Long, Long>();
+	
+	private final Map<Long, Long> allocatedBytes = new HashMap<Long, Long>();
+
+	private ThreadTimeSnapshot() {
+		callerThreadId = Thread.currentThread().getId();
+		if (!cpuTimeSupported && allocatedBytesMethod == null) {
+			return;
+		}
+		long[] ids = threadBean.getAllThreadIds();
+		long[] allocations = getThreadAllocatedBytes(ids);
+		ThreadInfo[] infos = threadBean.getThreadInfo(ids);
+		for (int i = 0; i < ids.length; i++) {
+			if (infos[i] == null) {
+				continue; // thread died in the meantime
+			}
+			names.put(ids[i], infos[i].getThreadName());
+			long cpuTime = cpuTimeSupported ? threadBean.getThreadCpuTime(ids[i]) : UNDEFINED;
+			if (cpuTime != UNDEFINED) {
+				cpuTimes.put(ids[i], cpuTime);
+				userTimes.put(ids[i], threadBean.getThreadUserTime(ids[i]));
+			}
+			if (allocations != null && allocations[i] != UNDEFINED) {
+				allocatedBytes.put(ids[i], allocations[i]);
+			}
+		}
+	}
+
+	/**
+	 * Takes a snapshot of the CPU and user time consumed by all live threads
+	 */
+	public static ThreadTimeSnapshot take() {
+		return new ThreadTimeSnapshot();
+	}
+
+	/**
+	 * Returns true if the JVM is able to measure CPU time per thread
+	 */
+	public static boolean isSupported() {
+		return cpuTimeSupported;
+	}
+
+	/**
+	 * Returns the CPU time (in nanoseconds) consumed by every thread group
+	 * since the argument snapshot was taken.
+	 */
+	public Map<String, Long> getCPUTimeSince(ThreadTimeSnapshot start) {
+		return groupDeltas(cpuTimes, start.cpuTimes);
+	}
+
+	/**
+	 * Returns the user time (in nanoseconds) consumed by every thread group
+	 * since the argument snapshot was taken.
+	 */
+	public Map<String, Long> getUserTimeSince(ThreadTimeSnapshot start) {
+		return groupDeltas(userTimes, start.userTimes);
+	}
+
+	/**
+	 * Returns true if the JVM is able to measure allocated bytes per thread
+	 */
+	public static boolean isAllocatedBytesSupported() {
+		return allocatedBytesMethod != null;
+	}
+
+	/**
+	 * Returns the bytes allocated by every thread group since the argument
+	 * snapshot was taken. The result is empty if allocation measuring is
+	 * {@link #isAllocatedBytesSupported() not supported}.
+	 */
+	public Map<String, Long> getAllocatedBytesSince(ThreadTimeSnapshot start) {
+		return groupDeltas(allocatedBytes, start.allocatedBytes);
+	}
+
+	/**
+	 * Normalizes a thread name into the name of its group
+	 */
+	public static String getThreadGroupName(String threadName) {
+		return THREAD_NUMBER.matcher(threadName).replaceAll("#"); //$NON-NLS-1$
+	}
+
+	/**
+	 * Adds up the values of the argument map
+	 */
+	public static long sum(Map<String, Long> times) {
+		long total = 0;
+		for (Long time : times.values()) {
+			total += time;
+		}
+		return total;
+	}
+
+	private Map<String, Long> groupDeltas(Map<Long, Long> end, Map<Long, Long> start) {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<Long, Long> entry : end.entrySet()) {
+			Long startTime = start.get(entry.getKey());
+			long delta = entry.getValue() - (startTime != null ? startTime : 0);
+			String group = entry.getKey() == callerThreadId
+					? IBenchmarkResult.CALLER_THREAD_GROUP
+					: getThreadGroupName(names.get(entry.getKey()));
+			Long accumulated = result.get(group);
+			result.put(group, (accumulated != null ? accumulated : 0) + delta);
+		}
+		return result;
+	}
+
+	private static boolean enableThreadCPUTime() {
+		if (!threadBean.isThreadCpuTimeSupported()) {
+			return false;
+		}
+		if (!threadBean.isThreadCpuTimeEnabled()) {
+			threadBean.setThreadCpuTimeEnabled(true);
+		}
+		return true;
+	}
+
+	private static long[] getThreadAllocatedBytes(long[] ids) {
+		if (allocatedBytesMethod == null) {
+			return null;
+		}
+		try {
+			return (long[])allocatedBytesMethod.invoke(threadBean, ids);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/*
+	 * The method is looked up in the public interface rather than in the
+	 * bean implementation class, which is not accessible
+	 */
+	private static Method enableThreadAllocatedMemory() {
+		for (Class<?> type : threadBean.getClass().getInterfaces()) {
+			if (!ThreadMXBean.class.isAssignableFrom(type)) {
+				continue;
+			}
+			try {
+				Method getAllocatedBytes = type.getMethod("getThreadAllocatedBytes", long[].class); //$NON-NLS-1$
+				Method isSupported = type.getMethod("isThreadAllocatedMemorySupported"); //$NON-NLS-1$
+				if (!(Boolean)isSupported.invoke(threadBean)) {
+					return null;
+				}
+				Method isEnabled = type.getMethod("isThreadAllocatedMemoryEnabled"); //$NON-NLS-1$
+				if (!(Boolean)isEnabled.invoke(threadBean)) {
+					type.getMethod("setThreadAllocatedMemoryEnabled", boolean.class).invoke(threadBean, true); //$NON-NLS-1$
+				}
+				return getAllocatedBytes;
+			} catch (NoSuchMethodException e) {
+				continue;
+			} catch (Exception e) {
+				return null;
+			}
+		}
+		return null;
+	}
+}
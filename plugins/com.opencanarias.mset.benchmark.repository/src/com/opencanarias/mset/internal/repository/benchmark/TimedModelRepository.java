@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.resource.Resource;
+
+import com.opencanarias.mset.repository.benchmark.ILatencyHistogram;
+import com.opencanarias.mset.repository.benchmark.IModelRepository;
+
+/**
+ * Decorates an {@link IModelRepository}, recording the latency of every
+ * {@link com.opencanarias.mset.repository.benchmark.IModelOperation model operation}
+ * call per {@link OperationType}. Calls are only recorded between
+ * {@link #startRecording()} and {@link #stopRecording()}, so that set up and tear
+ * down logic is not accounted. Calls that throw an exception are recorded as well.
+ * <p>
+ * Every other method is delegated as is.
+ *
+ * @author vroldan
+ */
+public class TimedModelRepository implements IModelRepository {
+
+	private final IModelRepository delegate;
+
+	private final Map<OperationType, LatencyRecorder> recorders = new EnumMap<OperationType, LatencyRecorder>(OperationType.class);
+
+	private boolean recording = false;
+
+	public TimedModelRepository(IModelRepository delegate) {
+		this.delegate = delegate;
+		// Recorders are allocated up front, so that recording does not allocate
+		for (OperationType type : OperationType.values()) {
+			recorders.put(type, new LatencyRecorder());
+		}
+	}
+
+	/**
+	 * Returns the decorated {@link IModelRepository}
+	 */
+	public IModelRepository getDelegate() {
+		return delegate;
+	}
+
+	public void startRecording() {
+		recording = true;
+	}
+
+	public void stopRecording() {
+		recording = false;
+	}
+
+	/**
+	 * Returns the latencies recorded so far for every {@link OperationType} called at least once
+	 */
+	public Map<OperationType, ILatencyHistogram> getLatencies() {
+		Map<OperationType, ILatencyHistogram> result = new EnumMap<OperationType, ILatencyHistogram>(OperationType.class);
+		for (Map.Entry<OperationType, LatencyRecorder> entry : recorders.entrySet()) {
+			if (entry.getValue().getCount() > 0) {
+				result.put(entry.getKey(), entry.getValue().getHistogram());
+			}
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	private long begin() {
+		return recording ? System.nanoTime() : 0;
+	}
+
+	private void end(OperationType type, long start) {
+		if (recording) {
+			recorders.get(type).record(System.nanoTime() - start);
+		}
+	}
+
+	@Override
+	public void save(EObject model) {
+		long start = begin();
+		try {
+			delegate.save(model);
+		} finally {
+			end(OperationType.SAVE, start);
+		}
+	}
+
+	@Override
+	public void save(Resource res) {
+		long start = begin();
+		try {
+			delegate.save(res);
+		} finally {
+			end(OperationType.SAVE, start);
+		}
+	}
+
+	@Override
+	public Resource createResource() {
+		long start = begin();
+		try {
+			return delegate.createResource();
+		} finally {
+			end(OperationType.CREATE_RESOURCE, start);
+		}
+	}
+
+	@Override
+	public Resource loadResource(URI uri) {
+		long start = begin();
+		try {
+			return delegate.loadResource(uri);
+		} finally {
+			end(OperationType.LOAD_RESOURCE, start);
+		}
+	}
+
+	@Override
+	public void unloadResource(Resource res) {
+		long start = begin();
+		try {
+			delegate.unloadResource(res);
+		} finally {
+			end(OperationType.UNLOAD_RESOURCE, start);
+		}
+	}
+
+	@Override
+	public EObject loadEObject(URI resourceURI, String fragment) {
+		long start = begin();
+		try {
+			return delegate.loadEObject(resourceURI, fragment);
+		} finally {
+			end(OperationType.LOAD_EOBJECT, start);
+		}
+	}
+
+	@Override
+	public String getName() {
+		return delegate.getName();
+	}
+
+	@Override
+	public void start() {
+		delegate.start();
+	}
+
+	@Override
+	public void stop() {
+		delegate.stop();
+	}
+
+	@Override
+	public void restart() {
+		delegate.restart();
+	}
+
+	@Override
+	public void clean() {
+		delegate.clean();
+	}
+
+	@Override
+	public boolean isAvailable() {
+		return delegate.isAvailable();
+	}
+
+	@Override
+	public RepositoryStatus getStatus() {
+		return delegate.getStatus();
+	}
+
+	@Override
+	public String getRepositoryURI() {
+		return delegate.getRepositoryURI();
+	}
+
+	@Override
+	public EObject adaptModel(EObject model) {
+		return delegate.adaptModel(model);
+	}
+
+	@Override
+	public void addListener(IModelRepositoryListener listener) {
+		delegate.addListener(listener);
+	}
+
+	@Override
+	public boolean containsListener(IModelRepositoryListener listener) {
+		return delegate.containsListener(listener);
+	}
+
+	@Override
+	public void removeListener(IModelRepositoryListener listener) {
+		delegate.removeListener(listener);
+	}
+
+	@Override
+	public boolean supports(Object object) {
+		return delegate.supports(object);
+	}
+
+	@Override
+	public String toString() {
+		return delegate.toString();
+	}
+}
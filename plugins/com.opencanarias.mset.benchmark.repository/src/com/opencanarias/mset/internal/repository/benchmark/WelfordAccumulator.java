@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.internal.repository.benchmark;
+
+/**
+ * Streaming mean and variance using Welford's algorithm, which is numerically
+ * stable and updates in constant time, without keeping the values.
+ *
+ * @author vroldan
+ */
+public class WelfordAccumulator {
+
+	private int count = 0;
+
+	private double mean = 0;
+
+	private double m2 = 0;
+
+	private double min = Double.POSITIVE_INFINITY;
+
+	private double max = Double.NEGATIVE_INFINITY;
+
+	public void add(double value) {
+		count++;
+		double delta = value - mean;
+		mean += delta / count;
+		m2 += delta * (value - mean);
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Returns the sample variance, 0 if there are less than two values
+	 */
+	public double getVariance() {
+		return count > 1 ? m2 / (count - 1) : 0;
+	}
+
+	public double getStandardDeviation() {
+		return Math.sqrt(getVariance());
+	}
+
+	public double getMin() {
+		return count > 0 ? min : 0;
+	}
+
+	public double getMax() {
+		return count > 0 ? max : 0;
+	}
+}
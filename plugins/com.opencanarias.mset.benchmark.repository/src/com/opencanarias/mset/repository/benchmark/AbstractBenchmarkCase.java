@@ -10,6 +10,12 @@
  */
 package com.opencanarias.mset.repository.benchmark;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.resource.Resource;
@@ -20,6 +26,8 @@ import org.slf4j.LoggerFactory;
 
 import com.opencanarias.mset.internal.repository.benchmark.BenchmarkModelImpl;
 import com.opencanarias.mset.internal.repository.benchmark.BenchmarkResultImpl;
+import com.opencanarias.mset.internal.repository.benchmark.SteadyStateDetector;
+import com.opencanarias.mset.internal.repository.benchmark.TimedModelRepository;
 import com.opencanarias.mset.repository.benchmark.IModelRepository.RepositoryStatus;
 
 /**
@@ -33,12 +41,63 @@ import com.opencanarias.mset.repository.benchmark.IModelRepository.RepositorySta
  *   <li>Execute logic to be measured</li>
  *   <li>Tear down benchmark case</li>   
  * </ol>
- * 
+ * Before the measured execution, the whole workflow may be repeated a number of
+ * warm-up iterations, so that measurements are not mixed up with interpreted or
+ * partially compiled code. Warm-up is configured per case through
+ * {@link #getWarmupIterations()}, {@link #getWarmupTime()}, {@link #getSteadyStateWindow()}
+ * and {@link #getSteadyStateThreshold()}, which may be overridden for each execution
+ * through the {@link IBenchmarkData#getOptions() options} <code>OPTION_*</code> of this class.
+ * <p>
+ * External harnesses may drive each stage on their own through {@link BenchmarkCaseRunner}.
+ * <p>
+ * Instances may be given {@link #addParameterAxis(ParameterAxis) parameter axes}, so that a
+ * single case covers several configurations. The {@link ParameterAxis#COUNT}, {@link ParameterAxis#SHAPE}
+ * and {@link ParameterAxis#VALUE_LENGTH} axes replace the model of the case with a generated one.
+ * Other axes are read by subclasses through {@link #getParameter(String, String)}.
+ *
  * @author vroldan
  *
  */
 public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 
+	/**
+	 * {@link IBenchmarkData#getOptions() Option} overriding {@link #getWarmupIterations()}
+	 */
+	public static final String OPTION_WARMUP_ITERATIONS = "warmupIterations"; //$NON-NLS-1$
+	
+	/**
+	 * {@link IBenchmarkData#getOptions() Option} overriding {@link #getWarmupTime()}
+	 */
+	public static final String OPTION_WARMUP_TIME = "warmupTime"; //$NON-NLS-1$
+	
+	/**
+	 * {@link IBenchmarkData#getOptions() Option} overriding {@link #getSteadyStateWindow()}
+	 */
+	public static final String OPTION_STEADY_STATE_WINDOW = "steadyStateWindow"; //$NON-NLS-1$
+	
+	/**
+	 * {@link IBenchmarkData#getOptions() Option} overriding {@link #getSteadyStateThreshold()}
+	 */
+	public static final String OPTION_STEADY_STATE_THRESHOLD = "steadyStateThreshold"; //$NON-NLS-1$
+	
+	/**
+	 * {@link IBenchmarkData#getOptions() Option} setting the {@link IBenchmarkMeter#getPollingInterval() polling interval}
+	 * of the meter in milliseconds. 0 disables the heap sampling, e.g. to avoid its overhead on very short cases.
+	 */
+	public static final String OPTION_POLLING_INTERVAL = "pollingInterval"; //$NON-NLS-1$
+	
+	/**
+	 * Maximum number of warm-up iterations when only steady state detection is configured
+	 */
+	public static final int MAX_STEADY_STATE_ITERATIONS = 100;
+	
+	private static final double DEFAULT_STEADY_STATE_THRESHOLD = 0.02;
+	
+	/**
+	 * Width of generated models when no {@link ParameterAxis#SHAPE} is given
+	 */
+	private static final int DEFAULT_WIDTH = 10;
+
 	private IBenchmarkGroup group;
 	
 	private IBenchmarkMeter meter = BenchmarkUtils.getBenchmarkMeter();
@@ -47,8 +106,16 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 	
 	private IModelRepository lastUsedRepository = null;
 	
+	private TimedModelRepository timedRepository = null;
+	
 	private boolean lastExecutionFailed = false;
 	
+	private int lastWarmupIterations = 0;
+	
+	private long lastWarmupTime = 0;
+	
+	private boolean lastSteadyStateReached = false;
+	
 	private IBenchmarkModel model = null;
 	
 	private IModelProperties properties = null;
@@ -57,6 +124,10 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 	
 	private final URI benchmarkModelURI;
 	
+	private final List<ParameterAxis> parameterAxes = new ArrayList<ParameterAxis>();
+	
+	private Map<String, String> parameters = Collections.emptyMap();
+	
 	/**
 	 * An AbstractBenchmarkCase must be associated with an IBenchmarkGroup 
 	 */
@@ -85,16 +156,24 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 	 *   <li>{@link AbstractBenchmarkCase#executeMeasurable(IModelRepository, EObject)}</li>
 	 *   <li>{@link AbstractBenchmarkCase#tearDownCase(IModelRepository, EObject)}</li>   
 	 * </ol>
+	 * The repository handed to every stage records the latency of each
+	 * {@link IModelOperation model operation} called while measuring.
 	 */
 	@Override
 	public IBenchmarkResult executeBenchmark(IBenchmarkData data) {		
 		lastExecutionFailed = false;
-		IModelRepository repository = data.getRepository();
-		lastUsedRepository = repository;
+		lastUsedRepository = data.getRepository();
+		long pollingInterval = getLongOption(data, OPTION_POLLING_INTERVAL, -1);
+		if (pollingInterval >= 0 && pollingInterval != meter.getPollingInterval()) {
+			meter = BenchmarkUtils.getBenchmarkMeter(pollingInterval);
+		}
+		timedRepository = new TimedModelRepository(lastUsedRepository);
+		IModelRepository repository = timedRepository;
 		String name = repository.getName();
 		logger.debug("[{}] Preparing benchmark", name);
 		logger.trace("[{}] getting benchmark model", name);
 		IBenchmarkModel bModel = getBenchmarkModel();
+		warmUpCase(repository, bModel, data);
 		logger.trace("[{}] adapting benchmark model to repo", name);
 		EObject model = repository.adaptModel(bModel.getRoot()); //
 		try {
@@ -145,21 +224,90 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 	public void reset() {
 		model = null;
 		lastUsedRepository = null;
+		timedRepository = null;
 		lastExecutionFailed = false;
+		lastWarmupIterations = 0;
+		lastWarmupTime = 0;
+		lastSteadyStateReached = false;
 		System.gc(); // Make sure heap is as much free as possible before next case
 	}
 
+	/**
+	 * Returns the name of the class without the "Case" suffix, followed by the
+	 * {@link ParameterSpace#getLabel(Map) label} of the current parameters
+	 */
 	@Override
 	public String getName() {
 		String className = getClass().getSimpleName();		
 		int lastCaseIndex = className.lastIndexOf("Case"); //$NON-NLS-1$
-		return className.substring(0, lastCaseIndex > -1 ? lastCaseIndex : className.length() - 1);
+		return className.substring(0, lastCaseIndex > -1 ? lastCaseIndex : className.length() - 1)
+				+ ParameterSpace.getLabel(parameters);
+	}
+
+	@Override
+	public List<ParameterAxis> getParameterAxes() {
+		return Collections.unmodifiableList(parameterAxes);
+	}
+
+	/**
+	 * Adds an axis to the parameter space of this case
+	 * 
+	 * @throws IllegalArgumentException if the case already has an axis with the same name
+	 */
+	public void addParameterAxis(ParameterAxis axis) {
+		for (ParameterAxis existing : parameterAxes) {
+			if (existing.getName().equals(axis.getName())) {
+				throw new IllegalArgumentException("Duplicate axis " + axis.getName()); //$NON-NLS-1$
+			}
+		}
+		parameterAxes.add(axis);
+	}
+
+	@Override
+	public Map<String, String> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Selects the parameters of the next executions, and drops the model of the
+	 * previous ones, unless the parameters are the current ones
+	 */
+	@Override
+	public void setParameters(Map<String, String> parameters) {
+		for (String name : parameters.keySet()) {
+			boolean declared = false;
+			for (ParameterAxis axis : parameterAxes) {
+				declared |= axis.getName().equals(name);
+			}
+			if (!declared) {
+				throw new IllegalArgumentException("Case " + getClass().getSimpleName() + " has no axis " + name); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		if (parameters.equals(this.parameters)) {
+			return;
+		}
+		this.parameters = Collections.unmodifiableMap(new LinkedHashMap<String, String>(parameters));
+		model = null;
+		properties = null;
+	}
+
+	/**
+	 * Returns the value of the argument axis in the current parameters
+	 * 
+	 * @param defaultValue the value if the parameter is not set
+	 */
+	protected String getParameter(String axis, String defaultValue) {
+		String value = parameters.get(axis);
+		return value != null ? value : defaultValue;
 	}
 
 	/**
 	 * Starts gathering metrics of the thread under execution
 	 */
 	protected void startMeasuring() {
+		if (timedRepository != null) {
+			timedRepository.startRecording();
+		}
 		meter.startMeasuring();
 	}
 
@@ -168,6 +316,9 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 	 */
 	protected void stopMeasuring() {
 		meter.stopMeasuring();
+		if (timedRepository != null) {
+			timedRepository.stopRecording();
+		}
 	}
 	
 	/**
@@ -180,6 +331,12 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 		result.setBenchmarkCase(this);
 		result.setModelProperties(getProperties());
 		result.setBenchmarkFailed(lastExecutionFailed);
+		result.setWarmupIterations(lastWarmupIterations);
+		result.setWarmupTimeNanos(lastWarmupTime);
+		result.setSteadyStateReached(lastSteadyStateReached);
+		if (timedRepository != null) {
+			result.setOperationLatencies(timedRepository.getLatencies());
+		}
 		return result;
 	}
 	
@@ -217,6 +374,49 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 		warmUp(repository);
 	}
 
+	/**
+	 * Maximum number of times the whole workflow is executed, and discarded,
+	 * before the measured execution. By default, no warm-up iterations are executed.
+	 * 
+	 * @return the maximum number of warm-up iterations, 0 for none
+	 */
+	protected int getWarmupIterations() {
+		return 0;
+	}
+	
+	/**
+	 * Maximum time, in milliseconds, the workflow is repeatedly executed, and discarded,
+	 * before the measured execution. If both warm-up iterations and time are defined,
+	 * warm-up finishes when the first of them is reached.
+	 * 
+	 * @return the maximum warm-up time in milliseconds, 0 for none
+	 */
+	protected long getWarmupTime() {
+		return 0;
+	}
+	
+	/**
+	 * Number of consecutive warm-up iterations considered for steady state detection.
+	 * Warm-up finishes as soon as the coefficient of variation of the execution time of
+	 * the last iterations falls below {@link #getSteadyStateThreshold()}. If no warm-up
+	 * iterations nor time are defined, up to {@link #MAX_STEADY_STATE_ITERATIONS} are executed. 
+	 * 
+	 * @return the size of the steady state window, 0 to disable steady state detection
+	 */
+	protected int getSteadyStateWindow() {
+		return 0;
+	}
+	
+	/**
+	 * Maximum coefficient of variation (standard deviation divided by mean) of the last
+	 * {@link #getSteadyStateWindow()} warm-up iterations for the case to be considered steady.
+	 * 
+	 * @return the steady state threshold, 0.02 (2%) by default
+	 */
+	protected double getSteadyStateThreshold() {
+		return DEFAULT_STEADY_STATE_THRESHOLD;
+	}
+	
 	/**
 	 * This method contains the logic to be measured
 	 * 
@@ -241,7 +441,9 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 	 */
 	protected IModelProperties getProperties() {
 		if (properties == null) {
-			if (getBenchmarkModelURI() != null) {
+			if (isParameterizingModel()) {
+				properties = createParameterizedProperties();
+			} else if (getBenchmarkModelURI() != null) {
 				properties = BenchmarkUtils.getPropertiesFromModel(getBenchmarkModel().getRoot());
 			} else {
 				properties = initProperties();	
@@ -250,6 +452,42 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 		return properties;
 	}
 
+	/*
+	 * The count is required. Without a shape, the depth is the smallest giving room
+	 * for twice the count with the default width, so that the tree is not forced to be
+	 * complete and its shape depends on the seed. Without a value length, attribute
+	 * values are left unset.
+	 */
+	private IModelProperties createParameterizedProperties() {
+		String count = parameters.get(ParameterAxis.COUNT);
+		if (count == null) {
+			throw new IllegalArgumentException("Case " + getClass().getSimpleName() + " needs a " + ParameterAxis.COUNT + " parameter to generate its model"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		IModelProperties props = BenchmarkModelGenerator.createProperties();
+		props.setCount(ParameterAxis.parseCount(count));
+		String shape = parameters.get(ParameterAxis.SHAPE);
+		if (shape != null) {
+			int[] depthAndWidth = ParameterAxis.parseShape(shape);
+			props.setDepth(depthAndWidth[0]);
+			props.setWidth(depthAndWidth[1]);
+		} else {
+			int depth = 1;
+			for (long capacity = 1, level = 1; capacity < 2L * props.getCount(); depth++) {
+				level *= DEFAULT_WIDTH;
+				capacity += level;
+			}
+			props.setDepth(depth);
+			props.setWidth(DEFAULT_WIDTH);
+		}
+		props.setValueLength(Integer.parseInt(getParameter(ParameterAxis.VALUE_LENGTH, "0").trim())); //$NON-NLS-1$
+		return props;
+	}
+
+	private boolean isParameterizingModel() {
+		return parameters.containsKey(ParameterAxis.COUNT) || parameters.containsKey(ParameterAxis.SHAPE)
+				|| parameters.containsKey(ParameterAxis.VALUE_LENGTH);
+	}
+
 	/**
 	 * Creates an instance of IModelProperties that defines the qualities of 
 	 * the model in case it is generated at runtime.
@@ -259,12 +497,17 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 	}
 
 	/**
-	 * Instantiates in memory the {@link IBenchmarkModel} to be used during the {@link IBenchmarkCase}
+	 * Instantiates in memory the {@link IBenchmarkModel} to be used during the {@link IBenchmarkCase}.
+	 * Generated models are taken from the {@link ModelCache#getDefault() default model cache}, if enabled.
 	 * 
 	 * @return a new instance of the {@link IBenchmarkCase} input model
 	 */
 	protected IBenchmarkModel initModel() {
 		if (isGeneratingModel()) {
+			ModelCache cache = ModelCache.getDefault();
+			if (cache != null) {
+				return cache.getModel(getGenerator(), getProperties());
+			}
 			return getGenerator().generateModel(getProperties());
 		} else {			
 			ResourceSet rSet = new ResourceSetImpl();
@@ -286,6 +529,74 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 		return benchmarkModelURI;
 	}
 	
+	/*
+	 * Every warm-up iteration runs the whole workflow on a fresh copy of the model,
+	 * so that cases consuming the model (i.e., attaching it to a resource) behave 
+	 * as in the measured execution
+	 */
+	private void warmUpCase(IModelRepository repository, IBenchmarkModel bModel, IBenchmarkData data) {
+		lastWarmupIterations = 0;
+		lastWarmupTime = 0;
+		lastSteadyStateReached = false;
+		long maxIterations = getLongOption(data, OPTION_WARMUP_ITERATIONS, getWarmupIterations());
+		long maxTime = getLongOption(data, OPTION_WARMUP_TIME, getWarmupTime());
+		int window = (int)getLongOption(data, OPTION_STEADY_STATE_WINDOW, getSteadyStateWindow());
+		double threshold = getDoubleOption(data, OPTION_STEADY_STATE_THRESHOLD, getSteadyStateThreshold());
+		SteadyStateDetector detector = window > 1 ? new SteadyStateDetector(window, threshold) : null;
+		if (maxIterations <= 0 && maxTime <= 0) {
+			if (detector == null) {
+				return;
+			}
+			maxIterations = MAX_STEADY_STATE_ITERATIONS;
+		}
+		String name = repository.getName();
+		logger.debug("[{}] Warming up", name);
+		long start = System.nanoTime();
+		long deadline = start + maxTime * 1000000;
+		while ((maxIterations <= 0 || lastWarmupIterations < maxIterations) 
+				&& (maxTime <= 0 || System.nanoTime() - deadline < 0)) {
+			EObject model = repository.adaptModel(bModel.getRoot());
+			long elapsed;
+			try {
+				setUpCase(repository, model);
+				long iterationStart = System.nanoTime();
+				executeMeasurable(repository, model);
+				elapsed = System.nanoTime() - iterationStart;
+			} finally {
+				tearDownCase(repository, model);
+			}
+			lastWarmupIterations++;
+			logger.trace("[{}] Warm-up iteration {} took {} ns", name, lastWarmupIterations, elapsed);
+			if (detector != null && detector.add(elapsed)) {
+				lastSteadyStateReached = true;
+				break;
+			}
+		}
+		lastWarmupTime = System.nanoTime() - start;
+		logger.debug("[{}] Finished warming up after {} iterations, steady state {}", 
+				name, lastWarmupIterations, lastSteadyStateReached ? "reached" : "not reached");
+	}
+
+	private static long getLongOption(IBenchmarkData data, String key, long defaultValue) {
+		Object value = data.getOptions().get(key);
+		if (value instanceof Number) {
+			return ((Number)value).longValue();
+		} else if (value != null) {
+			return Long.parseLong(value.toString().trim());
+		}
+		return defaultValue;
+	}
+
+	private static double getDoubleOption(IBenchmarkData data, String key, double defaultValue) {
+		Object value = data.getOptions().get(key);
+		if (value instanceof Number) {
+			return ((Number)value).doubleValue();
+		} else if (value != null) {
+			return Double.parseDouble(value.toString().trim());
+		}
+		return defaultValue;
+	}
+
 	/*
 	 * Serves as workaround for a bug on LissomeStore repository,
 	 * which does not persist correctly EPackages
@@ -315,6 +626,6 @@ public abstract class AbstractBenchmarkCase implements IBenchmarkCase {
 	 * @return
 	 */
 	private boolean isGeneratingModel() {
-		return isGeneratingModel;
+		return isGeneratingModel || isParameterizingModel();
 	}
 }
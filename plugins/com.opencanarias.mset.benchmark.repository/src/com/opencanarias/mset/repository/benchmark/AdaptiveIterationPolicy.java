@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+
+/**
+ * Decides how many iterations each pair of {@link IBenchmarkCase case} and
+ * {@link IModelRepository repository} is given, instead of a fixed count for all.
+ * <p>
+ * A pair keeps iterating until the {@link IStatistics#getConfidenceIntervalLow() confidence interval}
+ * of the mean of the {@link Metric metric} is narrower than the target width, relative to the
+ * mean, or until its time budget is exhausted. Stable cases thus finish after the minimum
+ * iterations, and noisy ones are given more samples.
+ * <p>
+ * The budget of each pair is the remaining global budget shared evenly among the remaining
+ * pairs, capped by the budget per pair. Time left by pairs that finish early is thus
+ * available to the following ones.
+ *
+ * @author vroldan
+ */
+public class AdaptiveIterationPolicy {
+
+	/** Default relative width of the confidence interval, e.g. 0.05 for &plusmn;2.5% of the mean */
+	public static final double DEFAULT_TARGET_WIDTH = 0.05;
+
+	/** Default minimum iterations per pair, needed for a meaningful interval */
+	public static final int DEFAULT_MIN_ITERATIONS = 5;
+
+	/** Default maximum iterations per pair */
+	public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+	private final double targetWidth;
+
+	private final long pairBudget;
+
+	private final long totalBudget;
+
+	private int minIterations = DEFAULT_MIN_ITERATIONS;
+
+	private int maxIterations = DEFAULT_MAX_ITERATIONS;
+
+	private Metric metric = Metric.REAL_TIME;
+
+	/**
+	 * @param targetWidth relative width of the confidence interval to reach
+	 * @param pairBudget maximum milliseconds per pair, 0 for no limit
+	 * @param totalBudget maximum milliseconds of the whole run, 0 for no limit
+	 */
+	public AdaptiveIterationPolicy(double targetWidth, long pairBudget, long totalBudget) {
+		if (targetWidth <= 0) {
+			throw new IllegalArgumentException("Target width must be positive"); //$NON-NLS-1$
+		}
+		if (pairBudget < 0 || totalBudget < 0) {
+			throw new IllegalArgumentException("Budgets must not be negative"); //$NON-NLS-1$
+		}
+		this.targetWidth = targetWidth;
+		this.pairBudget = pairBudget;
+		this.totalBudget = totalBudget;
+	}
+
+	public double getTargetWidth() {
+		return targetWidth;
+	}
+
+	public long getPairBudget() {
+		return pairBudget;
+	}
+
+	public long getTotalBudget() {
+		return totalBudget;
+	}
+
+	public int getMinIterations() {
+		return minIterations;
+	}
+
+	public int getMaxIterations() {
+		return maxIterations;
+	}
+
+	/**
+	 * Sets the minimum and maximum iterations per pair. The minimum is not
+	 * granted if the budget of the pair runs out before.
+	 */
+	public void setIterations(int minIterations, int maxIterations) {
+		if (minIterations < 1 || maxIterations < minIterations) {
+			throw new IllegalArgumentException("Invalid iteration range " + minIterations + "-" + maxIterations); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		this.minIterations = minIterations;
+		this.maxIterations = maxIterations;
+	}
+
+	public Metric getMetric() {
+		return metric;
+	}
+
+	/**
+	 * Sets the metric whose confidence interval is checked, {@link Metric#REAL_TIME} by default
+	 */
+	public void setMetric(Metric metric) {
+		this.metric = metric;
+	}
+
+	/**
+	 * Returns the milliseconds available to the next pair
+	 *
+	 * @param remainingPairs pairs not executed yet, including the next one
+	 * @param elapsed milliseconds since the run started
+	 * @return the budget of the pair, {@link Long#MAX_VALUE} if there is no limit
+	 */
+	public long getPairBudget(int remainingPairs, long elapsed) {
+		long budget = pairBudget > 0 ? pairBudget : Long.MAX_VALUE;
+		if (totalBudget > 0) {
+			budget = Math.min(budget, Math.max(0, totalBudget - elapsed) / Math.max(1, remainingPairs));
+		}
+		return budget;
+	}
+
+	/**
+	 * Returns the width of the confidence interval relative to the mean,
+	 * {@link Double#POSITIVE_INFINITY} if it cannot be calculated yet
+	 */
+	public static double getRelativeWidth(IStatistics statistics) {
+		if (statistics.getCount() < 2 || statistics.getMean() == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return (statistics.getConfidenceIntervalHigh() - statistics.getConfidenceIntervalLow()) / Math.abs(statistics.getMean());
+	}
+
+	/**
+	 * Returns whether a pair should stop iterating, either because its interval is
+	 * narrow enough, or because another iteration is expected to exceed its budget
+	 *
+	 * @param result the results of the pair so far, including those of previous runs
+	 * @param runIterations the iterations the pair has run so far in this run, which
+	 *                      alone estimate the time of the next one
+	 * @param elapsed milliseconds the pair has taken so far in this run
+	 * @param budget milliseconds available to the pair, see {@link #getPairBudget(int, long)}
+	 */
+	public boolean isDone(IAggregatedResult result, int runIterations, long elapsed, long budget) {
+		int iterations = result.getAggregatedResults().size();
+		if (runIterations == 0 ? budget <= 0 : elapsed + elapsed / runIterations > budget) {
+			return true;
+		}
+		if (iterations >= maxIterations) {
+			return true;
+		}
+		return iterations >= minIterations && getRelativeWidth(result.getStatistics(metric)) <= targetWidth;
+	}
+
+	@Override
+	public String toString() {
+		return "target width: " + targetWidth + " / iterations: " + minIterations + "-" + maxIterations //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				+ " / pair budget: " + pairBudget + " ms / total budget: " + totalBudget + " ms"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
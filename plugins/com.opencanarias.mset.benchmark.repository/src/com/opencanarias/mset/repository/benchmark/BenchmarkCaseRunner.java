@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import org.eclipse.emf.ecore.EObject;
+
+import com.opencanarias.mset.repository.benchmark.IModelRepository.RepositoryStatus;
+
+/**
+ * Exposes the stages of an {@link AbstractBenchmarkCase} one by one, so that external
+ * harnesses (i.e., JMH) drive warm-up, measurement and result gathering themselves,
+ * instead of {@link AbstractBenchmarkCase#executeBenchmark(IBenchmarkData)}.
+ * <p>
+ * Stages must be called in the following order, where the inner ones may be repeated:
+ * <ol>
+ *   <li>{@link #setUpTrial()}</li>
+ *   <li>{@link #setUp()}</li>
+ *   <li>{@link #execute()}</li>
+ *   <li>{@link #tearDown()}</li>
+ *   <li>{@link #tearDownTrial()}</li>
+ * </ol>
+ * No metrics are gathered by this class.
+ *
+ * @author vroldan
+ */
+public class BenchmarkCaseRunner {
+
+	private final AbstractBenchmarkCase benchmarkCase;
+
+	private final IModelRepository repository;
+
+	private IBenchmarkModel benchmarkModel;
+
+	private EObject model;
+
+	public BenchmarkCaseRunner(AbstractBenchmarkCase benchmarkCase, IModelRepository repository) {
+		this.benchmarkCase = benchmarkCase;
+		this.repository = repository;
+	}
+
+	/**
+	 * Cleans the repository and loads the {@link IBenchmarkModel} once for all executions
+	 */
+	public void setUpTrial() {
+		repository.clean();
+		benchmarkModel = benchmarkCase.getBenchmarkModel();
+	}
+
+	/**
+	 * Adapts a fresh copy of the model to the repository, and calls
+	 * {@link AbstractBenchmarkCase#setUpCase(IModelRepository, EObject)}
+	 */
+	public void setUp() {
+		if (benchmarkModel == null) {
+			throw new IllegalStateException("setUpTrial() must be called before setUp()"); //$NON-NLS-1$
+		}
+		model = repository.adaptModel(benchmarkModel.getRoot());
+		benchmarkCase.setUpCase(repository, model);
+	}
+
+	/**
+	 * Calls {@link AbstractBenchmarkCase#executeMeasurable(IModelRepository, EObject)}
+	 *
+	 * @return the model used in the execution, so that harnesses may consume it
+	 */
+	public EObject execute() {
+		benchmarkCase.executeMeasurable(repository, model);
+		return model;
+	}
+
+	/**
+	 * Calls {@link AbstractBenchmarkCase#tearDownCase(IModelRepository, EObject)}
+	 */
+	public void tearDown() {
+		try {
+			benchmarkCase.tearDownCase(repository, model);
+		} finally {
+			model = null;
+		}
+	}
+
+	/**
+	 * Leaves both the {@link IBenchmarkCase} and the {@link IModelRepository} clean
+	 */
+	public void tearDownTrial() {
+		benchmarkCase.reset();
+		benchmarkModel = null;
+		if (repository.getStatus() == RepositoryStatus.RUNNING) {
+			repository.stop();
+		}
+		repository.clean();
+	}
+
+	/**
+	 * Returns true if the repository reported an error during the last stage
+	 */
+	public boolean isFailed() {
+		return repository.getStatus() == RepositoryStatus.ERROR;
+	}
+
+	public AbstractBenchmarkCase getBenchmarkCase() {
+		return benchmarkCase;
+	}
+
+	public IModelRepository getRepository() {
+		return repository;
+	}
+}
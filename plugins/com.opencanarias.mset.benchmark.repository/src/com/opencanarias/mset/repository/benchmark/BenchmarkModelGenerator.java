@@ -11,16 +11,28 @@
 package com.opencanarias.mset.repository.benchmark;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
-import org.eclipse.emf.common.util.TreeIterator;
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EDataType;
 import org.eclipse.emf.ecore.EFactory;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.EcorePackage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,6 +51,11 @@ import com.opencanarias.mset.internal.repository.benchmark.ModelPropertiesImpl;
  * {@link IModelProperties#getWidth()} as model width. If {@link IModelProperties#getHasValues()}
  * is set to <code>true</code>, the model {@link EAttribute} will be set with random data,
  * respecting the size of {@link EAttribute} value defined at {@link IModelProperties#getValueLength()}.
+ * <p>
+ * Every random value derives from the {@link IModelProperties#getSeed() seed} of the properties,
+ * so the same properties and seed always produce the same model, whatever the number of threads.
+ * Unseeded properties get the seed of {@link #PROPERTY_SEED}, or a random one, which is set on them
+ * so that results record it.
  * 
  * @author vroldan
  *
@@ -64,6 +81,31 @@ public class BenchmarkModelGenerator {
 
 	private final Random random = new Random();
 
+	// Seeds drawn at random by any generator, whose models will never be requested again
+	private static final Set<Long> randomSeeds = Collections.synchronizedSet(new HashSet<Long>());
+
+	/**
+	 * System property with the number of threads {@link #generateModel(EFactory, EPackage, IModelProperties)}
+	 * uses, 1 by default
+	 */
+	public static final String PROPERTY_PARALLELISM = "mset.benchmark.generator.parallelism"; //$NON-NLS-1$
+
+	/**
+	 * System property with the seed of unseeded {@link IModelProperties}, random by default
+	 */
+	public static final String PROPERTY_SEED = "mset.benchmark.generator.seed"; //$NON-NLS-1$
+
+	/**
+	 * System property with the number of elements {@link #generateInto(IModelRepository, Resource, IModelProperties, int)}
+	 * saves at once, {@link #DEFAULT_CHUNK_SIZE} by default
+	 */
+	public static final String PROPERTY_CHUNK_SIZE = "mset.benchmark.generator.chunkSize"; //$NON-NLS-1$
+
+	public static final int DEFAULT_CHUNK_SIZE = 10000;
+
+	// Below this count, the overhead of threads is not worth it
+	private static final int MIN_PARALLEL_COUNT = 10000;
+
 	private final static int DEFAULT_LOWER_BOUND = 1;
 
 	private final static int DEFAULT_UPPER_BOUND = 20000;
@@ -77,7 +119,7 @@ public class BenchmarkModelGenerator {
 	 * 
 	 * @return an instance of {@link BenchmarkModelGenerator}
 	 */
-	public static BenchmarkModelGenerator getInstance() {
+	public static synchronized BenchmarkModelGenerator getInstance() {
 		if (instance == null) {
 			instance = new BenchmarkModelGenerator();
 		}
@@ -103,14 +145,11 @@ public class BenchmarkModelGenerator {
 
 	/**
 	 * This method has a main loop which randomly attaches new EObjects to the
-	 * tree, always trying to fulfill the {@link IModelProperties}
-	 * constraints. Depending on the width and depth, the model would have a
-	 * maximum number of elements, by definition. The current algorithm's
-	 * difficulty to find where to add a new child during generation loop is
-	 * directly proportional to how close the max count value is to the max
-	 * allowed count according to the width and depth. The parent lookup process
-	 * is random, and thats why its increasingly difficult to find a place to
-	 * add the new EObject child.
+	 * tree, always fulfilling the {@link IModelProperties} constraints. Every
+	 * new EObject is attached to a parent chosen at random among those that may
+	 * still accept children without exceeding the width and depth, which are
+	 * kept in an index along with their current width and depth, so that every
+	 * step takes constant time regardless of the size of the model.
 	 * <p>
 	 * The implementation guarantees the model wont exceed the given maximum
 	 * values indicated in the {@link IModelProperties}, but does not
@@ -120,65 +159,288 @@ public class BenchmarkModelGenerator {
 	 * {@link IModelProperties}.
 	 */
 	public IBenchmarkModel generateModel(EFactory factory, EPackage ePackage, IModelProperties props) {
+		return generateModel(factory, ePackage, props, Integer.getInteger(PROPERTY_PARALLELISM, 1));
+	}
+
+	/**
+	 * Same as {@link #generateModel(EFactory, EPackage, IModelProperties)}, but building
+	 * the model in the argument number of threads. The count of models from 10k elements
+	 * is split evenly among as many children of the root as the width allows, and the
+	 * subtree of every child is generated as an independent task with its own random
+	 * generator, then attached to the root. The resulting model honors the same constraints,
+	 * although its root always has the maximum number of children the count allows. Since
+	 * the split does not depend on the number of threads, neither does the model.
+	 * <p>
+	 * {@link IModelProperties#getMemUsage() Memory sensitive} models, which are not
+	 * reproducible, and small models are always generated in the calling thread.
+	 *
+	 * @param parallelism the maximum number of threads, 1 to generate in the calling thread
+	 */
+	public IBenchmarkModel generateModel(EFactory factory, EPackage ePackage, IModelProperties props, int parallelism) {
 		if (props == VOID_PROPERTIES) {
 			return VOID_MODEL;
 		}
 		assertModelPropsAreFeasible(props);
+		if (props.getSeed() == IModelProperties.UNSEEDED) {
+			props.setSeed(getDefaultSeed());
+		}
 		logger.trace("Starting generating model with properties {}", props);
+		Random modelRandom = new Random(props.getSeed());
+		EObject rootEObject = createNode(factory, ePackage);
+		setRandomAttributes(rootEObject, modelRandom);
+		if (props.getMemUsage() != IModelProperties.NOT_MEMORY_SENSITIVE || props.getCount() < MIN_PARALLEL_COUNT) {
+			int count = generateTree(factory, ePackage, props, rootEObject, props.getCount(), props.getDepth(), modelRandom);
+			logger.trace("Finished creating {} elements", count);
+		} else {
+			generateSubtrees(factory, ePackage, props, rootEObject, parallelism);
+			logger.trace("Finished creating {} elements in {} threads", props.getCount(), parallelism);
+		}
+		return new BenchmarkModelImpl(rootEObject);
+	}
+
+	/*
+	 * Attaches new EObjects under the argument root until the tree has the argument count
+	 * and depth, or the heap usage is met if memory sensitive. Returns the final count.
+	 */
+	private int generateTree(EFactory factory, EPackage ePackage, IModelProperties props, EObject rootEObject,
+			int maxObjectCount, int maxDepth, Random random) {
 		final boolean shouldGenerateEAttributes = props.getValueLength() > 0;
 		final int heapPercentage = props.getMemUsage();
-		final int maxObjectCount = props.getCount();
 		int currentCount = 1;
-		// counts the number of times the algorithm searches for an alternative
-		// parent to satisfy the shape constaints
-		int randomSearchMiss = 0;
 		long initialFreeHeap = currentAvailableHeap(); // relative to max heap
 														// size
 
-		EObject rootEObject = createNode(factory, ePackage);
-		EObject currentParent = rootEObject;
-		setRandomAttributes(currentParent);
+		ParentIndex parents = new ParentIndex(props.getWidth(), maxDepth);
+		parents.add(rootEObject, 1);
 		
 		while (((heapPercentage > IModelProperties.NOT_MEMORY_SENSITIVE) || (currentCount < maxObjectCount))
 				&& heapUsageIsMet(heapPercentage, initialFreeHeap)) {
+			if (parents.isEmpty()) {
+				logger.debug("The model is complete for its width and depth at {} elements", currentCount);
+				break;
+			}
 			// New child generation
 			EObject child = createNode(factory, ePackage);
 			if (shouldGenerateEAttributes) {
-				setRandomAttributes(child);
+				setRandomAttributes(child, random);
 			}
+			int parent = random.nextInt(parents.size());
+			addChild(parents.get(parent), child);
+			parents.add(child, parents.childAdded(parent));
+			currentCount++;
+		}
+		return currentCount;
+	}
 
-			// Ensure model shape
-			boolean nextAddSatisfiesShape = false;
-			// Look for the right place to attach the child.
-			// This process is expensive, as the search is random
-			// Keeps searching until it finds somewhere to place it and satisfy
-			// the contraints
-			int numberOfTrials = 0;
-			do {
-				currentParent = selectRandomParent(rootEObject, currentCount);
-				int currentParentWidth = BenchmarkUtils.getEObjectWidth(currentParent);
-				// we are going to add a child, so its current depth + 1
-				int currentParentDepth = BenchmarkUtils.getEObjectDepth(currentParent) + 1;
-				if ((currentParentWidth < props.getWidth())
-						&& (currentParentDepth <= props.getDepth())) {
-					addChild(currentParent, child);
-					nextAddSatisfiesShape = true;
-					currentCount++;
-				} else {
-					randomSearchMiss++;
-					numberOfTrials++;
-				}
-			} while ((!nextAddSatisfiesShape)
-					&& (currentCount < maxObjectCount));
-
-			logger.trace("Tried {} times to look for the appropiate parent to attach child", numberOfTrials);
-			if (logger.isTraceEnabled()) {
-				logger.trace("Number of elements created so far is {}/{}", BenchmarkUtils.getModelSize(rootEObject), maxObjectCount);
+	/*
+	 * Feasibility guarantees every subtree fits in width^0 + ... + width^(depth - 2) elements
+	 */
+	private void generateSubtrees(EFactory factory, EPackage ePackage, IModelProperties props,
+			EObject rootEObject, int parallelism) {
+		int subtrees = Math.min(props.getWidth(), props.getCount() - 1);
+		List<SubtreeTask> tasks = new ArrayList<SubtreeTask>(subtrees);
+		for (int i = 0; i < subtrees; i++) {
+			int count = (props.getCount() - 1) / subtrees + (i < (props.getCount() - 1) % subtrees ? 1 : 0);
+			tasks.add(new SubtreeTask(factory, ePackage, props, count, splitSeed(props.getSeed(), i)));
+		}
+		if (parallelism <= 1) {
+			for (SubtreeTask task : tasks) {
+				addChild(rootEObject, task.call());
 			}
+			return;
+		}
+		// EClass features are computed lazily, so they are computed before being shared among threads
+		rootEObject.eClass().getEAllContainments();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, subtrees), new ThreadFactory() {
+			private int count;
+			@Override
+			public synchronized Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "mset-model-generator-" + (++count)); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			// Subtrees are attached in order, whatever the order they finish in
+			for (Future<EObject> future : executor.invokeAll(tasks)) {
+				addChild(rootEObject, future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while generating model", e); //$NON-NLS-1$
+		} catch (ExecutionException e) {
+			throw new RuntimeException("Error generating model", e.getCause()); //$NON-NLS-1$
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/*
+	 * Generates a subtree one level below the root
+	 */
+	private class SubtreeTask implements Callable<EObject> {
+
+		private final EFactory factory;
+
+		private final EPackage ePackage;
+
+		private final IModelProperties props;
+
+		private final int count;
+
+		private final long seed;
+
+		SubtreeTask(EFactory factory, EPackage ePackage, IModelProperties props, int count, long seed) {
+			this.factory = factory;
+			this.ePackage = ePackage;
+			this.props = props;
+			this.count = count;
+			this.seed = seed;
+		}
+
+		@Override
+		public EObject call() {
+			Random subtreeRandom = new Random(seed);
+			EObject subtreeRoot = createNode(factory, ePackage);
+			if (props.getValueLength() > 0) {
+				setRandomAttributes(subtreeRoot, subtreeRandom);
+			}
+			generateTree(factory, ePackage, props, subtreeRoot, count, props.getDepth() - 1, subtreeRandom);
+			return subtreeRoot;
+		}
+	}
+
+	/*
+	 * SplitMix64, so that the generators of the subtrees are statistically independent
+	 */
+	private static long splitSeed(long seed, int index) {
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Generates a model straight into the argument resource of the argument repository,
+	 * saving the resource every time the argument number of elements has been added, so that
+	 * models bigger than the heap may be stored in repositories that release saved objects,
+	 * such as CDO. The model is built depth first, and only the path from the root to the
+	 * element being added is referenced by the generator, along with how many elements the
+	 * subtree of each child on that path must have.
+	 * <p>
+	 * The model honors the count, depth and width of the {@link IModelProperties properties},
+	 * and is reproducible from their {@link IModelProperties#getSeed() seed}, which is set if
+	 * unseeded, although it is not the model {@link #generateModel(IModelProperties)} would
+	 * produce. Since the model is not kept in memory, {@link IModelProperties#getMemUsage()}
+	 * is ignored.
+	 *
+	 * @param chunkSize the number of elements added between saves
+	 * @return the root of the model, contained in the argument resource
+	 */
+	public EObject generateInto(IModelRepository repository, Resource resource, IModelProperties props, int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize); //$NON-NLS-1$
+		}
+		assertModelPropsAreFeasible(props);
+		if (props.getSeed() == IModelProperties.UNSEEDED) {
+			props.setSeed(getDefaultSeed());
+		}
+		logger.debug("Streaming model with properties {} into {}", props, repository.getName());
+		Random modelRandom = new Random(props.getSeed());
+		final boolean shouldGenerateEAttributes = props.getValueLength() > 0;
+		// The repository-specific EClass is taken from the adapted root
+		EObject plainRoot = createNode(NodeFactory.eINSTANCE, NodePackage.eINSTANCE);
+		setRandomAttributes(plainRoot, modelRandom);
+		EObject rootEObject = repository.adaptModel(plainRoot);
+		EClass eClass = rootEObject.eClass();
+		EFactory factory = eClass.getEPackage().getEFactoryInstance();
+		resource.getContents().add(rootEObject);
+
+		long[] capacities = getSubtreeCapacities(props);
+		LinkedList<StreamFrame> path = new LinkedList<StreamFrame>();
+		path.push(new StreamFrame(rootEObject, 1, splitBudget(props.getCount() - 1, 1, props, capacities, modelRandom)));
+		int unsaved = 1;
+		while (!path.isEmpty()) {
+			StreamFrame parent = path.peek();
+			if (parent.next == parent.shares.length) {
+				path.pop();
+				continue;
+			}
+			int share = parent.shares[parent.next++];
+			EObject child = factory.create(eClass);
+			if (shouldGenerateEAttributes) {
+				setRandomAttributes(child, modelRandom);
+			}
+			addChild(parent.node, child);
+			path.push(new StreamFrame(child, parent.depth + 1, splitBudget(share - 1, parent.depth + 1, props, capacities, modelRandom)));
+			if (++unsaved == chunkSize) {
+				repository.save(resource);
+				unsaved = 0;
+			}
+		}
+		if (unsaved > 0) {
+			repository.save(resource);
+		}
+		logger.debug("Finished streaming {} elements into {}", props.getCount(), repository.getName());
+		return rootEObject;
+	}
+
+	/*
+	 * capacities[levels] is the maximum size of a subtree of that many levels, saturated
+	 */
+	private static long[] getSubtreeCapacities(IModelProperties props) {
+		long[] capacities = new long[props.getDepth() + 1];
+		long level = 1;
+		for (int i = 1; i < capacities.length; i++) {
+			capacities[i] = Math.min(Integer.MAX_VALUE, capacities[i - 1] + level);
+			level = Math.min(Integer.MAX_VALUE, level * props.getWidth());
+		}
+		return capacities;
+	}
+
+	/*
+	 * Splits the elements below a node of the argument depth among a random number of
+	 * children, each getting a random share around the mean that fits in its subtree
+	 */
+	private static int[] splitBudget(int budget, int depth, IModelProperties props, long[] capacities, Random random) {
+		if (budget == 0) {
+			return new int[0];
+		}
+		long capacity = capacities[props.getDepth() - depth];
+		int minChildren = (int)((budget + capacity - 1) / capacity);
+		int maxChildren = Math.min(props.getWidth(), budget);
+		int children = minChildren + random.nextInt(maxChildren - minChildren + 1);
+		int[] shares = new int[children];
+		int remaining = budget;
+		for (int i = 0; i < children; i++) {
+			int left = children - i - 1;
+			long lower = Math.max(1, remaining - left * capacity);
+			long upper = Math.min(capacity, remaining - left);
+			upper = Math.max(lower, Math.min(upper, 2L * remaining / (left + 1)));
+			shares[i] = (int)(lower + (long)(random.nextDouble() * (upper - lower + 1)));
+			remaining -= shares[i];
+		}
+		return shares;
+	}
+
+	/*
+	 * A node on the path being generated, and the sizes of the subtrees of its children
+	 */
+	private static class StreamFrame {
+
+		private final EObject node;
+
+		private final int depth;
+
+		private final int[] shares;
+
+		private int next;
+
+		StreamFrame(EObject node, int depth, int[] shares) {
+			this.node = node;
+			this.depth = depth;
+			this.shares = shares;
 		}
-		logger.trace("Finished creating {} elements", BenchmarkUtils.getModelSize(rootEObject));
-		logger.trace("Algorithm total misses: {} times", randomSearchMiss);
-		return new BenchmarkModelImpl(rootEObject);
 	}
 
 	/**
@@ -192,19 +454,52 @@ public class BenchmarkModelGenerator {
 	 *         must be within the argument range.
 	 */
 	public IModelProperties generateRandomProperties(int lowerRange, int upperRange) {
+		return generateRandomProperties(lowerRange, upperRange, getDefaultSeed());
+	}
+
+	/**
+	 * Same as {@link #generateRandomProperties(int, int)}, drawing the attributes from the
+	 * argument seed, which is also the seed of the resulting properties. The same range and
+	 * seed always produce the same properties.
+	 */
+	public IModelProperties generateRandomProperties(int lowerRange, int upperRange, long seed) {
+		Random propsRandom = new Random(seed);
 		IModelProperties props = null;
 		int iterationLimit = 10;
 		do {
 			props = createProperties();		
-			props.setValueLength(getRandomInt(lowerRange, upperRange));
-			props.setCount(getRandomInt(lowerRange, upperRange));
-			props.setDepth(getRandomInt(lowerRange, upperRange));
-			props.setWidth(getRandomInt(lowerRange, upperRange));
+			props.setValueLength(getRandomInt(lowerRange, upperRange, propsRandom));
+			props.setCount(getRandomInt(lowerRange, upperRange, propsRandom));
+			props.setDepth(getRandomInt(lowerRange, upperRange, propsRandom));
+			props.setWidth(getRandomInt(lowerRange, upperRange, propsRandom));
 			iterationLimit--;			
 		} while (!checkModelPropsAreFeasible(props) && iterationLimit > 0);
+		props.setSeed(seed);
 		return props;
 	}
 
+	/**
+	 * Returns true if the argument seed was drawn at random for unseeded properties,
+	 * rather than chosen by the caller or given by {@link #PROPERTY_SEED}
+	 */
+	public static boolean isRandomSeed(long seed) {
+		return randomSeeds.contains(seed);
+	}
+
+	/*
+	 * The seed of PROPERTY_SEED, or a random one
+	 */
+	private long getDefaultSeed() {
+		long seed = Long.getLong(PROPERTY_SEED, IModelProperties.UNSEEDED);
+		if (seed == IModelProperties.UNSEEDED) {
+			do {
+				seed = random.nextLong();
+			} while (seed == IModelProperties.UNSEEDED);
+			randomSeeds.add(seed);
+		}
+		return seed;
+	}
+
 	/**
 	 * Generates an {@link IModelProperties} instance 
 	 * that specifies a free heap memory percentage. The generator
@@ -287,21 +582,21 @@ public class BenchmarkModelGenerator {
 		return currentUsage > heapPercentage;
 	}
 
-	private void setRandomAttributes(EObject child) {
+	private void setRandomAttributes(EObject child, Random random) {
 		for (EAttribute eAttribute : child.eClass().getEAllAttributes()) {
-			child.eSet(eAttribute, generateRandomAttribute(eAttribute));
+			child.eSet(eAttribute, generateRandomAttribute(eAttribute, random));
 		}
 
 	}
 
-	private Object generateRandomAttribute(EAttribute eAttribute) {
+	private Object generateRandomAttribute(EAttribute eAttribute, Random random) {
 		EDataType type = (EDataType) eAttribute.getEType();
 		if (type == EcorePackage.Literals.ESTRING) {
-			return getRandomString(Math.abs(getRandomInt(0, MAX_ARRAY_SIZE)));
+			return getRandomString(Math.abs(getRandomInt(0, MAX_ARRAY_SIZE, random)), random);
 		} else if (type == EcorePackage.Literals.EINT) {
 			return random.nextInt();
 		} else if (type == EcorePackage.Literals.EBYTE_ARRAY) {
-			byte[] byteArray = new byte[Math.abs(getRandomInt(0, MAX_ARRAY_SIZE))];
+			byte[] byteArray = new byte[Math.abs(getRandomInt(0, MAX_ARRAY_SIZE, random))];
 			random.nextBytes(byteArray);
 			return byteArray;
 		}
@@ -315,22 +610,11 @@ public class BenchmarkModelGenerator {
 		containmentFeature.add(child);
 	}
 
-	private EObject selectRandomParent(EObject rootEObject, int currentSize) {
-		TreeIterator<EObject> it = rootEObject.eAllContents();
-		int randomJumps = getRandomInt(0, currentSize);
-		EObject selectedElement = rootEObject;
-		while (it.hasNext() && randomJumps > 0) {
-			selectedElement = it.next();
-			randomJumps--;
-		}
-		return selectedElement;
-	}
-
 	private EObject createNode(EFactory factory, EPackage ePackage) {
 		return factory.create((EClass) ePackage.getEClassifiers().get(0));
 	}
 
-	private int getRandomInt(int lowerRange, int upperRange) {
+	private static int getRandomInt(int lowerRange, int upperRange, Random random) {
 		if (lowerRange == upperRange) {
 			return lowerRange;
 		}
@@ -338,11 +622,82 @@ public class BenchmarkModelGenerator {
 		return randomValue;
 	}
 
-	private String getRandomString(int length) {
+	private static String getRandomString(int length, Random random) {
 		char[] text = new char[length];
 		for (int i = 0; i < length; i++) {
 			text[i] = RANDOM_CHARS[(random.nextInt(RANDOM_CHARS.length))];
 		}
 		return new String(text);
 	}
+
+	/*
+	 * Nodes that may still accept children, with their cached width and depth.
+	 * Nodes that become full are swapped with the last one, so selecting and
+	 * removing a parent take constant time.
+	 */
+	private static class ParentIndex {
+
+		private final int maxWidth;
+
+		private final int maxDepth;
+
+		private EObject[] nodes = new EObject[16];
+
+		private int[] widths = new int[16];
+
+		private int[] depths = new int[16];
+
+		private int size;
+
+		ParentIndex(int maxWidth, int maxDepth) {
+			this.maxWidth = maxWidth;
+			this.maxDepth = maxDepth;
+		}
+
+		boolean isEmpty() {
+			return size == 0;
+		}
+
+		int size() {
+			return size;
+		}
+
+		EObject get(int index) {
+			return nodes[index];
+		}
+
+		/*
+		 * Adds the node if its children would not exceed the depth
+		 */
+		void add(EObject node, int depth) {
+			if (depth >= maxDepth || maxWidth < 1) {
+				return;
+			}
+			if (size == nodes.length) {
+				nodes = Arrays.copyOf(nodes, size * 2);
+				widths = Arrays.copyOf(widths, size * 2);
+				depths = Arrays.copyOf(depths, size * 2);
+			}
+			nodes[size] = node;
+			widths[size] = 0;
+			depths[size] = depth;
+			size++;
+		}
+
+		/*
+		 * Accounts a new child of the node at the argument index, and
+		 * returns the depth of that child
+		 */
+		int childAdded(int index) {
+			int childDepth = depths[index] + 1;
+			if (++widths[index] >= maxWidth) {
+				size--;
+				nodes[index] = nodes[size];
+				widths[index] = widths[size];
+				depths[index] = depths[size];
+				nodes[size] = null;
+			}
+			return childDepth;
+		}
+	}
 }
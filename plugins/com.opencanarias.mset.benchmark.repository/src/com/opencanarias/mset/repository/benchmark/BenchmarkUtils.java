@@ -52,7 +52,7 @@ public class BenchmarkUtils {
 	 * allows to define the heap polling interval for the meter.
 	 * 
 	 * @param pollingInterval frequency in milliseconds on how long it takes for the meter
-	 *                        to take a heap snapshot
+	 *                        to take a heap snapshot, 0 for no heap snapshots at all
 	 *                        
 	 * @return an instance of {@link IBenchmarkMeter} with a predefined 
 	 * 		  {@link IBenchmarkMeter#getPollingInterval() pollingInterval}
@@ -64,7 +64,7 @@ public class BenchmarkUtils {
 	/**
 	 * Creates an instance of a {@link IBenchmarkMeter}. 
 	 * The {@link IBenchmarkMeter#getPollingInterval() pollingInterval} is set to a default
-	 * value.
+	 * value of 10 milliseconds.
 	 * 
 	 * @param pollingInterval frequency in milliseconds on how long it takes for the meter
 	 *                        to take a heap snapshot
@@ -283,4 +283,15 @@ public class BenchmarkUtils {
 	public static IAggregatedResult createAggregateResult(){
 		return new AggregatedResultImpl(); 
 	}
+	
+	/**
+	 * Creates an empty {@link IAggregatedResult}, whose {@link IStatistics} leave
+	 * out outliers if so indicated
+	 *  
+	 * @param outlierRejection true to leave out values outside the Tukey fences
+	 * @return new instance of {@link IAggregatedResult}
+	 */
+	public static IAggregatedResult createAggregateResult(boolean outlierRejection){
+		return new AggregatedResultImpl(outlierRejection); 
+	}
 }
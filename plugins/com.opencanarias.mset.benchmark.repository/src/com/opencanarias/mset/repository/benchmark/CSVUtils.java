@@ -10,6 +10,14 @@
  */
 package com.opencanarias.mset.repository.benchmark;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.opencanarias.mset.internal.repository.benchmark.BenchmarkResultCSV;
+import com.opencanarias.mset.repository.benchmark.IModelOperation.OperationType;
+
 /**
  * Utility class to format {@link IBenchmarkResult} into CSV format 
  * to ease readability and further analysis of the results.
@@ -28,11 +36,35 @@ public class CSVUtils {
 			+ "size" + FIELD_SEPARATOR 
 			+ "depth" + FIELD_SEPARATOR 
 			+ "width" + FIELD_SEPARATOR 
+			+ "seed" + FIELD_SEPARATOR 
 			+ "realTime" + FIELD_SEPARATOR 
+			+ "realTimeNs" + FIELD_SEPARATOR 
+			+ "cpuTime" + FIELD_SEPARATOR 
+			+ "userTime" + FIELD_SEPARATOR 
 			+ "avgUsed" + FIELD_SEPARATOR 
 			+ "avgFree" + FIELD_SEPARATOR 
 			+ "avgTotalAvailable" + FIELD_SEPARATOR 
-			+ "avgMaxAvailable" + LINE_SEPARATOR;
+			+ "avgMaxAvailable" + FIELD_SEPARATOR 
+			+ "threadCPUNs" + FIELD_SEPARATOR 
+			+ "allocatedBytes" + FIELD_SEPARATOR 
+			+ "bytesPerElement" + FIELD_SEPARATOR 
+			+ "allocRateMBs" + FIELD_SEPARATOR 
+			+ "gcCount" + FIELD_SEPARATOR 
+			+ "gcTime" + FIELD_SEPARATOR 
+			+ "gcCounts" + FIELD_SEPARATOR 
+			+ "gcTimes" + FIELD_SEPARATOR 
+			+ "poolUsed" + FIELD_SEPARATOR 
+			+ "poolPeak" + FIELD_SEPARATOR 
+			+ "opLatenciesNs" + FIELD_SEPARATOR 
+			+ "warmupIterations" + FIELD_SEPARATOR 
+			+ "warmupTimeNs" + FIELD_SEPARATOR 
+			+ "steadyState" + LINE_SEPARATOR;
+	
+	private static String DETAIL_SEPARATOR = ";"; //$NON-NLS-1$
+	
+	private static String LATENCY_SEPARATOR = "/"; //$NON-NLS-1$
+	
+	private static String DETAIL_ASSIGNMENT = "="; //$NON-NLS-1$
 	
 	private static String CSV_AGGREGATION_HEADER = "CaseName" + FIELD_SEPARATOR
 			+ "RepoName" + FIELD_SEPARATOR
@@ -41,6 +73,14 @@ public class CSVUtils {
 			+ "realTimeDev" + FIELD_SEPARATOR
 			+ "minRealTime" + FIELD_SEPARATOR 
 			+ "maxRealTime" + FIELD_SEPARATOR 
+			+ "medianRealTimeNs" + FIELD_SEPARATOR 
+			+ "realTimeMADNs" + FIELD_SEPARATOR 
+			+ "p90RealTimeNs" + FIELD_SEPARATOR 
+			+ "realTimeCI95LowNs" + FIELD_SEPARATOR 
+			+ "realTimeCI95HighNs" + FIELD_SEPARATOR 
+			+ "outliers" + FIELD_SEPARATOR 
+			+ "metrics" + FIELD_SEPARATOR 
+			+ "opLatencyMeansNs" + FIELD_SEPARATOR 
 			+ LINE_SEPARATOR;
 	
 	/**
@@ -88,16 +128,34 @@ public class CSVUtils {
 	 * @return a String listing all the result's attributes, with CSV Format.
 	 */
 	public static String toEntry(IBenchmarkResult result) {
-		return  (result.getBenchmarkCase() != null ? result.getBenchmarkCase().getName() : "NoCase") + FIELD_SEPARATOR  + 
-				(result.getModelRepository() != null ? result.getModelRepository().getName() : "NoRepository") + FIELD_SEPARATOR 
+		return  (result.getBenchmarkCaseName() != null ? result.getBenchmarkCaseName() : "NoCase") + FIELD_SEPARATOR  + 
+				(result.getModelRepositoryName() != null ? result.getModelRepositoryName() : "NoRepository") + FIELD_SEPARATOR 
 				+ result.getModelProperties().getCount() + FIELD_SEPARATOR 
 				+ result.getModelProperties().getDepth() + FIELD_SEPARATOR
 				+ result.getModelProperties().getWidth() + FIELD_SEPARATOR
+				+ result.getModelProperties().getSeed() + FIELD_SEPARATOR
 				+ result.getRealTime() + FIELD_SEPARATOR 
+				+ result.getRealTimeNanos() + FIELD_SEPARATOR 
+				+ result.getCPUTime() + FIELD_SEPARATOR 
+				+ result.getUserTime() + FIELD_SEPARATOR 
 				+ result.getAverageUsedMemory() + FIELD_SEPARATOR 
 				+  result.getAverageFreeMemory() + FIELD_SEPARATOR 
 				+ result.getAverageTotalAvailableMemory() + FIELD_SEPARATOR 
-				+ result.getMaxAvailableMemory() 
+				+ result.getMaxAvailableMemory() + FIELD_SEPARATOR 
+				+ toDetailEntry(result.getThreadCPUTimes()) + FIELD_SEPARATOR 
+				+ result.getAllocatedBytes() + FIELD_SEPARATOR 
+				+ result.getAllocatedBytesPerElement() + FIELD_SEPARATOR 
+				+ result.getAllocationRate() + FIELD_SEPARATOR 
+				+ result.getGCCount() + FIELD_SEPARATOR 
+				+ result.getGCTime() + FIELD_SEPARATOR 
+				+ toDetailEntry(result.getGCCounts()) + FIELD_SEPARATOR 
+				+ toDetailEntry(result.getGCTimes()) + FIELD_SEPARATOR 
+				+ toPoolUsedEntry(result.getMemoryPoolUsages()) + FIELD_SEPARATOR 
+				+ toPoolPeakEntry(result.getMemoryPoolUsages()) + FIELD_SEPARATOR 
+				+ toLatencyEntry(result.getOperationLatencies()) + FIELD_SEPARATOR 
+				+ result.getWarmupIterations() + FIELD_SEPARATOR 
+				+ result.getWarmupTimeNanos() + FIELD_SEPARATOR 
+				+ result.isSteadyStateReached()
 				+ (result.isFailed() ? FIELD_SEPARATOR + "failed" + LINE_SEPARATOR : LINE_SEPARATOR);				
 	}
 	
@@ -110,14 +168,118 @@ public class CSVUtils {
 	 * @return a CSV formated String, listing all the aggregation attributes
 	 */
 	public static String toEntry(IAggregatedResult result) {
-		String caseName = result.getAggregatedResults().size() > 0 ? result.getAggregatedResults().get(0).getBenchmarkCase().getName() : "NoName";
-		String repoName = result.getAggregatedResults().size() > 0 ? result.getAggregatedResults().get(0).getModelRepository().getName() : "NoName";
+		String caseName = result.getAggregatedResults().size() > 0 ? result.getAggregatedResults().get(0).getBenchmarkCaseName() : "NoName";
+		String repoName = result.getAggregatedResults().size() > 0 ? result.getAggregatedResults().get(0).getModelRepositoryName() : "NoName";
+		IStatistics realTime = result.getStatistics(IAggregatedResult.Metric.REAL_TIME);
 		return  caseName + FIELD_SEPARATOR  
 				+ repoName + FIELD_SEPARATOR
 				+ result.getAggregatedResults().size() + FIELD_SEPARATOR
 				+ result.getAvgRealTime() + FIELD_SEPARATOR
 				+ result.getRealTimeDeviation() + FIELD_SEPARATOR
 				+ result.getMinRealTime() + FIELD_SEPARATOR
-				+ result.getMaxRealTime() + LINE_SEPARATOR;
+				+ result.getMaxRealTime() + FIELD_SEPARATOR
+				+ Math.round(realTime.getMedian()) + FIELD_SEPARATOR
+				+ Math.round(realTime.getMedianAbsoluteDeviation()) + FIELD_SEPARATOR
+				+ Math.round(realTime.getPercentile(90)) + FIELD_SEPARATOR
+				+ Math.round(realTime.getConfidenceIntervalLow()) + FIELD_SEPARATOR
+				+ Math.round(realTime.getConfidenceIntervalHigh()) + FIELD_SEPARATOR
+				+ realTime.getOutlierCount() + FIELD_SEPARATOR
+				+ toMetricsEntry(result) + FIELD_SEPARATOR
+				+ toLatencyStatisticsEntry(result) + LINE_SEPARATOR;
+	}
+	
+	/**
+	 * Reads the {@link IBenchmarkResult results} listed in the content of a CSV file 
+	 * written using {@link CSVUtils#toEntry(IBenchmarkResult)}. Any line before
+	 * the {@link CSVUtils#getResultHeader() result header} is ignored. Only scalar
+	 * attributes are read back: per thread, per memory pool and per operation 
+	 * details are left empty.
+	 * 
+	 * @param content the content of a CSV file
+	 * @return the results listed in the content, in order
+	 * @throws IllegalArgumentException if the content does not list any result
+	 */
+	public static List<IBenchmarkResult> parseResults(String content) {
+		return BenchmarkResultCSV.fromCSV(content);
+	}
+	
+	/**
+	 * Returns a single CSV field listing all the entries of the argument map,
+	 * with the form <code>key=value;key=value</code>
+	 * 
+	 * @return a String representing the argument map as a single CSV field
+	 */
+	public static String toDetailEntry(Map<String, ? extends Object> details) {
+		StringBuilder builder = new StringBuilder();
+		for (Map.Entry<String, ? extends Object> entry : details.entrySet()) {
+			if (builder.length() > 0) {
+				builder.append(DETAIL_SEPARATOR);
+			}
+			builder.append(entry.getKey()).append(DETAIL_ASSIGNMENT).append(entry.getValue());
+		}
+		return builder.toString();
+	}
+	
+	private static String toPoolUsedEntry(Map<String, IMemoryPoolUsage> pools) {
+		Map<String, Long> used = new LinkedHashMap<String, Long>();
+		for (IMemoryPoolUsage pool : pools.values()) {
+			used.put(pool.getName(), pool.getUsed());
+		}
+		return toDetailEntry(used);
+	}
+	
+	private static String toPoolPeakEntry(Map<String, IMemoryPoolUsage> pools) {
+		Map<String, Long> peak = new LinkedHashMap<String, Long>();
+		for (IMemoryPoolUsage pool : pools.values()) {
+			peak.put(pool.getName(), pool.getPeakUsed());
+		}
+		return toDetailEntry(peak);
+	}
+	
+	/*
+	 * Each metric is written as mean/sd/median/ci95low/ci95high
+	 */
+	private static String toMetricsEntry(IAggregatedResult result) {
+		Map<String, String> entries = new LinkedHashMap<String, String>();
+		for (IAggregatedResult.Metric metric : IAggregatedResult.Metric.values()) {
+			IStatistics statistics = result.getStatistics(metric);
+			if (statistics.getCount() > 0) {
+				entries.put(metric.name(), toStatisticsEntry(statistics));
+			}
+		}
+		return toDetailEntry(entries);
+	}
+	
+	private static String toLatencyStatisticsEntry(IAggregatedResult result) {
+		Map<String, String> entries = new LinkedHashMap<String, String>();
+		for (OperationType operation : OperationType.values()) {
+			IStatistics statistics = result.getLatencyStatistics(operation);
+			if (statistics.getCount() > 0) {
+				entries.put(operation.name(), toStatisticsEntry(statistics));
+			}
+		}
+		return toDetailEntry(entries);
+	}
+	
+	private static String toStatisticsEntry(IStatistics statistics) {
+		return String.format(Locale.ENGLISH, "%.2f/%.2f/%.2f/%.2f/%.2f", statistics.getMean(), statistics.getStandardDeviation(), //$NON-NLS-1$
+				statistics.getMedian(), statistics.getConfidenceIntervalLow(), statistics.getConfidenceIntervalHigh());
+	}
+	
+	/*
+	 * Each operation is written as count/p50/p90/p99/p99.9/max
+	 */
+	private static String toLatencyEntry(Map<OperationType, ILatencyHistogram> latencies) {
+		Map<String, String> entries = new LinkedHashMap<String, String>();
+		for (Map.Entry<OperationType, ILatencyHistogram> entry : latencies.entrySet()) {
+			ILatencyHistogram histogram = entry.getValue();
+			entries.put(entry.getKey().name(), histogram.getCount() + LATENCY_SEPARATOR 
+					+ histogram.getP50() + LATENCY_SEPARATOR 
+					+ histogram.getP90() + LATENCY_SEPARATOR 
+					+ histogram.getP99() + LATENCY_SEPARATOR 
+					+ histogram.getP999() + LATENCY_SEPARATOR 
+					+ histogram.getMax());
+		}
+		return toDetailEntry(entries);
 	}
 }
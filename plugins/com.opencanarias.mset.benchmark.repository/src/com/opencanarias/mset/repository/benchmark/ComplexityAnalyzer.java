@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.opencanarias.mset.internal.repository.benchmark.ComplexityFitImpl;
+import com.opencanarias.mset.internal.repository.benchmark.MetricValues;
+import com.opencanarias.mset.internal.repository.benchmark.StatisticsImpl;
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+
+/**
+ * Relates the {@link IBenchmarkResult results} of a case measured with models of
+ * different {@link IModelProperties#getCount() sizes}, to find out how each
+ * repository scales.
+ * <p>
+ * Results are grouped by case and repository, and the median of the {@link Metric metric}
+ * is taken at each size. The medians are then fitted as a power law, whose exponent is
+ * 1 for linear growth and 2 for quadratic growth, and to each {@link IComplexityFit.ComplexityClass
+ * complexity class}. Fits whose exponent exceeds the threshold are flagged as superlinear.
+ * Fixed costs dominate small models and lower the exponent, so sizes below a minimum
+ * may be left out.
+ * <p>
+ * The same case is usually registered once per size, each with its own name. Such
+ * cases should be named with {@link #getSweepCaseName(String, String)}, so that they
+ * are analyzed together.
+ *
+ * @author vroldan
+ */
+public class ComplexityAnalyzer {
+
+	/** Default exponent above which a fit is superlinear */
+	public static final double DEFAULT_THRESHOLD = 1.2;
+
+	/** Separator of the size suffix in the names of sweep cases */
+	public static final String SIZE_SEPARATOR = "@"; //$NON-NLS-1$
+
+	private static final String KEY_SEPARATOR = "|"; //$NON-NLS-1$
+
+	private Metric metric = Metric.REAL_TIME;
+
+	private double threshold = DEFAULT_THRESHOLD;
+
+	private int minimumSize = 1;
+
+	public Metric getMetric() {
+		return metric;
+	}
+
+	/**
+	 * Sets the metric to analyze, {@link Metric#REAL_TIME} by default
+	 */
+	public void setMetric(Metric metric) {
+		this.metric = metric;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Sets the exponent above which a fit is superlinear. An O(n log n) case over
+	 * the sample model sizes has an exponent of about 1.15.
+	 */
+	public void setThreshold(double threshold) {
+		if (threshold <= 0) {
+			throw new IllegalArgumentException("Threshold must be positive"); //$NON-NLS-1$
+		}
+		this.threshold = threshold;
+	}
+
+	public int getMinimumSize() {
+		return minimumSize;
+	}
+
+	/**
+	 * Sets the minimum model size of the results taken into account, 1 by default
+	 */
+	public void setMinimumSize(int minimumSize) {
+		if (minimumSize < 1) {
+			throw new IllegalArgumentException("Minimum size must be positive"); //$NON-NLS-1$
+		}
+		this.minimumSize = minimumSize;
+	}
+
+	/**
+	 * Fits the argument results. Failed results, results without model properties and
+	 * results that do not support the metric are left out.
+	 *
+	 * @return one fit per case and repository, in order of appearance. Fits with less
+	 *         than three sizes have no exponent nor best fit.
+	 */
+	public List<IComplexityFit> analyze(List<IBenchmarkResult> results) {
+		Map<String, Map<Integer, StatisticsImpl>> groups = new LinkedHashMap<String, Map<Integer, StatisticsImpl>>();
+		Map<String, IBenchmarkResult> samples = new LinkedHashMap<String, IBenchmarkResult>();
+		for (IBenchmarkResult result : results) {
+			double value = MetricValues.get(result, metric);
+			if (result.isFailed() || Double.isNaN(value) || result.getModelProperties() == null
+					|| result.getModelProperties().getCount() < minimumSize) {
+				continue;
+			}
+			String key = getBaseCaseName(result.getBenchmarkCaseName()) + KEY_SEPARATOR + result.getModelRepositoryName();
+			Map<Integer, StatisticsImpl> sizes = groups.get(key);
+			if (sizes == null) {
+				sizes = new TreeMap<Integer, StatisticsImpl>();
+				groups.put(key, sizes);
+				samples.put(key, result);
+			}
+			StatisticsImpl statistics = sizes.get(result.getModelProperties().getCount());
+			if (statistics == null) {
+				statistics = new StatisticsImpl(false);
+				sizes.put(result.getModelProperties().getCount(), statistics);
+			}
+			statistics.add(value);
+		}
+		List<IComplexityFit> fits = new ArrayList<IComplexityFit>();
+		for (Map.Entry<String, Map<Integer, StatisticsImpl>> entry : groups.entrySet()) {
+			int[] sizes = new int[entry.getValue().size()];
+			double[] medians = new double[sizes.length];
+			int i = 0;
+			for (Map.Entry<Integer, StatisticsImpl> size : entry.getValue().entrySet()) {
+				sizes[i] = size.getKey();
+				medians[i++] = size.getValue().getMedian();
+			}
+			IBenchmarkResult sample = samples.get(entry.getKey());
+			fits.add(new ComplexityFitImpl(getBaseCaseName(sample.getBenchmarkCaseName()), sample.getModelRepositoryName(),
+					metric, sizes, medians, threshold));
+		}
+		return fits;
+	}
+
+	/**
+	 * Returns the name of a case that is one of the steps of a size sweep
+	 *
+	 * @param caseName the name shared by all the steps of the sweep
+	 * @param size a label for the model size of the step, e.g. "10k"
+	 */
+	public static String getSweepCaseName(String caseName, String size) {
+		return caseName + SIZE_SEPARATOR + size;
+	}
+
+	/**
+	 * Returns the argument case name without the size suffix added by
+	 * {@link #getSweepCaseName(String, String)}, if any
+	 */
+	public static String getBaseCaseName(String caseName) {
+		int index = caseName != null ? caseName.lastIndexOf(SIZE_SEPARATOR) : -1;
+		return index > 0 ? caseName.substring(0, index) : caseName;
+	}
+
+	/**
+	 * Returns a human readable report of the argument fits, one line per fit
+	 * followed by a summary line
+	 */
+	public static String toReport(List<IComplexityFit> fits) {
+		StringBuilder report = new StringBuilder();
+		int superlinear = 0;
+		for (IComplexityFit fit : fits) {
+			StringBuilder points = new StringBuilder();
+			int[] sizes = fit.getSizes();
+			double[] medians = fit.getMedians();
+			for (int i = 0; i < sizes.length; i++) {
+				points.append(i > 0 ? " " : "").append(sizes[i]).append('=').append(String.format(Locale.ENGLISH, "%.0f", medians[i])); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+			if (fit.getBestFit() == null) {
+				report.append(String.format(Locale.ENGLISH, "%-17s %s | %s | %s: %s%n", //$NON-NLS-1$
+						"INSUFFICIENT_DATA", fit.getCaseName(), fit.getRepositoryName(), fit.getMetric(), points)); //$NON-NLS-1$
+				continue;
+			}
+			if (fit.isSuperlinear()) {
+				superlinear++;
+			}
+			report.append(String.format(Locale.ENGLISH, "%-17s %s | %s | %s: n^%.2f, best fit %s (R2=%.3f) | %s%n", //$NON-NLS-1$
+					fit.isSuperlinear() ? "SUPERLINEAR" : "OK", fit.getCaseName(), fit.getRepositoryName(), fit.getMetric(), //$NON-NLS-1$ //$NON-NLS-2$
+					fit.getExponent(), fit.getBestFit(), fit.getRSquared(), points));
+		}
+		report.append(String.format(Locale.ENGLISH, "%d fits, %d superlinear%n", fits.size(), superlinear)); //$NON-NLS-1$
+		return report.toString();
+	}
+
+	/**
+	 * Returns true if any of the argument fits is {@link IComplexityFit#isSuperlinear() superlinear}
+	 */
+	public static boolean hasSuperlinear(List<IComplexityFit> fits) {
+		for (IComplexityFit fit : fits) {
+			if (fit.isSuperlinear()) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
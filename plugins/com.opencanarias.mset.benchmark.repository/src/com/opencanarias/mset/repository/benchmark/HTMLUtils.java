@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.opencanarias.mset.internal.repository.benchmark.BenchmarkReportHTML;
+
+/**
+ * Utility class to render {@link IBenchmarkResult} as a static HTML report with
+ * inline SVG charts. The report needs neither scripts nor network access, so it
+ * can be archived next to the CSV of a run and opened anywhere.
+ *
+ * @author vroldan
+ * @see CSVUtils
+ */
+public class HTMLUtils {
+
+	/**
+	 * Returns the report of the argument results, including per repository bar
+	 * charts with confidence intervals, scaling curves across model sizes and
+	 * the overhead of TCP repositories over their JVM counterparts
+	 */
+	public static String toReport(String title, List<IBenchmarkResult> results) {
+		return toReport(title, results, Collections.<IHeapSeries>emptyList());
+	}
+
+	/**
+	 * Returns the report of the argument results, also including heap timelines
+	 * from the argument series
+	 *
+	 * @see HeapSeriesUtils#read(java.io.File)
+	 */
+	public static String toReport(String title, List<IBenchmarkResult> results, List<IHeapSeries> heapSeries) {
+		return BenchmarkReportHTML.toHTML(title, results, heapSeries);
+	}
+}
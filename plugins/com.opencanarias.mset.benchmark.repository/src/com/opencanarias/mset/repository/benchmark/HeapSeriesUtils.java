@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import com.opencanarias.mset.internal.repository.benchmark.HeapSeriesBinary;
+
+/**
+ * Set of utilities to store the {@link IBenchmarkResult#getHeapSnapshots() heap snapshots}
+ * of results in a compact binary columnar file, and read them back as {@link IHeapSeries}.
+ * Neither {@link CSVUtils} nor {@link JSONUtils} entries contain the snapshots, only
+ * their averages.
+ * <p>
+ * Files are a sequence of independent blocks, one per result, so results may be
+ * appended to the same file as they become available. See {@link HeapSeriesBinary}
+ * for the layout.
+ *
+ * @author vroldan
+ * @see ResultJournal
+ */
+public class HeapSeriesUtils {
+
+	private static String CSV_HEADER = "Case" + CSVUtils.getFieldSeparator() //$NON-NLS-1$
+			+ "Repository" + CSVUtils.getFieldSeparator() //$NON-NLS-1$
+			+ "group" + CSVUtils.getFieldSeparator() //$NON-NLS-1$
+			+ "iteration" + CSVUtils.getFieldSeparator() //$NON-NLS-1$
+			+ "timestamp" + CSVUtils.getFieldSeparator() //$NON-NLS-1$
+			+ "usedBytes" + CSVUtils.getFieldSeparator() //$NON-NLS-1$
+			+ "committedBytes" + CSVUtils.getFieldSeparator() //$NON-NLS-1$
+			+ "poolUsedBytes" + CSVUtils.getLineSeparator(); //$NON-NLS-1$
+
+	/**
+	 * Appends the snapshots of the argument result to the argument file, creating it
+	 * if it does not exist, and forces them to disk. Nothing is written if the
+	 * result has no snapshots.
+	 *
+	 * @param group the name of the group of the case, may be null
+	 * @param iteration the iteration the result belongs to
+	 */
+	public static void append(File file, IBenchmarkResult result, String group, int iteration) throws IOException {
+		if (result.getHeapSnapshots().isEmpty()) {
+			return;
+		}
+		byte[] block = HeapSeriesBinary.toBinary(result, group, iteration);
+		FileOutputStream output = new FileOutputStream(file, true);
+		try {
+			output.write(block);
+			output.getFD().sync();
+		} finally {
+			output.close();
+		}
+	}
+
+	/**
+	 * Reads all the series of the argument file. An incomplete last series, as
+	 * written by a process killed while appending, is skipped.
+	 *
+	 * @throws IllegalArgumentException if the file is not a heap series file
+	 */
+	public static List<IHeapSeries> read(File file) throws IOException {
+		InputStream input = new BufferedInputStream(new FileInputStream(file));
+		try {
+			return HeapSeriesBinary.fromBinary(input);
+		} finally {
+			input.close();
+		}
+	}
+
+	/**
+	 * Returns the argument series as CSV, one line per snapshot, for plotting.
+	 * Pool usages are written as a {@link CSVUtils#toDetailEntry(java.util.Map) detail field}.
+	 */
+	public static String toCSV(List<IHeapSeries> series) {
+		StringBuilder builder = new StringBuilder(CSV_HEADER);
+		for (IHeapSeries serie : series) {
+			String prefix = serie.getCaseName() + CSVUtils.getFieldSeparator()
+					+ serie.getRepositoryName() + CSVUtils.getFieldSeparator()
+					+ (serie.getGroup() != null ? serie.getGroup() : "") + CSVUtils.getFieldSeparator() //$NON-NLS-1$
+					+ serie.getIteration() + CSVUtils.getFieldSeparator();
+			for (IHeapSnapshot snapshot : serie.getSnapshots()) {
+				builder.append(prefix)
+					.append(snapshot.getTimestamp()).append(CSVUtils.getFieldSeparator())
+					.append(snapshot.getUsedBytes()).append(CSVUtils.getFieldSeparator())
+					.append(snapshot.getCommittedBytes()).append(CSVUtils.getFieldSeparator())
+					.append(CSVUtils.toDetailEntry(snapshot.getPoolUsedBytes()))
+					.append(CSVUtils.getLineSeparator());
+			}
+		}
+		return builder.toString();
+	}
+}
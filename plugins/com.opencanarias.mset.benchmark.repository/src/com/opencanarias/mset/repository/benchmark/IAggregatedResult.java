@@ -12,15 +12,42 @@ package com.opencanarias.mset.repository.benchmark;
 
 import java.util.List;
 
+import com.opencanarias.mset.repository.benchmark.IModelOperation.OperationType;
+
 /**
  * Simple bean interface to group results {@link IBenchmarkResult}
  * Calculate statistics from group result (average, minimum, maximum and standard deviation)
+ * <p>
+ * Besides real time, {@link IStatistics} are available for every {@link Metric} and for
+ * the latency of every {@link OperationType}, optionally rejecting outliers.
  * 
  * @author dlutzardo
  * @see IBenchmarkResult
  */
 public interface IAggregatedResult {
 	
+	/**
+	 * Metrics of an {@link IBenchmarkResult} that {@link IStatistics} are calculated for
+	 */
+	public enum Metric {
+		/** {@link IBenchmarkResult#getRealTimeNanos()}, in nanoseconds */
+		REAL_TIME,
+		/** {@link IBenchmarkResult#getCPUTimeNanos()}, in nanoseconds */
+		CPU_TIME,
+		/** {@link IBenchmarkResult#getUserTimeNanos()}, in nanoseconds */
+		USER_TIME,
+		/** {@link IBenchmarkResult#getAllocatedBytes()}, if supported */
+		ALLOCATED_BYTES,
+		/** {@link IBenchmarkResult#getAllocationRate()}, in megabytes per second, if supported */
+		ALLOCATION_RATE,
+		/** {@link IBenchmarkResult#getGCCount()} */
+		GC_COUNT,
+		/** {@link IBenchmarkResult#getGCTime()}, in milliseconds */
+		GC_TIME,
+		/** {@link IBenchmarkResult#getAverageUsedMemory()}, in megabytes */
+		AVERAGE_USED_MEMORY
+	}
+	
 	/**
 	 * An unmodifiable list of the {@link IBenchmarkResult}
 	 * 
@@ -65,4 +92,28 @@ public interface IAggregatedResult {
 	 * @return a long representing the standard deviation of the real time (in milliseconds)
 	 */
 	public long getRealTimeDeviation();
+	
+	/**
+	 * Returns the statistics of the argument metric over the aggregated results. 
+	 * Results that do not support the metric are not taken into account.
+	 * 
+	 * @param metric the {@link Metric} to get statistics for
+	 * @return the {@link IStatistics} of the metric, never null
+	 */
+	public IStatistics getStatistics(Metric metric);
+	
+	/**
+	 * Returns the statistics of the mean latency of the argument operation in every 
+	 * aggregated result, in nanoseconds. Results that did not call the operation
+	 * are not taken into account.
+	 * 
+	 * @param operation the {@link OperationType} to get statistics for
+	 * @return the {@link IStatistics} of the operation latency, never null
+	 */
+	public IStatistics getLatencyStatistics(OperationType operation);
+	
+	/**
+	 * Returns true if values outside the Tukey fences are left out of the statistics
+	 */
+	public boolean isOutlierRejection();
 }
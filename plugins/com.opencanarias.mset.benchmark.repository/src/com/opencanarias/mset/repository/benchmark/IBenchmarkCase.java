@@ -10,6 +10,9 @@
  */
 package com.opencanarias.mset.repository.benchmark;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * A benchmark case defines an arbitrary set of model operations,
  * with a reference model as input persisted in a given {@link IModelRepository}. The implementation
@@ -68,6 +71,31 @@ public interface IBenchmarkCase {
 	 */
 	public IBenchmarkModel getBenchmarkModel();
 
+	/**
+	 * The axes of the parameter space of this {@link IBenchmarkCase case}. The case is
+	 * executed once per point of their Cartesian product, see {@link ParameterSpace}.
+	 * 
+	 * @return the axes of this case, empty if it has a single configuration
+	 */
+	public List<ParameterAxis> getParameterAxes();
+
+	/**
+	 * Returns the point of the parameter space the next executions use
+	 * 
+	 * @return a map from axis names to values, empty if no point was selected
+	 */
+	public Map<String, String> getParameters();
+
+	/**
+	 * Selects the point of the parameter space the next executions use. The
+	 * {@link #getName() name} of the case identifies the point, and the
+	 * {@link #getBenchmarkModel() model} may change.
+	 * 
+	 * @param parameters a map from the names of some of the {@link #getParameterAxes() axes} to values
+	 * @throws IllegalArgumentException if a parameter is not an axis of this case
+	 */
+	public void setParameters(Map<String, String> parameters);
+
 	/**
 	 * {@link IBenchmarkCase} must be executed under the same conditions for 
 	 * every repository. To achieve this, some caching may be necessary.
@@ -29,7 +29,9 @@ public interface IBenchmarkMeter {
 
 	/**
 	 * Returns the time it takes before another performance 
-	 * snapshot is taken. This amount is specified in milliseconds.
+	 * snapshot is taken. This amount is specified in milliseconds,
+	 * being 1 ms the highest supported frequency. An interval of 0
+	 * means heap snapshots are not taken.
 	 *   
 	 * @return an amount of time between snapshots, in milliseconds 
 	 */
@@ -11,6 +11,11 @@
 package com.opencanarias.mset.repository.benchmark;
 
 import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EObject;
+
+import com.opencanarias.mset.repository.benchmark.IModelOperation.OperationType;
 
 /**
  * Simple bean interface to model performance information of
@@ -33,16 +38,105 @@ import java.util.List;
  */
 public interface IBenchmarkResult {
 	
+	/**
+	 * Name of the thread group under which the CPU and user time of the thread
+	 * executing the {@link IBenchmarkCase} is reported.
+	 * 
+	 * @see IBenchmarkResult#getThreadCPUTimes()
+	 */
+	public static final String CALLER_THREAD_GROUP = "caller"; //$NON-NLS-1$
+	
 	/**
 	 * Returns in milliseconds the amount of CPU Time the
 	 * {@link IBenchmarkCase#executeBenchmark(IBenchmarkData)} logic required
-	 * to be fully executed.
+	 * to be fully executed. This accounts for every live thread in the JVM
+	 * (i.e., the repository server threads as well as the client).
 	 * 
 	 * @return a long value representing the CPU time (in milliseconds) 
 	 *         required to perform the {@link IBenchmarkCase} main logic
+	 * @see IBenchmarkResult#getThreadCPUTimes()
 	 */
 	public long getCPUTime();
 	
+	/**
+	 * Same as {@link IBenchmarkResult#getCPUTime()}, in nanoseconds.
+	 * 
+	 * @return a long value representing the CPU time (in nanoseconds)
+	 */
+	public long getCPUTimeNanos();
+	
+	/**
+	 * Returns in milliseconds the amount of CPU Time spent in user mode
+	 * by every live thread in the JVM during the {@link IBenchmarkCase} main logic.
+	 * 
+	 * @return a long value representing the user time (in milliseconds)
+	 */
+	public long getUserTime();
+	
+	/**
+	 * Same as {@link IBenchmarkResult#getUserTime()}, in nanoseconds.
+	 * 
+	 * @return a long value representing the user time (in nanoseconds)
+	 */
+	public long getUserTimeNanos();
+	
+	/**
+	 * Returns the CPU time (in nanoseconds) consumed during the {@link IBenchmarkCase} 
+	 * main logic, grouped by thread name. Numbers following a separator in the thread
+	 * name are replaced by <code>#</code>, so that all the workers of a given pool 
+	 * are accounted together. The thread executing the case is accounted under
+	 * {@link IBenchmarkResult#CALLER_THREAD_GROUP}.
+	 * 
+	 * @return an unmodifiable map of thread group names to CPU time in nanoseconds
+	 */
+	public Map<String, Long> getThreadCPUTimes();
+	
+	/**
+	 * Returns the user time (in nanoseconds) consumed during the {@link IBenchmarkCase}
+	 * main logic, grouped by thread name as in {@link IBenchmarkResult#getThreadCPUTimes()}.
+	 * 
+	 * @return an unmodifiable map of thread group names to user time in nanoseconds
+	 */
+	public Map<String, Long> getThreadUserTimes();
+	
+	/**
+	 * Returns the number of bytes allocated in the heap by every live thread
+	 * in the JVM during the {@link IBenchmarkCase} main logic. This accounts for
+	 * all the garbage produced, no matter whether it has been collected or not.
+	 * 
+	 * @return a long value representing the allocated bytes, or -1 if the
+	 *         JVM does not support measuring thread allocations
+	 */
+	public long getAllocatedBytes();
+	
+	/**
+	 * Returns the bytes allocated during the {@link IBenchmarkCase} main logic, 
+	 * grouped by thread name as in {@link IBenchmarkResult#getThreadCPUTimes()}.
+	 * 
+	 * @return an unmodifiable map of thread group names to allocated bytes
+	 */
+	public Map<String, Long> getThreadAllocatedBytes();
+	
+	/**
+	 * Returns {@link IBenchmarkResult#getAllocatedBytes()} normalized by the
+	 * number of elements of the benchmark model, as given by 
+	 * {@link IModelProperties#getCount()}.
+	 * 
+	 * @return a double value representing the allocated bytes per {@link EObject},
+	 *         or -1 if either allocations or model size are unknown
+	 */
+	public double getAllocatedBytesPerElement();
+	
+	/**
+	 * Returns the rate at which the {@link IBenchmarkCase} main logic allocates
+	 * memory, this is, {@link IBenchmarkResult#getAllocatedBytes()} divided by
+	 * {@link IBenchmarkResult#getRealTimeNanos()}.
+	 * 
+	 * @return a double value representing the allocation rate in megabytes per second,
+	 *         or -1 if allocations are unknown
+	 */
+	public double getAllocationRate();
+	
 	/**
 	 * Returns in milliseconds the amount of real time (or wall time) the  
 	 * {@link IBenchmarkCase#executeBenchmark(IBenchmarkData)} logic required
@@ -53,6 +147,14 @@ public interface IBenchmarkResult {
 	 */
 	public long getRealTime();
 	
+	/**
+	 * Same as {@link IBenchmarkResult#getRealTime()}, in nanoseconds. Use this
+	 * value for cases whose execution takes less than a few milliseconds.
+	 * 
+	 * @return a long value representing the real time (in nanoseconds)
+	 */
+	public long getRealTimeNanos();
+	
 	/**
 	 * Returns the average of heap usage during the course of the
 	 * logic implemented at {@link IBenchmarkCase#executeBenchmark(IBenchmarkData)}
@@ -98,6 +200,82 @@ public interface IBenchmarkResult {
 	 */
 	public long getMaxAvailableMemory();
 	
+	/**
+	 * Returns the number of garbage collections that took place during the
+	 * {@link IBenchmarkCase} main logic, indexed by garbage collector name.
+	 * 
+	 * @return an unmodifiable map of collector names to number of collections
+	 */
+	public Map<String, Long> getGCCounts();
+	
+	/**
+	 * Returns the time spent in garbage collection (in milliseconds) during the
+	 * {@link IBenchmarkCase} main logic, indexed by garbage collector name.
+	 * 
+	 * @return an unmodifiable map of collector names to collection time in milliseconds
+	 */
+	public Map<String, Long> getGCTimes();
+	
+	/**
+	 * Returns the total number of garbage collections, for all collectors,
+	 * that took place during the {@link IBenchmarkCase} main logic.
+	 * 
+	 * @return the total number of garbage collections
+	 */
+	public long getGCCount();
+	
+	/**
+	 * Returns the total time spent in garbage collection, for all collectors,
+	 * during the {@link IBenchmarkCase} main logic, in milliseconds.
+	 * 
+	 * @return the total garbage collection time in milliseconds
+	 */
+	public long getGCTime();
+	
+	/**
+	 * Returns the usage and peak usage of every JVM memory pool (i.e., eden space, 
+	 * survivor space, old generation, metaspace or code cache) for the course of 
+	 * the {@link IBenchmarkCase} main logic, indexed by pool name.
+	 * 
+	 * @return an unmodifiable map of pool names to {@link IMemoryPoolUsage}
+	 */
+	public Map<String, IMemoryPoolUsage> getMemoryPoolUsages();
+	
+	/**
+	 * Returns the latency distribution of the calls to each {@link IModelOperation model operation}
+	 * during the {@link IBenchmarkCase} main logic. Only operations called at least once are
+	 * present. Percentiles (p50, p90, p99, p99.9) and maximum are available 
+	 * through {@link ILatencyHistogram}.
+	 * 
+	 * @return an unmodifiable map of {@link OperationType operations} to their {@link ILatencyHistogram}
+	 */
+	public Map<OperationType, ILatencyHistogram> getOperationLatencies();
+	
+	/**
+	 * Returns the number of times the {@link IBenchmarkCase} was executed, and discarded,
+	 * to warm up the JVM before the measured execution.
+	 * 
+	 * @return the number of warm-up iterations, 0 if the case was not warmed up
+	 */
+	public int getWarmupIterations();
+	
+	/**
+	 * Returns the real time spent warming up before the measured execution, in nanoseconds.
+	 * 
+	 * @return the warm-up time in nanoseconds, 0 if the case was not warmed up
+	 */
+	public long getWarmupTimeNanos();
+	
+	/**
+	 * Indicates whether warm-up finished because execution times became stable, 
+	 * in contrast to reaching the maximum warm-up iterations or time. Along with 
+	 * {@link IBenchmarkResult#getWarmupIterations()}, it shows the time to 
+	 * steady state of each {@link IModelRepository}.
+	 * 
+	 * @return true if steady state was detected during warm-up, false otherwise
+	 */
+	public boolean isSteadyStateReached();
+	
 	/**
 	 * Returns all the captured {@link IHeapSnapshot} during the course
 	 * of the {@link IBenchmarkCase} being measured. These {@link IHeapSnapshot snapshots}
@@ -111,7 +289,8 @@ public interface IBenchmarkResult {
 	/**
 	 * The {@link IModelRepository} used by this {@link IBenchmarkCase} occurrence.
 	 * 
-	 * @return the model repository used in this particular {@link IBenchmarkCase} execution. 
+	 * @return the model repository used in this particular {@link IBenchmarkCase} execution,
+	 *         or null if the result was gathered in a different JVM. 
 	 */
 	public IModelRepository getModelRepository();
 	
@@ -119,12 +298,33 @@ public interface IBenchmarkResult {
 	 * The {@link IBenchmarkCase} whose execution has been measured and is 
 	 * depicted in this {@link IBenchmarkResult} instance.
 	 *  
-	 * @return the {@link IBenchmarkCase} instance executed that lead to this result.
+	 * @return the {@link IBenchmarkCase} instance executed that lead to this result,
+	 *         or null if the result was gathered in a different JVM.
 	 */
 	public IBenchmarkCase getBenchmarkCase();
 	
 	/**
-	 * The properties of the model used as input for the {@link IBenchmarkCase}
+	 * The {@link IModelRepository#getName() name} of the {@link IModelRepository} used by this 
+	 * {@link IBenchmarkCase} occurrence. Unlike {@link IBenchmarkResult#getModelRepository()},
+	 * it is available for results gathered in a different JVM.
+	 * 
+	 * @return the name of the model repository, or null if unknown
+	 */
+	public String getModelRepositoryName();
+	
+	/**
+	 * The {@link IBenchmarkCase#getName() name} of the {@link IBenchmarkCase} whose execution
+	 * has been measured. Unlike {@link IBenchmarkResult#getBenchmarkCase()}, it is available
+	 * for results gathered in a different JVM.
+	 * 
+	 * @return the name of the benchmark case, or null if unknown
+	 */
+	public String getBenchmarkCaseName();
+	
+	/**
+	 * The properties of the model used as input for the {@link IBenchmarkCase}.
+	 * For generated models, they include the {@link IModelProperties#getSeed() seed}
+	 * that reproduces the model.
 	 * 
 	 * @return the properties of the model used as input for the {@link IBenchmarkCase} 
 	 */
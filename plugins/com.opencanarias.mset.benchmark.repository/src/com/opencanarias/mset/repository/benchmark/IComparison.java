@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+/**
+ * Outcome of comparing a {@link IAggregatedResult.Metric metric} between the
+ * baseline and the candidate {@link IBenchmarkResult results} of the same case,
+ * repository and {@link IModelProperties model properties}.
+ *
+ * @author vroldan
+ * @see RegressionDetector
+ */
+public interface IComparison {
+
+	/**
+	 * Classification of a comparison. Lower values are considered better for
+	 * every metric.
+	 */
+	public enum Verdict {
+		/** The candidate is significantly and relevantly worse */
+		REGRESSION,
+		/** The candidate is significantly and relevantly better */
+		IMPROVEMENT,
+		/** No significant or relevant difference was found */
+		UNCHANGED,
+		/** One of the sides lacks results to compare */
+		INSUFFICIENT_DATA
+	}
+
+	public String getCaseName();
+
+	public String getRepositoryName();
+
+	public IModelProperties getModelProperties();
+
+	public IAggregatedResult.Metric getMetric();
+
+	/**
+	 * Returns the number of baseline results compared
+	 */
+	public int getBaselineCount();
+
+	/**
+	 * Returns the number of candidate results compared
+	 */
+	public int getCandidateCount();
+
+	/**
+	 * Returns the median of the metric in the baseline, in the unit of the metric
+	 */
+	public double getBaselineMedian();
+
+	/**
+	 * Returns the median of the metric in the candidate, in the unit of the metric
+	 */
+	public double getCandidateMedian();
+
+	/**
+	 * Returns the change of the candidate median relative to the baseline one,
+	 * e.g. 0.1 if the candidate median is 10% greater
+	 */
+	public double getRelativeChange();
+
+	/**
+	 * Returns the two-sided p-value of the Mann-Whitney U test, 1 if there is
+	 * not enough data
+	 */
+	public double getPValue();
+
+	/**
+	 * Returns Cliff's delta, between -1 and 1, positive if the candidate values
+	 * tend to be greater than the baseline ones
+	 */
+	public double getEffectSize();
+
+	public Verdict getVerdict();
+}
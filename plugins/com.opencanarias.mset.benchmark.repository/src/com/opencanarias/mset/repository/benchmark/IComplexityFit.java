@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+/**
+ * How a {@link IAggregatedResult.Metric metric} of a case grows with the
+ * {@link IModelProperties#getCount() model size} in a repository, as fitted
+ * from results measured at different sizes.
+ *
+ * @author vroldan
+ * @see ComplexityAnalyzer
+ */
+public interface IComplexityFit {
+
+	/**
+	 * Complexity models the measurements are fitted to, as <code>a + b * f(n)</code>
+	 */
+	public enum ComplexityClass {
+		/** O(n) */
+		LINEAR,
+		/** O(n log n) */
+		LINEARITHMIC,
+		/** O(n^2) */
+		QUADRATIC
+	}
+
+	/**
+	 * Returns the name of the case, without the size suffix of
+	 * {@link ComplexityAnalyzer#getSweepCaseName(String, String) sweep cases}
+	 */
+	public String getCaseName();
+
+	public String getRepositoryName();
+
+	public IAggregatedResult.Metric getMetric();
+
+	/**
+	 * Returns the distinct model sizes measured, ascending
+	 */
+	public int[] getSizes();
+
+	/**
+	 * Returns the median of the metric at each of the {@link #getSizes() sizes},
+	 * in the unit of the metric
+	 */
+	public double[] getMedians();
+
+	/**
+	 * Returns the slope of the medians against the sizes in log-log scale, i.e.
+	 * <code>k</code> in <code>t ~ n^k</code>, or NaN if there are not enough sizes
+	 */
+	public double getExponent();
+
+	/**
+	 * Returns the complexity model with the least squared error, or null if there
+	 * are not enough sizes
+	 */
+	public ComplexityClass getBestFit();
+
+	/**
+	 * Returns the coefficient of determination of the {@link #getBestFit() best fit},
+	 * between 0 and 1
+	 */
+	public double getRSquared();
+
+	/**
+	 * Returns true if the {@link #getExponent() exponent} exceeds the threshold of the
+	 * analyzer, i.e. the metric grows faster than the model
+	 */
+	public boolean isSuperlinear();
+}
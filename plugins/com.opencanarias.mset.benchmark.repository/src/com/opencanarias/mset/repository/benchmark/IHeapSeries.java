@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import java.util.List;
+
+/**
+ * The {@link IHeapSnapshot heap snapshots} sampled during the measurement of an
+ * {@link IBenchmarkResult}, as read back from a heap series file.
+ *
+ * @author vroldan
+ * @see HeapSeriesUtils
+ */
+public interface IHeapSeries {
+
+	public String getCaseName();
+
+	public String getRepositoryName();
+
+	/**
+	 * Returns the name of the {@link IBenchmarkGroup} of the case, null if unknown
+	 */
+	public String getGroup();
+
+	/**
+	 * Returns the iteration the result belongs to, starting at 1, 0 if unknown
+	 */
+	public int getIteration();
+
+	/**
+	 * Returns the names of the heap memory pools sampled
+	 */
+	public List<String> getPoolNames();
+
+	/**
+	 * Returns the snapshots, oldest first
+	 */
+	public List<IHeapSnapshot> getSnapshots();
+}
@@ -10,6 +10,8 @@
  */
 package com.opencanarias.mset.repository.benchmark;
 
+import java.util.Map;
+
 /**
  * Represents the status of the Java Heap in a arbitrary moment
  * during the execution of the application.
@@ -58,4 +60,27 @@ public interface IHeapSnapshot {
 	 * @return the maximum size in megabytes defined at the time snapshot was taken 
 	 */
 	public long getMaxAvailableMemory();
+	
+	/**
+	 * Returns heap usage at the time the snapshot was taken, in bytes.
+	 * 
+	 * @return a long representing the amount of heap memory used in bytes
+	 */
+	public long getUsedBytes();
+	
+	/**
+	 * Returns the heap memory committed by the JVM at the time the snapshot was taken, 
+	 * in bytes. This is the byte precise value of {@link IHeapSnapshot#getTotalAvailableMemory()}
+	 * 
+	 * @return a long representing the heap size in bytes
+	 */
+	public long getCommittedBytes();
+	
+	/**
+	 * Returns the usage of every heap memory pool at the time the snapshot was 
+	 * taken, in bytes, indexed by pool name (e.g. eden, survivor and old generation).
+	 * 
+	 * @return the used bytes of every heap memory pool, empty if not sampled
+	 */
+	public Map<String, Long> getPoolUsedBytes();
 }
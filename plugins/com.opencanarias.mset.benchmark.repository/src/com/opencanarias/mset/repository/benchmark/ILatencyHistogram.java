@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+/**
+ * Represents the distribution of the latencies of every call to a
+ * given {@link IModelOperation model operation} during the course of the
+ * logic measured by an {@link IBenchmarkCase}.
+ * <p>
+ * Latencies are recorded into log-linear buckets, so that percentiles are
+ * reported with a relative error below 1%, no matter their magnitude.
+ * Minimum and maximum values are exact. All values are expressed in nanoseconds.
+ * 
+ * @author vroldan
+ * @see IBenchmarkResult#getOperationLatencies()
+ */
+public interface ILatencyHistogram {
+
+	/**
+	 * Returns the number of calls recorded
+	 * 
+	 * @return a long representing the number of recorded calls
+	 */
+	public long getCount();
+
+	/**
+	 * Returns the lowest latency recorded, in nanoseconds
+	 * 
+	 * @return the lowest latency, or 0 if no calls were recorded
+	 */
+	public long getMin();
+
+	/**
+	 * Returns the highest latency recorded, in nanoseconds
+	 * 
+	 * @return the highest latency, or 0 if no calls were recorded
+	 */
+	public long getMax();
+
+	/**
+	 * Returns the mean latency of all calls recorded, in nanoseconds
+	 * 
+	 * @return the mean latency, or 0 if no calls were recorded
+	 */
+	public double getMean();
+
+	/**
+	 * Returns the latency below which the argument percentage of calls fall, in nanoseconds.
+	 * 
+	 * @param percentile a value between 0 and 100
+	 * @return the latency at the argument percentile, or 0 if no calls were recorded
+	 */
+	public long getValueAtPercentile(double percentile);
+
+	/**
+	 * Same as {@link ILatencyHistogram#getValueAtPercentile(double) getValueAtPercentile(50)}
+	 */
+	public long getP50();
+
+	/**
+	 * Same as {@link ILatencyHistogram#getValueAtPercentile(double) getValueAtPercentile(90)}
+	 */
+	public long getP90();
+
+	/**
+	 * Same as {@link ILatencyHistogram#getValueAtPercentile(double) getValueAtPercentile(99)}
+	 */
+	public long getP99();
+
+	/**
+	 * Same as {@link ILatencyHistogram#getValueAtPercentile(double) getValueAtPercentile(99.9)}
+	 */
+	public long getP999();
+}
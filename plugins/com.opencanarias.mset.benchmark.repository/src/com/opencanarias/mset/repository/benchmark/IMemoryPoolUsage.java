@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+/**
+ * Represents the usage of a JVM memory pool (i.e., eden space, survivor space,
+ * old generation, metaspace or code cache) during the course of the logic measured
+ * by an {@link IBenchmarkMeter}.
+ *
+ * @author vroldan
+ * @see IBenchmarkResult#getMemoryPoolUsages()
+ */
+public interface IMemoryPoolUsage {
+
+	/**
+	 * The name of the memory pool, as reported by the JVM
+	 *
+	 * @return a String representing the name of the memory pool
+	 */
+	public String getName();
+
+	/**
+	 * Indicates whether this memory pool is part of the heap
+	 *
+	 * @return true if the pool belongs to the heap, false otherwise
+	 */
+	public boolean isHeap();
+
+	/**
+	 * Returns the amount of memory used in this pool once the measurement finished, in bytes.
+	 *
+	 * @return a long representing the amount of memory used in bytes
+	 */
+	public long getUsed();
+
+	/**
+	 * Returns the amount of memory committed for this pool once the measurement finished, in bytes.
+	 *
+	 * @return a long representing the amount of memory committed in bytes
+	 */
+	public long getCommitted();
+
+	/**
+	 * Returns the peak of memory used in this pool during the measurement, in bytes.
+	 *
+	 * @return a long representing the peak of memory used in bytes
+	 */
+	public long getPeakUsed();
+}
@@ -23,6 +23,36 @@ import org.eclipse.emf.ecore.resource.ResourceSet;
  */
 public interface IModelOperation {
 
+	/**
+	 * Identifies each of the {@link IModelOperation model operations}, so
+	 * that information about their executions may be reported separately.
+	 * 
+	 * @author vroldan
+	 * @see IBenchmarkResult#getOperationLatencies()
+	 */
+	public enum OperationType {
+		/**
+		 * Both {@link IModelOperation#save(EObject)} and {@link IModelOperation#save(Resource)}
+		 */
+		SAVE,
+		/**
+		 * {@link IModelOperation#createResource()}
+		 */
+		CREATE_RESOURCE,
+		/**
+		 * {@link IModelOperation#loadResource(URI)}
+		 */
+		LOAD_RESOURCE,
+		/**
+		 * {@link IModelOperation#unloadResource(Resource)}
+		 */
+		UNLOAD_RESOURCE,
+		/**
+		 * {@link IModelOperation#loadEObject(URI, String)}
+		 */
+		LOAD_EOBJECT
+	}
+
 	/**
 	 * Persists the argument {@link EObject} tree in an 
 	 * arbitrary {@link Resource} implementation. Therefore, the {@link EObject} 
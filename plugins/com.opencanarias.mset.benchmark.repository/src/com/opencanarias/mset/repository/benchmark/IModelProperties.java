@@ -32,6 +32,12 @@ public interface IModelProperties {
 	 */
 	public final static int NOT_MEMORY_SENSITIVE = -1;
 	
+	/**
+	 * Indicates this {@link IModelProperties} does not define a seed,
+	 * so any generator should choose one.
+	 */
+	public final static long UNSEEDED = 0;
+	
 	/**
 	 * Returns the number of {@link EObject} a model should have.
 	 * 
@@ -126,4 +132,20 @@ public interface IModelProperties {
 	 */
 	public void setMemUsage(final int memUsage);
 	
+	/**
+	 * Returns the seed of the random values of the model. The same properties
+	 * and seed must always produce the same model, unless memory sensitive.
+	 * 
+	 * @return the seed of the model, or {@link IModelProperties#UNSEEDED}
+	 */
+	public long getSeed();
+	
+	/**
+	 * Sets the seed of the random values of the model.
+	 * 
+	 * @param seed the seed of the model, or {@link IModelProperties#UNSEEDED}
+	 *             to let the generator choose one
+	 */
+	public void setSeed(final long seed);
+	
 }
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+/**
+ * Descriptive statistics of a metric over the {@link IBenchmarkResult results}
+ * of an {@link IAggregatedResult}. Values are expressed in the unit of the metric.
+ * <p>
+ * If outlier rejection is enabled in the aggregation, every statistic is calculated
+ * without the values outside the Tukey fences <code>[Q1 - 1.5 IQR, Q3 + 1.5 IQR]</code>.
+ *
+ * @author vroldan
+ * @see IAggregatedResult#getStatistics(IAggregatedResult.Metric)
+ */
+public interface IStatistics {
+
+	/**
+	 * Returns the number of values the statistics are calculated from
+	 */
+	public int getCount();
+
+	/**
+	 * Returns the arithmetic mean, 0 if there are no values
+	 */
+	public double getMean();
+
+	/**
+	 * Returns the sample standard deviation, 0 if there are less than two values
+	 */
+	public double getStandardDeviation();
+
+	/**
+	 * Returns the minimum value, 0 if there are no values
+	 */
+	public double getMin();
+
+	/**
+	 * Returns the maximum value, 0 if there are no values
+	 */
+	public double getMax();
+
+	/**
+	 * Returns the median, 0 if there are no values
+	 */
+	public double getMedian();
+
+	/**
+	 * Returns the median absolute deviation from the median, unscaled
+	 */
+	public double getMedianAbsoluteDeviation();
+
+	/**
+	 * Returns the value at the argument percentile, interpolating linearly between
+	 * the closest ranks
+	 *
+	 * @param percentile a value between 0 and 100
+	 * @throws IllegalArgumentException if the percentile is out of range
+	 */
+	public double getPercentile(double percentile);
+
+	/**
+	 * Returns the lower bound of the 95% bootstrap confidence interval of the mean
+	 */
+	public double getConfidenceIntervalLow();
+
+	/**
+	 * Returns the upper bound of the 95% bootstrap confidence interval of the mean
+	 */
+	public double getConfidenceIntervalHigh();
+
+	/**
+	 * Returns the number of values rejected as outliers, 0 if outlier rejection is disabled
+	 */
+	public int getOutlierCount();
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import com.opencanarias.mset.internal.repository.benchmark.BenchmarkResultJSON;
+
+/**
+ * Set of utilities to convert {@link IBenchmarkResult} from and to JSON, 
+ * one result per line, so that results may be streamed between JVMs.
+ * <p>
+ * Since the {@link IBenchmarkCase} and {@link IModelRepository} instances are 
+ * not available in the JVM reading the entries, they are only kept by name 
+ * (see {@link IBenchmarkResult#getBenchmarkCaseName()} and 
+ * {@link IBenchmarkResult#getModelRepositoryName()}). {@link IHeapSnapshot Heap snapshots}
+ * are not part of the entries.
+ * 
+ * @author vroldan
+ * @see CSVUtils
+ */
+public class JSONUtils {
+
+	private static final String LINE_SEPARATOR = "\n"; //$NON-NLS-1$
+
+	/**
+	 * Returns the String constant separating JSON entries
+	 * 
+	 * @return the String constant separating JSON entries
+	 */
+	public static String getLineSeparator() {
+		return LINE_SEPARATOR;
+	}
+
+	/**
+	 * Returns the JSON entry for the argument {@link IBenchmarkResult}, a single 
+	 * line JSON object ended by {@link JSONUtils#getLineSeparator()}.
+	 * 
+	 * @return a String representing the result as a JSON object
+	 */
+	public static String toEntry(IBenchmarkResult result) {
+		return BenchmarkResultJSON.toJSON(result) + LINE_SEPARATOR;
+	}
+
+	/**
+	 * Reads an {@link IBenchmarkResult} from an entry created by {@link JSONUtils#toEntry(IBenchmarkResult)}
+	 * 
+	 * @param entry a JSON object representing an {@link IBenchmarkResult}
+	 * @return an {@link IBenchmarkResult} equivalent to the one written in the entry
+	 * @throws IllegalArgumentException if the entry is not a valid {@link IBenchmarkResult}
+	 */
+	public static IBenchmarkResult parseEntry(String entry) {
+		return BenchmarkResultJSON.fromJSON(entry.trim());
+	}
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.MessageFormat;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EFactory;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.BinaryResourceImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opencanarias.mset.benchmark.repository.model.node.NodeFactory;
+import com.opencanarias.mset.benchmark.repository.model.node.NodePackage;
+import com.opencanarias.mset.internal.repository.benchmark.BenchmarkModelImpl;
+
+/**
+ * Keeps the models generated by the {@link BenchmarkModelGenerator} in a local directory,
+ * so that every model is generated once per machine, and loaded afterwards. Models are
+ * stored uncompressed in EMF's binary format, in a file named after a digest of their
+ * {@link IModelProperties properties}, seed and metamodel.
+ * <p>
+ * Only the models of seeds chosen by the caller, or given by {@link BenchmarkModelGenerator#PROPERTY_SEED},
+ * are cached. Seeds the generator drew at random, even once set on the properties, would never be
+ * requested again. Memory sensitive models depend on the heap available, so they are not cached either.
+ *
+ * @author vroldan
+ */
+public class ModelCache {
+
+	/**
+	 * System property with the directory of the {@link #getDefault() default} cache,
+	 * <code>.mset/models</code> in the user home by default. An empty value disables it.
+	 */
+	public static final String PROPERTY_DIRECTORY = "mset.benchmark.generator.cache"; //$NON-NLS-1$
+
+	/*
+	 * Changes whenever the same properties and seed produce a different model,
+	 * so that models of previous versions are no longer used
+	 */
+	private static final int GENERATOR_VERSION = 1;
+
+	private static final String EXTENSION = "." + BenchmarkUtils.getBinaryResourceExtension(); //$NON-NLS-1$
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+	private static Logger logger = LoggerFactory.getLogger(ModelCache.class);
+
+	private final File directory;
+
+	public ModelCache(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns the cache in the directory of {@link #PROPERTY_DIRECTORY}, or null if disabled
+	 */
+	public static ModelCache getDefault() {
+		String directory = System.getProperty(PROPERTY_DIRECTORY);
+		if (directory == null) {
+			return new ModelCache(new File(new File(System.getProperty("user.home"), ".mset"), "models")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return directory.trim().length() > 0 ? new ModelCache(new File(directory.trim())) : null;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Same as {@link #getModel(BenchmarkModelGenerator, EFactory, EPackage, IModelProperties)}
+	 * with the default EPackage and EFactory
+	 */
+	public IBenchmarkModel getModel(BenchmarkModelGenerator generator, IModelProperties props) {
+		return getModel(generator, NodeFactory.eINSTANCE, NodePackage.eINSTANCE, props);
+	}
+
+	/**
+	 * Returns the cached model of the argument properties, or generates and caches it.
+	 * The seed used is set on unseeded properties, as if generated.
+	 */
+	public IBenchmarkModel getModel(BenchmarkModelGenerator generator, EFactory factory, EPackage ePackage, IModelProperties props) {
+		if (props == BenchmarkModelGenerator.VOID_PROPERTIES) {
+			return BenchmarkModelGenerator.VOID_MODEL;
+		}
+		long seed = props.getSeed() != IModelProperties.UNSEEDED ? props.getSeed()
+				: Long.getLong(BenchmarkModelGenerator.PROPERTY_SEED, IModelProperties.UNSEEDED);
+		if (seed == IModelProperties.UNSEEDED || BenchmarkModelGenerator.isRandomSeed(seed) || props.getMemUsage() != IModelProperties.NOT_MEMORY_SENSITIVE) {
+			logger.debug("Model {} is not reproducible, so it is not cached", props);
+			return generator.generateModel(factory, ePackage, props);
+		}
+		props.setSeed(seed);
+		File file = new File(directory, getKey(ePackage, props) + EXTENSION);
+		if (file.isFile()) {
+			long start = System.nanoTime();
+			try {
+				EObject root = load(file);
+				logger.info("Model cache hit for {}, loaded in {} ms", props, (System.nanoTime() - start) / 1000000);
+				return new BenchmarkModelImpl(root);
+			} catch (IOException e) {
+				logger.warn("Cached model {} could not be loaded, generating it again: {}", file, e.toString());
+			}
+		}
+		long start = System.nanoTime();
+		IBenchmarkModel model = generator.generateModel(factory, ePackage, props);
+		long generated = System.nanoTime();
+		try {
+			store(model.getRoot(), file);
+			logger.info("Model cache miss for {}, generated in {} ms and stored in {} ms", props,
+					(generated - start) / 1000000, (System.nanoTime() - generated) / 1000000);
+		} catch (IOException e) {
+			logger.warn("Model could not be cached at {}: {}", file, e.toString());
+		}
+		return model;
+	}
+
+	/**
+	 * Returns the name of the file of the model of the argument properties, which must be seeded
+	 */
+	public static String getKey(EPackage ePackage, IModelProperties props) {
+		String key = MessageFormat.format("{0}|{1}|{2}|{3}|{4}|{5}|{6}", ePackage.getNsURI(), //$NON-NLS-1$
+				String.valueOf(props.getCount()), String.valueOf(props.getDepth()), String.valueOf(props.getWidth()),
+				String.valueOf(props.getValueLength()), String.valueOf(props.getSeed()), String.valueOf(GENERATOR_VERSION));
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8")); //$NON-NLS-1$ //$NON-NLS-2$
+			char[] hex = new char[digest.length * 2];
+			for (int i = 0; i < digest.length; i++) {
+				hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+				hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+			}
+			return new String(hex);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/*
+	 * The root is detached from the resource, as generated models are
+	 */
+	private static EObject load(File file) throws IOException {
+		Resource resource = new BinaryResourceImpl(URI.createFileURI(file.getAbsolutePath()));
+		InputStream input = new BufferedInputStream(new FileInputStream(file));
+		try {
+			resource.load(input, null);
+		} finally {
+			input.close();
+		}
+		if (resource.getContents().isEmpty()) {
+			throw new IOException("Empty cached model " + file); //$NON-NLS-1$
+		}
+		return resource.getContents().remove(0);
+	}
+
+	/*
+	 * Written to a temporary file first, so that concurrent runs never read a partial model
+	 */
+	private void store(EObject root, File file) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Could not create directory " + directory); //$NON-NLS-1$
+		}
+		File temporary = File.createTempFile(file.getName(), ".tmp", directory); //$NON-NLS-1$
+		Resource resource = new BinaryResourceImpl(URI.createFileURI(file.getAbsolutePath()));
+		resource.getContents().add(root);
+		try {
+			OutputStream output = new BufferedOutputStream(new FileOutputStream(temporary));
+			try {
+				resource.save(output, null);
+			} finally {
+				output.close();
+			}
+			if (!temporary.renameTo(file) && !file.isFile()) {
+				throw new IOException("Could not rename " + temporary + " to " + file); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		} finally {
+			resource.getContents().remove(root);
+			temporary.delete();
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A named dimension of the parameter space of an {@link IBenchmarkCase}, with the
+ * values the case is executed with. Values are kept as text, as they are shown in
+ * case names and may be given through system properties.
+ * <p>
+ * {@link AbstractBenchmarkCase} understands the axes declared in this class.
+ * Cases may declare their own axes, and read them through
+ * {@link AbstractBenchmarkCase#getParameter(String, String)}.
+ *
+ * @author vroldan
+ * @see ParameterSpace
+ */
+public class ParameterAxis {
+
+	/**
+	 * Number of elements of the generated model, see {@link IModelProperties#getCount()}.
+	 * Values may use the suffixes <code>k</code> and <code>m</code>, e.g. <code>10k</code>.
+	 */
+	public static final String COUNT = "count"; //$NON-NLS-1$
+
+	/**
+	 * Shape of the generated model as <code>depth</code>x<code>width</code>, e.g. <code>8x10</code>,
+	 * see {@link IModelProperties#getDepth()} and {@link IModelProperties#getWidth()}
+	 */
+	public static final String SHAPE = "shape"; //$NON-NLS-1$
+
+	/**
+	 * Length of the attribute values of the generated model, see {@link IModelProperties#getValueLength()}
+	 */
+	public static final String VALUE_LENGTH = "valueLength"; //$NON-NLS-1$
+
+	/**
+	 * Whether the repository may cache the model, <code>true</code> or <code>false</code>
+	 */
+	public static final String CACHING = "caching"; //$NON-NLS-1$
+
+	private static final String SHAPE_SEPARATOR = "x"; //$NON-NLS-1$
+
+	private final String name;
+
+	private final List<String> values;
+
+	public ParameterAxis(String name, String... values) {
+		this(name, Arrays.asList(values));
+	}
+
+	public ParameterAxis(String name, List<String> values) {
+		if (name == null || name.length() == 0) {
+			throw new IllegalArgumentException("Axis name must not be empty"); //$NON-NLS-1$
+		}
+		if (values.isEmpty()) {
+			throw new IllegalArgumentException("Axis " + name + " must have values"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		this.name = name;
+		this.values = Collections.unmodifiableList(new ArrayList<String>(values));
+	}
+
+	/**
+	 * Returns an axis with the values from <code>from</code> to <code>to</code>, both
+	 * included, each one <code>factor</code> times the previous one
+	 */
+	public static ParameterAxis geometric(String name, long from, long to, long factor) {
+		if (from <= 0 || factor <= 1 || to < from) {
+			throw new IllegalArgumentException("Invalid geometric axis " + name); //$NON-NLS-1$
+		}
+		List<String> values = new ArrayList<String>();
+		for (long value = from; value <= to; value *= factor) {
+			values.add(String.valueOf(value));
+		}
+		return new ParameterAxis(name, values);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the values of this axis, in execution order
+	 */
+	public List<String> getValues() {
+		return values;
+	}
+
+	/**
+	 * Parses a {@link #COUNT} value, e.g. <code>1m</code> is one million
+	 *
+	 * @throws IllegalArgumentException if the value is not a non negative count
+	 */
+	public static int parseCount(String value) {
+		String text = value.trim().toLowerCase();
+		long factor = 1;
+		if (text.endsWith("k")) { //$NON-NLS-1$
+			factor = 1000;
+		} else if (text.endsWith("m")) { //$NON-NLS-1$
+			factor = 1000000;
+		}
+		if (factor > 1) {
+			text = text.substring(0, text.length() - 1);
+		}
+		long count = Long.parseLong(text) * factor;
+		if (count < 0 || count > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid count " + value); //$NON-NLS-1$
+		}
+		return (int)count;
+	}
+
+	/**
+	 * Parses a {@link #SHAPE} value into its depth and width
+	 *
+	 * @throws IllegalArgumentException if the value is not a shape
+	 */
+	public static int[] parseShape(String value) {
+		String[] parts = value.trim().toLowerCase().split(SHAPE_SEPARATOR);
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Invalid shape " + value + ", expected depthxwidth"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		return new int[] {Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
+	}
+
+	@Override
+	public String toString() {
+		return name + values;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Expands the {@link IBenchmarkCase#getParameterAxes() axes} of a case into the
+ * points it is executed with, i.e. the Cartesian product of the values of all axes.
+ * <p>
+ * The values of any declared axis may be replaced with the system property
+ * {@link #PROPERTY_PREFIX}<code>axisName</code>, a comma separated list, e.g.
+ * <code>-Dmset.benchmark.axis.count=1k,10k,100k,1m</code>.
+ *
+ * @author vroldan
+ */
+public class ParameterSpace {
+
+	/**
+	 * Prefix of the system properties replacing the values of an axis
+	 */
+	public static final String PROPERTY_PREFIX = "mset.benchmark.axis."; //$NON-NLS-1$
+
+	private static final String VALUE_SEPARATOR = ","; //$NON-NLS-1$
+
+	/**
+	 * Returns the points of the argument case, after replacing the values of the axes
+	 * given through system properties. A case without axes has a single, empty, point.
+	 */
+	public static List<Map<String, String>> getPoints(IBenchmarkCase benchmarkCase) {
+		List<ParameterAxis> axes = new ArrayList<ParameterAxis>();
+		for (ParameterAxis axis : benchmarkCase.getParameterAxes()) {
+			String values = System.getProperty(PROPERTY_PREFIX + axis.getName());
+			if (values != null && values.trim().length() > 0) {
+				List<String> overridden = new ArrayList<String>();
+				for (String value : values.split(VALUE_SEPARATOR)) {
+					overridden.add(value.trim());
+				}
+				axes.add(new ParameterAxis(axis.getName(), overridden));
+			} else {
+				axes.add(axis);
+			}
+		}
+		return expand(axes);
+	}
+
+	/**
+	 * Returns the Cartesian product of the argument axes, the values of the last
+	 * axis varying first. Each point maps the axis names to values, in axis order.
+	 */
+	public static List<Map<String, String>> expand(List<ParameterAxis> axes) {
+		List<Map<String, String>> points = new ArrayList<Map<String, String>>();
+		points.add(Collections.<String, String>emptyMap());
+		for (ParameterAxis axis : axes) {
+			List<Map<String, String>> expanded = new ArrayList<Map<String, String>>(points.size() * axis.getValues().size());
+			for (Map<String, String> point : points) {
+				for (String value : axis.getValues()) {
+					Map<String, String> next = new LinkedHashMap<String, String>(point);
+					next.put(axis.getName(), value);
+					expanded.add(next);
+				}
+			}
+			points = expanded;
+		}
+		return points;
+	}
+
+	/**
+	 * Returns the suffix that identifies the argument point in case names, e.g.
+	 * <code>[shape=8x10,caching=true]@10k</code>. The {@link ParameterAxis#COUNT count}
+	 * goes last as a {@link ComplexityAnalyzer#getSweepCaseName(String, String) size suffix},
+	 * so that points differing only in size are analyzed together.
+	 *
+	 * @return the suffix, empty for an empty point
+	 */
+	public static String getLabel(Map<String, String> point) {
+		StringBuilder label = new StringBuilder();
+		for (Map.Entry<String, String> entry : point.entrySet()) {
+			if (ParameterAxis.COUNT.equals(entry.getKey())) {
+				continue;
+			}
+			label.append(label.length() == 0 ? "[" : VALUE_SEPARATOR) //$NON-NLS-1$
+				.append(entry.getKey()).append('=').append(entry.getValue());
+		}
+		if (label.length() > 0) {
+			label.append(']');
+		}
+		String count = point.get(ParameterAxis.COUNT);
+		return count != null ? ComplexityAnalyzer.getSweepCaseName(label.toString(), count) : label.toString();
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.opencanarias.mset.internal.repository.benchmark.ComparisonImpl;
+import com.opencanarias.mset.internal.repository.benchmark.MannWhitneyTest;
+import com.opencanarias.mset.internal.repository.benchmark.MetricValues;
+import com.opencanarias.mset.internal.repository.benchmark.StatisticsImpl;
+import com.opencanarias.mset.repository.benchmark.IAggregatedResult.Metric;
+import com.opencanarias.mset.repository.benchmark.IComparison.Verdict;
+
+/**
+ * Compares two sets of {@link IBenchmarkResult results}, typically read from the
+ * files of two benchmark runs, to find out which cases got slower or faster.
+ * <p>
+ * Results are matched by case name, repository name and {@link IModelProperties model properties}.
+ * For each match, the values of the {@link Metric metric} are compared with a Mann-Whitney U test,
+ * which makes no assumption about their distribution. A difference is only reported if it is
+ * significant, i.e. its p-value is below the significance level, and relevant, i.e. the
+ * medians differ by at least the relative threshold. Both conditions are needed: with
+ * many iterations tiny differences become significant, and with few iterations large
+ * differences may be noise. At least five iterations per side are advisable.
+ *
+ * @author vroldan
+ * @see CSVUtils#parseResults(String)
+ * @see JSONUtils#parseEntry(String)
+ */
+public class RegressionDetector {
+
+	/** Default significance level */
+	public static final double DEFAULT_SIGNIFICANCE = 0.05;
+
+	/** Default relative change of the medians considered relevant */
+	public static final double DEFAULT_THRESHOLD = 0.05;
+
+	private static final int MIN_SAMPLES = 2;
+
+	private static final String KEY_SEPARATOR = "|"; //$NON-NLS-1$
+
+	private Metric metric = Metric.REAL_TIME;
+
+	private double significance = DEFAULT_SIGNIFICANCE;
+
+	private double threshold = DEFAULT_THRESHOLD;
+
+	public Metric getMetric() {
+		return metric;
+	}
+
+	/**
+	 * Sets the metric to compare, {@link Metric#REAL_TIME} by default
+	 */
+	public void setMetric(Metric metric) {
+		this.metric = metric;
+	}
+
+	public double getSignificance() {
+		return significance;
+	}
+
+	/**
+	 * Sets the maximum p-value for a difference to be significant
+	 */
+	public void setSignificance(double significance) {
+		if (significance <= 0 || significance >= 1) {
+			throw new IllegalArgumentException("Significance must be between 0 and 1"); //$NON-NLS-1$
+		}
+		this.significance = significance;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Sets the minimum relative change of the medians for a difference to be
+	 * relevant, e.g. 0.05 for 5%
+	 */
+	public void setThreshold(double threshold) {
+		if (threshold < 0) {
+			throw new IllegalArgumentException("Threshold must not be negative"); //$NON-NLS-1$
+		}
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Compares the candidate results against the baseline ones. Failed results and
+	 * results that do not support the metric are left out.
+	 *
+	 * @return one comparison per case, repository and model properties found in
+	 *         any of both sets, in order of appearance
+	 */
+	public List<IComparison> compare(List<IBenchmarkResult> baseline, List<IBenchmarkResult> candidate) {
+		Map<String, List<IBenchmarkResult>> baselineGroups = group(baseline);
+		Map<String, List<IBenchmarkResult>> candidateGroups = group(candidate);
+		Map<String, IBenchmarkResult> keys = new LinkedHashMap<String, IBenchmarkResult>();
+		for (Map.Entry<String, List<IBenchmarkResult>> entry : baselineGroups.entrySet()) {
+			keys.put(entry.getKey(), entry.getValue().get(0));
+		}
+		for (Map.Entry<String, List<IBenchmarkResult>> entry : candidateGroups.entrySet()) {
+			if (!keys.containsKey(entry.getKey())) {
+				keys.put(entry.getKey(), entry.getValue().get(0));
+			}
+		}
+		List<IComparison> comparisons = new ArrayList<IComparison>();
+		for (Map.Entry<String, IBenchmarkResult> entry : keys.entrySet()) {
+			comparisons.add(compare(entry.getValue(), baselineGroups.get(entry.getKey()), candidateGroups.get(entry.getKey())));
+		}
+		return comparisons;
+	}
+
+	private IComparison compare(IBenchmarkResult sample, List<IBenchmarkResult> baseline, List<IBenchmarkResult> candidate) {
+		ComparisonImpl comparison = new ComparisonImpl(sample.getBenchmarkCaseName(), sample.getModelRepositoryName(),
+				sample.getModelProperties(), metric);
+		double[] baselineValues = getValues(baseline);
+		double[] candidateValues = getValues(candidate);
+		comparison.setBaselineCount(baselineValues.length);
+		comparison.setCandidateCount(candidateValues.length);
+		comparison.setBaselineMedian(getMedian(baselineValues));
+		comparison.setCandidateMedian(getMedian(candidateValues));
+		if (baselineValues.length < MIN_SAMPLES || candidateValues.length < MIN_SAMPLES) {
+			return comparison;
+		}
+		MannWhitneyTest test = new MannWhitneyTest(baselineValues, candidateValues);
+		comparison.setPValue(test.getPValue());
+		comparison.setEffectSize(test.getEffectSize());
+		double change = comparison.getRelativeChange();
+		if (test.getPValue() < significance && Math.abs(change) >= threshold) {
+			comparison.setVerdict(change > 0 ? Verdict.REGRESSION : Verdict.IMPROVEMENT);
+		} else {
+			comparison.setVerdict(Verdict.UNCHANGED);
+		}
+		return comparison;
+	}
+
+	private Map<String, List<IBenchmarkResult>> group(List<IBenchmarkResult> results) {
+		Map<String, List<IBenchmarkResult>> groups = new LinkedHashMap<String, List<IBenchmarkResult>>();
+		for (IBenchmarkResult result : results) {
+			if (result.isFailed() || Double.isNaN(MetricValues.get(result, metric))) {
+				continue;
+			}
+			String key = getKey(result);
+			List<IBenchmarkResult> group = groups.get(key);
+			if (group == null) {
+				group = new ArrayList<IBenchmarkResult>();
+				groups.put(key, group);
+			}
+			group.add(result);
+		}
+		return groups;
+	}
+
+	private double[] getValues(List<IBenchmarkResult> results) {
+		if (results == null) {
+			return new double[0];
+		}
+		double[] values = new double[results.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = MetricValues.get(results.get(i), metric);
+		}
+		return values;
+	}
+
+	private static double getMedian(double[] values) {
+		StatisticsImpl statistics = new StatisticsImpl(false);
+		for (double value : values) {
+			statistics.add(value);
+		}
+		return statistics.getMedian();
+	}
+
+	private static String getKey(IBenchmarkResult result) {
+		IModelProperties properties = result.getModelProperties();
+		StringBuilder key = new StringBuilder();
+		key.append(result.getBenchmarkCaseName()).append(KEY_SEPARATOR).append(result.getModelRepositoryName());
+		if (properties != null) {
+			key.append(KEY_SEPARATOR).append(properties.getCount())
+				.append(KEY_SEPARATOR).append(properties.getDepth())
+				.append(KEY_SEPARATOR).append(properties.getWidth());
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Returns a human readable report of the argument comparisons, one line per
+	 * comparison followed by a summary line
+	 */
+	public static String toReport(List<IComparison> comparisons) {
+		StringBuilder report = new StringBuilder();
+		int regressions = 0;
+		int improvements = 0;
+		for (IComparison comparison : comparisons) {
+			IModelProperties properties = comparison.getModelProperties();
+			report.append(String.format(Locale.ENGLISH, "%-17s %s | %s | %s | %s: %.0f -> %.0f (%+.1f%%) p=%.4f delta=%+.2f n=%d/%d%n", //$NON-NLS-1$
+					comparison.getVerdict(), comparison.getCaseName(), comparison.getRepositoryName(),
+					properties != null ? properties.getCount() + "x" + properties.getDepth() + "x" + properties.getWidth() : "-", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					comparison.getMetric(), comparison.getBaselineMedian(), comparison.getCandidateMedian(),
+					comparison.getRelativeChange() * 100, comparison.getPValue(), comparison.getEffectSize(),
+					comparison.getBaselineCount(), comparison.getCandidateCount()));
+			if (comparison.getVerdict() == Verdict.REGRESSION) {
+				regressions++;
+			} else if (comparison.getVerdict() == Verdict.IMPROVEMENT) {
+				improvements++;
+			}
+		}
+		report.append(String.format(Locale.ENGLISH, "%d comparisons, %d regressions, %d improvements%n", //$NON-NLS-1$
+				comparisons.size(), regressions, improvements));
+		return report.toString();
+	}
+
+	/**
+	 * Returns true if any of the argument comparisons is a {@link Verdict#REGRESSION}
+	 */
+	public static boolean hasRegressions(List<IComparison> comparisons) {
+		for (IComparison comparison : comparisons) {
+			if (comparison.getVerdict() == Verdict.REGRESSION) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2014 Open Canarias and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *    Victor Roldan Betancort - initial API and implementation
+ */
+package com.opencanarias.mset.repository.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opencanarias.mset.internal.repository.benchmark.BenchmarkResultJSON;
+import com.opencanarias.mset.internal.repository.benchmark.JSONParser;
+
+/**
+ * Append-only file of {@link IBenchmarkResult results}, one JSON entry per line
+ * (NDJSON). Every entry is forced to disk as soon as it is appended, so that the
+ * results of a long run survive a crash, an {@link OutOfMemoryError} or a stop,
+ * and reports may be derived from the journal afterwards.
+ * <p>
+ * Entries are {@link JSONUtils} entries with some extra attributes: the name of
+ * the {@link IBenchmarkGroup}, the iteration and the time the result was appended.
+ * Hence {@link JSONUtils#parseEntry(String)} also reads journal entries.
+ *
+ * @author vroldan
+ */
+public class ResultJournal {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResultJournal.class);
+
+	private static final String GROUP = "group"; //$NON-NLS-1$
+
+	private static final String ITERATION = "iteration"; //$NON-NLS-1$
+
+	private static final String TIMESTAMP = "timestamp"; //$NON-NLS-1$
+
+	private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+	/**
+	 * Entry of a journal
+	 */
+	public static class Entry {
+
+		private final IBenchmarkResult result;
+
+		private final String group;
+
+		private final int iteration;
+
+		private final long timestamp;
+
+		public Entry(IBenchmarkResult result, String group, int iteration, long timestamp) {
+			this.result = result;
+			this.group = group;
+			this.iteration = iteration;
+			this.timestamp = timestamp;
+		}
+
+		public IBenchmarkResult getResult() {
+			return result;
+		}
+
+		/**
+		 * Returns the name of the {@link IBenchmarkGroup} of the case, null if unknown
+		 */
+		public String getGroup() {
+			return group;
+		}
+
+		/**
+		 * Returns the iteration the result belongs to, starting at 1, 0 if unknown
+		 */
+		public int getIteration() {
+			return iteration;
+		}
+
+		/**
+		 * Returns the time the result was appended, in milliseconds since the epoch
+		 */
+		public long getTimestamp() {
+			return timestamp;
+		}
+	}
+
+	private final File file;
+
+	private final FileOutputStream output;
+
+	/**
+	 * Opens the argument journal file for appending, creating it if it does not exist
+	 */
+	public ResultJournal(File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (directory != null && !directory.exists()) {
+			directory.mkdirs();
+		}
+		this.file = file;
+		this.output = new FileOutputStream(file, true);
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Appends the argument result and forces it to disk before returning
+	 */
+	public synchronized void append(IBenchmarkResult result, String group, int iteration) throws IOException {
+		output.write(toEntry(result, group, iteration).getBytes(ENCODING));
+		output.flush();
+		output.getFD().sync();
+	}
+
+	public synchronized void close() throws IOException {
+		output.close();
+	}
+
+	/**
+	 * Returns the journal entry for the argument result, a single line ended by
+	 * {@link JSONUtils#getLineSeparator()}
+	 */
+	public static String toEntry(IBenchmarkResult result, String group, int iteration) {
+		Map<String, Object> attributes = new LinkedHashMap<String, Object>();
+		if (group != null) {
+			attributes.put(GROUP, group);
+		}
+		attributes.put(ITERATION, iteration);
+		attributes.put(TIMESTAMP, System.currentTimeMillis());
+		return BenchmarkResultJSON.toJSON(result, attributes) + JSONUtils.getLineSeparator();
+	}
+
+	/**
+	 * Reads an entry created by {@link #toEntry(IBenchmarkResult, String, int)}. Plain
+	 * {@link JSONUtils} entries are accepted as well, with unknown group and iteration.
+	 *
+	 * @throws IllegalArgumentException if the line is not a valid entry
+	 */
+	@SuppressWarnings("unchecked")
+	public static Entry parseEntry(String line) {
+		Object parsed = JSONParser.parse(line.trim());
+		if (!(parsed instanceof Map)) {
+			throw new IllegalArgumentException("A JSON object was expected"); //$NON-NLS-1$
+		}
+		Map<String, Object> json = (Map<String, Object>)parsed;
+		Object iteration = json.get(ITERATION);
+		Object timestamp = json.get(TIMESTAMP);
+		return new Entry(BenchmarkResultJSON.fromJSON(json), (String)json.get(GROUP),
+				iteration instanceof Number ? ((Number)iteration).intValue() : 0,
+				timestamp instanceof Number ? ((Number)timestamp).longValue() : 0);
+	}
+
+	/**
+	 * Reads all the entries of the argument journal. A last line that cannot be
+	 * parsed, as written by a process killed while appending, is skipped.
+	 *
+	 * @throws IllegalArgumentException if any other line is not a valid entry
+	 */
+	public static List<Entry> read(File file) throws IOException {
+		List<String> lines = new ArrayList<String>();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), ENCODING));
+		try {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.trim().length() > 0) {
+					lines.add(line);
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		List<Entry> entries = new ArrayList<Entry>(lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			try {
+				entries.add(parseEntry(lines.get(i)));
+			} catch (IllegalArgumentException e) {
+				if (i < lines.size() - 1) {
+					throw e;
+				}
+				logger.warn("Skipping incomplete last entry of journal {}", file.getAbsolutePath());
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns the results of the argument entries, in order
+	 */
+	public static List<IBenchmarkResult> getResults(List<Entry> entries) {
+		List<IBenchmarkResult> results = new ArrayList<IBenchmarkResult>(entries.size());
+		for (Entry entry : entries) {
+			results.add(entry.getResult());
+		}
+		return results;
+	}
+}